@@ -28,6 +28,7 @@
 package org.treetank.exception;
 
 import java.io.IOException;
+import java.security.GeneralSecurityException;
 
 import javax.xml.stream.XMLStreamException;
 
@@ -77,6 +78,16 @@ public final class TTIOException extends AbsTTException {
         super(paramExc);
     }
 
+    /**
+     * Constructor.
+     * 
+     * @param paramExc
+     *            exception to be wrapped
+     */
+    public TTIOException(final GeneralSecurityException paramExc) {
+        super(paramExc);
+    }
+
     /**
      * Constructor.
      * 
@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <h1>Histogram</h1>
+ * 
+ * <p>
+ * Distribution of non-negative values, e.g. latencies in nanoseconds, which may be updated concurrently.
+ * The values are counted in buckets of powers of two, so an update costs a few atomic increments and
+ * percentiles are reported as the upper bound of the bucket they fall into, at most twice the exact value.
+ * </p>
+ */
+public final class Histogram {
+
+    /** Number of buckets, one for zero and one for each bit length of a long. */
+    private static final int BUCKETS = Long.SIZE + 1;
+
+    /** Number of values in each bucket, bucket i holding the values of bit length i. */
+    private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKETS);
+
+    /** Number of values. */
+    private final AtomicLong mCount = new AtomicLong();
+
+    /** Sum of all values. */
+    private final AtomicLong mSum = new AtomicLong();
+
+    /** Largest value. */
+    private final AtomicLong mMax = new AtomicLong();
+
+    /**
+     * Recording a value, negative values are recorded as zero.
+     * 
+     * @param pValue
+     *            to be recorded
+     */
+    public void update(final long pValue) {
+        final long value = Math.max(0, pValue);
+        mBuckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(value));
+        mCount.incrementAndGet();
+        mSum.addAndGet(value);
+        long max = mMax.get();
+        while (value > max && !mMax.compareAndSet(max, value)) {
+            max = mMax.get();
+        }
+    }
+
+    /**
+     * Getting the number of recorded values.
+     * 
+     * @return the number of values
+     */
+    public long getCount() {
+        return mCount.get();
+    }
+
+    /**
+     * Getting the sum of all recorded values.
+     * 
+     * @return the sum
+     */
+    public long getSum() {
+        return mSum.get();
+    }
+
+    /**
+     * Getting the largest recorded value.
+     * 
+     * @return the largest value, 0 if nothing was recorded
+     */
+    public long getMax() {
+        return mMax.get();
+    }
+
+    /**
+     * Getting the mean of all recorded values.
+     * 
+     * @return the mean, 0 if nothing was recorded
+     */
+    public double getMean() {
+        final long count = mCount.get();
+        return count == 0 ? 0 : (double)mSum.get() / count;
+    }
+
+    /**
+     * Getting an upper bound of the given percentile of the recorded values.
+     * 
+     * @param pQuantile
+     *            the percentile as fraction between 0 and 1
+     * @return the upper bound of the bucket holding the percentile, but not more than the largest value, 0
+     *         if nothing was recorded
+     */
+    public long getPercentile(final double pQuantile) {
+        if (pQuantile < 0 || pQuantile > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1!");
+        }
+        final long rank = (long)Math.ceil(pQuantile * mCount.get());
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += mBuckets.get(i);
+            if (seen >= rank && seen > 0) {
+                final long bound = i == Long.SIZE ? Long.MAX_VALUE : (1L << i) - 1;
+                return Math.min(bound, mMax.get());
+            }
+        }
+        return mMax.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder("count: ").append(getCount()).append(" mean: ").append(getMean()).append(
+            " max: ").append(getMax()).toString();
+    }
+
+}
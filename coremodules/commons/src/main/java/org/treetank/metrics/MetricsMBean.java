@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanConstructorInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanNotificationInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ReflectionException;
+
+/**
+ * <h1>MetricsMBean</h1>
+ * 
+ * <p>
+ * Read-only view of a {@link MetricsRegistry}. Each counter is exported as one attribute named like the
+ * counter, each histogram as the attributes <code>&lt;name&gt;.count</code>, <code>.mean</code>,
+ * <code>.max</code>, <code>.p50</code> and <code>.p99</code>. Metrics created after the registration are
+ * exported as well.
+ * </p>
+ */
+final class MetricsMBean implements DynamicMBean {
+
+    /** Suffixes of the attributes of a histogram. */
+    private static final String[] SUFFIXES = {
+        ".count", ".mean", ".max", ".p50", ".p99"
+    };
+
+    /** Registry to be exported. */
+    private final MetricsRegistry mRegistry;
+
+    /**
+     * Constructor.
+     * 
+     * @param pRegistry
+     *            to be exported
+     */
+    MetricsMBean(final MetricsRegistry pRegistry) {
+        mRegistry = pRegistry;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getAttribute(final String pAttribute) throws AttributeNotFoundException {
+        final Counter counter = mRegistry.getCounters().get(pAttribute);
+        if (counter != null) {
+            return counter.get();
+        }
+        final int split = pAttribute.lastIndexOf('.');
+        final Histogram histogram =
+            split < 0 ? null : mRegistry.getHistograms().get(pAttribute.substring(0, split));
+        if (histogram != null) {
+            final String suffix = pAttribute.substring(split);
+            if (SUFFIXES[0].equals(suffix)) {
+                return histogram.getCount();
+            } else if (SUFFIXES[1].equals(suffix)) {
+                return histogram.getMean();
+            } else if (SUFFIXES[2].equals(suffix)) {
+                return histogram.getMax();
+            } else if (SUFFIXES[3].equals(suffix)) {
+                return histogram.getPercentile(0.5);
+            } else if (SUFFIXES[4].equals(suffix)) {
+                return histogram.getPercentile(0.99);
+            }
+        }
+        throw new AttributeNotFoundException(pAttribute);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AttributeList getAttributes(final String[] pAttributes) {
+        final AttributeList list = new AttributeList();
+        for (final String attribute : pAttributes) {
+            try {
+                list.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (final AttributeNotFoundException exc) {
+                // skipped as defined by DynamicMBean
+            }
+        }
+        return list;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setAttribute(final Attribute pAttribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read-only!");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AttributeList setAttributes(final AttributeList pAttributes) {
+        return new AttributeList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object invoke(final String pActionName, final Object[] pParams, final String[] pSignature)
+        throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(pActionName));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        final List<MBeanAttributeInfo> attributes = new ArrayList<MBeanAttributeInfo>();
+        for (final String name : mRegistry.getCounters().keySet()) {
+            attributes.add(new MBeanAttributeInfo(name, Long.class.getName(), "Counter " + name, true,
+                false, false));
+        }
+        for (final String name : mRegistry.getHistograms().keySet()) {
+            for (final String suffix : SUFFIXES) {
+                final String type =
+                    SUFFIXES[1].equals(suffix) ? Double.class.getName() : Long.class.getName();
+                attributes.add(new MBeanAttributeInfo(name + suffix, type, "Histogram " + name, true,
+                    false, false));
+            }
+        }
+        return new MBeanInfo(MetricsRegistry.class.getName(), "Treetank metrics", attributes
+            .toArray(new MBeanAttributeInfo[attributes.size()]), new MBeanConstructorInfo[0],
+            new MBeanOperationInfo[0], new MBeanNotificationInfo[0]);
+    }
+
+}
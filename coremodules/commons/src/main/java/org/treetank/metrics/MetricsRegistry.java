@@ -0,0 +1,195 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * <h1>MetricsRegistry</h1>
+ * 
+ * <p>
+ * Named {@link Counter}s and {@link Histogram}s of one component, e.g. a database or a session. Metrics are
+ * created on their first lookup; components should look them up once and keep them, so that recording a
+ * value costs no more than the atomic update of the metric itself. Once registered, all metrics are exported
+ * as the attributes of one MBean of the platform MBean server.
+ * </p>
+ */
+public final class MetricsRegistry {
+
+    /** Domain of the MBeans. */
+    public static final String DOMAIN = "org.treetank";
+
+    /** Counters by name. */
+    private final ConcurrentMap<String, Counter> mCounters;
+
+    /** Histograms by name. */
+    private final ConcurrentMap<String, Histogram> mHistograms;
+
+    /** Name of the registered MBean, null if not registered. */
+    private ObjectName mName;
+
+    /**
+     * Constructor.
+     */
+    public MetricsRegistry() {
+        mCounters = new ConcurrentHashMap<String, Counter>();
+        mHistograms = new ConcurrentHashMap<String, Histogram>();
+    }
+
+    /**
+     * Getting the counter with the given name, creating it if necessary.
+     * 
+     * @param pName
+     *            of the counter
+     * @return the counter
+     */
+    public Counter counter(final String pName) {
+        Counter counter = mCounters.get(pName);
+        if (counter == null) {
+            final Counter created = new Counter();
+            counter = mCounters.putIfAbsent(pName, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Getting the histogram with the given name, creating it if necessary.
+     * 
+     * @param pName
+     *            of the histogram
+     * @return the histogram
+     */
+    public Histogram histogram(final String pName) {
+        Histogram histogram = mHistograms.get(pName);
+        if (histogram == null) {
+            final Histogram created = new Histogram();
+            histogram = mHistograms.putIfAbsent(pName, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Getting all counters.
+     * 
+     * @return the counters sorted by their names
+     */
+    public SortedMap<String, Counter> getCounters() {
+        return Collections.unmodifiableSortedMap(new TreeMap<String, Counter>(mCounters));
+    }
+
+    /**
+     * Getting all histograms.
+     * 
+     * @return the histograms sorted by their names
+     */
+    public SortedMap<String, Histogram> getHistograms() {
+        return Collections.unmodifiableSortedMap(new TreeMap<String, Histogram>(mHistograms));
+    }
+
+    /**
+     * Exporting the metrics as an MBean named
+     * <code>org.treetank:type=&lt;pType&gt;,name=&lt;pName&gt;</code>. Failures of the registration, e.g. if
+     * the name is already in use, are ignored, since the metrics are recorded anyway.
+     * 
+     * @param pType
+     *            type of the component, e.g. Database
+     * @param pName
+     *            name of the component, quoted if necessary
+     * @return true if the MBean was registered, false otherwise
+     */
+    public synchronized boolean register(final String pType, final String pName) {
+        if (mName != null) {
+            return false;
+        }
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            final ObjectName name =
+                new ObjectName(new StringBuilder(DOMAIN).append(":type=").append(pType).append(",name=")
+                    .append(ObjectName.quote(pName)).toString());
+            server.registerMBean(new MetricsMBean(this), name);
+            mName = name;
+            return true;
+        } catch (final JMException exc) {
+            return false;
+        }
+    }
+
+    /**
+     * Removing the MBean registered by {@link #register(String, String)}, if any.
+     */
+    public synchronized void unregister() {
+        if (mName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(mName);
+            } catch (final JMException exc) {
+                // already removed by someone else
+            }
+            mName = null;
+        }
+    }
+
+    /**
+     * Getting the name of the registered MBean.
+     * 
+     * @return the name, null if not registered
+     */
+    public synchronized ObjectName getObjectName() {
+        return mName;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        for (final Map.Entry<String, Counter> counter : getCounters().entrySet()) {
+            builder.append(counter.getKey()).append(": ").append(counter.getValue()).append("\n");
+        }
+        for (final Map.Entry<String, Histogram> histogram : getHistograms().entrySet()) {
+            builder.append(histogram.getKey()).append(": ").append(histogram.getValue()).append("\n");
+        }
+        return builder.toString();
+    }
+
+}
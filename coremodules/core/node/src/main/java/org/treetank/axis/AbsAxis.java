@@ -219,6 +219,15 @@ public abstract class AbsAxis implements Iterator<Long>, Iterable<Long> {
         return mKey;
     }
 
+    /**
+     * Get the transaction this axis operates with.
+     * 
+     * @return the transaction
+     */
+    protected final INodeReadTrx getTransaction() {
+        return mRTX;
+    }
+
     /**
      * Get start key.
      * 
@@ -29,10 +29,10 @@ package org.treetank.axis;
 
 import static org.treetank.node.IConstants.NULL_NODE;
 
-import java.util.Stack;
+import java.util.Arrays;
 
+import org.treetank.api.INodeCursor;
 import org.treetank.api.INodeReadTrx;
-import org.treetank.node.interfaces.IStructNode;
 
 /**
  * <h1>DescendantAxis</h1>
@@ -41,11 +41,23 @@ import org.treetank.node.interfaces.IStructNode;
  * Iterate over all descendants of kind ELEMENT or TEXT starting at a given
  * node. Self is not included.
  * </p>
+ * 
+ * <p>
+ * The structure of the subtree is read with a {@link INodeCursor} so no node
+ * is created to decide where to go next. The transaction is only moved to the
+ * nodes which are returned.
+ * </p>
  */
 public final class DescendantAxis extends AbsAxis {
 
+    /** Cursor reading the keys of the subtree. */
+    private INodeCursor mCursor;
+
     /** Stack for remembering next nodeKey in document order. */
-    private Stack<Long> mRightSiblingKeyStack;
+    private long[] mRightSiblingKeyStack;
+
+    /** Number of keys on the stack. */
+    private int mStackSize;
 
     /** The nodeKey of the next node to visit. */
     private long mNextKey;
@@ -78,11 +90,16 @@ public final class DescendantAxis extends AbsAxis {
     @Override
     public void reset(final long mNodeKey) {
         super.reset(mNodeKey);
-        mRightSiblingKeyStack = new Stack<Long>();
+        mCursor = getTransaction().getCursor();
+        mCursor.moveTo(mNodeKey);
+        if (mRightSiblingKeyStack == null) {
+            mRightSiblingKeyStack = new long[16];
+        }
+        mStackSize = 0;
         if (isSelfIncluded()) {
-            mNextKey = getNode().getNodeKey();
+            mNextKey = mCursor.getNodeKey();
         } else {
-            mNextKey = ((IStructNode) getNode()).getFirstChildKey();
+            mNextKey = mCursor.getFirstChildKey();
         }
     }
 
@@ -99,33 +116,34 @@ public final class DescendantAxis extends AbsAxis {
             return false;
         }
 
-        moveTo(mNextKey);
+        mCursor.moveTo(mNextKey);
 
         // Fail if the subtree is finished.
-        if (((IStructNode) getNode()).getLeftSiblingKey() == getStartKey()) {
+        if (mCursor.getLeftSiblingKey() == getStartKey()) {
             resetToStartKey();
             return false;
         }
 
+        moveTo(mNextKey);
+
         // Always follow first child if there is one.
-        if (((IStructNode) getNode()).hasFirstChild()) {
-            mNextKey = ((IStructNode) getNode()).getFirstChildKey();
-            if (((IStructNode) getNode()).hasRightSibling()) {
-                mRightSiblingKeyStack.push(((IStructNode) getNode())
-                        .getRightSiblingKey());
+        if (mCursor.getFirstChildKey() != NULL_NODE) {
+            mNextKey = mCursor.getFirstChildKey();
+            if (mCursor.getRightSiblingKey() != NULL_NODE) {
+                push(mCursor.getRightSiblingKey());
             }
             return true;
         }
 
         // Then follow right sibling if there is one.
-        if (((IStructNode) getNode()).hasRightSibling()) {
-            mNextKey = ((IStructNode) getNode()).getRightSiblingKey();
+        if (mCursor.getRightSiblingKey() != NULL_NODE) {
+            mNextKey = mCursor.getRightSiblingKey();
             return true;
         }
 
         // Then follow right sibling on stack.
-        if (mRightSiblingKeyStack.size() > 0) {
-            mNextKey = mRightSiblingKeyStack.pop();
+        if (mStackSize > 0) {
+            mNextKey = mRightSiblingKeyStack[--mStackSize];
             return true;
         }
 
@@ -134,4 +152,17 @@ public final class DescendantAxis extends AbsAxis {
         return true;
     }
 
+    /**
+     * Pushing a right sibling key on the stack, growing it if necessary.
+     * 
+     * @param pKey
+     *            key to push
+     */
+    private void push(final long pKey) {
+        if (mStackSize == mRightSiblingKeyStack.length) {
+            mRightSiblingKeyStack = Arrays.copyOf(mRightSiblingKeyStack, mStackSize << 1);
+        }
+        mRightSiblingKeyStack[mStackSize++] = pKey;
+    }
+
 }
@@ -29,12 +29,15 @@ package org.treetank.axis;
 
 import static org.treetank.node.IConstants.ROOT_NODE;
 
+import javax.xml.namespace.QName;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.treetank.Holder;
 import org.treetank.TestHelper;
 import org.treetank.api.INodeReadTrx;
+import org.treetank.api.INodeWriteTrx;
 import org.treetank.exception.AbsTTException;
 
 public class DescendantAxisTest {
@@ -97,4 +100,27 @@ public class DescendantAxisTest {
 
     }
 
+    @Test
+    public void testIterateWithinWriteTransaction() throws AbsTTException {
+        final INodeWriteTrx wtx = holder.getSession()
+                .beginNodeWriteTransaction();
+        wtx.moveTo(9L);
+        final long firstKey = wtx.insertElementAsFirstChild(new QName("foo"));
+        final long childKey = wtx.insertTextAsFirstChild("bar");
+        wtx.moveTo(12L);
+        final long lastKey = wtx.insertElementAsRightSibling(new QName("foo"));
+
+        // The cursor of the axis has to see the uncommitted nodes.
+        wtx.moveTo(9L);
+        AbsAxisTest.testIAxisConventions(new DescendantAxis(wtx), new long[] {
+                firstKey, childKey, 11L, 12L, lastKey });
+
+        wtx.moveTo(1L);
+        AbsAxisTest.testIAxisConventions(new DescendantAxis(wtx), new long[] {
+                4L, 5L, 6L, 7L, 8L, 9L, firstKey, childKey, 11L, 12L,
+                lastKey, 13L });
+        wtx.abort();
+        wtx.close();
+    }
+
 }
@@ -0,0 +1,372 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.access;
+
+import static org.treetank.access.PageReadTrx.levelExponent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.treetank.access.conf.RetentionConfiguration;
+import org.treetank.exception.TTIOException;
+import org.treetank.io.IKey;
+import org.treetank.io.IReader;
+import org.treetank.io.IWriter;
+import org.treetank.node.delegates.ValNodeDelegate;
+import org.treetank.node.interfaces.INode;
+import org.treetank.page.IndirectPage;
+import org.treetank.page.NodePage;
+import org.treetank.page.OverflowPage;
+import org.treetank.page.PageReference;
+import org.treetank.page.RevisionRootPage;
+import org.treetank.page.UberPage;
+import org.treetank.page.interfaces.IPage;
+import org.treetank.utils.IConstants;
+
+/**
+ * <h1>Compaction</h1>
+ * 
+ * <p>
+ * Rewriting all pages reachable from the revisions to be kept with a compaction writer of the storage. The
+ * node pages of each kept revision are written completely, combined from all their fragments, so that they
+ * do not depend on the dropped revisions anymore. Revisions keep their numbers, the revision tree of the new
+ * {@link UberPage} just holds no reference for the dropped ones. Pages shared between kept revisions are
+ * only written once.
+ * </p>
+ */
+final class Compaction {
+
+    /** Session of the resource. */
+    private final Session mSession;
+
+    /** Reader for the pages to be rewritten. */
+    private final IReader mReader;
+
+    /** Writer for the rewritten pages. */
+    private final IWriter mWriter;
+
+    /** Revisions to be kept. */
+    private final RetentionConfiguration mRetention;
+
+    /** References to the rewritten pages, identified by the keys of the pages they are rewritten from. */
+    private final Map<Long, PageReference> mRewritten;
+
+    /** Uber page to be rewritten, exclusively read for this compaction. */
+    private UberPage mUberPage;
+
+    /**
+     * Constructor.
+     * 
+     * @param paramSession
+     *            session of the resource
+     * @param paramReader
+     *            reader for the pages to be rewritten
+     * @param paramWriter
+     *            compaction writer for the rewritten pages
+     * @param paramRetention
+     *            revisions to be kept
+     */
+    Compaction(final Session paramSession, final IReader paramReader, final IWriter paramWriter,
+        final RetentionConfiguration paramRetention) {
+        mSession = paramSession;
+        mReader = paramReader;
+        mWriter = paramWriter;
+        mRetention = paramRetention;
+        mRewritten = new HashMap<Long, PageReference>();
+    }
+
+    /**
+     * Rewriting the kept revisions and writing the new uber page as first reference.
+     * 
+     * @return the new uber page
+     * @throws TTIOException
+     *             if the pages could not be read or written
+     */
+    UberPage compact() throws TTIOException {
+        mUberPage = (UberPage)mReader.readFirstReference().getPage();
+        final PageReference revisions =
+            rewriteRevisions(mUberPage.getIndirectPageReference(), 0, mUberPage.getRevisionTreeHeight(), 0,
+                mUberPage.getRevisionNumber());
+        relink(mUberPage, mUberPage.getIndirectPageReference(), revisions);
+
+        final PageReference uberRef = new PageReference();
+        uberRef.setPage(mUberPage);
+        mWriter.writeFirstReference(uberRef);
+        revisions.setPage(null);
+        return mUberPage;
+    }
+
+    /**
+     * Rewriting the part of the revision tree holding the kept revisions.
+     * 
+     * @param paramReference
+     *            reference to the old page
+     * @param paramLevel
+     *            level of the page in the tree
+     * @param paramHeight
+     *            height of the tree
+     * @param paramKey
+     *            first revision covered by the page
+     * @param paramLastRevision
+     *            last revision of the resource
+     * @return reference to the rewritten page, null if no kept revision is covered by the page
+     * @throws TTIOException
+     *             if the pages could not be read or written
+     */
+    private PageReference rewriteRevisions(final PageReference paramReference, final int paramLevel,
+        final int paramHeight, final long paramKey, final long paramLastRevision) throws TTIOException {
+        if (paramReference.getKey() == null) {
+            return null;
+        }
+        if (paramLevel == paramHeight) {
+            if (paramKey > paramLastRevision || !mRetention.isRetained(paramKey, paramLastRevision)) {
+                return null;
+            }
+            return rewriteRevisionRoot(paramReference, paramKey);
+        }
+
+        final IPage oldPage = mReader.read(paramReference.getKey());
+        final IndirectPage page = new IndirectPage(oldPage.getRevision());
+        boolean empty = true;
+        for (int i = 0; i < IConstants.INP_REFERENCE_COUNT; i++) {
+            final PageReference child =
+                rewriteRevisions(oldPage.getReferences()[i], paramLevel + 1, paramHeight, paramKey
+                    + ((long)i << levelExponent(paramLevel, paramHeight)), paramLastRevision);
+            if (child != null) {
+                page.getReferences()[i] = child;
+                empty = false;
+            }
+        }
+        return empty ? null : write(page);
+    }
+
+    /**
+     * Rewriting a revision root page together with its name page and node tree.
+     * 
+     * @param paramReference
+     *            reference to the old revision root page
+     * @param paramRevision
+     *            number of the revision
+     * @return reference to the rewritten page
+     * @throws TTIOException
+     *             if the pages could not be read or written
+     */
+    private PageReference rewriteRevisionRoot(final PageReference paramReference, final long paramRevision)
+        throws TTIOException {
+        final PageReadTrx rtx = new PageReadTrx(mSession, mUberPage, paramRevision, mReader);
+        final RevisionRootPage page = (RevisionRootPage)mReader.read(paramReference.getKey());
+
+        final PageReference nodes =
+            rewriteNodes(page.getIndirectPageReference(), 0, page.getNodeTreeHeight(), 0, rtx);
+        final PageReference names = rewriteNames(page.getNamePageReference());
+        relink(page, page.getIndirectPageReference(), nodes);
+        relink(page, page.getNamePageReference(), names);
+        return write(page);
+    }
+
+    /**
+     * Rewriting the name page tree of a revision.
+     * 
+     * @param paramReference
+     *            reference to the old indirect page on top of the name pages
+     * @return reference to the rewritten page
+     * @throws TTIOException
+     *             if the pages could not be read or written
+     */
+    private PageReference rewriteNames(final PageReference paramReference) throws TTIOException {
+        final Long oldKey = paramReference.getKey().getIdentifier();
+        PageReference rewritten = mRewritten.get(oldKey);
+        if (rewritten == null) {
+            final IPage oldPage = mReader.read(paramReference.getKey());
+            final IndirectPage page = new IndirectPage(oldPage.getRevision());
+            for (int i = 0; i < IConstants.INP_REFERENCE_COUNT; i++) {
+                if (oldPage.getReferences()[i].getKey() != null) {
+                    page.getReferences()[i] = rewritePage(oldPage.getReferences()[i]);
+                }
+            }
+            rewritten = write(page);
+            mRewritten.put(oldKey, rewritten);
+        }
+        return rewritten;
+    }
+
+    /**
+     * Rewriting a page without references, like a name page.
+     * 
+     * @param paramReference
+     *            reference to the old page
+     * @return reference to the rewritten page
+     * @throws TTIOException
+     *             if the page could not be read or written
+     */
+    private PageReference rewritePage(final PageReference paramReference) throws TTIOException {
+        final Long oldKey = paramReference.getKey().getIdentifier();
+        PageReference rewritten = mRewritten.get(oldKey);
+        if (rewritten == null) {
+            rewritten = write(mReader.read(paramReference.getKey()));
+            mRewritten.put(oldKey, rewritten);
+        }
+        return rewritten;
+    }
+
+    /**
+     * Rewriting the node tree of a revision. The node pages are combined from their fragments.
+     * 
+     * @param paramReference
+     *            reference to the old page
+     * @param paramLevel
+     *            level of the page in the tree
+     * @param paramHeight
+     *            height of the tree
+     * @param paramKey
+     *            first node page key covered by the page
+     * @param paramRtx
+     *            transaction reading the revision
+     * @return reference to the rewritten page, null if there is no old page
+     * @throws TTIOException
+     *             if the pages could not be read or written
+     */
+    private PageReference rewriteNodes(final PageReference paramReference, final int paramLevel,
+        final int paramHeight, final long paramKey, final PageReadTrx paramRtx) throws TTIOException {
+        if (paramReference.getKey() == null) {
+            return null;
+        }
+        final Long oldKey = paramReference.getKey().getIdentifier();
+        PageReference rewritten = mRewritten.get(oldKey);
+        if (rewritten != null) {
+            return rewritten;
+        }
+
+        if (paramLevel == paramHeight) {
+            final NodePage[] fragments = paramRtx.getSnapshotPages(paramKey);
+            final NodePage page =
+                mSession.mResourceConfig.mRevision.combinePages(fragments,
+                    mSession.mResourceConfig.mRevisionsToRestore);
+            for (int i = 0; i < page.getNodeCount(); i++) {
+                if (page.hasNode(i)) {
+                    final INode node = (INode)page.getNode(i);
+                    final ValNodeDelegate val = node.getKind().getValDelegate(node);
+                    if (val != null && val.getOverflowKey() != null) {
+                        val.setOverflowKey(rewriteOverflow(val.getOverflowKey()));
+                    }
+                }
+            }
+            rewritten = write(page);
+        } else {
+            final IPage oldPage = mReader.read(paramReference.getKey());
+            final IndirectPage page = new IndirectPage(oldPage.getRevision());
+            for (int i = 0; i < IConstants.INP_REFERENCE_COUNT; i++) {
+                final PageReference child =
+                    rewriteNodes(oldPage.getReferences()[i], paramLevel + 1, paramHeight, paramKey
+                        + ((long)i << levelExponent(paramLevel, paramHeight)), paramRtx);
+                if (child != null) {
+                    page.getReferences()[i] = child;
+                }
+            }
+            rewritten = write(page);
+        }
+        mRewritten.put(oldKey, rewritten);
+        return rewritten;
+    }
+
+    /**
+     * Rewriting a chain of overflow pages. The chain is written from its last page on, since each page
+     * references its successor.
+     * 
+     * @param paramKey
+     *            key of the first old page
+     * @return key of the first rewritten page
+     * @throws TTIOException
+     *             if the pages could not be read or written
+     */
+    private IKey rewriteOverflow(final IKey paramKey) throws TTIOException {
+        final Long oldKey = paramKey.getIdentifier();
+        PageReference rewritten = mRewritten.get(oldKey);
+        if (rewritten == null) {
+            final List<OverflowPage> chain = new ArrayList<OverflowPage>();
+            IKey key = paramKey;
+            while (key != null) {
+                final OverflowPage page = (OverflowPage)mReader.read(key);
+                chain.add(page);
+                key = page.getNextReference().getKey();
+            }
+            for (int i = chain.size() - 1; i >= 0; i--) {
+                final OverflowPage old = chain.get(i);
+                final OverflowPage page = new OverflowPage(old.getChunk(), old.getRevision());
+                if (rewritten != null) {
+                    page.getReferences()[0] = rewritten;
+                }
+                rewritten = write(page);
+            }
+            mRewritten.put(oldKey, rewritten);
+        }
+        return rewritten.getKey();
+    }
+
+    /**
+     * Writing a page. Since the keys of all referenced pages are known as soon as a page holding references
+     * is written, the referenced pages are released afterwards.
+     * 
+     * @param paramPage
+     *            to be written
+     * @return reference to the written page
+     * @throws TTIOException
+     *             if the page could not be written
+     */
+    private PageReference write(final IPage paramPage) throws TTIOException {
+        final PageReference reference = new PageReference();
+        reference.setPage(paramPage);
+        mWriter.write(reference);
+        for (final PageReference child : paramPage.getReferences()) {
+            child.setPage(null);
+        }
+        return reference;
+    }
+
+    /**
+     * Replacing a reference of a page.
+     * 
+     * @param paramPage
+     *            holding the reference
+     * @param paramOld
+     *            reference to be replaced
+     * @param paramNew
+     *            replacing reference
+     */
+    private static void relink(final IPage paramPage, final PageReference paramOld,
+        final PageReference paramNew) {
+        final PageReference[] references = paramPage.getReferences();
+        for (int i = 0; i < references.length; i++) {
+            if (references[i] == paramOld) {
+                references[i] = paramNew;
+            }
+        }
+    }
+
+}
@@ -33,6 +33,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -48,6 +49,12 @@ import org.treetank.exception.AbsTTException;
 import org.treetank.exception.TTIOException;
 import org.treetank.exception.TTUsageException;
 import org.treetank.io.EStorage;
+import org.treetank.io.ISyncListener;
+import org.treetank.io.SyncGroup;
+import org.treetank.io.codec.ECodec;
+import org.treetank.metrics.Histogram;
+import org.treetank.metrics.MetricsRegistry;
+import org.treetank.utils.IConstants;
 
 /**
  * This class represents one concrete database for enabling several {@link ISession} objects.
@@ -66,6 +73,12 @@ public final class Database implements IDatabase {
     /** DatabaseConfiguration with fixed settings. */
     private final DatabaseConfiguration mDBConfig;
 
+    /** Forcing of data shared by all resources. */
+    private final SyncGroup mSyncGroup;
+
+    /** Metrics shared by all resources, exported while the database is open. */
+    private final MetricsRegistry mMetrics;
+
     /**
      * Private constructor.
      * 
@@ -77,7 +90,15 @@ public final class Database implements IDatabase {
     private Database(final DatabaseConfiguration paramDBConf) throws AbsTTException {
         mDBConfig = paramDBConf;
         mSessions = new HashMap<File, Session>();
-
+        mSyncGroup = new SyncGroup();
+        mMetrics = new MetricsRegistry();
+        final Histogram syncs = mMetrics.histogram(IConstants.MET_SYNC);
+        mSyncGroup.addListener(new ISyncListener() {
+            @Override
+            public void synced(final File pResource, final long pNanos) {
+                syncs.update(pNanos);
+            }
+        });
     }
 
     // //////////////////////////////////////////////////////////
@@ -271,6 +292,7 @@ public final class Database implements IDatabase {
         final Database database = new Database(config);
         final IDatabase returnVal = DATABASEMAP.putIfAbsent(pFile, database);
         if (returnVal == null) {
+            database.mMetrics.register("Database", pFile.getAbsolutePath());
             return database;
         } else {
             return returnVal;
@@ -319,6 +341,21 @@ public final class Database implements IDatabase {
 
             // Resource of session must be associated to this database
             assert config.mPath.getParentFile().getParentFile().equals(mDBConfig.mFile);
+            // neither the key nor the credentials are stored with the resource settings
+            if (pSessionConf.mEncryptionKey != null) {
+                config = config.withEncryptionKey(pSessionConf.mEncryptionKey);
+            }
+            if (config.mEncryptionKey == null && Arrays.asList(config.mCodecs).contains(ECodec.Encryption)) {
+                throw new TTUsageException("Encrypted resource needs the encryption key of the session!");
+            }
+            if (pSessionConf.mBlobStoreProperties != null) {
+                config = config.withBlobStoreProperties(pSessionConf.mBlobStoreProperties);
+            }
+            if (config.mType == EStorage.BlobStore && config.mBlobStoreProperties == null
+                && !ResourceConfiguration.BLOBSTOREPROVIDER.equals(config.mBlobStoreProvider)) {
+                throw new TTUsageException("Blob store provider", config.mBlobStoreProvider,
+                    "needs the blob store properties of the session!");
+            }
             returnVal = new Session(this, config, pSessionConf);
             mSessions.put(resourceFile, returnVal);
         }
@@ -334,6 +371,40 @@ public final class Database implements IDatabase {
             session.close();
         }
         DATABASEMAP.remove(mDBConfig.mFile);
+        mMetrics.unregister();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addSyncListener(final ISyncListener pListener) {
+        mSyncGroup.addListener(pListener);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeSyncListener(final ISyncListener pListener) {
+        mSyncGroup.removeListener(pListener);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MetricsRegistry getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * Getting the forcing of data shared by all resources of this database.
+     * 
+     * @return the sync group
+     */
+    protected SyncGroup getSyncGroup() {
+        return mSyncGroup;
     }
 
     // //////////////////////////////////////////////////////////
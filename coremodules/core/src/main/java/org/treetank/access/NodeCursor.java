@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.access;
+
+import static org.treetank.access.PageReadTrx.nodePageKey;
+import static org.treetank.access.PageReadTrx.nodePageOffset;
+import static org.treetank.node.IConstants.NULL_NODE;
+
+import org.treetank.api.INodeCursor;
+import org.treetank.api.IPageReadTrx;
+import org.treetank.api.IPageWriteTrx;
+import org.treetank.exception.TTIOException;
+import org.treetank.node.ENode;
+import org.treetank.node.NodeColumns;
+
+/**
+ * {@link INodeCursor} reading the {@link NodeColumns} of the node pages. The
+ * columns of the current node page are reused as long as the cursor stays on
+ * it, moving within a page therefore neither looks up a page nor creates any
+ * object. Columns of a writing transaction are looked up on each move since
+ * its pages can still change.
+ */
+public final class NodeCursor implements INodeCursor {
+
+    /** Page transaction to read the columns from. */
+    private final IPageReadTrx mPageReadTrx;
+
+    /** Exponent of the node count of the node pages. */
+    private final int mExponent;
+
+    /** Columns of the current node page. */
+    private NodeColumns mColumns;
+
+    /** Key of the current node page. */
+    private long mNodePageKey;
+
+    /** Slot of the current node. */
+    private int mSlot;
+
+    /** Key of the current node. */
+    private long mNodeKey;
+
+    /**
+     * Constructor.
+     * 
+     * @param pPageReadTrx
+     *            page transaction to read the columns from
+     */
+    NodeCursor(final IPageReadTrx pPageReadTrx) {
+        mPageReadTrx = pPageReadTrx;
+        mExponent = Integer.numberOfTrailingZeros(pPageReadTrx.getNodesPerPage());
+        mNodePageKey = NULL_NODE;
+        mNodeKey = NULL_NODE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean moveTo(final long pKey) {
+        if (pKey < 0) {
+            return false;
+        }
+        final long nodePageKey = nodePageKey(pKey, mExponent);
+        NodeColumns columns = mColumns;
+        if (columns == null || nodePageKey != mNodePageKey || mPageReadTrx instanceof IPageWriteTrx) {
+            try {
+                columns = mPageReadTrx.getColumns(nodePageKey);
+            } catch (final TTIOException exc) {
+                throw new IllegalStateException(exc);
+            }
+        }
+        final int slot = nodePageOffset(pKey, mExponent);
+        if (columns == null || columns.getKind(slot) == null || columns.getKind(slot) == ENode.DELETE_KIND) {
+            return false;
+        }
+        mColumns = columns;
+        mNodePageKey = nodePageKey;
+        mSlot = slot;
+        mNodeKey = pKey;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean moveToParent() {
+        return moveTo(getParentKey());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean moveToFirstChild() {
+        return moveTo(getFirstChildKey());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean moveToLeftSibling() {
+        return moveTo(getLeftSiblingKey());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean moveToRightSibling() {
+        return moveTo(getRightSiblingKey());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getNodeKey() {
+        return mNodeKey;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ENode getKind() {
+        return mColumns.getKind(mSlot);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getParentKey() {
+        return mColumns.getParentKey(mSlot);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getHash() {
+        return mColumns.getHash(mSlot);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getFirstChildKey() {
+        return mColumns.getFirstChildKey(mSlot);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLeftSiblingKey() {
+        return mColumns.getLeftSiblingKey(mSlot);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getRightSiblingKey() {
+        return mColumns.getRightSiblingKey(mSlot);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getChildCount() {
+        return mColumns.getChildCount(mSlot);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNameKey() {
+        return mColumns.getNameKey(mSlot);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getURIKey() {
+        return mColumns.getURIKey(mSlot);
+    }
+
+}
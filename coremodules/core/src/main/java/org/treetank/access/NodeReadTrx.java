@@ -27,14 +27,19 @@
 
 package org.treetank.access;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
 import javax.xml.namespace.QName;
 
+import org.treetank.api.INodeCursor;
 import org.treetank.api.INodeReadTrx;
 import org.treetank.api.IPageReadTrx;
 import org.treetank.exception.AbsTTException;
 import org.treetank.exception.TTIOException;
 import org.treetank.node.ENode;
 import org.treetank.node.ElementNode;
+import org.treetank.node.delegates.ValNodeDelegate;
 import org.treetank.node.interfaces.INameNode;
 import org.treetank.node.interfaces.INode;
 import org.treetank.node.interfaces.IValNode;
@@ -158,6 +163,22 @@ public class NodeReadTrx implements INodeReadTrx {
         return returnVal;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final InputStream getValueStreamOfCurrentNode() {
+        assertNotClosed();
+        final ValNodeDelegate val = mCurrentNode.getKind().getValDelegate(mCurrentNode);
+        if (val != null) {
+            return val.getValueStream();
+        } else if (mCurrentNode instanceof IValNode) {
+            return new ByteArrayInputStream(((IValNode) mCurrentNode).getRawValue());
+        } else {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -289,6 +310,35 @@ public class NodeReadTrx implements INodeReadTrx {
         mCurrentNode = paramCurrentNode;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final INodeCursor getCursor() {
+        assertNotClosed();
+        final NodeCursor cursor = new NodeCursor(mPageReadTrx);
+        cursor.moveTo(mCurrentNode.getNodeKey());
+        return cursor;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setScan(final boolean pScan) {
+        assertNotClosed();
+        mPageReadTrx.setScan(pScan);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isScan() {
+        assertNotClosed();
+        return mPageReadTrx.isScan();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -30,10 +30,12 @@ package org.treetank.access;
 import static org.treetank.node.IConstants.NULL_NODE;
 import static org.treetank.node.IConstants.ROOT_NODE;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 
 import javax.xml.namespace.QName;
 
+import org.treetank.api.INodeCursor;
 import org.treetank.api.INodeWriteTrx;
 import org.treetank.api.IPageWriteTrx;
 import org.treetank.exception.AbsTTException;
@@ -1026,6 +1028,14 @@ public class NodeWriteTrx implements INodeWriteTrx {
         return mDelegate.getValueOfCurrentNode();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream getValueStreamOfCurrentNode() {
+        return mDelegate.getValueStreamOfCurrentNode();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -1066,6 +1076,30 @@ public class NodeWriteTrx implements INodeWriteTrx {
         return mDelegate.getNode();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public INodeCursor getCursor() {
+        return mDelegate.getCursor();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setScan(final boolean pScan) {
+        mDelegate.setScan(pScan);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isScan() {
+        return mDelegate.isScan();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.access;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.treetank.exception.TTIOException;
+import org.treetank.io.IKey;
+import org.treetank.io.IReader;
+import org.treetank.page.OverflowPage;
+
+/**
+ * Stream reading a value stored in a chain of {@link OverflowPage}s. Only the
+ * chunk currently read is held in memory. The reader of the storage is opened
+ * with the session on the first read and released at the end of the value or
+ * on close, a compaction keeps the pages it drops until then.
+ */
+public final class OverflowInputStream extends InputStream {
+
+    /** Session of the resource holding the pages. */
+    private final Session mSession;
+
+    /** Key of the next page to read, null at the end of the chain. */
+    private IKey mNextKey;
+
+    /** Reader of the storage, null if not opened yet or already released. */
+    private IReader mReader;
+
+    /** Chunk currently read. */
+    private byte[] mChunk;
+
+    /** Position within the current chunk. */
+    private int mPosition;
+
+    /**
+     * Constructor.
+     * 
+     * @param paramSession
+     *            session of the resource holding the pages
+     * @param paramKey
+     *            key of the first page of the chain
+     */
+    public OverflowInputStream(final Session paramSession, final IKey paramKey) {
+        mSession = paramSession;
+        mNextKey = paramKey;
+        mChunk = new byte[0];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return mChunk[mPosition++] & 0xFF;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read(final byte[] paramBytes, final int paramOffset, final int paramLength)
+        throws IOException {
+        if (paramLength == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        final int length = Math.min(paramLength, mChunk.length - mPosition);
+        System.arraycopy(mChunk, mPosition, paramBytes, paramOffset, length);
+        mPosition += length;
+        return length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int available() {
+        return mChunk.length - mPosition;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        mNextKey = null;
+        mChunk = new byte[0];
+        mPosition = 0;
+        release();
+    }
+
+    /**
+     * Reading the next chunk if the current one is consumed.
+     * 
+     * @return false at the end of the value
+     * @throws IOException
+     *             if the page could not be read
+     */
+    private boolean fill() throws IOException {
+        while (mPosition == mChunk.length) {
+            if (mNextKey == null) {
+                release();
+                return false;
+            }
+            try {
+                if (mReader == null) {
+                    mReader = mSession.beginOverflowRead();
+                }
+                final OverflowPage page = (OverflowPage)mReader.read(mNextKey);
+                mChunk = page.getChunk();
+                mPosition = 0;
+                mNextKey = page.getNextReference().getKey();
+            } catch (final TTIOException exc) {
+                throw new IOException(exc);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Releasing the reader.
+     * 
+     * @throws IOException
+     *             if the reader could not be closed
+     */
+    private void release() throws IOException {
+        if (mReader != null) {
+            try {
+                mSession.endOverflowRead(mReader);
+            } catch (final TTIOException exc) {
+                throw new IOException(exc);
+            } finally {
+                mReader = null;
+            }
+        }
+    }
+
+}
@@ -28,16 +28,21 @@
 package org.treetank.access;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 import org.treetank.api.INode;
 import org.treetank.api.IPageReadTrx;
-import org.treetank.cache.NodePageContainer;
+import org.treetank.cache.PageCache;
+import org.treetank.cache.PageCacheKey;
+import org.treetank.cache.StoredPageKey;
 import org.treetank.exception.TTIOException;
+import org.treetank.io.IKey;
 import org.treetank.io.IReader;
+import org.treetank.metrics.Counter;
+import org.treetank.metrics.Histogram;
 import org.treetank.node.DeletedNode;
+import org.treetank.node.NodeColumns;
+import org.treetank.node.delegates.ValNodeDelegate;
 import org.treetank.page.IndirectPage;
 import org.treetank.page.NamePage;
 import org.treetank.page.NodePage;
@@ -47,6 +52,7 @@ import org.treetank.page.UberPage;
 import org.treetank.page.interfaces.IPage;
 import org.treetank.settings.ERevisioning;
 import org.treetank.utils.IConstants;
+import org.treetank.utils.TypedValue;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
@@ -55,13 +61,15 @@ import com.google.common.cache.CacheBuilder;
  * <h1>PageReadTrx</h1>
  * 
  * <p>
- * State of a reading transaction. The only thing shared amongst transactions is the page cache. Everything
- * else is exclusive to this transaction. It is required that only a single thread has access to this
- * transaction.
+ * State of a reading transaction. The only things shared amongst transactions are the page caches.
+ * Everything else is exclusive to this transaction. It is required that only a single thread has access to
+ * this transaction.
  * </p>
  * 
  * <p>
- * A path-like cache boosts sequential operations.
+ * A path-like cache boosts sequential operations: the last complete node page is kept by the transaction
+ * itself, so reading several nodes of a page neither goes through the shared page cache nor counts as a
+ * repeated request there.
  * </p>
  */
 public class PageReadTrx implements IPageReadTrx {
@@ -75,12 +83,45 @@ public class PageReadTrx implements IPageReadTrx {
     /** Cached name page of this revision. */
     private final RevisionRootPage mRootPage;
 
-    /** Internal reference to cache. */
-    private final Cache<Long, NodePageContainer> mCache;
+    /** Indirect page on top of the name pages of this revision, null if there are no names. */
+    private final IndirectPage mNameRoot;
+
+    /** Cache of complete node pages, shared with the other read transactions of the session. */
+    private final PageCache mCache;
+
+    /** Key of the last complete node page read by this transaction. */
+    private long mLastPageKey;
+
+    /** Last complete node page read by this transaction, null if there is none. */
+    private NodePage mLastPage;
+
+    /** Is this transaction scanning the revision? */
+    private boolean mScan;
+
+    /** Lookups of complete node pages served by {@link #mCache}. */
+    private final Counter mHits;
+
+    /** Lookups of complete node pages missing {@link #mCache}. */
+    private final Counter mMisses;
+
+    /** Fragments read per reconstruction of a node page. */
+    private final Histogram mFragments;
+
+    /** Cache of the pages of the indirect trees, shared with the other transactions of the session. */
+    private final Cache<StoredPageKey, IPage> mTreeCache;
+
+    /** Revision this transaction is bound to. */
+    private final long mRevision;
+
+    /** Compaction generation of the storage this transaction reads from. */
+    private final long mGeneration;
 
     /** Configuration of the session */
     protected final Session mSession;
 
+    /** Exponent of the node count of the node pages of the resource. */
+    private final int mNodePageExponent;
+
     /** Boolean for determinc close. */
     private boolean mClose;
 
@@ -102,12 +143,45 @@ public class PageReadTrx implements IPageReadTrx {
      */
     protected PageReadTrx(final Session pSession, final UberPage pUberpage, final long pRevision,
         final IReader pReader) throws TTIOException {
-        mCache = CacheBuilder.newBuilder().maximumSize(10000).build();
+        this(pSession, pUberpage, pRevision, pReader, pUberpage.isBootstrap() ? buildPageCache(pSession)
+            : pSession.mPageCache);
+    }
+
+    /**
+     * Constructor with a page cache exclusive to this transaction.
+     * 
+     * @param pSession
+     *            State of state.
+     * @param pUberpage
+     *            Uber page to start reading with.
+     * @param pRevision
+     *            Key of revision to read from uber page.
+     * @param pReader
+     *            for this transaction
+     * @param pCache
+     *            for the complete node pages read
+     * @throws TTIOException
+     *             if the read of the persistent storage fails
+     */
+    protected PageReadTrx(final Session pSession, final UberPage pUberpage, final long pRevision,
+        final IReader pReader, final PageCache pCache) throws TTIOException {
+        mCache = pCache;
+        mHits = pSession.mMetrics.counter(IConstants.MET_PAGE_CACHE_HITS);
+        mMisses = pSession.mMetrics.counter(IConstants.MET_PAGE_CACHE_MISSES);
+        mFragments = pSession.mMetrics.histogram(IConstants.MET_FRAGMENTS);
+        mTreeCache = pSession.mTreePageCache;
+        mRevision = pRevision;
+        mGeneration = pSession.getGeneration();
         mSession = pSession;
+        mNodePageExponent = Integer.numberOfTrailingZeros(pSession.mResourceConfig.mNodesPerPage);
         mPageReader = pReader;
         mUberPage = pUberpage;
         mRootPage = loadRevRoot(pRevision);
-        initializeNamePage();
+        if (mRootPage == null) {
+            throw new IllegalArgumentException(new StringBuilder("Revision ").append(pRevision).append(
+                " was dropped by a compaction!").toString());
+        }
+        mNameRoot = initializeNamePage();
         mClose = false;
     }
 
@@ -128,13 +202,52 @@ public class PageReadTrx implements IPageReadTrx {
         }
 
         // Calculate page and node part for given nodeKey.
-        final long nodePageKey = nodePageKey(paramNodeKey);
-        final int nodePageOffset = nodePageOffset(paramNodeKey);
+        final NodePage page = getCompletePage(nodePageKey(paramNodeKey, mNodePageExponent));
+        if (page == null) {
+            return null;
+        }
+        final INode returnVal = page.getNode(nodePageOffset(paramNodeKey, mNodePageExponent));
+        return checkItemIfDeleted(bindOverflow(returnVal));
+    }
 
-        NodePageContainer cont = mCache.getIfPresent(nodePageKey);
+    /**
+     * Getting the struct-of-arrays view on the nodes of the node page related
+     * to the given node page key.
+     * 
+     * @param pNodePageKey
+     *            searched for
+     * @return the columns of the node page, null if the page does not exist
+     * @throws TTIOException
+     *             if the read to the persistent storage fails
+     */
+    public NodeColumns getColumns(final long pNodePageKey) throws TTIOException {
+        final NodePage page = getCompletePage(pNodePageKey);
+        if (page == null) {
+            return null;
+        }
+        return page.getColumns();
+    }
 
-        if (cont == null) {
-            final NodePage[] revs = getSnapshotPages(nodePageKey);
+    /**
+     * Getting the complete node page of this revision related to the given
+     * node page key, combining its versions if the page is not cached.
+     * 
+     * @param pNodePageKey
+     *            searched for
+     * @return the complete node page, null if the page does not exist
+     * @throws TTIOException
+     *             if the read to the persistent storage fails
+     */
+    private NodePage getCompletePage(final long pNodePageKey) throws TTIOException {
+        if (mLastPage != null && mLastPageKey == pNodePageKey) {
+            return mLastPage;
+        }
+        final PageCacheKey key = new PageCacheKey(mGeneration, mRevision, pNodePageKey);
+        NodePage completePage = mCache.get(key, mScan);
+
+        if (completePage == null) {
+            mMisses.inc();
+            final NodePage[] revs = getSnapshotPages(pNodePageKey);
             if (revs.length == 0) {
                 return null;
             }
@@ -142,13 +255,58 @@ public class PageReadTrx implements IPageReadTrx {
 
             // Build up the complete page.
             final ERevisioning revision = mSession.mResourceConfig.mRevision;
-            final NodePage completePage = revision.combinePages(revs, mileStoneRevision);
-            cont = new NodePageContainer(completePage);
-            mCache.put(nodePageKey, cont);
+            completePage = revision.combinePages(revs, mileStoneRevision);
+            mCache.put(key, completePage, mScan);
+        } else {
+            mHits.inc();
+        }
+        mLastPageKey = pNodePageKey;
+        mLastPage = completePage;
+        return completePage;
+    }
+
+    /**
+     * Building a cache for complete node pages bounded by the memory budget
+     * of the session.
+     * 
+     * @param pSession
+     *            providing the memory budget
+     * @return a new cache
+     */
+    protected static PageCache buildPageCache(final Session pSession) {
+        return new PageCache(pSession.mSessionConfig.mPageCacheSize);
+    }
+
+    /**
+     * Building a cache for the revision root, indirect and name pages read
+     * from the storage, bounded by the page count of the session.
+     * 
+     * @param pSession
+     *            providing the page count
+     * @return a new cache
+     */
+    protected static Cache<StoredPageKey, IPage> buildTreePageCache(final Session pSession) {
+        return CacheBuilder.newBuilder().maximumSize(pSession.mSessionConfig.mTreePageCacheSize).build();
+    }
+
+    /**
+     * Binding the session to a node whose value may be stored in overflow
+     * pages, so the value can be read on demand.
+     * 
+     * @param pNode
+     *            node to bind, may be null
+     * @return the node
+     */
+    protected final INode bindOverflow(final INode pNode) {
+        if (pNode != null) {
+            final ValNodeDelegate val =
+                ((org.treetank.node.interfaces.INode)pNode).getKind().getValDelegate(
+                    (org.treetank.node.interfaces.INode)pNode);
+            if (val != null && val.getOverflowKey() != null) {
+                val.setSession(mSession);
+            }
         }
-        // If nodePage is a weak one, the moveto is not cached
-        final INode returnVal = cont.getComplete().getNode(nodePageOffset);
-        return checkItemIfDeleted(returnVal);
+        return pNode;
     }
 
     /**
@@ -174,9 +332,8 @@ public class PageReadTrx implements IPageReadTrx {
      * @return the name
      */
     public String getName(final int mNameKey) {
-
-        return ((NamePage)mRootPage.getNamePageReference().getPage()).getName(mNameKey);
-
+        final NamePage page = getNamePage(mNameKey);
+        return page == null ? null : page.getName(mNameKey);
     }
 
     /**
@@ -187,8 +344,27 @@ public class PageReadTrx implements IPageReadTrx {
      * @return a byte array containing the raw name
      */
     public final byte[] getRawName(final int mNameKey) {
-        return ((NamePage)mRootPage.getNamePageReference().getPage()).getRawName(mNameKey);
+        final NamePage page = getNamePage(mNameKey);
+        return page == null ? TypedValue.EMPTY : page.getRawName(mNameKey);
+    }
 
+    /**
+     * Getting the name page holding a name key. Name pages are read on first
+     * access.
+     * 
+     * @param mNameKey
+     *            for the name searched
+     * @return the name page, null if there is no page for the name key
+     */
+    private NamePage getNamePage(final int mNameKey) {
+        try {
+            if (mNameRoot == null) {
+                return null;
+            }
+            return dereferenceNamePage(mNameRoot.getReferences()[namePageOffset(mNameKey)]);
+        } catch (final TTIOException exc) {
+            throw new IllegalStateException(exc);
+        }
     }
 
     /**
@@ -200,28 +376,49 @@ public class PageReadTrx implements IPageReadTrx {
     public void close() throws TTIOException {
         mSession.deregisterTrx(this);
         mPageReader.close();
-        mCache.invalidateAll();
+        mLastPage = null;
         mClose = true;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setScan(final boolean pScan) {
+        mScan = pScan;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isScan() {
+        return mScan;
+    }
+
     /**
      * Get revision root page belonging to revision key.
      * 
      * @param revisionKey
      *            Key of revision to find revision root page for.
-     * @return Revision root page of this revision key.
+     * @return Revision root page of this revision key, null if the revision
+     *         was dropped by a compaction.
      * 
      * @throws TTIOException
      *             if something odd happens within the creation process.
      */
     protected final RevisionRootPage loadRevRoot(final long revisionKey) throws TTIOException {
 
-        final PageReference ref = dereferenceLeafOfTree(mUberPage.getIndirectPageReference(), revisionKey);
+        final PageReference ref = dereferenceLeafOfTree(mUberPage.getIndirectPageReference(), revisionKey,
+                mUberPage.getRevisionTreeHeight());
+        if (ref == null || (ref.getPage() == null && ref.getKey() == null)) {
+            return null;
+        }
         RevisionRootPage page = (RevisionRootPage)ref.getPage();
 
-        // If there is no page, get it from the storage and cache it.
+        // If there is no page, get it from the cache or the storage.
         if (page == null) {
-            page = (RevisionRootPage)mPageReader.read(ref.getKey());
+            page = (RevisionRootPage)readTreePage(ref.getKey());
         }
 
         // Get revision root page which is the leaf of the indirect tree.
@@ -229,16 +426,37 @@ public class PageReadTrx implements IPageReadTrx {
     }
 
     /**
-     * Initialize NamePage.
+     * Initialize the top of the name page tree. The name pages themselves
+     * are read on demand.
      * 
+     * @return the indirect page on top of the name pages, null if there is
+     *         no page
      * @throws TTIOException
      *             if something odd happens during initialization
      */
-    protected final void initializeNamePage() throws TTIOException {
-        final PageReference ref = mRootPage.getNamePageReference();
-        if (ref.getPage() == null) {
-            ref.setPage((NamePage)mPageReader.read(ref.getKey()));
+    protected final IndirectPage initializeNamePage() throws TTIOException {
+        return dereferenceIndirectPage(mRootPage.getNamePageReference());
+    }
+
+    /**
+     * Dereference name page reference.
+     * 
+     * @param ref
+     *            Reference to dereference.
+     * @return Dereferenced page, null if there is no page.
+     * 
+     * @throws TTIOException
+     *             if something odd happens within the creation process.
+     */
+    protected final NamePage dereferenceNamePage(final PageReference ref) throws TTIOException {
+        NamePage page = (NamePage)ref.getPage();
+
+        // If there is no page, get it from the cache or the storage.
+        if (page == null && ref.getKey() != null) {
+            page = (NamePage)readTreePage(ref.getKey());
         }
+
+        return page;
     }
 
     /**
@@ -251,7 +469,9 @@ public class PageReadTrx implements IPageReadTrx {
     }
 
     /**
-     * Dereference node page reference.
+     * Dereference node page reference. Only the latest fragment is looked up
+     * in the revision tree, the older ones are found by following the keys of
+     * the previous fragments.
      * 
      * @param mNodePageKey
      *            Key of node page.
@@ -261,41 +481,25 @@ public class PageReadTrx implements IPageReadTrx {
      *             if something odd happens within the creation process.
      */
     protected final NodePage[] getSnapshotPages(final long mNodePageKey) throws TTIOException {
-
-        // ..and get all leaves of nodepages from the revision-trees.
-        final List<PageReference> refs = new ArrayList<PageReference>();
-        final Set<Long> keys = new HashSet<Long>();
-
-        for (long i = mRootPage.getRevision(); i >= 0; i--) {
-            final PageReference ref =
-                dereferenceLeafOfTree(loadRevRoot(i).getIndirectPageReference(), mNodePageKey);
-            if (ref != null && (ref.getPage() != null || ref.getKey() != null)) {
-                if (ref.getKey() == null || (!keys.contains(ref.getKey().getIdentifier()))) {
-                    refs.add(ref);
-                    if (ref.getKey() != null) {
-                        keys.add(ref.getKey().getIdentifier());
-                    }
-                }
-                if (refs.size() == mSession.mResourceConfig.mRevisionsToRestore) {
-                    break;
-                }
-
-            } else {
-                break;
-            }
+        final PageReference ref =
+            dereferenceLeafOfTree(mRootPage.getIndirectPageReference(), mNodePageKey, mRootPage
+                .getNodeTreeHeight());
+        if (ref == null || (ref.getPage() == null && ref.getKey() == null)) {
+            return new NodePage[0];
         }
 
-        // Afterwards read the nodepages if they are not dereferences...
-        final NodePage[] pages = new NodePage[refs.size()];
-        for (int i = 0; i < pages.length; i++) {
-            final PageReference ref = refs.get(i);
-            pages[i] = (NodePage)ref.getPage();
-            if (pages[i] == null) {
-                pages[i] = (NodePage)mPageReader.read(ref.getKey());
-            }
+        final List<NodePage> pages = new ArrayList<NodePage>();
+        NodePage page = (NodePage)ref.getPage();
+        if (page == null) {
+            page = (NodePage)mPageReader.read(ref.getKey());
         }
-        return pages;
-
+        pages.add(page);
+        while (pages.size() < mSession.mResourceConfig.mRevisionsToRestore && page.getPreviousKey() != null) {
+            page = (NodePage)mPageReader.read(page.getPreviousKey());
+            pages.add(page);
+        }
+        mFragments.update(pages.size());
+        return pages.toArray(new NodePage[pages.size()]);
     }
 
     /**
@@ -312,15 +516,35 @@ public class PageReadTrx implements IPageReadTrx {
 
         IndirectPage page = (IndirectPage)ref.getPage();
 
-        // If there is no page, get it from the storage and cache it.
-        if (page == null) {
-            page = (IndirectPage)mPageReader.read(ref.getKey());
-            ref.setPage(page);
+        // If there is no page, get it from the cache or the storage.
+        if (page == null && ref.getKey() != null) {
+            page = (IndirectPage)readTreePage(ref.getKey());
         }
 
         return page;
     }
 
+    /**
+     * Reading a revision root, indirect or name page from the storage unless
+     * it is cached. Cached pages are shared amongst the transactions of the
+     * session and must not be modified, neither their references.
+     * 
+     * @param pKey
+     *            key of the page in the storage
+     * @return the page
+     * @throws TTIOException
+     *             if the read of the persistent storage fails
+     */
+    private IPage readTreePage(final IKey pKey) throws TTIOException {
+        final StoredPageKey key = new StoredPageKey(mGeneration, pKey.getIdentifier());
+        IPage page = mTreeCache.getIfPresent(key);
+        if (page == null) {
+            page = mPageReader.read(pKey);
+            mTreeCache.put(key, page);
+        }
+        return page;
+    }
+
     /**
      * Find reference pointing to leaf page of an indirect tree.
      * 
@@ -328,13 +552,19 @@ public class PageReadTrx implements IPageReadTrx {
      *            Start reference pointing to the indirect tree.
      * @param paramKey
      *            Key to look up in the indirect tree.
-     * @return Reference denoted by key pointing to the leaf page.
+     * @param paramHeight
+     *            Height of the indirect tree.
+     * @return Reference denoted by key pointing to the leaf page, null if the
+     *         tree does not hold the key.
      * 
      * @throws TTIOException
      *             if something odd happens within the creation process.
      */
     protected final PageReference dereferenceLeafOfTree(final PageReference paramStartReference,
-        final long paramKey) throws TTIOException {
+        final long paramKey, final int paramHeight) throws TTIOException {
+        if (!isInTree(paramKey, paramHeight)) {
+            return null;
+        }
 
         // Initial state pointing to the indirect page of level 0.
         PageReference reference = paramStartReference;
@@ -342,9 +572,10 @@ public class PageReadTrx implements IPageReadTrx {
         long levelKey = paramKey;
 
         // Iterate through all levels.
-        for (int level = 0, height = IConstants.INP_LEVEL_PAGE_COUNT_EXPONENT.length; level < height; level++) {
-            offset = (int)(levelKey >> IConstants.INP_LEVEL_PAGE_COUNT_EXPONENT[level]);
-            levelKey -= offset << IConstants.INP_LEVEL_PAGE_COUNT_EXPONENT[level];
+        for (int level = 0; level < paramHeight; level++) {
+            final int exponent = levelExponent(level, paramHeight);
+            offset = (int)(levelKey >> exponent);
+            levelKey -= (long)offset << exponent;
             final IPage page = dereferenceIndirectPage(reference);
             if (page == null) {
                 reference = null;
@@ -358,15 +589,62 @@ public class PageReadTrx implements IPageReadTrx {
         return reference;
     }
 
+    /**
+     * Check if an indirect tree of a given height is high enough to hold a
+     * key.
+     * 
+     * @param pKey
+     *            Key to check.
+     * @param pHeight
+     *            Height of the indirect tree.
+     * @return true if the tree holds the key, false otherwise.
+     */
+    protected static final boolean isInTree(final long pKey, final int pHeight) {
+        final int bits = pHeight * IConstants.INP_REFERENCE_COUNT_EXPONENT;
+        return bits >= Long.SIZE - 1 || (pKey >> bits) == 0;
+    }
+
+    /**
+     * Calculate the exponent of the keys covered by one reference on a level
+     * of an indirect tree.
+     * 
+     * @param pLevel
+     *            Level of the indirect page, 0 for the top of the tree.
+     * @param pHeight
+     *            Height of the indirect tree.
+     * @return Exponent of the keys covered by one reference.
+     */
+    protected static final int levelExponent(final int pLevel, final int pHeight) {
+        return (pHeight - 1 - pLevel) * IConstants.INP_REFERENCE_COUNT_EXPONENT;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getNodesPerPage() {
+        return 1 << mNodePageExponent;
+    }
+
+    /**
+     * Exponent of the node count of the node pages.
+     * 
+     * @return the exponent, 2^exponent = node count
+     */
+    protected final int getNodePageExponent() {
+        return mNodePageExponent;
+    }
+
     /**
      * Calculate node page key from a given node key.
      * 
      * @param pNodeKey
      *            Node key to find node page key for.
+     * @param pExponent
+     *            Exponent of the node count of the node pages.
      * @return Node page key.
      */
-    protected static final long nodePageKey(final long pNodeKey) {
-        final long nodePageKey = pNodeKey >> IConstants.NDP_NODE_COUNT_EXPONENT;
+    protected static final long nodePageKey(final long pNodeKey, final int pExponent) {
+        final long nodePageKey = pNodeKey >> pExponent;
         return nodePageKey;
     }
 
@@ -387,14 +665,27 @@ public class PageReadTrx implements IPageReadTrx {
      * 
      * @param mNodeKey
      *            Node key to find offset for.
+     * @param pExponent
+     *            Exponent of the node count of the node pages.
      * @return Offset into node page.
      */
-    protected static final int nodePageOffset(final long mNodeKey) {
-        final long nodePageOffset =
-            (mNodeKey - ((mNodeKey >> IConstants.NDP_NODE_COUNT_EXPONENT) << IConstants.NDP_NODE_COUNT_EXPONENT));
+    protected static final int nodePageOffset(final long mNodeKey, final int pExponent) {
+        final long nodePageOffset = (mNodeKey - ((mNodeKey >> pExponent) << pExponent));
         return (int)nodePageOffset;
     }
 
+    /**
+     * Calculate the offset of the name page holding a name key within the
+     * name page tree.
+     * 
+     * @param mNameKey
+     *            Name key to find offset for.
+     * @return Offset into the indirect page on top of the name pages.
+     */
+    protected static final int namePageOffset(final int mNameKey) {
+        return mNameKey & (IConstants.INP_REFERENCE_COUNT - 1);
+    }
+
     /**
      * {@inheritDoc}
      */
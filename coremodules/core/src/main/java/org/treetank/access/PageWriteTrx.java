@@ -27,6 +27,9 @@
 
 package org.treetank.access;
 
+import static org.treetank.access.PageReadTrx.isInTree;
+import static org.treetank.access.PageReadTrx.levelExponent;
+import static org.treetank.access.PageReadTrx.namePageOffset;
 import static org.treetank.access.PageReadTrx.nodePageKey;
 import static org.treetank.access.PageReadTrx.nodePageOffset;
 
@@ -42,6 +45,7 @@ import org.treetank.exception.AbsTTException;
 import org.treetank.exception.TTIOException;
 import org.treetank.io.IWriter;
 import org.treetank.node.DeletedNode;
+import org.treetank.node.NodeColumns;
 import org.treetank.node.delegates.NodeDelegate;
 import org.treetank.page.IndirectPage;
 import org.treetank.page.NamePage;
@@ -100,12 +104,16 @@ public final class PageWriteTrx implements IPageWriteTrx {
             final UberPage paramUberPage, final IWriter paramWriter,
             final long paramRepresentRev, final long paramStoreRev)
             throws TTIOException {
+        // The nodes of the revision to be modified must not be shared with
+        // read transactions since they are changed in place.
         mDelegate = new PageReadTrx(paramSessionState, paramUberPage,
-                paramRepresentRev, paramWriter);
+                paramRepresentRev, paramWriter,
+                PageReadTrx.buildPageCache(paramSessionState));
         mNewRoot = preparePreviousRevisionRootPage(paramRepresentRev,
                 paramStoreRev);
         mLog = new TransactionLogCache(paramSessionState.mResourceConfig.mPath,
-                paramStoreRev);
+                paramSessionState.mSessionConfig.mLogCacheSize,
+                paramSessionState.mMetrics);
         mPageWriter = paramWriter;
 
     }
@@ -132,8 +140,8 @@ public final class PageWriteTrx implements IPageWriteTrx {
                     "Another node page container is currently in the cache for updates!");
         }
 
-        final long nodePageKey = nodePageKey(paramNodeKey);
-        final int nodePageOffset = nodePageOffset(paramNodeKey);
+        final long nodePageKey = nodePageKey(paramNodeKey, mDelegate.getNodePageExponent());
+        final int nodePageOffset = nodePageOffset(paramNodeKey, mDelegate.getNodePageExponent());
         prepareNodePage(nodePageKey);
 
         INode node = mNodePageCon.getModified().getNode(nodePageOffset);
@@ -146,7 +154,7 @@ public final class PageWriteTrx implements IPageWriteTrx {
             node = oldNode;
             mNodePageCon.getModified().setNode(nodePageOffset, node);
         }
-        return node;
+        return mDelegate.bindOverflow(node);
     }
 
     /**
@@ -157,7 +165,8 @@ public final class PageWriteTrx implements IPageWriteTrx {
      *            the node to be modified
      */
     protected void finishNodeModification(final INode paramNode) {
-        final long nodePageKey = nodePageKey(paramNode.getNodeKey());
+        final long nodePageKey = nodePageKey(paramNode.getNodeKey(),
+                mDelegate.getNodePageExponent());
         if (mNodePageCon == null || paramNode == null
                 || mLog.get(nodePageKey) == null) {
             throw new IllegalStateException();
@@ -184,8 +193,8 @@ public final class PageWriteTrx implements IPageWriteTrx {
         // Allocate node key and increment node count.
         mNewRoot.incrementMaxNodeKey();
         final long nodeKey = mNewRoot.getMaxNodeKey();
-        final long nodePageKey = nodePageKey(nodeKey);
-        final int nodePageOffset = nodePageOffset(nodeKey);
+        final long nodePageKey = nodePageKey(nodeKey, mDelegate.getNodePageExponent());
+        final int nodePageOffset = nodePageOffset(nodeKey, mDelegate.getNodePageExponent());
         prepareNodePage(nodePageKey);
         final NodePage page = mNodePageCon.getModified();
         page.setNode(nodePageOffset, paramNode);
@@ -203,14 +212,17 @@ public final class PageWriteTrx implements IPageWriteTrx {
      */
     protected void removeNode(final INode paramNode) throws TTIOException {
         assert paramNode != null;
-        final long nodePageKey = nodePageKey(paramNode.getNodeKey());
+        final long nodePageKey = nodePageKey(paramNode.getNodeKey(),
+                mDelegate.getNodePageExponent());
         prepareNodePage(nodePageKey);
         final INode delNode = new DeletedNode(new NodeDelegate(
                 paramNode.getNodeKey(), 0, paramNode.getHash()));
         mNodePageCon.getModified().setNode(
-                nodePageOffset(paramNode.getNodeKey()), delNode);
+                nodePageOffset(paramNode.getNodeKey(),
+                        mDelegate.getNodePageExponent()), delNode);
         mNodePageCon.getComplete().setNode(
-                nodePageOffset(paramNode.getNodeKey()), delNode);
+                nodePageOffset(paramNode.getNodeKey(),
+                        mDelegate.getNodePageExponent()), delNode);
         finishNodeModification(paramNode);
     }
 
@@ -220,23 +232,64 @@ public final class PageWriteTrx implements IPageWriteTrx {
     public INode getNode(final long pNodeKey) throws TTIOException {
 
         // Calculate page and node part for given nodeKey.
-        final long nodePageKey = nodePageKey(pNodeKey);
-        final int nodePageOffset = nodePageOffset(pNodeKey);
+        final long nodePageKey = nodePageKey(pNodeKey, mDelegate.getNodePageExponent());
+        final int nodePageOffset = nodePageOffset(pNodeKey, mDelegate.getNodePageExponent());
 
         final NodePageContainer pageCont = mLog.get(nodePageKey);
         if (pageCont == null) {
             return mDelegate.getNode(pNodeKey);
         } else if (pageCont.getModified().getNode(nodePageOffset) == null) {
             final INode item = pageCont.getComplete().getNode(nodePageOffset);
-            return mDelegate.checkItemIfDeleted(item);
+            return mDelegate.checkItemIfDeleted(mDelegate.bindOverflow(item));
 
         } else {
             final INode item = pageCont.getModified().getNode(nodePageOffset);
-            return mDelegate.checkItemIfDeleted(item);
+            return mDelegate.checkItemIfDeleted(mDelegate.bindOverflow(item));
         }
 
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public int getNodesPerPage() {
+        return mDelegate.getNodesPerPage();
+    }
+
+    /**
+     * Getting the length in bytes from which on values are stored in overflow
+     * pages.
+     * 
+     * @return the threshold of the resource
+     */
+    public int getOverflowThreshold() {
+        return mDelegate.mSession.mResourceConfig.mOverflowThreshold;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * The columns of a node page modified by this transaction are built on
+     * each call since its nodes can still change.
+     */
+    public NodeColumns getColumns(final long pNodePageKey) throws TTIOException {
+        final NodePageContainer pageCont = mLog.get(pNodePageKey);
+        if (pageCont == null) {
+            return mDelegate.getColumns(pNodePageKey);
+        }
+        final NodeColumns columns = new NodeColumns(getNodesPerPage());
+        for (int i = 0; i < getNodesPerPage(); i++) {
+            INode node = pageCont.getModified().getNode(i);
+            if (node == null) {
+                node = pageCont.getComplete().getNode(i);
+            }
+            if (node != null) {
+                columns.put(i, (org.treetank.node.interfaces.INode)node);
+            }
+        }
+        return columns;
+    }
+
     /**
      * Getting the name corresponding to the given key.
      * 
@@ -245,13 +298,11 @@ public final class PageWriteTrx implements IPageWriteTrx {
      * @return the name
      */
     public String getName(final int mNameKey) {
-        final NamePage currentNamePage = (NamePage) mNewRoot
-                .getNamePageReference().getPage();
+        final NamePage currentNamePage = getModifiedNamePage(mNameKey);
         String returnVal;
-        // if currentNamePage == null -> state was commited and no
-        // prepareNodepage was invoked yet
-        if (currentNamePage == null
-                || currentNamePage.getName(mNameKey) == null) {
+        // if currentNamePage == null -> state was commited or no name of
+        // this page was created yet
+        if (currentNamePage == null) {
             returnVal = mDelegate.getName(mNameKey);
         } else {
             returnVal = currentNamePage.getName(mNameKey);
@@ -273,15 +324,57 @@ public final class PageWriteTrx implements IPageWriteTrx {
         final String string = (mName == null ? "" : mName);
         final int nameKey = NamePageHash.generateHashForString(string);
 
-        final NamePage namePage = (NamePage) mNewRoot.getNamePageReference()
-                .getPage();
-
-        if (namePage.getName(nameKey) == null) {
-            namePage.setName(nameKey, string);
+        if (getName(nameKey) == null) {
+            prepareNamePage(nameKey).setName(nameKey, string);
         }
         return nameKey;
     }
 
+    /**
+     * Getting the name page holding a name key if it was prepared for
+     * modification in this revision.
+     * 
+     * @param mNameKey
+     *            the name key
+     * @return the modified name page, null if there is none
+     */
+    private NamePage getModifiedNamePage(final int mNameKey) {
+        final IndirectPage root = (IndirectPage) mNewRoot
+                .getNamePageReference().getPage();
+        return root == null ? null : (NamePage) root.getReferences()[
+                namePageOffset(mNameKey)].getPage();
+    }
+
+    /**
+     * Preparing the name page holding a name key for modification. Name pages
+     * are copied once per revision, the other name pages keep the references
+     * to their committed versions.
+     * 
+     * @param mNameKey
+     *            the name key
+     * @return the name page to add the name to
+     * @throws TTIOException
+     *             if the committed name page could not be read
+     */
+    private NamePage prepareNamePage(final int mNameKey)
+            throws TTIOException {
+        final IndirectPage root = prepareIndirectPage(mNewRoot
+                .getNamePageReference());
+        final PageReference reference = root.getReferences()[
+                namePageOffset(mNameKey)];
+        NamePage page = (NamePage) reference.getPage();
+        if (page == null) {
+            if (reference.getKey() == null) {
+                page = new NamePage(mNewRoot.getRevision());
+            } else {
+                page = new NamePage(mDelegate.dereferenceNamePage(reference),
+                        mNewRoot.getRevision());
+            }
+            reference.setPage(page);
+        }
+        return page;
+    }
+
     /**
      * Committing a a writetransaction. This method is recursivly invoked by all
      * {@link PageReference}s.
@@ -419,10 +512,12 @@ public final class PageWriteTrx implements IPageWriteTrx {
             if (paramReference.getKey() == null) {
                 page = new IndirectPage(mDelegate.getUberPage().getRevision());
             } else {
+                // The revision tree is prepared before the new revision root.
                 page = new IndirectPage(
                         (IndirectPage) mDelegate
                                 .dereferenceIndirectPage(paramReference),
-                        mNewRoot.getRevision() + 1);
+                        mNewRoot == null ? mDelegate.getUberPage()
+                                .getRevision() : mNewRoot.getRevision() + 1);
 
             }
             paramReference.setPage(page);
@@ -438,16 +533,23 @@ public final class PageWriteTrx implements IPageWriteTrx {
         if (cont == null) {
 
             // Indirect reference.
+            mNewRoot.setNodeTreeHeight(growTree(
+                    mNewRoot.getIndirectPageReference(),
+                    mNewRoot.getNodeTreeHeight(), paramNodePageKey));
             final PageReference reference = prepareLeafOfTree(
-                    mNewRoot.getIndirectPageReference(), paramNodePageKey);
+                    mNewRoot.getIndirectPageReference(), paramNodePageKey,
+                    mNewRoot.getNodeTreeHeight());
             NodePage page = (NodePage) reference.getPage();
 
             if (page == null) {
                 if (reference.getKey() == null) {
                     cont = new NodePageContainer(new NodePage(paramNodePageKey,
-                            IConstants.UBP_ROOT_REVISION_NUMBER));
+                            IConstants.UBP_ROOT_REVISION_NUMBER,
+                            getNodesPerPage()));
                 } else {
                     cont = dereferenceNodePageForModification(paramNodePageKey);
+                    // The new fragment is chained to the one it follows.
+                    cont.getModified().setPreviousKey(reference.getKey());
                 }
             } else {
                 cont = new NodePageContainer(page);
@@ -474,17 +576,22 @@ public final class PageWriteTrx implements IPageWriteTrx {
 
             // Prepare indirect tree to hold reference to prepared revision root
             // nodePageReference.
+            final UberPage uberPage = mDelegate.getUberPage();
+            uberPage.setRevisionTreeHeight(growTree(
+                    uberPage.getIndirectPageReference(),
+                    uberPage.getRevisionTreeHeight(),
+                    uberPage.getRevisionNumber()));
             final PageReference revisionRootPageReference = prepareLeafOfTree(
-                    mDelegate.getUberPage().getIndirectPageReference(),
-                    mDelegate.getUberPage().getRevisionNumber());
+                    uberPage.getIndirectPageReference(),
+                    uberPage.getRevisionNumber(),
+                    uberPage.getRevisionTreeHeight());
 
             // Link the prepared revision root nodePageReference with the
             // prepared indirect tree.
             revisionRootPageReference.setPage(revisionRootPage);
 
-            revisionRootPage.getNamePageReference().setPage(
-                    (NamePage) mDelegate.getActualRevisionRootPage()
-                            .getNamePageReference().getPage());
+            // Name pages are prepared on demand when names are created.
+            revisionRootPage.getNamePageReference().setPage(null);
 
             // Return prepared revision root nodePageReference.
             return revisionRootPage;
@@ -492,8 +599,8 @@ public final class PageWriteTrx implements IPageWriteTrx {
     }
 
     protected PageReference prepareLeafOfTree(
-            final PageReference mStartReference, final long mKey)
-            throws TTIOException {
+            final PageReference mStartReference, final long mKey,
+            final int mHeight) throws TTIOException {
 
         // Initial state pointing to the indirect nodePageReference of level 0.
 
@@ -502,9 +609,10 @@ public final class PageWriteTrx implements IPageWriteTrx {
         long levelKey = mKey;
 
         // Iterate through all levels.
-        for (int level = 0, height = IConstants.INP_LEVEL_PAGE_COUNT_EXPONENT.length; level < height; level++) {
-            offset = (int) (levelKey >> IConstants.INP_LEVEL_PAGE_COUNT_EXPONENT[level]);
-            levelKey -= offset << IConstants.INP_LEVEL_PAGE_COUNT_EXPONENT[level];
+        for (int level = 0; level < mHeight; level++) {
+            final int exponent = levelExponent(level, mHeight);
+            offset = (int) (levelKey >> exponent);
+            levelKey -= (long) offset << exponent;
             final IndirectPage page = prepareIndirectPage(reference);
             reference = page.getReferences()[offset];
 
@@ -514,6 +622,35 @@ public final class PageWriteTrx implements IPageWriteTrx {
         return reference;
     }
 
+    /**
+     * Grow an indirect tree until it is high enough to hold a key. Each new
+     * level puts an indirect page on top of the tree which takes the former top
+     * of the tree as its first reference, so all keys stay where they are.
+     * 
+     * @param paramStartReference
+     *            reference pointing to the top of the tree
+     * @param paramHeight
+     *            current height of the tree
+     * @param paramKey
+     *            key the tree has to hold
+     * @return the new height of the tree
+     */
+    private int growTree(final PageReference paramStartReference,
+            final int paramHeight, final long paramKey) {
+        int height = paramHeight;
+        while (!isInTree(paramKey, height)) {
+            final IndirectPage page = new IndirectPage(mDelegate.getUberPage()
+                    .getRevision());
+            final PageReference formerTop = page.getReferences()[0];
+            formerTop.setKey(paramStartReference.getKey());
+            formerTop.setPage(paramStartReference.getPage());
+            paramStartReference.setKey(null);
+            paramStartReference.setPage(page);
+            height++;
+        }
+        return height;
+    }
+
     /**
      * Dereference node page reference.
      * 
@@ -568,7 +705,28 @@ public final class PageWriteTrx implements IPageWriteTrx {
      */
     @Override
     public byte[] getRawName(int pKey) {
-        return mDelegate.getRawName(pKey);
+        final NamePage currentNamePage = getModifiedNamePage(pKey);
+        if (currentNamePage == null) {
+            return mDelegate.getRawName(pKey);
+        } else {
+            return currentNamePage.getRawName(pKey);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setScan(final boolean pScan) {
+        mDelegate.setScan(pScan);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isScan() {
+        return mDelegate.isScan();
     }
 
     /**
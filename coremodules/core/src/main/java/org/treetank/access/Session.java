@@ -31,20 +31,28 @@ import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 
 import org.treetank.access.conf.ResourceConfiguration;
+import org.treetank.access.conf.RetentionConfiguration;
 import org.treetank.access.conf.SessionConfiguration;
 import org.treetank.api.INodeReadTrx;
 import org.treetank.api.INodeWriteTrx;
 import org.treetank.api.IPageReadTrx;
 import org.treetank.api.IPageWriteTrx;
 import org.treetank.api.ISession;
+import org.treetank.cache.PageCache;
+import org.treetank.cache.StoredPageKey;
 import org.treetank.exception.AbsTTException;
 import org.treetank.exception.TTIOException;
+import org.treetank.exception.TTUsageException;
 import org.treetank.io.EStorage;
 import org.treetank.io.IReader;
 import org.treetank.io.IStorage;
 import org.treetank.io.IWriter;
+import org.treetank.metrics.MetricsRegistry;
 import org.treetank.page.PageReference;
 import org.treetank.page.UberPage;
+import org.treetank.page.interfaces.IPage;
+
+import com.google.common.cache.Cache;
 
 /**
  * <h1>Session</h1>
@@ -71,12 +79,30 @@ public final class Session implements ISession {
     /** Remember the write seperatly because of the concurrent writes. */
     private final Set<IPageReadTrx> mPageTrxs;
 
+    /** Readers of the open streams on values stored in overflow pages. */
+    private final Set<IReader> mOverflowReaders;
+
     /** abstract factory for all interaction to the storage. */
-    private final IStorage mFac;
+    protected final IStorage mFac;
 
     /** Determines if session was closed. */
     private transient boolean mClosed;
 
+    /** Is the storage of pages dropped by a compaction still to be released? */
+    private volatile boolean mCompacted;
+
+    /** Complete node pages of committed revisions, shared by all read transactions. */
+    protected final PageCache mPageCache;
+
+    /** Revision root, indirect and name pages read from the storage, shared by all transactions. */
+    protected final Cache<StoredPageKey, IPage> mTreePageCache;
+
+    /** Metrics of the caches and the storage, exported while the session is open. */
+    protected final MetricsRegistry mMetrics;
+
+    /** Number of compactions of the storage since the session was opened. */
+    private volatile long mGeneration;
+
     /**
      * Hidden constructor.
      * 
@@ -96,18 +122,23 @@ public final class Session implements ISession {
         mResourceConfig = paramResourceConf;
         mSessionConfig = paramSessionConf;
         mPageTrxs = new CopyOnWriteArraySet<IPageReadTrx>();
+        mOverflowReaders = new CopyOnWriteArraySet<IReader>();
+        mMetrics = new MetricsRegistry();
+        mPageCache = PageReadTrx.buildPageCache(this);
+        mTreePageCache = PageReadTrx.buildTreePageCache(this);
 
-        mFac = EStorage.getStorage(mResourceConfig);
+        mFac = EStorage.getStorage(mResourceConfig, paramDatabase.getSyncGroup(), mMetrics);
         if (!mFac.exists()) {
             // Bootstrap uber page and make sure there already is a root
             // node.
-            mLastCommittedUberPage = new UberPage();
+            mLastCommittedUberPage = new UberPage(mResourceConfig.mNodesPerPage);
         } else {
             final IReader reader = mFac.getReader();
             final PageReference firstRef = reader.readFirstReference();
             mLastCommittedUberPage = (UberPage) firstRef.getPage();
             reader.close();
         }
+        mMetrics.register("Session", mResourceConfig.mPath.getAbsolutePath());
         mClosed = false;
     }
 
@@ -127,8 +158,8 @@ public final class Session implements ISession {
         return new NodeReadTrx(beginPageReadTransaction(pRevKey));
     }
 
-    public IPageReadTrx beginPageReadTransaction(final long pRevKey)
-            throws AbsTTException {
+    public synchronized IPageReadTrx beginPageReadTransaction(
+            final long pRevKey) throws AbsTTException {
         assertAccess(pRevKey);
         final PageReadTrx trx = new PageReadTrx(this, mLastCommittedUberPage,
                 pRevKey, mFac.getReader());
@@ -136,15 +167,13 @@ public final class Session implements ISession {
         return trx;
     }
 
-    public IPageWriteTrx beginPageWriteTransaction() throws AbsTTException {
+    public synchronized IPageWriteTrx beginPageWriteTransaction()
+            throws AbsTTException {
         assertAccess(mLastCommittedUberPage.getRevision());
 
-        final IPageWriteTrx trx = beginPageWriteTransaction(
+        return beginPageWriteTransaction(
                 mLastCommittedUberPage.getRevisionNumber(),
                 mLastCommittedUberPage.getRevisionNumber());
-        mPageTrxs.add(trx);
-
-        return trx;
 
     }
 
@@ -162,17 +191,132 @@ public final class Session implements ISession {
 
     }
 
-    protected IPageWriteTrx beginPageWriteTransaction(
+    /**
+     * Beginning a page write transaction, also used by a node write
+     * transaction for continuing after a commit, an abort or a revert. The
+     * transaction is registered until it is closed, so that no compaction
+     * runs while it is open.
+     * 
+     * @param mRepresentRevision
+     *            revision the transaction starts with
+     * @param mStoreRevision
+     *            last revision stored
+     * @return a new page write transaction
+     * @throws TTIOException
+     *             if the storage could not be accessed
+     */
+    protected synchronized IPageWriteTrx beginPageWriteTransaction(
             final long mRepresentRevision, final long mStoreRevision)
             throws TTIOException {
         final IWriter writer = mFac.getWriter();
 
-        return new PageWriteTrx(this, new UberPage(mLastCommittedUberPage,
-                mStoreRevision + 1), writer, mRepresentRevision, mStoreRevision);
+        final IPageWriteTrx trx = new PageWriteTrx(this, new UberPage(
+                mLastCommittedUberPage, mStoreRevision + 1), writer,
+                mRepresentRevision, mStoreRevision);
+        mPageTrxs.add(trx);
+        return trx;
     }
 
     protected void deregisterTrx(final IPageReadTrx pReadTrx) {
         mPageTrxs.remove(pReadTrx);
+        if (mCompacted) {
+            releaseCompacted();
+        }
+    }
+
+    /**
+     * Opening a reader for a stream on a value stored in overflow pages. The
+     * stream may outlive the transaction it was taken from, so its reader is
+     * tracked like a transaction until it is released.
+     * 
+     * @return a new reader of the storage
+     * @throws TTIOException
+     *             if the session is closed or the storage could not be
+     *             accessed
+     */
+    protected synchronized IReader beginOverflowRead() throws TTIOException {
+        if (mClosed) {
+            throw new TTIOException("Session is already closed.");
+        }
+        final IReader reader = mFac.getReader();
+        mOverflowReaders.add(reader);
+        return reader;
+    }
+
+    /**
+     * Releasing the reader of a stream on a value stored in overflow pages.
+     * 
+     * @param pReader
+     *            reader opened with {@link #beginOverflowRead()}
+     * @throws TTIOException
+     *             if the reader could not be closed
+     */
+    protected void endOverflowRead(final IReader pReader) throws TTIOException {
+        if (mOverflowReaders.remove(pReader)) {
+            pReader.close();
+        }
+        if (mCompacted) {
+            releaseCompacted();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void compact(final RetentionConfiguration pRetention) throws AbsTTException {
+        if (pRetention == null) {
+            throw new NullPointerException("paramRetention may not be null!");
+        }
+        assertAccess(mLastCommittedUberPage.getRevision());
+        for (final IPageReadTrx trx : mPageTrxs) {
+            if (trx instanceof IPageWriteTrx) {
+                throw new TTUsageException("Compaction needs all write transactions to be closed!");
+            }
+        }
+        if (mLastCommittedUberPage.isBootstrap()) {
+            return;
+        }
+
+        final IReader reader = mFac.getReader();
+        final IWriter writer = mFac.getCompactionWriter();
+        try {
+            mLastCommittedUberPage = new Compaction(this, reader, writer, pRetention).compact();
+        } finally {
+            writer.close();
+            reader.close();
+        }
+        // transactions started from now on read the rewritten pages
+        mGeneration++;
+        mPageCache.invalidateAll();
+        mTreePageCache.invalidateAll();
+        mCompacted = true;
+        releaseCompacted();
+    }
+
+    /**
+     * Getting the compaction generation of the storage. Pages read before and
+     * after a compaction are cached separately.
+     * 
+     * @return the number of compactions since the session was opened
+     */
+    protected long getGeneration() {
+        return mGeneration;
+    }
+
+    /**
+     * Releasing the storage of the pages dropped by the last compaction if no
+     * transaction may access them anymore.
+     */
+    private synchronized void releaseCompacted() {
+        if (mCompacted && mPageTrxs.isEmpty() && mOverflowReaders.isEmpty()) {
+            try {
+                mFac.releaseCompacted();
+                mCompacted = false;
+            } catch (final TTIOException exc) {
+                // retried with the next closed transaction
+            }
+        }
     }
 
     /**
@@ -184,17 +328,36 @@ public final class Session implements ISession {
             for (final IPageReadTrx rtx : mPageTrxs) {
                 rtx.close();
             }
+            for (final IReader reader : mOverflowReaders) {
+                reader.close();
+            }
+            mOverflowReaders.clear();
 
             // Immediately release all ressources.
             mLastCommittedUberPage = null;
             mPageTrxs.clear();
+            mPageCache.invalidateAll();
+            mTreePageCache.invalidateAll();
 
+            if (mCompacted) {
+                mFac.releaseCompacted();
+                mCompacted = false;
+            }
             mFac.close();
+            mMetrics.unregister();
             mDatabase.removeSession(mResourceConfig.mPath);
             mClosed = true;
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MetricsRegistry getMetrics() {
+        return mMetrics;
+    }
+
     /**
      * Checks for valid revision.
      * 
@@ -27,11 +27,18 @@
 package org.treetank.access.conf;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.zip.Deflater;
 
 import org.treetank.access.NodeWriteTrx.HashKind;
 import org.treetank.access.Session;
+import org.treetank.io.EDurability;
 import org.treetank.io.EStorage;
+import org.treetank.io.codec.ECodec;
+import org.treetank.io.file.FileKey;
 import org.treetank.settings.ERevisioning;
+import org.treetank.utils.IConstants;
 
 /**
  * <h1>ResourceConfiguration</h1>
@@ -128,12 +135,44 @@ public final class ResourceConfiguration implements IConfigureSerializable {
     public static final HashKind HASHKIND = HashKind.Rolling;
     /** Versions to restore. */
     public static final int VERSIONSTORESTORE = 4;
+    /** Standard number of nodes per node page. */
+    public static final int NODESPERPAGE = IConstants.NDP_NODE_COUNT;
+    /** Standard length in bytes from which on values are stored in overflow pages. */
+    public static final int OVERFLOWTHRESHOLD = 1 << 12;
+    /** Reading pages through a memory mapping of the data file. */
+    public static final boolean MEMORYMAPPED = false;
+    /** Standard size of a data segment in bytes. */
+    public static final long SEGMENTSIZE = 1L << 30;
+    /** Standard handling of the memory storage, discarding the pages on close. */
+    public static final boolean SNAPSHOT = false;
+    /** Standard provider of the blob store, writing to the local file system. */
+    public static final String BLOBSTOREPROVIDER = "filesystem";
+    /** Standard caching of the blob store, downloading every page once. */
+    public static final boolean BLOBCACHE = true;
+    /** Standard size of the Berkeley cache of a resource, bounded since every resource has its own. */
+    public static final long CACHESIZE = 16L << 20;
+    /** Standard size of a Berkeley log file, leaving it to the environment. */
+    public static final long LOGFILESIZE = 0;
+    /** Standard mode of the Berkeley database, transactional. */
+    public static final boolean DEFERREDWRITE = false;
+    /** Standard codecs applied to pages. */
+    public static final ECodec[] CODECS = {
+        ECodec.Deflate
+    };
+    /** Standard level of the deflate codec. */
+    public static final int DEFLATELEVEL = Deflater.DEFAULT_COMPRESSION;
+    /** Standard number of commit threads, one per available processor. */
+    public static final int COMMITTHREADS = 0;
+    /** Standard durability, leaving it to the operating system. */
+    public static final EDurability DURABILITY = EDurability.None;
+    /** Standard window of a group commit in milliseconds. */
+    public static final long GROUPCOMMITWINDOW = 10;
     /** Folder for tmp-database. */
     public static final String INTRINSICTEMP = "tmp";
     // END FIXED STANDARD FIELDS
 
     // MEMBERS FOR FIXED FIELDS
-    /** Type of Storage (File, Berkeley). */
+    /** Type of Storage (File, Berkeley, Memory, BlobStore). */
     public final EStorage mType;
 
     /** Kind of revisioning (Incremental, Differential). */
@@ -145,8 +184,94 @@ public final class ResourceConfiguration implements IConfigureSerializable {
     /** Number of revisions to restore a complete set of data. */
     public final int mRevisionsToRestore;
 
+    /**
+     * Number of nodes per node page, a power of two. Larger pages are read with fewer accesses, smaller
+     * pages are cheaper to rewrite when a single node changes.
+     */
+    public final int mNodesPerPage;
+
+    /**
+     * Length in bytes from which on values of text and attribute nodes are stored in overflow pages instead
+     * of their node page.
+     */
+    public final int mOverflowThreshold;
+
     /** Path for the resource to be associated. */
     public final File mPath;
+
+    /** Are pages read through a memory mapping of the data file (File storage only). */
+    public final boolean mMemoryMapped;
+
+    /** Size in bytes a data segment is filled up to before the next one is started (File storage only). */
+    public final long mSegmentSize;
+
+    /** Are the pages written to a snapshot on close and read again on open (Memory storage only). */
+    public final boolean mSnapshot;
+
+    /** Name of the jclouds provider (BlobStore storage only). */
+    public final String mBlobStoreProvider;
+
+    /**
+     * Properties of the jclouds context like identity, credential or endpoint, null if not supplied
+     * (BlobStore storage only). The properties are never stored together with the resource settings, sessions
+     * get them from their {@link SessionConfiguration#mBlobStoreProperties}.
+     */
+    public final transient Properties mBlobStoreProperties;
+
+    /**
+     * Name of the container holding the pages, by default the name of the database folder followed by the
+     * name of the resource (BlobStore storage only). The name must be unique among all resources stored with
+     * the same provider account.
+     */
+    public final String mBlobContainer;
+
+    /** Are downloaded pages cached in the data folder of the resource (BlobStore storage only). */
+    public final boolean mBlobCache;
+
+    /**
+     * Size in bytes of the cache of the Berkeley environment of this resource, 0 for the share of the heap
+     * chosen by the environment (Berkeley storage only). Every open resource has a cache of its own, so
+     * several open resources take the sum of their sizes. A size of 0 lets each environment take its default
+     * share of the heap and should only be used for a single open resource.
+     */
+    public final long mCacheSize;
+
+    /**
+     * Maximum size in bytes of a Berkeley log file, 0 for the default of the environment (Berkeley storage
+     * only).
+     */
+    public final long mLogFileSize;
+
+    /**
+     * Is the database written non-transactional with deferred writes, suited for bulk loads since written
+     * pages are only synced on commit (Berkeley storage only).
+     */
+    public final boolean mDeferredWrite;
+
+    /** Codecs applied to pages in the order of encoding. */
+    public final ECodec[] mCodecs;
+
+    /** Level of the {@link ECodec#Deflate} codec. */
+    public final int mDeflateLevel;
+
+    /**
+     * Key of the {@link ECodec#Encryption} codec, null if not encrypted or not supplied. The key is never
+     * stored together with the resource settings, sessions get it from their
+     * {@link SessionConfiguration#mEncryptionKey}.
+     */
+    public final transient byte[] mEncryptionKey;
+
+    /**
+     * Number of threads serializing and encoding pages in parallel during a commit, 0 for one thread per
+     * available processor, 1 for doing all work in the committing thread.
+     */
+    public final int mCommitThreads;
+
+    /** Durability of commits (None, Fsync, GroupCommit). */
+    public final EDurability mDurability;
+
+    /** Time in milliseconds a group commit waits for further commits before forcing. */
+    public final long mGroupCommitWindow;
     // END MEMBERS FOR FIXED FIELDS
 
     /** DatabaseConfiguration for this {@link ResourceConfiguration}. */
@@ -163,12 +288,98 @@ public final class ResourceConfiguration implements IConfigureSerializable {
         mRevision = pBuilder.mRevision;
         mHashKind = pBuilder.mHashKind;
         mRevisionsToRestore = pBuilder.mRevisionsToRestore;
+        mNodesPerPage = pBuilder.mNodesPerPage;
+        mOverflowThreshold = pBuilder.mOverflowThreshold;
+        mMemoryMapped = pBuilder.mMemoryMapped;
+        mSegmentSize = pBuilder.mSegmentSize;
+        mSnapshot = pBuilder.mSnapshot;
+        mBlobStoreProvider = pBuilder.mBlobStoreProvider;
+        mBlobStoreProperties = pBuilder.mBlobStoreProperties;
+        mBlobCache = pBuilder.mBlobCache;
+        mBlobContainer =
+            pBuilder.mBlobContainer == null ? new StringBuilder(pBuilder.mDBConfig.mFile.getName()).append(
+                '-').append(pBuilder.mResource).toString() : pBuilder.mBlobContainer;
+        mCacheSize = pBuilder.mCacheSize;
+        mLogFileSize = pBuilder.mLogFileSize;
+        mDeferredWrite = pBuilder.mDeferredWrite;
+        mCodecs = pBuilder.mCodecs;
+        mDeflateLevel = pBuilder.mDeflateLevel;
+        mEncryptionKey = pBuilder.mEncryptionKey;
+        mCommitThreads = pBuilder.mCommitThreads;
+        mDurability = pBuilder.mDurability;
+        mGroupCommitWindow = pBuilder.mGroupCommitWindow;
         mDBConfig = pBuilder.mDBConfig;
         mPath =
             new File(new File(mDBConfig.mFile, DatabaseConfiguration.Paths.Data.getFile().getName()),
                 pBuilder.mResource);
     }
 
+    /**
+     * Copy constructor supplying the settings not stored with the resource.
+     * 
+     * @param pConf
+     *            configuration to be copied
+     * @param pKey
+     *            key of the encryption codec
+     * @param pProperties
+     *            properties of the jclouds context
+     */
+    private ResourceConfiguration(final ResourceConfiguration pConf, final byte[] pKey,
+        final Properties pProperties) {
+        mType = pConf.mType;
+        mRevision = pConf.mRevision;
+        mHashKind = pConf.mHashKind;
+        mRevisionsToRestore = pConf.mRevisionsToRestore;
+        mNodesPerPage = pConf.mNodesPerPage;
+        mOverflowThreshold = pConf.mOverflowThreshold;
+        mMemoryMapped = pConf.mMemoryMapped;
+        mSegmentSize = pConf.mSegmentSize;
+        mSnapshot = pConf.mSnapshot;
+        mBlobStoreProvider = pConf.mBlobStoreProvider;
+        mBlobStoreProperties = pProperties;
+        mBlobCache = pConf.mBlobCache;
+        mBlobContainer = pConf.mBlobContainer;
+        mCacheSize = pConf.mCacheSize;
+        mLogFileSize = pConf.mLogFileSize;
+        mDeferredWrite = pConf.mDeferredWrite;
+        mCodecs = pConf.mCodecs;
+        mDeflateLevel = pConf.mDeflateLevel;
+        mEncryptionKey = pKey;
+        mCommitThreads = pConf.mCommitThreads;
+        mDurability = pConf.mDurability;
+        mGroupCommitWindow = pConf.mGroupCommitWindow;
+        mDBConfig = pConf.mDBConfig;
+        mPath = pConf.mPath;
+    }
+
+    /**
+     * Getting a copy of this configuration with the given encryption key, e.g.
+     * for a configuration read from the resource settings which never hold
+     * the key.
+     * 
+     * @param pKey
+     *            key of the encryption codec
+     * @return a copy of this configuration holding the key
+     */
+    public ResourceConfiguration withEncryptionKey(final byte[] pKey) {
+        return new ResourceConfiguration(this, pKey.clone(), mBlobStoreProperties);
+    }
+
+    /**
+     * Getting a copy of this configuration with the given properties of the
+     * jclouds context, e.g. for a configuration read from the resource
+     * settings which never hold them.
+     * 
+     * @param pProperties
+     *            properties of the jclouds context
+     * @return a copy of this configuration holding the properties
+     */
+    public ResourceConfiguration withBlobStoreProperties(final Properties pProperties) {
+        final Properties properties = new Properties();
+        properties.putAll(pProperties);
+        return new ResourceConfiguration(this, mEncryptionKey, properties);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -179,6 +390,22 @@ public final class ResourceConfiguration implements IConfigureSerializable {
         result = prime * result + mType.hashCode();
         result = prime * result + mRevision.hashCode();
         result = prime * result + mHashKind.hashCode();
+        result = prime * result + mNodesPerPage;
+        result = prime * result + mOverflowThreshold;
+        result = prime * result + (mMemoryMapped ? 1231 : 1237);
+        result = prime * result + (int)(mSegmentSize ^ (mSegmentSize >>> 32));
+        result = prime * result + (mSnapshot ? 1231 : 1237);
+        result = prime * result + mBlobStoreProvider.hashCode();
+        result = prime * result + (mBlobCache ? 1231 : 1237);
+        result = prime * result + mBlobContainer.hashCode();
+        result = prime * result + (int)(mCacheSize ^ (mCacheSize >>> 32));
+        result = prime * result + (int)(mLogFileSize ^ (mLogFileSize >>> 32));
+        result = prime * result + (mDeferredWrite ? 1231 : 1237);
+        result = prime * result + Arrays.hashCode(mCodecs);
+        result = prime * result + mDeflateLevel;
+        result = prime * result + mCommitThreads;
+        result = prime * result + mDurability.hashCode();
+        result = prime * result + (int)(mGroupCommitWindow ^ (mGroupCommitWindow >>> 32));
         result = prime * result + mPath.hashCode();
         result = prime * result + mDBConfig.hashCode();
         return result;
@@ -206,6 +433,30 @@ public final class ResourceConfiguration implements IConfigureSerializable {
         builder.append(this.mRevision);
         builder.append("\nHashKind: ");
         builder.append(this.mHashKind);
+        builder.append("\nNodesPerPage: ");
+        builder.append(this.mNodesPerPage);
+        builder.append("\nOverflowThreshold: ");
+        builder.append(this.mOverflowThreshold);
+        builder.append("\nMemoryMapped: ");
+        builder.append(this.mMemoryMapped);
+        builder.append("\nSegmentSize: ");
+        builder.append(this.mSegmentSize);
+        builder.append("\nSnapshot: ");
+        builder.append(this.mSnapshot);
+        builder.append("\nBlobStore: ");
+        builder.append(this.mBlobStoreProvider);
+        builder.append("\nBlobContainer: ");
+        builder.append(this.mBlobContainer);
+        builder.append("\nCacheSize: ");
+        builder.append(this.mCacheSize);
+        builder.append("\nLogFileSize: ");
+        builder.append(this.mLogFileSize);
+        builder.append("\nDeferredWrite: ");
+        builder.append(this.mDeferredWrite);
+        builder.append("\nCodecs: ");
+        builder.append(Arrays.toString(this.mCodecs));
+        builder.append("\nDurability: ");
+        builder.append(this.mDurability);
         return builder.toString();
     }
 
@@ -223,7 +474,7 @@ public final class ResourceConfiguration implements IConfigureSerializable {
      */
     public static final class Builder {
 
-        /** Type of Storage (File, Berkeley). */
+        /** Type of Storage (File, Berkeley, Memory, BlobStore). */
         private EStorage mType = STORAGE;
 
         /** Kind of revisioning (Incremental, Differential). */
@@ -235,6 +486,60 @@ public final class ResourceConfiguration implements IConfigureSerializable {
         /** Number of revisions to restore a complete set of data. */
         private int mRevisionsToRestore = VERSIONSTORESTORE;
 
+        /** Number of nodes per node page. */
+        private int mNodesPerPage = NODESPERPAGE;
+
+        /** Length from which on values are stored in overflow pages. */
+        private int mOverflowThreshold = OVERFLOWTHRESHOLD;
+
+        /** Are pages read through a memory mapping of the data file. */
+        private boolean mMemoryMapped = MEMORYMAPPED;
+
+        /** Size of a data segment. */
+        private long mSegmentSize = SEGMENTSIZE;
+
+        /** Is a snapshot of the memory storage written. */
+        private boolean mSnapshot = SNAPSHOT;
+
+        /** Provider of the blob store. */
+        private String mBlobStoreProvider = BLOBSTOREPROVIDER;
+
+        /** Properties of the blob store. */
+        private Properties mBlobStoreProperties = new Properties();
+
+        /** Are pages of the blob store cached. */
+        private boolean mBlobCache = BLOBCACHE;
+
+        /** Name of the container of the blob store, null for the default. */
+        private String mBlobContainer;
+
+        /** Size of the Berkeley cache. */
+        private long mCacheSize = CACHESIZE;
+
+        /** Size of a Berkeley log file. */
+        private long mLogFileSize = LOGFILESIZE;
+
+        /** Is the Berkeley database written with deferred writes. */
+        private boolean mDeferredWrite = DEFERREDWRITE;
+
+        /** Codecs applied to pages in the order of encoding. */
+        private ECodec[] mCodecs = CODECS.clone();
+
+        /** Level of the deflate codec. */
+        private int mDeflateLevel = DEFLATELEVEL;
+
+        /** Key of the encryption codec. */
+        private byte[] mEncryptionKey;
+
+        /** Number of threads encoding pages during a commit. */
+        private int mCommitThreads = COMMITTHREADS;
+
+        /** Durability of commits. */
+        private EDurability mDurability = DURABILITY;
+
+        /** Window of a group commit in milliseconds. */
+        private long mGroupCommitWindow = GROUPCOMMITWINDOW;
+
         /** Resource for the this session. */
         private String mResource;
 
@@ -317,6 +622,272 @@ public final class ResourceConfiguration implements IConfigureSerializable {
             return this;
         }
 
+        /**
+         * Setter for mNodesPerPage.
+         * 
+         * @param pNodes
+         *            to be set, a power of two between {@link IConstants#NDP_MIN_NODE_COUNT} and
+         *            {@link IConstants#NDP_MAX_NODE_COUNT}
+         * @return reference to the builder object
+         */
+        public Builder setNodesPerPage(final int pNodes) {
+            if (pNodes < IConstants.NDP_MIN_NODE_COUNT || pNodes > IConstants.NDP_MAX_NODE_COUNT
+                || Integer.bitCount(pNodes) != 1) {
+                throw new IllegalArgumentException(new StringBuilder("paramNodes must be a power of two between ")
+                    .append(IConstants.NDP_MIN_NODE_COUNT).append(" and ").append(IConstants.NDP_MAX_NODE_COUNT)
+                    .append("!").toString());
+            }
+            mNodesPerPage = pNodes;
+            return this;
+        }
+
+        /**
+         * Setter for mOverflowThreshold.
+         * 
+         * @param pThreshold
+         *            to be set in bytes, {@link Integer#MAX_VALUE} for storing all values inline
+         * @return reference to the builder object
+         */
+        public Builder setOverflowThreshold(final int pThreshold) {
+            if (pThreshold < 0) {
+                throw new IllegalArgumentException("paramThreshold must be >= 0!");
+            }
+            mOverflowThreshold = pThreshold;
+            return this;
+        }
+
+        /**
+         * Setter for mMemoryMapped. Only considered by the {@link EStorage#File} storage.
+         * 
+         * @param pMemoryMapped
+         *            to be set
+         * @return reference to the builder object
+         */
+        public Builder setMemoryMapped(final boolean pMemoryMapped) {
+            mMemoryMapped = pMemoryMapped;
+            return this;
+        }
+
+        /**
+         * Setter for mSegmentSize. Only considered by the {@link EStorage#File} storage.
+         * 
+         * @param pSize
+         *            to be set in bytes
+         * @return reference to the builder object
+         */
+        public Builder setSegmentSize(final long pSize) {
+            if (pSize <= 0 || pSize > FileKey.MAX_SEGMENT_SIZE) {
+                throw new IllegalArgumentException(new StringBuilder("paramSize must be > 0 and <= ").append(
+                    FileKey.MAX_SEGMENT_SIZE).append("!").toString());
+            }
+            mSegmentSize = pSize;
+            return this;
+        }
+
+        /**
+         * Setter for mSnapshot. Only considered by the {@link EStorage#Memory} storage.
+         * 
+         * @param pSnapshot
+         *            to be set
+         * @return reference to the builder object
+         */
+        public Builder setSnapshot(final boolean pSnapshot) {
+            mSnapshot = pSnapshot;
+            return this;
+        }
+
+        /**
+         * Setter for mBlobStoreProvider and mBlobStoreProperties. Only considered by the
+         * {@link EStorage#BlobStore} storage. The properties are only used by storages accessed with the
+         * built configuration, they are not stored with the resource settings.
+         * 
+         * @param pProvider
+         *            name of the jclouds provider, any provider of jclouds-allblobstore
+         * @param pProperties
+         *            properties of the jclouds context
+         * @return reference to the builder object
+         */
+        public Builder setBlobStore(final String pProvider, final Properties pProperties) {
+            if (pProvider == null || pProperties == null) {
+                throw new NullPointerException("paramProvider and paramProperties may not be null!");
+            }
+            mBlobStoreProvider = pProvider;
+            mBlobStoreProperties = new Properties();
+            mBlobStoreProperties.putAll(pProperties);
+            return this;
+        }
+
+        /**
+         * Setter for mBlobContainer. Only considered by the {@link EStorage#BlobStore} storage.
+         * 
+         * @param pContainer
+         *            name of the container, unique among all resources stored with the same provider account
+         * @return reference to the builder object
+         */
+        public Builder setBlobContainer(final String pContainer) {
+            if (pContainer == null) {
+                throw new NullPointerException("paramContainer may not be null!");
+            }
+            mBlobContainer = pContainer;
+            return this;
+        }
+
+        /**
+         * Setter for mBlobCache. Only considered by the {@link EStorage#BlobStore} storage.
+         * 
+         * @param pCache
+         *            to be set
+         * @return reference to the builder object
+         */
+        public Builder setBlobCache(final boolean pCache) {
+            mBlobCache = pCache;
+            return this;
+        }
+
+        /**
+         * Setter for mCacheSize, the size of the cache of this resource. Only considered by the
+         * {@link EStorage#Berkeley} storage.
+         * 
+         * @param pSize
+         *            to be set in bytes, 0 for the share of the heap chosen by the environment
+         * @return reference to the builder object
+         */
+        public Builder setCacheSize(final long pSize) {
+            if (pSize < 0) {
+                throw new IllegalArgumentException("paramSize must be >= 0!");
+            }
+            mCacheSize = pSize;
+            return this;
+        }
+
+        /**
+         * Setter for mLogFileSize. Only considered by the {@link EStorage#Berkeley} storage.
+         * 
+         * @param pSize
+         *            to be set in bytes, 0 for the default of the environment
+         * @return reference to the builder object
+         */
+        public Builder setLogFileSize(final long pSize) {
+            if (pSize < 0) {
+                throw new IllegalArgumentException("paramSize must be >= 0!");
+            }
+            mLogFileSize = pSize;
+            return this;
+        }
+
+        /**
+         * Setter for mDeferredWrite. Only considered by the {@link EStorage#Berkeley} storage.
+         * 
+         * @param pDeferredWrite
+         *            to be set
+         * @return reference to the builder object
+         */
+        public Builder setDeferredWrite(final boolean pDeferredWrite) {
+            mDeferredWrite = pDeferredWrite;
+            return this;
+        }
+
+        /**
+         * Setter for mCodecs. Pages are encoded in the given order and decoded in reverse order.
+         * 
+         * @param pCodecs
+         *            to be set
+         * @return reference to the builder object
+         */
+        public Builder setCodecs(final ECodec... pCodecs) {
+            if (pCodecs == null) {
+                throw new NullPointerException("paramCodecs may not be null!");
+            }
+            for (final ECodec codec : pCodecs) {
+                if (codec == null) {
+                    throw new NullPointerException("paramCodecs may not contain null!");
+                }
+            }
+            mCodecs = pCodecs.clone();
+            return this;
+        }
+
+        /**
+         * Setter for mDeflateLevel.
+         * 
+         * @param pLevel
+         *            to be set, between 0 and 9 or -1 for the default of {@link Deflater}
+         * @return reference to the builder object
+         */
+        public Builder setDeflateLevel(final int pLevel) {
+            if (pLevel < Deflater.DEFAULT_COMPRESSION || pLevel > Deflater.BEST_COMPRESSION) {
+                throw new IllegalArgumentException("paramLevel must be between -1 and 9!");
+            }
+            mDeflateLevel = pLevel;
+            return this;
+        }
+
+        /**
+         * Setter for mEncryptionKey. The key is only used by storages accessed
+         * with the built configuration, it is not stored with the resource
+         * settings.
+         * 
+         * @param pKey
+         *            to be set
+         * @return reference to the builder object
+         */
+        public Builder setEncryptionKey(final byte[] pKey) {
+            if (pKey == null) {
+                throw new NullPointerException("paramKey may not be null!");
+            }
+            if (pKey.length != IConstants.ENCRYPTION_KEY_LENGTH) {
+                throw new IllegalArgumentException(new StringBuilder("paramKey must have a length of ").append(
+                    IConstants.ENCRYPTION_KEY_LENGTH).append(" bytes!").toString());
+            }
+            mEncryptionKey = pKey.clone();
+            return this;
+        }
+
+        /**
+         * Setter for mCommitThreads.
+         * 
+         * @param pThreads
+         *            to be set, 0 for one thread per available processor
+         * @return reference to the builder object
+         */
+        public Builder setCommitThreads(final int pThreads) {
+            if (pThreads < 0) {
+                throw new IllegalArgumentException("paramThreads must be >= 0!");
+            }
+            mCommitThreads = pThreads;
+            return this;
+        }
+
+        /**
+         * Setter for mDurability.
+         * 
+         * @param pDurability
+         *            to be set
+         * @return reference to the builder object
+         */
+        public Builder setDurability(final EDurability pDurability) {
+            if (pDurability == null) {
+                throw new NullPointerException("paramDurability may not be null!");
+            }
+            mDurability = pDurability;
+            return this;
+        }
+
+        /**
+         * Setter for mGroupCommitWindow. Only considered for {@link EDurability#GroupCommit}.
+         * 
+         * @param pWindow
+         *            to be set in milliseconds
+         * @return reference to the builder object
+         */
+        public Builder setGroupCommitWindow(final long pWindow) {
+            if (pWindow < 0) {
+                throw new IllegalArgumentException("paramWindow must be >= 0!");
+            }
+            mGroupCommitWindow = pWindow;
+            return this;
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -331,6 +902,30 @@ public final class ResourceConfiguration implements IConfigureSerializable {
             builder.append(this.mRevision);
             builder.append("\nHashKind: ");
             builder.append(this.mHashKind);
+            builder.append("\nNodesPerPage: ");
+            builder.append(this.mNodesPerPage);
+            builder.append("\nOverflowThreshold: ");
+            builder.append(this.mOverflowThreshold);
+            builder.append("\nMemoryMapped: ");
+            builder.append(this.mMemoryMapped);
+            builder.append("\nSegmentSize: ");
+            builder.append(this.mSegmentSize);
+            builder.append("\nSnapshot: ");
+            builder.append(this.mSnapshot);
+            builder.append("\nBlobStore: ");
+            builder.append(this.mBlobStoreProvider);
+            builder.append("\nBlobContainer: ");
+            builder.append(this.mBlobContainer);
+            builder.append("\nCacheSize: ");
+            builder.append(this.mCacheSize);
+            builder.append("\nLogFileSize: ");
+            builder.append(this.mLogFileSize);
+            builder.append("\nDeferredWrite: ");
+            builder.append(this.mDeferredWrite);
+            builder.append("\nCodecs: ");
+            builder.append(Arrays.toString(this.mCodecs));
+            builder.append("\nDurability: ");
+            builder.append(this.mDurability);
             return builder.toString();
         }
 
@@ -340,6 +935,9 @@ public final class ResourceConfiguration implements IConfigureSerializable {
          * @return a new {@link ResourceConfiguration}.
          */
         public ResourceConfiguration build() {
+            if (mEncryptionKey == null && Arrays.asList(mCodecs).contains(ECodec.Encryption)) {
+                throw new IllegalStateException("Encryption codec needs an encryption key!");
+            }
             return new ResourceConfiguration(this);
         }
 
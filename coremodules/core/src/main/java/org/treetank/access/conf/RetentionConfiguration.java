@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.access.conf;
+
+import org.treetank.api.ISession;
+
+/**
+ * <h1>RetentionConfiguration</h1>
+ * 
+ * <p>
+ * Holds the revisions kept by {@link ISession#compact(RetentionConfiguration)}. A revision is kept if it is
+ * one of the last revisions or if its number is a multiple of the revision interval. The last revision is
+ * always kept.
+ * </p>
+ */
+public final class RetentionConfiguration {
+
+    /** Standard number of last revisions to keep. */
+    public static final int LASTREVISIONS = 1;
+    /** Standard interval of revisions to keep, 0 for none. */
+    public static final long REVISIONINTERVAL = 0;
+    // END STATIC STANDARD FIELDS
+
+    /** Number of last revisions to keep. */
+    public final int mLastRevisions;
+
+    /** Interval of revisions to keep, 0 for none. */
+    public final long mRevisionInterval;
+    // END MEMBERS FOR FIXED FIELDS
+
+    /**
+     * Convenience constructor using the standard settings.
+     * 
+     * @param pBuilder
+     *            {@link Builder} reference
+     */
+    private RetentionConfiguration(final RetentionConfiguration.Builder pBuilder) {
+        mLastRevisions = pBuilder.mLastRevisions;
+        mRevisionInterval = pBuilder.mRevisionInterval;
+    }
+
+    /**
+     * Checking if a revision is kept.
+     * 
+     * @param pRevision
+     *            to be checked
+     * @param pLastRevision
+     *            the last revision of the resource
+     * @return true if the revision is kept, false otherwise
+     */
+    public boolean isRetained(final long pRevision, final long pLastRevision) {
+        return pRevision > pLastRevision - mLastRevisions || pRevision == pLastRevision
+            || (mRevisionInterval > 0 && pRevision % mRevisionInterval == 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("LastRevisions: ");
+        builder.append(this.mLastRevisions);
+        builder.append("\nRevisionInterval: ");
+        builder.append(this.mRevisionInterval);
+        return builder.toString();
+    }
+
+    /**
+     * Builder class for generating new {@link RetentionConfiguration} instance.
+     */
+    public static final class Builder {
+
+        /** Number of last revisions to keep. */
+        private int mLastRevisions = LASTREVISIONS;
+
+        /** Interval of revisions to keep. */
+        private long mRevisionInterval = REVISIONINTERVAL;
+
+        /**
+         * Setter for field mLastRevisions.
+         * 
+         * @param pLastRevisions
+         *            new value for field
+         * @return reference to the builder object
+         */
+        public Builder setLastRevisions(final int pLastRevisions) {
+            if (pLastRevisions <= 0) {
+                throw new IllegalArgumentException("paramLastRevisions must be > 0!");
+            }
+            mLastRevisions = pLastRevisions;
+            return this;
+        }
+
+        /**
+         * Setter for field mRevisionInterval.
+         * 
+         * @param pInterval
+         *            new value for field, 0 for keeping no revisions by interval
+         * @return reference to the builder object
+         */
+        public Builder setRevisionInterval(final long pInterval) {
+            if (pInterval < 0) {
+                throw new IllegalArgumentException("paramInterval must be >= 0!");
+            }
+            mRevisionInterval = pInterval;
+            return this;
+        }
+
+        /**
+         * Building a new {@link RetentionConfiguration} with immutable fields.
+         * 
+         * @return a new {@link RetentionConfiguration}.
+         */
+        public RetentionConfiguration build() {
+            return new RetentionConfiguration(this);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            final StringBuilder builder = new StringBuilder();
+            builder.append("LastRevisions: ");
+            builder.append(this.mLastRevisions);
+            builder.append("\nRevisionInterval: ");
+            builder.append(this.mRevisionInterval);
+            return builder.toString();
+        }
+
+    }
+
+}
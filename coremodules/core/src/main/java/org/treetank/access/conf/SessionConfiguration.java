@@ -27,8 +27,12 @@
 
 package org.treetank.access.conf;
 
+import java.util.Properties;
+
 import org.treetank.access.Database;
 import org.treetank.access.Session;
+import org.treetank.io.codec.ECodec;
+import org.treetank.utils.IConstants;
 
 /**
  * <h1>SessionConfiguration</h1>
@@ -45,10 +49,41 @@ public final class SessionConfiguration {
 
     /** Default User. */
     public static final String DEFAULT_USER = "ALL";
+
+    /** Default memory budget of the page cache in bytes. */
+    public static final long DEFAULT_PAGE_CACHE_SIZE = 64L << 20;
+
+    /** Default number of revision root, indirect and name pages in the tree page cache. */
+    public static final int DEFAULT_TREE_PAGE_CACHE_SIZE = 1 << 12;
+
+    /** Default memory budget of the transaction log in bytes. */
+    public static final long DEFAULT_LOG_CACHE_SIZE = 16L << 20;
     // END STATIC STANDARD FIELDS
 
     /** User for this session. */
     public final String mUser;
+
+    /** Memory budget in bytes of the page cache shared by the read transactions of the session. */
+    public final long mPageCacheSize;
+
+    /** Number of revision root, indirect and name pages shared by the transactions of the session. */
+    public final int mTreePageCacheSize;
+
+    /** Memory budget in bytes of the node pages modified by a write transaction, kept before spilling. */
+    public final long mLogCacheSize;
+
+    /**
+     * Key of the {@link ECodec#Encryption} codec of the resource, null if the resource is not encrypted. The
+     * key is not stored with the resource settings and has to be supplied for every session.
+     */
+    public final byte[] mEncryptionKey;
+
+    /**
+     * Properties of the jclouds context of the resource like identity, credential or endpoint, null if not
+     * needed. The properties are not stored with the resource settings and have to be supplied for every
+     * session on a resource in a blob store other than the local file system.
+     */
+    public final Properties mBlobStoreProperties;
     // END MEMBERS FOR FIXED FIELDS
 
     /** ResourceConfiguration for this ResourceConfig. */
@@ -63,6 +98,11 @@ public final class SessionConfiguration {
     private SessionConfiguration(final SessionConfiguration.Builder pBuilder) {
         mUser = pBuilder.mUser;
         mResource = pBuilder.mResource;
+        mPageCacheSize = pBuilder.mPageCacheSize;
+        mTreePageCacheSize = pBuilder.mTreePageCacheSize;
+        mLogCacheSize = pBuilder.mLogCacheSize;
+        mEncryptionKey = pBuilder.mEncryptionKey;
+        mBlobStoreProperties = pBuilder.mBlobStoreProperties;
     }
 
     /**
@@ -92,6 +132,12 @@ public final class SessionConfiguration {
         final StringBuilder builder = new StringBuilder();
         builder.append("User: ");
         builder.append(this.mUser);
+        builder.append("\nPageCacheSize: ");
+        builder.append(this.mPageCacheSize);
+        builder.append("\nTreePageCacheSize: ");
+        builder.append(this.mTreePageCacheSize);
+        builder.append("\nLogCacheSize: ");
+        builder.append(this.mLogCacheSize);
         return builder.toString();
     }
 
@@ -115,6 +161,21 @@ public final class SessionConfiguration {
         /** Resource for the this session. */
         private String mResource;
 
+        /** Memory budget of the page cache. */
+        private long mPageCacheSize = SessionConfiguration.DEFAULT_PAGE_CACHE_SIZE;
+
+        /** Capacity of the tree page cache. */
+        private int mTreePageCacheSize = SessionConfiguration.DEFAULT_TREE_PAGE_CACHE_SIZE;
+
+        /** Memory budget of the transaction log. */
+        private long mLogCacheSize = SessionConfiguration.DEFAULT_LOG_CACHE_SIZE;
+
+        /** Key of the encryption codec. */
+        private byte[] mEncryptionKey;
+
+        /** Properties of the jclouds context. */
+        private Properties mBlobStoreProperties;
+
         /**
          * Constructor for the {@link Builder} with fixed fields to be set.
          * 
@@ -144,6 +205,87 @@ public final class SessionConfiguration {
             return this;
         }
 
+        /**
+         * Setter for field mPageCacheSize.
+         * 
+         * @param pPageCacheSize
+         *            memory budget in bytes, 0 for no caching across transactions
+         * @return reference to the builder object
+         */
+        public Builder setPageCacheSize(final long pPageCacheSize) {
+            if (pPageCacheSize < 0) {
+                throw new IllegalArgumentException("paramPageCacheSize must be >= 0!");
+            }
+            mPageCacheSize = pPageCacheSize;
+            return this;
+        }
+
+        /**
+         * Setter for field mTreePageCacheSize.
+         * 
+         * @param pTreePageCacheSize
+         *            number of pages, 0 for no caching across transactions
+         * @return reference to the builder object
+         */
+        public Builder setTreePageCacheSize(final int pTreePageCacheSize) {
+            if (pTreePageCacheSize < 0) {
+                throw new IllegalArgumentException("paramTreePageCacheSize must be >= 0!");
+            }
+            mTreePageCacheSize = pTreePageCacheSize;
+            return this;
+        }
+
+        /**
+         * Setter for field mLogCacheSize.
+         * 
+         * @param pLogCacheSize
+         *            memory budget in bytes, the modified node pages exceeding
+         *            it are spilled to disk
+         * @return reference to the builder object
+         */
+        public Builder setLogCacheSize(final long pLogCacheSize) {
+            if (pLogCacheSize < 0) {
+                throw new IllegalArgumentException("paramLogCacheSize must be >= 0!");
+            }
+            mLogCacheSize = pLogCacheSize;
+            return this;
+        }
+
+        /**
+         * Setter for mEncryptionKey.
+         * 
+         * @param pKey
+         *            key of the encryption codec of the resource
+         * @return reference to the builder object
+         */
+        public Builder setEncryptionKey(final byte[] pKey) {
+            if (pKey == null) {
+                throw new NullPointerException("paramKey may not be null!");
+            }
+            if (pKey.length != IConstants.ENCRYPTION_KEY_LENGTH) {
+                throw new IllegalArgumentException(new StringBuilder("paramKey must have a length of ")
+                    .append(IConstants.ENCRYPTION_KEY_LENGTH).append(" bytes!").toString());
+            }
+            mEncryptionKey = pKey.clone();
+            return this;
+        }
+
+        /**
+         * Setter for mBlobStoreProperties.
+         * 
+         * @param pProperties
+         *            properties of the jclouds context of the resource
+         * @return reference to the builder object
+         */
+        public Builder setBlobStoreProperties(final Properties pProperties) {
+            if (pProperties == null) {
+                throw new NullPointerException("paramProperties may not be null!");
+            }
+            mBlobStoreProperties = new Properties();
+            mBlobStoreProperties.putAll(pProperties);
+            return this;
+        }
+
         /**
          * Building a new {@link SessionConfiguration} with immutable fields.
          * 
@@ -161,6 +303,12 @@ public final class SessionConfiguration {
             final StringBuilder builder = new StringBuilder();
             builder.append("User: ");
             builder.append(this.mUser);
+            builder.append("\nPageCacheSize: ");
+            builder.append(this.mPageCacheSize);
+            builder.append("\nTreePageCacheSize: ");
+            builder.append(this.mTreePageCacheSize);
+            builder.append("\nLogCacheSize: ");
+            builder.append(this.mLogCacheSize);
             return builder.toString();
         }
 
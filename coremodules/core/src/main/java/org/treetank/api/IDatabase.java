@@ -31,6 +31,8 @@ import org.treetank.access.conf.ResourceConfiguration;
 import org.treetank.access.conf.SessionConfiguration;
 import org.treetank.exception.AbsTTException;
 import org.treetank.exception.TTIOException;
+import org.treetank.io.ISyncListener;
+import org.treetank.metrics.MetricsRegistry;
 
 /**
  * This interface describes database instances handled by treetank. A database
@@ -104,6 +106,33 @@ public interface IDatabase {
      */
     void truncateResource(final ResourceConfiguration pResConf);
 
+    /**
+     * Adding a listener informed about the time commits of all resources spend
+     * forcing their data to disk.
+     * 
+     * @param pListener
+     *            to be added
+     */
+    void addSyncListener(final ISyncListener pListener);
+
+    /**
+     * Removing a listener for forced commits.
+     * 
+     * @param pListener
+     *            to be removed
+     */
+    void removeSyncListener(final ISyncListener pListener);
+
+    /**
+     * Getting the metrics shared by all resources, e.g. the time commits
+     * spend forcing their data to disk. They are exported as the MBean
+     * <code>org.treetank:type=Database,name=&lt;database path&gt;</code> while
+     * the database is open.
+     * 
+     * @return the metrics of this database
+     */
+    MetricsRegistry getMetrics();
+
     /**
      * Closing the database for further access.
      * 
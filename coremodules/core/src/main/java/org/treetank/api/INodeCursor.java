@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.api;
+
+import org.treetank.node.ENode;
+
+/**
+ * Flyweight cursor over the nodes of a revision. The cursor reads the fields of
+ * the node it points to directly from the struct-of-arrays view of the node
+ * pages without creating any node. It moves independently of the
+ * {@link INodeReadTrx} it was taken from.
+ */
+public interface INodeCursor {
+
+    /**
+     * Move cursor to a node by its node key.
+     * 
+     * @param pKey
+     *            key of node to select
+     * @return true if the node exists, false otherwise in which case the
+     *         cursor stays at the current node
+     * @throws IllegalStateException
+     *             if the node page could not be read from the storage
+     */
+    boolean moveTo(final long pKey);
+
+    /**
+     * Move cursor to the parent of the current node.
+     * 
+     * @return true if the node exists, false otherwise
+     */
+    boolean moveToParent();
+
+    /**
+     * Move cursor to the first child of the current node.
+     * 
+     * @return true if the node exists, false otherwise
+     */
+    boolean moveToFirstChild();
+
+    /**
+     * Move cursor to the left sibling of the current node.
+     * 
+     * @return true if the node exists, false otherwise
+     */
+    boolean moveToLeftSibling();
+
+    /**
+     * Move cursor to the right sibling of the current node.
+     * 
+     * @return true if the node exists, false otherwise
+     */
+    boolean moveToRightSibling();
+
+    /**
+     * Getting the key of the current node.
+     * 
+     * @return the node key
+     */
+    long getNodeKey();
+
+    /**
+     * Getting the kind of the current node.
+     * 
+     * @return the kind
+     */
+    ENode getKind();
+
+    /**
+     * Getting the parent key of the current node.
+     * 
+     * @return the parent key
+     */
+    long getParentKey();
+
+    /**
+     * Getting the hash of the current node.
+     * 
+     * @return the hash
+     */
+    long getHash();
+
+    /**
+     * Getting the first child key of the current node.
+     * 
+     * @return the first child key
+     */
+    long getFirstChildKey();
+
+    /**
+     * Getting the left sibling key of the current node.
+     * 
+     * @return the left sibling key
+     */
+    long getLeftSiblingKey();
+
+    /**
+     * Getting the right sibling key of the current node.
+     * 
+     * @return the right sibling key
+     */
+    long getRightSiblingKey();
+
+    /**
+     * Getting the child count of the current node.
+     * 
+     * @return the child count
+     */
+    long getChildCount();
+
+    /**
+     * Getting the name key of the current node.
+     * 
+     * @return the name key, 0 if the node has no name
+     */
+    int getNameKey();
+
+    /**
+     * Getting the uri key of the current node.
+     * 
+     * @return the uri key, 0 if the node has no name
+     */
+    int getURIKey();
+
+}
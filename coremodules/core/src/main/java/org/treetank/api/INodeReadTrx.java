@@ -27,6 +27,8 @@
 
 package org.treetank.api;
 
+import java.io.InputStream;
+
 import javax.xml.namespace.QName;
 
 import org.treetank.exception.AbsTTException;
@@ -96,6 +98,14 @@ public interface INodeReadTrx {
      */
     String getValueOfCurrentNode();
 
+    /**
+     * Getting the value of the current node as stream. Values stored in
+     * overflow pages are read chunk by chunk instead of being materialized.
+     * 
+     * @return a stream of the raw value, empty if the node has no value
+     */
+    InputStream getValueStreamOfCurrentNode();
+
     /**
      * Getting the name of a current node.
      * 
@@ -120,7 +130,9 @@ public interface INodeReadTrx {
     String nameForKey(final int pKey);
 
     /**
-     * Get raw name for key. This is used for efficient key testing.
+     * Get raw name for key. This is used for efficient key testing and
+     * serialization. The array is shared with the name dictionary and must not
+     * be modified.
      * 
      * @param pKey
      *            Key, i.e., local part key, URI key, or prefix key.
@@ -135,6 +147,32 @@ public interface INodeReadTrx {
      */
     INode getNode();
 
+    /**
+     * Getting a cursor reading the nodes without creating them, starting at
+     * the current node.
+     * 
+     * @return the cursor
+     */
+    INodeCursor getCursor();
+
+    /**
+     * Hinting that this transaction is going to read all nodes of the revision
+     * or of a big subtree. Pages read while scanning are not admitted to the
+     * page cache shared with the other transactions. The hint stays set until
+     * it is cleared, so it is only set by the owner of the transaction.
+     * 
+     * @param pScan
+     *            true when starting a scan, false when done
+     */
+    void setScan(final boolean pScan);
+
+    /**
+     * Is this transaction scanning?
+     * 
+     * @return true if the scan hint is set, false otherwise
+     */
+    boolean isScan();
+
     /**
      * Close shared read transaction and immediately release all resources.
      * 
@@ -4,6 +4,7 @@
 package org.treetank.api;
 
 import org.treetank.exception.TTIOException;
+import org.treetank.node.NodeColumns;
 import org.treetank.page.RevisionRootPage;
 
 /**
@@ -14,12 +15,20 @@ public interface IPageReadTrx {
 
     INode getNode(final long pKey) throws TTIOException;
 
+    NodeColumns getColumns(final long pNodePageKey) throws TTIOException;
+
+    int getNodesPerPage();
+
     RevisionRootPage getActualRevisionRootPage() throws TTIOException;
 
     String getName(final int pKey);
 
     byte[] getRawName(final int pKey);
 
+    void setScan(final boolean pScan);
+
+    boolean isScan();
+
     void close() throws TTIOException;
 
     boolean isClosed();
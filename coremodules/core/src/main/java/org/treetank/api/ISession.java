@@ -27,7 +27,9 @@
 
 package org.treetank.api;
 
+import org.treetank.access.conf.RetentionConfiguration;
 import org.treetank.exception.AbsTTException;
+import org.treetank.metrics.MetricsRegistry;
 
 /**
  * <h1>ISession</h1>
@@ -82,6 +84,30 @@ public interface ISession {
      */
     IPageReadTrx beginPageReadTransaction(final long pRevKey) throws AbsTTException;
 
+    /**
+     * Compacting the resource by rewriting the pages of all revisions to be
+     * kept and dropping all others. Running read transactions keep working
+     * on the revisions they started with, the storage of the dropped pages
+     * is released as soon as all transactions are closed. Dropped revisions
+     * can not be accessed anymore.
+     * 
+     * @param pRetention
+     *            determining the revisions to be kept
+     * @throws AbsTTException
+     *             if a write transaction is running or the compaction fails
+     */
+    void compact(final RetentionConfiguration pRetention) throws AbsTTException;
+
+    /**
+     * Getting the metrics of the page caches, the transaction logs and the
+     * storage of this session. They are exported as the MBean
+     * <code>org.treetank:type=Session,name=&lt;resource path&gt;</code> while
+     * the session is open.
+     * 
+     * @return the metrics of this session
+     */
+    MetricsRegistry getMetrics();
+
     /**
      * Safely close session and immediately release all resources. If there are
      * running transactions, they will automatically be closed.
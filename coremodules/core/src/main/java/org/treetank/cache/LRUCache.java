@@ -29,20 +29,24 @@ package org.treetank.cache;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * An LRU cache, based on <code>LinkedHashMap</code>. This cache can hold an
  * possible second cache as a second layer for example for storing data in a
- * persistent way.
+ * persistent way. The cache is either bounded by a number of entries or by
+ * the estimated memory held by its entries.
  * 
  * @author Sebastian Graf, University of Konstanz
  */
 public final class LRUCache implements ICache {
 
     /**
-     * Capacity of the cache. Number of stored pages
+     * Capacity of the cache. Number of stored pages, or number of pages kept
+     * regardless of the memory budget.
      */
     static final int CACHE_CAPACITY = 10;
 
@@ -57,7 +61,23 @@ public final class LRUCache implements ICache {
     private final ICache mSecondCache;
 
     /**
-     * Creates a new LRU cache.
+     * Memory budget in bytes, negative if the cache holds
+     * {@link #CACHE_CAPACITY} entries.
+     */
+    private final long mBudget;
+
+    /**
+     * Sizes of the entries when they were put.
+     */
+    private final Map<Long, Long> mSizes;
+
+    /**
+     * Size of all entries.
+     */
+    private long mSize;
+
+    /**
+     * Creates a new LRU cache holding {@link #CACHE_CAPACITY} entries.
      * 
      * @param paramSecondCache
      *            the reference to the second cache where the data is stored
@@ -65,22 +85,24 @@ public final class LRUCache implements ICache {
      * 
      */
     public LRUCache(final ICache paramSecondCache) {
-        mSecondCache = paramSecondCache;
-        map = new LinkedHashMap<Long, NodePageContainer>(CACHE_CAPACITY) {
-            // (an anonymous inner class)
-            private static final long serialVersionUID = 1;
-
-            @Override
-            protected boolean removeEldestEntry(final Map.Entry<Long, NodePageContainer> mEldest) {
-                boolean returnVal = false;
-                if (size() > CACHE_CAPACITY) {
-                    mSecondCache.put(mEldest.getKey(), mEldest.getValue());
-                    returnVal = true;
-                }
-                return returnVal;
+        this(paramSecondCache, -1);
+    }
 
-            }
-        };
+    /**
+     * Creates a new LRU cache bounded by a memory budget.
+     * 
+     * @param paramSecondCache
+     *            the reference to the second cache where the data is stored
+     *            when it gets removed from the first one.
+     * @param paramBudget
+     *            memory budget in bytes, negative for holding
+     *            {@link #CACHE_CAPACITY} entries
+     */
+    public LRUCache(final ICache paramSecondCache, final long paramBudget) {
+        mSecondCache = paramSecondCache;
+        mBudget = paramBudget;
+        mSizes = new HashMap<Long, Long>();
+        map = new LinkedHashMap<Long, NodePageContainer>(CACHE_CAPACITY, 0.75f, true);
     }
 
     /**
@@ -103,6 +125,10 @@ public final class LRUCache implements ICache {
         NodePageContainer page = map.get(mKey);
         if (page == null) {
             page = mSecondCache.get(mKey);
+            // the container may be modified in place by the caller
+            if (page != null) {
+                put(mKey, page);
+            }
         }
         return page;
     }
@@ -119,6 +145,20 @@ public final class LRUCache implements ICache {
      */
     public void put(final long mKey, final NodePageContainer mValue) {
         map.put(mKey, mValue);
+        final long size = mBudget < 0 ? 1 : mValue.estimateSize();
+        final Long former = mSizes.put(mKey, size);
+        mSize += former == null ? size : size - former;
+
+        // The entries used last are kept even if they exceed the budget, the
+        // nodes of their containers may be modified in place.
+        final long budget = mBudget < 0 ? CACHE_CAPACITY : mBudget;
+        final Iterator<Map.Entry<Long, NodePageContainer>> entries = map.entrySet().iterator();
+        while (mSize > budget && map.size() > CACHE_CAPACITY) {
+            final Map.Entry<Long, NodePageContainer> eldest = entries.next();
+            mSecondCache.put(eldest.getKey(), eldest.getValue());
+            mSize -= mSizes.remove(eldest.getKey());
+            entries.remove();
+        }
     }
 
     /**
@@ -126,6 +166,8 @@ public final class LRUCache implements ICache {
      */
     public void clear() {
         map.clear();
+        mSizes.clear();
+        mSize = 0;
         mSecondCache.clear();
     }
 
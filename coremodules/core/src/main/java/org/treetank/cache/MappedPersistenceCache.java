@@ -0,0 +1,245 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.treetank.exception.TTIOException;
+import org.treetank.io.file.ByteBufferSinkAndSource;
+import org.treetank.metrics.Counter;
+
+/**
+ * Persistent cache appending the evicted containers to a memory-mapped file.
+ * Only the offsets of the latest version of each container are kept on the
+ * heap, a container put again is appended as a whole and the former version
+ * is left in place. The file is created with the first container put and
+ * removed when the cache is cleared.
+ */
+public final class MappedPersistenceCache extends AbstractPersistenceCache {
+
+    /** Size of one mapped region of the file. */
+    static final int REGION_SIZE = 1 << 24;
+
+    /** Name of the file. */
+    private static final String NAME = "spill";
+
+    /** Size of the mapped regions of this cache. */
+    private final int mRegionSize;
+
+    /** Offsets of the latest version of the containers in the file. */
+    private final Map<Long, Long> mOffsets;
+
+    /** Mapped regions of the file. */
+    private final List<MappedByteBuffer> mRegions;
+
+    /** File the containers are appended to, null if nothing was put yet. */
+    private RandomAccessFile mFile;
+
+    /** Channel of {@link #mFile}. */
+    private FileChannel mChannel;
+
+    /** Number of containers put. */
+    private final Counter mSpills;
+
+    /** Offset the next container is appended at. */
+    private long mEnd;
+
+    /**
+     * Constructor.
+     * 
+     * @param paramFile
+     *            the place where the file is stored.
+     */
+    public MappedPersistenceCache(final File paramFile) {
+        this(paramFile, new Counter());
+    }
+
+    /**
+     * Constructor counting the containers put.
+     * 
+     * @param paramFile
+     *            the place where the file is stored.
+     * @param paramSpills
+     *            counter incremented for each container put
+     */
+    public MappedPersistenceCache(final File paramFile, final Counter paramSpills) {
+        this(paramFile, REGION_SIZE, paramSpills);
+    }
+
+    /**
+     * Constructor with a given size of the mapped regions.
+     * 
+     * @param paramFile
+     *            the place where the file is stored.
+     * @param paramRegionSize
+     *            size of the mapped regions in bytes
+     * @param paramSpills
+     *            counter incremented for each container put
+     */
+    MappedPersistenceCache(final File paramFile, final int paramRegionSize, final Counter paramSpills) {
+        super(paramFile);
+        mRegionSize = paramRegionSize;
+        mSpills = paramSpills;
+        mOffsets = new HashMap<Long, Long>();
+        mRegions = new ArrayList<MappedByteBuffer>();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putPersistent(final long mKey, final NodePageContainer mPage) throws TTIOException {
+        final ByteBufferSinkAndSource sink = new ByteBufferSinkAndSource();
+        sink.writeInt(0);
+        mPage.serialize(sink);
+        final ByteBuffer buffer = sink.toByteBuffer();
+        buffer.putInt(0, buffer.remaining() - 4);
+        try {
+            if (mFile == null) {
+                mFile = new RandomAccessFile(new File(place, NAME), "rw");
+                mChannel = mFile.getChannel();
+            }
+            mOffsets.put(mKey, mEnd);
+            transfer(mEnd, buffer, true);
+            mEnd += buffer.limit();
+            mSpills.inc();
+        } catch (final IOException exc) {
+            throw new TTIOException(exc);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public NodePageContainer getPersistent(final long mKey) throws TTIOException {
+        final Long offset = mOffsets.get(mKey);
+        if (offset == null) {
+            return null;
+        }
+        try {
+            final ByteBuffer length = ByteBuffer.allocate(4);
+            transfer(offset, length, false);
+            final ByteBuffer buffer = ByteBuffer.allocate(length.getInt(0));
+            transfer(offset + 4, buffer, false);
+            buffer.flip();
+            return NodePageContainer.deserialize(new ByteBufferSinkAndSource(buffer));
+        } catch (final IOException exc) {
+            throw new TTIOException(exc);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearPersistent() throws TTIOException {
+        mOffsets.clear();
+        mRegions.clear();
+        mEnd = 0;
+        if (mFile != null) {
+            try {
+                mChannel.close();
+                mFile.close();
+            } catch (final IOException exc) {
+                throw new TTIOException(exc);
+            } finally {
+                mFile = null;
+                mChannel = null;
+            }
+        }
+    }
+
+    /**
+     * Copying bytes between a buffer and the file, region by region.
+     * 
+     * @param paramOffset
+     *            offset in the file
+     * @param paramBuffer
+     *            buffer to copy from or to, between its position and limit
+     * @param paramWrite
+     *            true for copying the buffer to the file, false otherwise
+     * @throws IOException
+     *             if a region could not be mapped
+     */
+    private void transfer(final long paramOffset, final ByteBuffer paramBuffer, final boolean paramWrite)
+        throws IOException {
+        long offset = paramOffset;
+        while (paramBuffer.hasRemaining()) {
+            final ByteBuffer region = getRegion((int)(offset / mRegionSize)).duplicate();
+            region.position((int)(offset % mRegionSize));
+            final int length = Math.min(region.remaining(), paramBuffer.remaining());
+            if (paramWrite) {
+                final ByteBuffer part = paramBuffer.duplicate();
+                part.limit(part.position() + length);
+                region.put(part);
+                paramBuffer.position(paramBuffer.position() + length);
+            } else {
+                region.limit(region.position() + length);
+                paramBuffer.put(region);
+            }
+            offset += length;
+        }
+    }
+
+    /**
+     * Getting a region of the file, mapping it and thereby growing the file if
+     * necessary.
+     * 
+     * @param paramIndex
+     *            index of the region
+     * @return the mapped region
+     * @throws IOException
+     *             if the region could not be mapped
+     */
+    private MappedByteBuffer getRegion(final int paramIndex) throws IOException {
+        while (mRegions.size() <= paramIndex) {
+            mRegions.add(mChannel.map(MapMode.READ_WRITE, (long)mRegions.size() * mRegionSize, mRegionSize));
+        }
+        return mRegions.get(paramIndex);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder("Spilled containers: ").append(mOffsets.size()).append(" bytes: ").append(
+            mEnd).toString();
+    }
+
+}
@@ -27,6 +27,8 @@
 
 package org.treetank.cache;
 
+import org.treetank.io.ITTSink;
+import org.treetank.io.ITTSource;
 import org.treetank.io.berkeley.TupleOutputSink;
 import org.treetank.page.NodePage;
 import org.treetank.page.PagePersistenter;
@@ -63,7 +65,8 @@ public final class NodePageContainer {
      *            to be used as a base for this container.
      */
     public NodePageContainer(final NodePage paramComplete) {
-        this(paramComplete, new NodePage(paramComplete.getNodePageKey(), paramComplete.getRevision()));
+        this(paramComplete, new NodePage(paramComplete.getNodePageKey(), paramComplete.getRevision(),
+            paramComplete.getNodeCount()));
     }
 
     /**
@@ -104,9 +107,40 @@ public final class NodePageContainer {
      *            for serialization
      */
     public void serialize(final TupleOutput paramOut) {
-        final TupleOutputSink sink = new TupleOutputSink(paramOut);
-        PagePersistenter.serializePage(sink, mComplete);
-        PagePersistenter.serializePage(sink, mModified);
+        serialize(new TupleOutputSink(paramOut));
+    }
+
+    /**
+     * Serializing the container to a sink.
+     * 
+     * @param paramSink
+     *            for serialization
+     */
+    public void serialize(final ITTSink paramSink) {
+        PagePersistenter.serializePage(paramSink, mComplete);
+        PagePersistenter.serializePage(paramSink, mModified);
+    }
+
+    /**
+     * Deserializing a container serialized by {@link #serialize(ITTSink)}.
+     * 
+     * @param paramSource
+     *            for deserialization
+     * @return the container
+     */
+    public static NodePageContainer deserialize(final ITTSource paramSource) {
+        final NodePage complete = (NodePage)PagePersistenter.createPage(paramSource);
+        final NodePage modified = (NodePage)PagePersistenter.createPage(paramSource);
+        return new NodePageContainer(complete, modified);
+    }
+
+    /**
+     * Estimating the memory held by the pages of this container.
+     * 
+     * @return estimated size in bytes
+     */
+    public long estimateSize() {
+        return (long)mComplete.estimateSize() + mModified.estimateSize();
     }
 
     /**
@@ -27,10 +27,7 @@
 
 package org.treetank.cache;
 
-import org.treetank.io.ITTSource;
 import org.treetank.io.berkeley.TupleInputSource;
-import org.treetank.page.NodePage;
-import org.treetank.page.PagePersistenter;
 
 import com.sleepycat.bind.tuple.TupleBinding;
 import com.sleepycat.bind.tuple.TupleInput;
@@ -43,10 +40,7 @@ public class NodePageContainerBinding extends TupleBinding<NodePageContainer> {
 
     @Override
     public NodePageContainer entryToObject(final TupleInput arg0) {
-        final ITTSource source = new TupleInputSource(arg0);
-        final NodePage current = (NodePage)PagePersistenter.createPage(source);
-        final NodePage modified = (NodePage)PagePersistenter.createPage(source);
-        return new NodePageContainer(current, modified);
+        return NodePageContainer.deserialize(new TupleInputSource(arg0));
     }
 
     @Override
@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.cache;
+
+import org.treetank.page.NodePage;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+
+/**
+ * <h1>PageCache</h1>
+ * 
+ * <p>
+ * Segmented LRU cache of complete node pages, bounded by a memory budget. Pages are admitted to a small
+ * probationary segment and only move to the protected segment if they are requested again. A traversal
+ * touching every page once therefore only displaces other probationary pages, not the working set of the
+ * point queries.
+ * </p>
+ * 
+ * <p>
+ * Requests of scanning transactions neither admit pages nor promote them, those transactions only read
+ * pages cached anyway.
+ * </p>
+ */
+public final class PageCache {
+
+    /** Percentage of the memory budget for pages requested only once. */
+    public static final int PROBATION_PERCENTAGE = 20;
+
+    /** Pages requested once. */
+    private final Cache<PageCacheKey, NodePage> mProbation;
+
+    /** Pages requested more than once. */
+    private final Cache<PageCacheKey, NodePage> mProtected;
+
+    /**
+     * Constructor.
+     * 
+     * @param paramBudget
+     *            memory budget in bytes, 0 for no caching
+     */
+    public PageCache(final long paramBudget) {
+        final long probation = paramBudget * PROBATION_PERCENTAGE / 100;
+        mProbation = build(probation);
+        mProtected = build(paramBudget - probation);
+    }
+
+    /**
+     * Getting a cached page.
+     * 
+     * @param paramKey
+     *            of the page
+     * @param paramScan
+     *            is the page requested by a scanning transaction?
+     * @return the page, null if it is not cached
+     */
+    public NodePage get(final PageCacheKey paramKey, final boolean paramScan) {
+        NodePage page = mProtected.getIfPresent(paramKey);
+        if (page == null) {
+            page = mProbation.getIfPresent(paramKey);
+            if (page != null && !paramScan) {
+                mProbation.invalidate(paramKey);
+                mProtected.put(paramKey, page);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Admitting a page read from the storage.
+     * 
+     * @param paramKey
+     *            of the page
+     * @param paramPage
+     *            the page
+     * @param paramScan
+     *            is the page requested by a scanning transaction?
+     */
+    public void put(final PageCacheKey paramKey, final NodePage paramPage, final boolean paramScan) {
+        if (!paramScan) {
+            mProbation.put(paramKey, paramPage);
+        }
+    }
+
+    /**
+     * Removing all pages.
+     */
+    public void invalidateAll() {
+        mProbation.invalidateAll();
+        mProtected.invalidateAll();
+    }
+
+    /**
+     * Building one segment of the cache.
+     * 
+     * @param paramBudget
+     *            memory budget of the segment in bytes
+     * @return a new cache
+     */
+    private static Cache<PageCacheKey, NodePage> build(final long paramBudget) {
+        return CacheBuilder.newBuilder().maximumWeight(paramBudget).weigher(
+            new Weigher<PageCacheKey, NodePage>() {
+                @Override
+                public int weigh(final PageCacheKey paramKey, final NodePage paramPage) {
+                    return paramPage.estimateSize();
+                }
+            }).build();
+    }
+
+}
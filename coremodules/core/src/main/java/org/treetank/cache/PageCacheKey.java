@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.cache;
+
+/**
+ * <h1>PageCacheKey</h1>
+ * 
+ * <p>
+ * Key of a complete node page within the page cache shared by the read transactions of a session. Since
+ * committed revisions never change, a node page is identified by its revision and its node page key. The
+ * generation distinguishes the storage before and after a compaction, since pages read from the compacted
+ * storage refer to other overflow pages than those read by transactions started before.
+ * </p>
+ */
+public final class PageCacheKey {
+
+    /** Compaction generation of the storage. */
+    private final long mGeneration;
+
+    /** Revision of the page. */
+    private final long mRevision;
+
+    /** Key of the node page. */
+    private final long mNodePageKey;
+
+    /**
+     * Constructor.
+     * 
+     * @param paramGeneration
+     *            compaction generation of the storage
+     * @param paramRevision
+     *            revision of the page
+     * @param paramNodePageKey
+     *            key of the node page
+     */
+    public PageCacheKey(final long paramGeneration, final long paramRevision, final long paramNodePageKey) {
+        mGeneration = paramGeneration;
+        mRevision = paramRevision;
+        mNodePageKey = paramNodePageKey;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 17;
+        result = prime * result + (int)(mGeneration ^ (mGeneration >>> 32));
+        result = prime * result + (int)(mRevision ^ (mRevision >>> 32));
+        result = prime * result + (int)(mNodePageKey ^ (mNodePageKey >>> 32));
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object paramObj) {
+        if (this == paramObj) {
+            return true;
+        }
+        if (!(paramObj instanceof PageCacheKey)) {
+            return false;
+        }
+        final PageCacheKey other = (PageCacheKey)paramObj;
+        return mGeneration == other.mGeneration && mRevision == other.mRevision
+            && mNodePageKey == other.mNodePageKey;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder("generation: ").append(mGeneration).append(" revision: ").append(mRevision)
+            .append(" node page: ").append(mNodePageKey).toString();
+    }
+
+}
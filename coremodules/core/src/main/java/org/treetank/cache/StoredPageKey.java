@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.cache;
+
+/**
+ * <h1>StoredPageKey</h1>
+ * 
+ * <p>
+ * Key of a revision root, indirect or name page within the cache shared by the transactions of a session.
+ * Those pages never change once written, so they are identified by the identifier of their key in the
+ * storage. The generation distinguishes the storage before and after a compaction.
+ * </p>
+ */
+public final class StoredPageKey {
+
+    /** Compaction generation of the storage. */
+    private final long mGeneration;
+
+    /** Identifier of the page in the storage. */
+    private final long mIdentifier;
+
+    /**
+     * Constructor.
+     * 
+     * @param paramGeneration
+     *            compaction generation of the storage
+     * @param paramIdentifier
+     *            identifier of the page in the storage
+     */
+    public StoredPageKey(final long paramGeneration, final long paramIdentifier) {
+        mGeneration = paramGeneration;
+        mIdentifier = paramIdentifier;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 17;
+        result = prime * result + (int)(mGeneration ^ (mGeneration >>> 32));
+        result = prime * result + (int)(mIdentifier ^ (mIdentifier >>> 32));
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object paramObj) {
+        if (this == paramObj) {
+            return true;
+        }
+        if (!(paramObj instanceof StoredPageKey)) {
+            return false;
+        }
+        final StoredPageKey other = (StoredPageKey)paramObj;
+        return mGeneration == other.mGeneration && mIdentifier == other.mIdentifier;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder("generation: ").append(mGeneration).append(" identifier: ").append(
+            mIdentifier).toString();
+    }
+
+}
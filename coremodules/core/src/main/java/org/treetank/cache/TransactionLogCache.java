@@ -31,10 +31,13 @@ import java.io.File;
 
 import org.treetank.access.conf.ResourceConfiguration;
 import org.treetank.exception.TTIOException;
+import org.treetank.metrics.MetricsRegistry;
+import org.treetank.utils.IConstants;
 
 /**
  * Transactionlog for storing all upcoming nodes in either the ram cache or a
- * persistent second cache.
+ * persistent second cache. The ram cache is bounded by a memory budget, the
+ * containers exceeding it are appended to a memory-mapped file.
  * 
  * @author Sebastian Graf, University of Konstanz
  * 
@@ -52,15 +55,33 @@ public final class TransactionLogCache extends AbstractPersistenceCache {
      * 
      * @param paramFile
      *            the config for having a storage-place
-     * @param paramRevision
-     *            revision number
+     * @param paramBudget
+     *            memory budget in bytes of the ram cache
      * @throws TTIOException
      *             Exception if IO is not successful
      */
-    public TransactionLogCache(final File paramFile, final long paramRevision) throws TTIOException {
+    public TransactionLogCache(final File paramFile, final long paramBudget) throws TTIOException {
+        this(paramFile, paramBudget, new MetricsRegistry());
+    }
+
+    /**
+     * Constructor counting the containers spilled to disk.
+     * 
+     * @param paramFile
+     *            the config for having a storage-place
+     * @param paramBudget
+     *            memory budget in bytes of the ram cache
+     * @param paramMetrics
+     *            metrics of the session
+     * @throws TTIOException
+     *             Exception if IO is not successful
+     */
+    public TransactionLogCache(final File paramFile, final long paramBudget,
+        final MetricsRegistry paramMetrics) throws TTIOException {
         super(paramFile);
-        final BerkeleyPersistenceCache secondCache = new BerkeleyPersistenceCache(paramFile, paramRevision);
-        mFirstCache = new LRUCache(secondCache);
+        final MappedPersistenceCache secondCache =
+            new MappedPersistenceCache(paramFile, paramMetrics.counter(IConstants.MET_LOG_SPILLS));
+        mFirstCache = new LRUCache(secondCache, paramBudget);
     }
 
     /**
@@ -34,8 +34,13 @@ import org.treetank.access.conf.ResourceConfiguration;
 import org.treetank.exception.TTIOException;
 import org.treetank.io.berkeley.BerkeleyFactory;
 import org.treetank.io.berkeley.BerkeleyKey;
+import org.treetank.io.blobstore.BlobStoreFactory;
+import org.treetank.io.blobstore.BlobStoreKey;
 import org.treetank.io.file.FileFactory;
 import org.treetank.io.file.FileKey;
+import org.treetank.io.memory.MemoryFactory;
+import org.treetank.io.memory.MemoryKey;
+import org.treetank.metrics.MetricsRegistry;
 
 /**
  * Utility methods for the storage. Those methods included common deletion
@@ -51,7 +56,7 @@ public enum EStorage {
 
         @Override
         public IKey deserialize(final ITTSource pSource) {
-            return new FileKey(pSource.readLong(), pSource.readLong());
+            return new FileKey(pSource.readLong(), pSource.readLong(), pSource.readLong());
         }
 
         @Override
@@ -72,6 +77,34 @@ public enum EStorage {
             serializeKey(pKey, mIdent, pSink);
         }
 
+    },
+
+    Memory(3, MemoryKey.class) {
+
+        @Override
+        public IKey deserialize(final ITTSource pSource) {
+            return new MemoryKey(pSource.readLong(), pSource.readLong(), pSource.readLong());
+        }
+
+        @Override
+        public void serialize(final ITTSink pSink, final IKey pKey) {
+            serializeKey(pKey, mIdent, pSink);
+        }
+
+    },
+
+    BlobStore(4, BlobStoreKey.class) {
+
+        @Override
+        public IKey deserialize(final ITTSource pSource) {
+            return new BlobStoreKey(pSource.readLong());
+        }
+
+        @Override
+        public void serialize(final ITTSink pSink, final IKey pKey) {
+            serializeKey(pKey, mIdent, pSink);
+        }
+
     };
 
     /** Getting identifier mapping. */
@@ -151,14 +184,41 @@ public enum EStorage {
      */
     public static final IStorage getStorage(final ResourceConfiguration paramResourceConf)
         throws TTIOException {
+        return getStorage(paramResourceConf, new SyncGroup(), new MetricsRegistry());
+    }
+
+    /**
+     * Factory method to retrieve suitable {@link IStorage} instances based upon
+     * the suitable {@link ResourceConfiguration}, forcing data within the
+     * given {@link SyncGroup} and recording the bytes read and written in the
+     * given {@link MetricsRegistry}.
+     * 
+     * @param paramResourceConf
+     *            determining the storage.
+     * @param paramSyncGroup
+     *            shared by all resources of the database
+     * @param paramMetrics
+     *            metrics of the session
+     * @return an implementation of the {@link IStorage} interface.
+     * @throws TTIOException
+     *             if anything happens.
+     */
+    public static final IStorage getStorage(final ResourceConfiguration paramResourceConf,
+        final SyncGroup paramSyncGroup, final MetricsRegistry paramMetrics) throws TTIOException {
         IStorage fac = null;
         final EStorage storageType = paramResourceConf.mType;
         switch (storageType) {
         case File:
-            fac = new FileFactory(paramResourceConf.mPath);
+            fac = new FileFactory(paramResourceConf, paramSyncGroup, paramMetrics);
             break;
         case Berkeley:
-            fac = new BerkeleyFactory(paramResourceConf.mPath);
+            fac = new BerkeleyFactory(paramResourceConf, paramSyncGroup);
+            break;
+        case Memory:
+            fac = new MemoryFactory(paramResourceConf);
+            break;
+        case BlobStore:
+            fac = new BlobStoreFactory(paramResourceConf);
             break;
         default:
             throw new TTIOException("Type", storageType.toString(), "not valid!");
@@ -56,6 +56,27 @@ public interface IStorage {
      */
     IReader getReader() throws TTIOException;
 
+    /**
+     * Getting a writer for compacting the storage. The pages written by it are
+     * stored apart from all pages written before, so that the storage of the
+     * latter can be released by {@link #releaseCompacted()} once the writer
+     * wrote its first reference.
+     * 
+     * @return an {@link IWriter} instance
+     * @throws TTIOException
+     *             if the initalisation fails
+     */
+    IWriter getCompactionWriter() throws TTIOException;
+
+    /**
+     * Releasing the storage of all pages written before the last compaction.
+     * Must only be called if no reader accesses these pages anymore.
+     * 
+     * @throws TTIOException
+     *             if the storage could not be released
+     */
+    void releaseCompacted() throws TTIOException;
+
     /**
      * Closing this storage.
      * 
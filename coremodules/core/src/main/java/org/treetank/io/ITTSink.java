@@ -62,4 +62,26 @@ public interface ITTSink {
      */
     void writeByte(final byte mByteVal);
 
+    /**
+     * Writing a long with a variable length of 7 bits per byte, least
+     * significant bits first. Small positive values take less bytes, negative
+     * values take 10 bytes and should be zigzag encoded beforehand.
+     * 
+     * @param mLongVal
+     *            to be written
+     */
+    void writeVarLong(final long mLongVal);
+
+    /**
+     * Writing a range of bytes to the storage.
+     * 
+     * @param mBytes
+     *            array holding the bytes to be written
+     * @param mOffset
+     *            offset of the first byte within the array
+     * @param mLength
+     *            number of bytes to be written
+     */
+    void writeBytes(final byte[] mBytes, final int mOffset, final int mLength);
+
 }
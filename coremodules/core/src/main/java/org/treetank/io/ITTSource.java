@@ -59,4 +59,24 @@ public interface ITTSource {
      */
     int readInt();
 
+    /**
+     * Reading a long written with a variable length by
+     * {@link ITTSink#writeVarLong(long)}.
+     * 
+     * @return the next long of the source
+     */
+    long readVarLong();
+
+    /**
+     * Reading a range of bytes from the storage.
+     * 
+     * @param mDst
+     *            array to fill
+     * @param mOffset
+     *            offset of the first byte within the array
+     * @param mLength
+     *            number of bytes to read
+     */
+    void readBytes(byte[] mDst, int mOffset, int mLength);
+
 }
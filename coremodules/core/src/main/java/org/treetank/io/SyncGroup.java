@@ -0,0 +1,209 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * <h1>SyncGroup</h1>
+ * 
+ * <p>
+ * Forcing of files shared by all resources of one database. In case of {@link EDurability#GroupCommit},
+ * the first commit requesting a force opens a cycle and waits for the window given by its resource. All
+ * files requested during this window are forced together afterwards, so that concurrent commits of all
+ * resources share one force cycle. Cycles are forced in the order they were opened, while the next cycle
+ * already collects files.
+ * </p>
+ * <p>
+ * Furthermore, the {@link ISyncListener}s registered here are informed about the time each commit spent
+ * waiting for its data being forced.
+ * </p>
+ */
+public final class SyncGroup {
+
+    /** Listeners informed about forced commits. */
+    private final List<ISyncListener> mListeners;
+
+    /** Cycle collecting files, null if no cycle is open. */
+    private Cycle mOpen;
+
+    /** Cycle closed most recently, forced or still to be forced. */
+    private Cycle mLast;
+
+    /**
+     * Constructor.
+     */
+    public SyncGroup() {
+        mListeners = new CopyOnWriteArrayList<ISyncListener>();
+    }
+
+    /**
+     * Forcing the content of a channel to disk within a shared cycle. Blocks until the cycle containing the
+     * channel is forced.
+     * 
+     * @param pChannel
+     *            to be forced
+     * @param pWindow
+     *            time in milliseconds for collecting further channels if a new cycle is opened
+     * @throws IOException
+     *             if forcing any channel of the cycle failed
+     */
+    public void force(final FileChannel pChannel, final long pWindow) throws IOException {
+        final Cycle cycle;
+        final boolean leader;
+        synchronized (this) {
+            leader = mOpen == null;
+            if (leader) {
+                mOpen = new Cycle();
+            }
+            cycle = mOpen;
+            cycle.mChannels.add(pChannel);
+        }
+
+        if (leader) {
+            if (pWindow > 0) {
+                try {
+                    Thread.sleep(pWindow);
+                } catch (final InterruptedException exc) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            final Cycle previous;
+            synchronized (this) {
+                mOpen = null;
+                previous = mLast;
+                mLast = cycle;
+            }
+            if (previous != null) {
+                previous.awaitForced();
+            }
+            cycle.force();
+        }
+        cycle.awaitForced();
+        if (cycle.mFailure != null) {
+            throw new IOException("Forcing of group commit failed!", cycle.mFailure);
+        }
+    }
+
+    /**
+     * Adding a listener for forced commits.
+     * 
+     * @param pListener
+     *            to be added
+     */
+    public void addListener(final ISyncListener pListener) {
+        if (pListener == null) {
+            throw new NullPointerException("paramListener may not be null!");
+        }
+        mListeners.add(pListener);
+    }
+
+    /**
+     * Removing a listener for forced commits.
+     * 
+     * @param pListener
+     *            to be removed
+     */
+    public void removeListener(final ISyncListener pListener) {
+        mListeners.remove(pListener);
+    }
+
+    /**
+     * Informing all listeners about a forced commit.
+     * 
+     * @param pResource
+     *            path of the committed resource
+     * @param pNanos
+     *            time in nanoseconds the commit waited for its data being forced
+     */
+    public void synced(final File pResource, final long pNanos) {
+        for (final ISyncListener listener : mListeners) {
+            listener.synced(pResource, pNanos);
+        }
+    }
+
+    /**
+     * One force cycle, holding all channels to be forced together.
+     */
+    private static final class Cycle {
+
+        /** Channels to be forced. */
+        private final Set<FileChannel> mChannels = new LinkedHashSet<FileChannel>();
+
+        /** Is this cycle forced? */
+        private boolean mForced;
+
+        /** First failure while forcing, null if all channels were forced. */
+        private IOException mFailure;
+
+        /**
+         * Forcing all channels of this cycle and waking up all waiting commits.
+         */
+        private void force() {
+            IOException failure = null;
+            for (final FileChannel channel : mChannels) {
+                try {
+                    channel.force(false);
+                } catch (final IOException exc) {
+                    if (failure == null) {
+                        failure = exc;
+                    }
+                }
+            }
+            synchronized (this) {
+                mFailure = failure;
+                mForced = true;
+                notifyAll();
+            }
+        }
+
+        /**
+         * Waiting until this cycle is forced.
+         */
+        private synchronized void awaitForced() {
+            boolean interrupted = false;
+            while (!mForced) {
+                try {
+                    wait();
+                } catch (final InterruptedException exc) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+    }
+
+}
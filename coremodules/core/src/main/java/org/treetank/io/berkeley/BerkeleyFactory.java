@@ -37,12 +37,12 @@ import org.treetank.io.IReader;
 import org.treetank.io.IStorage;
 import org.treetank.io.IWriter;
 import org.treetank.io.KeyDelegate;
+import org.treetank.io.SyncGroup;
 import org.treetank.io.berkeley.binding.AbstractPageBinding;
 import org.treetank.io.berkeley.binding.KeyBinding;
 import org.treetank.io.berkeley.binding.PageReferenceUberPageBinding;
+import org.treetank.io.codec.CodecPipeline;
 import org.treetank.page.PageReference;
-import org.treetank.page.delegates.PageDelegate;
-import org.treetank.page.interfaces.IPage;
 
 import com.sleepycat.bind.tuple.TupleBinding;
 import com.sleepycat.je.Database;
@@ -53,6 +53,8 @@ import com.sleepycat.je.Environment;
 import com.sleepycat.je.EnvironmentConfig;
 import com.sleepycat.je.LockMode;
 import com.sleepycat.je.OperationStatus;
+import com.sleepycat.je.Sequence;
+import com.sleepycat.je.SequenceConfig;
 
 /**
  * Factory class to build up {@link IReader} {@link IWriter} instances for the
@@ -69,20 +71,19 @@ public final class BerkeleyFactory implements IStorage {
     /** Binding for {@link KeyDelegate}. */
     public static final TupleBinding<IKey> KEY = new KeyBinding();
 
-    /** Binding for {@link PageDelegate}. */
-    public static final TupleBinding<IPage> PAGE_VAL_B = new AbstractPageBinding();
-
     /** Binding for {@link PageReference}. */
     public static final TupleBinding<PageReference> FIRST_REV_VAL_B = new PageReferenceUberPageBinding();
 
-    /** Binding for {@link Long}. */
-    public static final TupleBinding<Long> DATAINFO_VAL_B = TupleBinding.getPrimitiveBinding(Long.class);
-
     /**
      * Name for the database.
      */
     private static final String NAME = "berkeleyDatabase";
 
+    /**
+     * Number of page keys a {@link Sequence} hands out without updating the database.
+     */
+    private static final int SEQUENCE_CACHE = 1024;
+
     /**
      * Berkeley Environment for the database.
      */
@@ -93,32 +94,44 @@ public final class BerkeleyFactory implements IStorage {
      */
     private final Database mDatabase;
 
+    /**
+     * Sequence generating the page keys, shared by all writers.
+     */
+    private final Sequence mSequence;
+
     /** Storage of DB. */
     private final File mFile;
 
+    /** Configuration of the resource. */
+    private final ResourceConfiguration mResourceConf;
+
+    /** Listeners for forced commits shared with all resources of the database. */
+    private final SyncGroup mSyncGroup;
+
     /**
      * Private constructor.
      * 
-     * @param paramFile
-     *            the file associated with the database
-     * @param paramDatabase
-     *            for the Database settings
-     * @param paramSession
-     *            for the settings
+     * @param paramResourceConf
+     *            the configuration of the resource associated with the database
+     * @param paramSyncGroup
+     *            listeners for forced commits shared with all resources of the database
      * @throws TTIOException
      *             of something odd happens while database-connection
      */
-    public BerkeleyFactory(final File paramFile) throws TTIOException {
+    public BerkeleyFactory(final ResourceConfiguration paramResourceConf, final SyncGroup paramSyncGroup)
+        throws TTIOException {
 
-        mFile = paramFile;
+        mFile = paramResourceConf.mPath;
+        mResourceConf = paramResourceConf;
+        mSyncGroup = paramSyncGroup;
 
-        final File repoFile = new File(paramFile, ResourceConfiguration.Paths.Data.getFile().getName());
+        final File repoFile = new File(mFile, ResourceConfiguration.Paths.Data.getFile().getName());
         if (!repoFile.exists()) {
             repoFile.mkdirs();
         }
 
-        final DatabaseConfig conf = generateDBConf();
-        final EnvironmentConfig config = generateEnvConf();
+        final DatabaseConfig conf = generateDBConf(paramResourceConf);
+        final EnvironmentConfig config = generateEnvConf(paramResourceConf);
 
         if (repoFile.listFiles().length == 0
             || (repoFile.listFiles().length == 1 && "tt.tnk".equals(repoFile.listFiles()[0].getName()))) {
@@ -130,6 +143,15 @@ public final class BerkeleyFactory implements IStorage {
             mEnv = new Environment(repoFile, config);
 
             mDatabase = mEnv.openDatabase(null, NAME, conf);
+
+            final DatabaseEntry keyEntry = new DatabaseEntry();
+            BerkeleyFactory.KEY.objectToEntry(BerkeleyKey.getDataInfoKey(), keyEntry);
+            final SequenceConfig seqConf = new SequenceConfig();
+            seqConf.setAllowCreate(true);
+            seqConf.setInitialValue(1);
+            seqConf.setCacheSize(SEQUENCE_CACHE);
+            seqConf.setAutoCommitNoSync(true);
+            mSequence = mDatabase.openSequence(null, keyEntry, seqConf);
         } catch (final DatabaseException exc) {
             throw new TTIOException(exc);
         }
@@ -142,7 +164,11 @@ public final class BerkeleyFactory implements IStorage {
     @Override
     public IReader getReader() throws TTIOException {
         try {
-            return new BerkeleyReader(mEnv, mDatabase);
+            final AbstractPageBinding binding = new AbstractPageBinding(new CodecPipeline(mResourceConf));
+            if (mResourceConf.mDeferredWrite) {
+                return new BerkeleyReader(mDatabase, null, binding);
+            }
+            return new BerkeleyReader(mEnv, mDatabase, binding);
         } catch (final DatabaseException exc) {
             throw new TTIOException(exc);
         }
@@ -153,7 +179,24 @@ public final class BerkeleyFactory implements IStorage {
      */
     @Override
     public IWriter getWriter() throws TTIOException {
-        return new BerkeleyWriter(mEnv, mDatabase);
+        return new BerkeleyWriter(mEnv, mDatabase, mSequence, new AbstractPageBinding(new CodecPipeline(
+            mResourceConf)), mResourceConf, mSyncGroup);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IWriter getCompactionWriter() throws TTIOException {
+        return getWriter();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void releaseCompacted() throws TTIOException {
+        // dropped pages remain in the environment since they are not deleted
     }
 
     /**
@@ -162,6 +205,7 @@ public final class BerkeleyFactory implements IStorage {
     @Override
     public void close() throws TTIOException {
         try {
+            mSequence.close();
             mDatabase.close();
             mEnv.close();
         } catch (final DatabaseException exc) {
@@ -178,14 +222,12 @@ public final class BerkeleyFactory implements IStorage {
         final DatabaseEntry keyEntry = new DatabaseEntry();
         boolean returnVal = false;
         try {
-            final IReader reader = new BerkeleyReader(mEnv, mDatabase);
             BerkeleyFactory.KEY.objectToEntry(BerkeleyKey.getFirstRevKey(), keyEntry);
 
             final OperationStatus status = mDatabase.get(null, keyEntry, valueEntry, LockMode.DEFAULT);
             if (status == OperationStatus.SUCCESS) {
                 returnVal = true;
             }
-            reader.close();
         } catch (final DatabaseException exc) {
             throw new TTIOException(exc);
         }
@@ -201,7 +243,7 @@ public final class BerkeleyFactory implements IStorage {
         try {
             final Environment env =
                 new Environment(new File(mFile, ResourceConfiguration.Paths.Data.getFile().getName()),
-                    generateEnvConf());
+                    generateEnvConf(mResourceConf));
             if (env.getDatabaseNames().contains(NAME)) {
                 env.removeDatabase(null, NAME);
             }
@@ -211,16 +253,38 @@ public final class BerkeleyFactory implements IStorage {
 
     }
 
-    private static EnvironmentConfig generateEnvConf() {
+    /**
+     * Generating the configuration of the environment. Each environment has a cache of its own, sized by the
+     * configuration of its resource, so the caches of several open resources add up.
+     * 
+     * @param paramResourceConf
+     *            configuration of the resource
+     * @return the configuration of the environment
+     */
+    private static EnvironmentConfig generateEnvConf(final ResourceConfiguration paramResourceConf) {
         final EnvironmentConfig config = new EnvironmentConfig();
         config.setTransactional(true);
-        config.setCacheSize(1024 * 1024);
+        if (paramResourceConf.mCacheSize > 0) {
+            config.setCacheSize(paramResourceConf.mCacheSize);
+        }
+        if (paramResourceConf.mLogFileSize > 0) {
+            config.setConfigParam(EnvironmentConfig.LOG_FILE_MAX, Long
+                .toString(paramResourceConf.mLogFileSize));
+        }
         return config;
     }
 
-    private static DatabaseConfig generateDBConf() {
+    /**
+     * Generating the configuration of the database, either transactional or with deferred writes.
+     * 
+     * @param paramResourceConf
+     *            configuration of the resource
+     * @return the configuration of the database
+     */
+    private static DatabaseConfig generateDBConf(final ResourceConfiguration paramResourceConf) {
         final DatabaseConfig conf = new DatabaseConfig();
-        conf.setTransactional(true);
+        conf.setTransactional(!paramResourceConf.mDeferredWrite);
+        conf.setDeferredWrite(paramResourceConf.mDeferredWrite);
         conf.setKeyPrefixing(true);
         return conf;
     }
@@ -62,10 +62,9 @@ public class BerkeleyKey implements IKey {
     }
 
     /**
-     * Static method to get the key about the information about the last
-     * nodepagekey given.
+     * Static method to get the key of the sequence generating the page keys.
      * 
-     * @return the key for the last nodepage key
+     * @return the key for the sequence of the page keys
      */
     public static final BerkeleyKey getDataInfoKey() {
         return new BerkeleyKey(-2);
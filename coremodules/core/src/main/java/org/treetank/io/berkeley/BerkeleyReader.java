@@ -34,6 +34,7 @@ import org.treetank.page.PageReference;
 import org.treetank.page.UberPage;
 import org.treetank.page.interfaces.IPage;
 
+import com.sleepycat.bind.tuple.TupleBinding;
 import com.sleepycat.je.Database;
 import com.sleepycat.je.DatabaseEntry;
 import com.sleepycat.je.DatabaseException;
@@ -57,17 +58,24 @@ public final class BerkeleyReader implements IReader {
     /** Link to the {@link Transaction}. */
     private final Transaction mTxn;
 
+    /** Binding for the pages. */
+    private final TupleBinding<IPage> mPageBinding;
+
     /**
      * Constructor.
      * 
      * @param paramDatabase
      *            {@link Database} reference to be connected to
      * @param paramTxn
-     *            {@link Transaction} to be used
+     *            {@link Transaction} to be used, null for a non-transactional database
+     * @param paramPageBinding
+     *            binding for the pages, exclusively used by this reader
      */
-    public BerkeleyReader(final Database paramDatabase, final Transaction paramTxn) {
+    public BerkeleyReader(final Database paramDatabase, final Transaction paramTxn,
+        final TupleBinding<IPage> paramPageBinding) {
         mTxn = paramTxn;
         mDatabase = paramDatabase;
+        mPageBinding = paramPageBinding;
     }
 
     /**
@@ -77,11 +85,14 @@ public final class BerkeleyReader implements IReader {
      *            {@link Envirenment} to be used
      * @param paramDatabase
      *            {@link Database} to be connected to
+     * @param paramPageBinding
+     *            binding for the pages, exclusively used by this reader
      * @throws DatabaseException
      *             if something weird happens
      */
-    public BerkeleyReader(final Environment paramEnv, final Database paramDatabase) throws DatabaseException {
-        this(paramDatabase, paramEnv.beginTransaction(null, null));
+    public BerkeleyReader(final Environment paramEnv, final Database paramDatabase,
+        final TupleBinding<IPage> paramPageBinding) throws DatabaseException {
+        this(paramDatabase, paramEnv.beginTransaction(null, null), paramPageBinding);
     }
 
     /**
@@ -98,7 +109,7 @@ public final class BerkeleyReader implements IReader {
         try {
             final OperationStatus status = mDatabase.get(mTxn, keyEntry, valueEntry, LockMode.DEFAULT);
             if (status == OperationStatus.SUCCESS) {
-                page = BerkeleyFactory.PAGE_VAL_B.entryToObject(valueEntry);
+                page = mPageBinding.entryToObject(valueEntry);
             }
             return page;
         } catch (final DatabaseException exc) {
@@ -141,7 +152,9 @@ public final class BerkeleyReader implements IReader {
     @Override
     public void close() throws TTIOException {
         try {
-            mTxn.abort();
+            if (mTxn != null) {
+                mTxn.abort();
+            }
         } catch (final DatabaseException e) {
             throw new TTIOException(e);
         }
@@ -27,24 +27,31 @@
 
 package org.treetank.io.berkeley;
 
+import org.treetank.access.conf.ResourceConfiguration;
 import org.treetank.exception.TTIOException;
+import org.treetank.io.EDurability;
 import org.treetank.io.IKey;
 import org.treetank.io.IWriter;
+import org.treetank.io.SyncGroup;
 import org.treetank.page.PageReference;
 import org.treetank.page.interfaces.IPage;
 
+import com.sleepycat.bind.tuple.TupleBinding;
 import com.sleepycat.je.Database;
 import com.sleepycat.je.DatabaseEntry;
 import com.sleepycat.je.DatabaseException;
 import com.sleepycat.je.Environment;
-import com.sleepycat.je.LockMode;
 import com.sleepycat.je.OperationStatus;
+import com.sleepycat.je.Sequence;
 import com.sleepycat.je.Transaction;
 
 /**
  * This class represents an reading instance of the Treetank-Application
  * implementing the {@link IWriter}-interface. It inherits and overrides some
- * reader methods because of the transaction layer.
+ * reader methods because of the transaction layer. The transaction is committed
+ * synchronously unless the resource has no durability, group commits are left
+ * to the environment. A database with deferred writes is synced instead. Page
+ * keys are taken from a {@link Sequence} shared by all writers.
  * 
  * @author Sebastian Graf, University of Konstanz
  * 
@@ -54,14 +61,23 @@ public final class BerkeleyWriter implements IWriter {
     /** Current {@link Database} to write to. */
     private final Database mDatabase;
 
-    /** Current {@link Transaction} to write with. */
+    /** Current {@link Transaction} to write with, null if the database has deferred writes. */
     private final Transaction mTxn;
 
     /** Current {@link BerkeleyReader} to read with. */
     private final BerkeleyReader mReader;
 
-    /** Key of nodepage. */
-    private long mNodepagekey;
+    /** Sequence generating the page keys. */
+    private final Sequence mSequence;
+
+    /** Binding for the pages. */
+    private final TupleBinding<IPage> mPageBinding;
+
+    /** Configuration of the resource determining the durability. */
+    private final ResourceConfiguration mResourceConf;
+
+    /** Listeners for forced commits. */
+    private final SyncGroup mSyncGroup;
 
     /**
      * Simple constructor starting with an {@link Environment} and a {@link Database}.
@@ -70,19 +86,36 @@ public final class BerkeleyWriter implements IWriter {
      *            {@link Environment} reference for the write
      * @param paramDatabase
      *            {@link Database} reference where the data should be written to
+     * @param paramSequence
+     *            {@link Sequence} generating the page keys
+     * @param paramPageBinding
+     *            binding for the pages, exclusively used by this writer
+     * @param paramResourceConf
+     *            configuration of the resource determining the durability
+     * @param paramSyncGroup
+     *            listeners for forced commits
      * @throws TTIOException
      *             if something odd happens
      */
-    public BerkeleyWriter(final Environment paramEnv, final Database paramDatabase) throws TTIOException {
+    public BerkeleyWriter(final Environment paramEnv, final Database paramDatabase,
+        final Sequence paramSequence, final TupleBinding<IPage> paramPageBinding,
+        final ResourceConfiguration paramResourceConf, final SyncGroup paramSyncGroup) throws TTIOException {
         try {
-            mTxn = paramEnv.beginTransaction(null, null);
-            mDatabase = paramDatabase;
-            mNodepagekey = getLastNodePage();
+            if (paramResourceConf.mDeferredWrite) {
+                mTxn = null;
+            } else {
+                mTxn = paramEnv.beginTransaction(null, null);
+            }
         } catch (final DatabaseException exc) {
             throw new TTIOException(exc);
         }
+        mDatabase = paramDatabase;
+        mSequence = paramSequence;
 
-        mReader = new BerkeleyReader(mDatabase, mTxn);
+        mPageBinding = paramPageBinding;
+        mResourceConf = paramResourceConf;
+        mSyncGroup = paramSyncGroup;
+        mReader = new BerkeleyReader(mDatabase, mTxn, paramPageBinding);
     }
 
     /**
@@ -91,8 +124,18 @@ public final class BerkeleyWriter implements IWriter {
     @Override
     public void close() throws TTIOException {
         try {
-            setLastNodePage(mNodepagekey);
-            mTxn.commit();
+            if (mTxn == null) {
+                final long start = System.nanoTime();
+                mDatabase.sync();
+                mSyncGroup.synced(mResourceConf.mPath, System.nanoTime() - start);
+            } else if (mResourceConf.mDurability == EDurability.None) {
+                // durability as configured for the environment
+                mTxn.commit();
+            } else {
+                final long start = System.nanoTime();
+                mTxn.commitSync();
+                mSyncGroup.synced(mResourceConf.mPath, System.nanoTime() - start);
+            }
         } catch (final DatabaseException exc) {
             throw new TTIOException(exc);
         }
@@ -108,14 +151,19 @@ public final class BerkeleyWriter implements IWriter {
         final DatabaseEntry valueEntry = new DatabaseEntry();
         final DatabaseEntry keyEntry = new DatabaseEntry();
 
-        // TODO make this better
-        mNodepagekey++;
-        final BerkeleyKey key = new BerkeleyKey(mNodepagekey);
+        final BerkeleyKey key;
+        final OperationStatus status;
+        try {
+            // not part of the transaction, otherwise the sequence is locked for other writers
+            key = new BerkeleyKey(mSequence.get(null, 1));
 
-        BerkeleyFactory.PAGE_VAL_B.objectToEntry(page, valueEntry);
-        BerkeleyFactory.KEY.objectToEntry(key, keyEntry);
+            mPageBinding.objectToEntry(page, valueEntry);
+            BerkeleyFactory.KEY.objectToEntry(key, keyEntry);
 
-        final OperationStatus status = mDatabase.put(mTxn, keyEntry, valueEntry);
+            status = mDatabase.put(mTxn, keyEntry, valueEntry);
+        } catch (final DatabaseException exc) {
+            throw new TTIOException(exc);
+        }
         if (status != OperationStatus.SUCCESS) {
             throw new TTIOException(new StringBuilder("Write of ").append(pageReference.toString()).append(
                 " failed!").toString());
@@ -125,57 +173,6 @@ public final class BerkeleyWriter implements IWriter {
 
     }
 
-    /**
-     * Setting the last nodePage to the persistent storage.
-     * 
-     * @param paramData
-     *            key to be stored
-     * @throws TTIOException
-     *             If can't set last Node page
-     */
-    private void setLastNodePage(final Long paramData) throws TTIOException {
-        final DatabaseEntry keyEntry = new DatabaseEntry();
-        final DatabaseEntry valueEntry = new DatabaseEntry();
-
-        final BerkeleyKey key = BerkeleyKey.getDataInfoKey();
-        BerkeleyFactory.KEY.objectToEntry(key, keyEntry);
-        BerkeleyFactory.DATAINFO_VAL_B.objectToEntry(paramData, valueEntry);
-        try {
-            mDatabase.put(mTxn, keyEntry, valueEntry);
-        } catch (final DatabaseException exc) {
-            throw new TTIOException(exc);
-        }
-    }
-
-    /**
-     * Getting the last nodePage from the persistent storage.
-     * 
-     * @throws TTIOException
-     *             If can't get last Node page
-     * @return the last nodepage-key
-     */
-    private long getLastNodePage() throws TTIOException {
-        final DatabaseEntry keyEntry = new DatabaseEntry();
-        final DatabaseEntry valueEntry = new DatabaseEntry();
-
-        final BerkeleyKey key = BerkeleyKey.getDataInfoKey();
-        BerkeleyFactory.KEY.objectToEntry(key, keyEntry);
-
-        try {
-            final OperationStatus status = mDatabase.get(mTxn, keyEntry, valueEntry, LockMode.DEFAULT);
-            Long val;
-            if (status == OperationStatus.SUCCESS) {
-                val = BerkeleyFactory.DATAINFO_VAL_B.entryToObject(valueEntry);
-            } else {
-                val = 0L;
-            }
-            return val;
-        } catch (final DatabaseException exc) {
-            throw new TTIOException(exc);
-        }
-
-    }
-
     /**
      * {@inheritDoc}
      */
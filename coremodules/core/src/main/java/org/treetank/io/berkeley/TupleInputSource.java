@@ -75,4 +75,28 @@ public final class TupleInputSource implements ITTSource {
         return mInput.readInt();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long readVarLong() {
+        long val = 0;
+        int shift = 0;
+        byte current;
+        do {
+            current = mInput.readByte();
+            val |= (long)(current & 0x7F) << shift;
+            shift += 7;
+        } while (current < 0);
+        return val;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readBytes(final byte[] mDst, final int mOffset, final int mLength) {
+        mInput.readFast(mDst, mOffset, mLength);
+    }
+
 }
@@ -73,4 +73,23 @@ public final class TupleOutputSink implements ITTSink {
         mOutput.writeInt(mIntVal);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public void writeVarLong(final long mLongVal) {
+        long val = mLongVal;
+        while ((val & ~0x7FL) != 0) {
+            mOutput.writeByte((byte)(val & 0x7F | 0x80));
+            val >>>= 7;
+        }
+        mOutput.writeByte((byte)val);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void writeBytes(final byte[] mBytes, final int mOffset, final int mLength) {
+        mOutput.writeFast(mBytes, mOffset, mLength);
+    }
+
 }
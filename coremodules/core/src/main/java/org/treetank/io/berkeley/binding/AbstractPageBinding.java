@@ -27,8 +27,11 @@
 
 package org.treetank.io.berkeley.binding;
 
-import org.treetank.io.berkeley.TupleInputSource;
-import org.treetank.io.berkeley.TupleOutputSink;
+import java.nio.ByteBuffer;
+
+import org.treetank.exception.TTIOException;
+import org.treetank.io.codec.CodecPipeline;
+import org.treetank.io.file.ByteBufferSinkAndSource;
 import org.treetank.page.PagePersistenter;
 import org.treetank.page.delegates.PageDelegate;
 import org.treetank.page.interfaces.IPage;
@@ -45,12 +48,35 @@ import com.sleepycat.bind.tuple.TupleOutput;
  */
 public final class AbstractPageBinding extends TupleBinding<IPage> {
 
+    /** Codecs the pages are stored with. */
+    private final CodecPipeline mPipeline;
+
+    /** Buffer for serializing pages. */
+    private final ByteBufferSinkAndSource mBuffer;
+
+    /**
+     * Constructor. Since the pipeline holds state, each binding must only be used by one thread.
+     * 
+     * @param pPipeline
+     *            codecs the pages are stored with
+     */
+    public AbstractPageBinding(final CodecPipeline pPipeline) {
+        mPipeline = pPipeline;
+        mBuffer = new ByteBufferSinkAndSource();
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public IPage entryToObject(final TupleInput arg0) {
-        return PagePersistenter.createPage(new TupleInputSource(arg0));
+        final ByteBuffer encoded =
+            ByteBuffer.wrap(arg0.getBufferBytes(), arg0.getBufferOffset(), arg0.available());
+        try {
+            return PagePersistenter.createPage(new ByteBufferSinkAndSource(mPipeline.decode(encoded)));
+        } catch (final TTIOException exc) {
+            throw new IllegalStateException(exc);
+        }
     }
 
     /**
@@ -58,7 +84,14 @@ public final class AbstractPageBinding extends TupleBinding<IPage> {
      */
     @Override
     public void objectToEntry(final IPage arg0, final TupleOutput arg1) {
-        PagePersistenter.serializePage(new TupleOutputSink(arg1), arg0);
+        mBuffer.position(0);
+        PagePersistenter.serializePage(mBuffer, arg0);
+        try {
+            final ByteBuffer encoded = mPipeline.encode(mBuffer.toByteBuffer());
+            arg1.writeFast(encoded.array(), encoded.arrayOffset() + encoded.position(), encoded.remaining());
+        } catch (final TTIOException exc) {
+            throw new IllegalStateException(exc);
+        }
     }
 
 }
@@ -0,0 +1,428 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.io.blobstore;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jclouds.Constants;
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.BlobStoreContextFactory;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.PageSet;
+import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.filesystem.reference.FilesystemConstants;
+import org.treetank.access.conf.ResourceConfiguration;
+import org.treetank.exception.TTIOException;
+import org.treetank.io.IReader;
+import org.treetank.io.IStorage;
+import org.treetank.io.IWriter;
+import org.treetank.io.codec.CodecPipeline;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * Storage putting every encoded page as a blob into a container of a jclouds blob store, named as
+ * configured by {@link ResourceConfiguration#mBlobContainer}. The key of the uber page is stored in a beacon
+ * blob together with the next free page key and the first page key still referenced after a compaction.
+ * Pages are uploaded in parallel during a commit and cached in a local folder, so that every page is
+ * downloaded at most once. All providers of jclouds-allblobstore are available, the local file system
+ * provider needs no further properties.
+ */
+public final class BlobStoreFactory implements IStorage {
+
+    /** Provider writing the blobs to the local file system. */
+    public static final String FILESYSTEM = "filesystem";
+
+    /** Name of the beacon blob. */
+    private static final String BEACON = "tt.beacon";
+
+    /** Name of the folder for cached pages. */
+    private static final String CACHE = "cache";
+
+    /** Configuration of the resource. */
+    private final ResourceConfiguration mResourceConf;
+
+    /** Context of the blob store. */
+    private final BlobStoreContext mContext;
+
+    /** Blob store holding the pages. */
+    private final BlobStore mStore;
+
+    /** Container of the resource. */
+    private final String mContainer;
+
+    /** Folder for cached pages, null if pages are not cached. */
+    private final File mCache;
+
+    /** Next free page key. */
+    private final AtomicLong mNextKey;
+
+    /** First page key still referenced by the uber page. */
+    private volatile long mBaseKey;
+
+    /** Executor uploading pages in parallel, created lazily. */
+    private ExecutorService mUploadPool;
+
+    /**
+     * Constructor, connecting to the blob store.
+     * 
+     * @param paramResourceConf
+     *            the configuration of the resource
+     * @throws TTIOException
+     *             if the properties of the blob store are missing or the beacon could not be read
+     */
+    public BlobStoreFactory(final ResourceConfiguration paramResourceConf) throws TTIOException {
+        mResourceConf = paramResourceConf;
+        final File data = new File(mResourceConf.mPath, ResourceConfiguration.Paths.Data.getFile().getName());
+        final Properties properties = new Properties();
+        if (mResourceConf.mBlobStoreProperties != null) {
+            properties.putAll(mResourceConf.mBlobStoreProperties);
+        } else if (!FILESYSTEM.equals(mResourceConf.mBlobStoreProvider)) {
+            throw new TTIOException("Blob store provider", mResourceConf.mBlobStoreProvider,
+                "needs its properties, they are not stored with the resource settings!");
+        }
+        if (FILESYSTEM.equals(mResourceConf.mBlobStoreProvider)) {
+            // the local store needs neither a location nor an account
+            if (!properties.containsKey(FilesystemConstants.PROPERTY_BASEDIR)) {
+                properties.setProperty(FilesystemConstants.PROPERTY_BASEDIR, data.getAbsolutePath());
+            }
+            if (!properties.containsKey(Constants.PROPERTY_IDENTITY)) {
+                properties.setProperty(Constants.PROPERTY_IDENTITY, FILESYSTEM);
+                properties.setProperty(Constants.PROPERTY_CREDENTIAL, FILESYSTEM);
+            }
+        }
+        mContext = new BlobStoreContextFactory().createContext(mResourceConf.mBlobStoreProvider, properties);
+        mStore = mContext.getBlobStore();
+        mContainer = mResourceConf.mBlobContainer;
+        if (!mStore.containerExists(mContainer)) {
+            mStore.createContainerInLocation(null, mContainer);
+        }
+
+        if (mResourceConf.mBlobCache) {
+            mCache = new File(data, CACHE);
+            mCache.mkdirs();
+        } else {
+            mCache = null;
+        }
+
+        final ByteBuffer beacon = getBeacon();
+        if (beacon == null) {
+            mNextKey = new AtomicLong(1);
+        } else {
+            beacon.getLong();
+            mNextKey = new AtomicLong(beacon.getLong());
+            mBaseKey = beacon.getLong();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IReader getReader() throws TTIOException {
+        return new BlobStoreReader(this, new CodecPipeline(mResourceConf));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IWriter getWriter() throws TTIOException {
+        final CodecPipeline pipeline = new CodecPipeline(mResourceConf);
+        return new BlobStoreWriter(this, pipeline, new BlobStoreReader(this, pipeline), getUploadPool(),
+            mBaseKey);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IWriter getCompactionWriter() throws TTIOException {
+        final CodecPipeline pipeline = new CodecPipeline(mResourceConf);
+        return new BlobStoreWriter(this, pipeline, new BlobStoreReader(this, pipeline), getUploadPool(),
+            mNextKey.get());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void releaseCompacted() throws TTIOException {
+        final long base = mBaseKey;
+        String marker = null;
+        do {
+            final PageSet<? extends StorageMetadata> blobs =
+                marker == null ? mStore.list(mContainer, new ListContainerOptions()) : mStore.list(
+                    mContainer, ListContainerOptions.Builder.afterMarker(marker));
+            for (final StorageMetadata blob : blobs) {
+                final long key = getKey(blob.getName());
+                if (key >= 0 && key < base) {
+                    mStore.removeBlob(mContainer, blob.getName());
+                    if (mCache != null) {
+                        new File(mCache, blob.getName()).delete();
+                    }
+                }
+            }
+            marker = blobs.getNextMarker();
+        } while (marker != null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void close() throws TTIOException {
+        if (mUploadPool != null) {
+            mUploadPool.shutdown();
+            mUploadPool = null;
+        }
+        mContext.close();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean exists() throws TTIOException {
+        return mStore.blobExists(mContainer, BEACON);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void truncate() throws TTIOException {
+        mStore.deleteContainer(mContainer);
+        if (mCache != null) {
+            final File[] files = mCache.listFiles();
+            if (files != null) {
+                for (final File file : files) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Getting the next free page key.
+     * 
+     * @return the key for a new page
+     */
+    BlobStoreKey nextKey() {
+        return new BlobStoreKey(mNextKey.getAndIncrement());
+    }
+
+    /**
+     * Getting the contents of the beacon blob.
+     * 
+     * @return a buffer holding the key of the uber page, the next free page key and the first page key still
+     *         referenced, null if nothing is committed yet
+     * @throws TTIOException
+     *             if the beacon could not be read
+     */
+    ByteBuffer getBeacon() throws TTIOException {
+        final byte[] beacon = download(BEACON);
+        return beacon == null ? null : ByteBuffer.wrap(beacon);
+    }
+
+    /**
+     * Storing the key of the uber page after all pages referenced by it are uploaded.
+     * 
+     * @param paramKey
+     *            the key of the uber page
+     * @param paramBase
+     *            the first page key still referenced by the uber page
+     */
+    void putBeacon(final BlobStoreKey paramKey, final long paramBase) {
+        final ByteBuffer beacon = ByteBuffer.allocate(24);
+        beacon.putLong(paramKey.getIdentifier()).putLong(mNextKey.get()).putLong(paramBase);
+        mStore.putBlob(mContainer, mStore.blobBuilder(BEACON).payload(beacon.array()).build());
+        mBaseKey = paramBase;
+    }
+
+    /**
+     * Storing an encoded page, both in the cache and in the blob store.
+     * 
+     * @param paramKey
+     *            the key of the page
+     * @param paramData
+     *            the encoded page
+     * @throws TTIOException
+     *             if the page could not be cached
+     */
+    void putPage(final BlobStoreKey paramKey, final byte[] paramData) throws TTIOException {
+        cache(paramKey.getName(), paramData);
+        mStore.putBlob(mContainer, mStore.blobBuilder(paramKey.getName()).payload(paramData).build());
+    }
+
+    /**
+     * Getting an encoded page, from the cache if possible, otherwise from the blob store filling the cache.
+     * 
+     * @param paramKey
+     *            the key of the page
+     * @return the encoded page
+     * @throws TTIOException
+     *             if the page could not be read
+     */
+    byte[] getPage(final BlobStoreKey paramKey) throws TTIOException {
+        final String name = paramKey.getName();
+        if (mCache != null) {
+            final File cached = new File(mCache, name);
+            if (cached.exists()) {
+                try {
+                    final RandomAccessFile file = new RandomAccessFile(cached, "r");
+                    try {
+                        final byte[] data = new byte[(int)file.length()];
+                        file.readFully(data);
+                        return data;
+                    } finally {
+                        file.close();
+                    }
+                } catch (final IOException exc) {
+                    throw new TTIOException(exc);
+                }
+            }
+        }
+        final byte[] data = download(name);
+        if (data == null) {
+            throw new TTIOException("Page", name, "does not exist!");
+        }
+        cache(name, data);
+        return data;
+    }
+
+    /**
+     * Downloading a blob.
+     * 
+     * @param paramName
+     *            name of the blob
+     * @return the contents of the blob, null if it does not exist
+     * @throws TTIOException
+     *             if the blob could not be read
+     */
+    private byte[] download(final String paramName) throws TTIOException {
+        final Blob blob = mStore.getBlob(mContainer, paramName);
+        if (blob == null) {
+            return null;
+        }
+        try {
+            final InputStream in = blob.getPayload().getInput();
+            try {
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ByteStreams.copy(in, out);
+                return out.toByteArray();
+            } finally {
+                in.close();
+            }
+        } catch (final IOException exc) {
+            throw new TTIOException(exc);
+        }
+    }
+
+    /**
+     * Writing an encoded page to the cache. The page becomes visible only after it is completely written.
+     * 
+     * @param paramName
+     *            name of the page
+     * @param paramData
+     *            the encoded page
+     * @throws TTIOException
+     *             if the page could not be written
+     */
+    private void cache(final String paramName, final byte[] paramData) throws TTIOException {
+        if (mCache == null) {
+            return;
+        }
+        final File tmp = new File(mCache, new StringBuilder(paramName).append('.').append(
+            Thread.currentThread().getId()).toString());
+        try {
+            final FileOutputStream out = new FileOutputStream(tmp);
+            try {
+                out.write(paramData);
+            } finally {
+                out.close();
+            }
+        } catch (final IOException exc) {
+            throw new TTIOException(exc);
+        }
+        // a concurrent reader might have cached the page already
+        if (!tmp.renameTo(new File(mCache, paramName))) {
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Getting the key of a page blob.
+     * 
+     * @param paramName
+     *            name of the blob
+     * @return the key or -1 if the blob does not hold a page
+     */
+    private static long getKey(final String paramName) {
+        try {
+            return Long.parseLong(paramName);
+        } catch (final NumberFormatException exc) {
+            return -1;
+        }
+    }
+
+    /**
+     * Getting the executor for uploading pages.
+     * 
+     * @return the executor or null if all pages should be uploaded by the committing thread
+     */
+    private synchronized ExecutorService getUploadPool() {
+        final int threads =
+            mResourceConf.mCommitThreads == 0 ? Runtime.getRuntime().availableProcessors()
+                : mResourceConf.mCommitThreads;
+        if (threads > 1 && mUploadPool == null) {
+            mUploadPool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable paramRunnable) {
+                    final Thread thread = new Thread(paramRunnable, "treetank-upload");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return mUploadPool;
+    }
+
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.io.blobstore;
+
+import org.treetank.io.IKey;
+import org.treetank.io.KeyDelegate;
+
+/**
+ * Key of a page stored in a {@link BlobStoreFactory}, naming the blob holding the page.
+ */
+public final class BlobStoreKey implements IKey {
+
+    /** Delegate for the key. */
+    private final KeyDelegate mKey;
+
+    /**
+     * Constructor.
+     * 
+     * @param paramKey
+     *            number of the blob
+     */
+    public BlobStoreKey(final long paramKey) {
+        mKey = new KeyDelegate(paramKey);
+    }
+
+    /**
+     * Getting the name of the blob holding the page.
+     * 
+     * @return the name of the blob
+     */
+    public String getName() {
+        return Long.toString(getIdentifier());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getIdentifier() {
+        return getKeys()[0];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long[] getKeys() {
+        return mKey.getKeys();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return mKey.toString();
+    }
+
+}
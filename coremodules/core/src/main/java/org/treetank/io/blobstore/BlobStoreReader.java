@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.io.blobstore;
+
+import java.nio.ByteBuffer;
+
+import org.treetank.exception.TTIOException;
+import org.treetank.io.IKey;
+import org.treetank.io.IReader;
+import org.treetank.io.codec.CodecPipeline;
+import org.treetank.io.file.ByteBufferSinkAndSource;
+import org.treetank.page.PagePersistenter;
+import org.treetank.page.PageReference;
+import org.treetank.page.UberPage;
+import org.treetank.page.interfaces.IPage;
+
+/**
+ * Reader decoding the pages of a {@link BlobStoreFactory}, read through its local cache.
+ */
+public final class BlobStoreReader implements IReader {
+
+    /** Storage holding the pages. */
+    private final BlobStoreFactory mFactory;
+
+    /** Codecs to decode the pages. */
+    private final CodecPipeline mPipeline;
+
+    /**
+     * Constructor.
+     * 
+     * @param paramFactory
+     *            the storage holding the pages
+     * @param paramPipeline
+     *            the codecs to decode the pages
+     */
+    BlobStoreReader(final BlobStoreFactory paramFactory, final CodecPipeline paramPipeline) {
+        mFactory = paramFactory;
+        mPipeline = paramPipeline;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IPage read(final IKey pKey) throws TTIOException {
+        if (pKey == null) {
+            return null;
+        }
+        final byte[] page = mFactory.getPage((BlobStoreKey)pKey);
+        return PagePersistenter.createPage(new ByteBufferSinkAndSource(mPipeline
+            .decode(ByteBuffer.wrap(page))));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PageReference readFirstReference() throws TTIOException {
+        final ByteBuffer beacon = mFactory.getBeacon();
+        if (beacon == null) {
+            return null;
+        }
+        final PageReference uberPageReference = new PageReference();
+        final BlobStoreKey key = new BlobStoreKey(beacon.getLong());
+        uberPageReference.setKey(key);
+        uberPageReference.setPage((UberPage)read(key));
+        return uberPageReference;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws TTIOException {
+        // the blob store is shared and closed by the factory
+    }
+
+}
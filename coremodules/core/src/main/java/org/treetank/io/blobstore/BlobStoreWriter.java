@@ -0,0 +1,214 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.io.blobstore;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.treetank.exception.TTIOException;
+import org.treetank.io.IKey;
+import org.treetank.io.IWriter;
+import org.treetank.io.codec.CodecPipeline;
+import org.treetank.io.file.ByteBufferSinkAndSource;
+import org.treetank.page.PagePersistenter;
+import org.treetank.page.PageReference;
+import org.treetank.page.interfaces.IPage;
+
+/**
+ * Writer uploading the pages of a commit to a {@link BlobStoreFactory}. Pages are encoded by the committing
+ * thread and uploaded in parallel if an executor is given. The commit becomes visible with the beacon written
+ * by {@link #writeFirstReference(PageReference)} after all uploads are finished.
+ */
+public final class BlobStoreWriter implements IWriter {
+
+    /** Storage holding the pages. */
+    private final BlobStoreFactory mFactory;
+
+    /** Codecs to encode the pages. */
+    private final CodecPipeline mPipeline;
+
+    /** Reader for the pages. */
+    private final BlobStoreReader mReader;
+
+    /** Executor uploading the pages, null if all pages are uploaded by the committing thread. */
+    private final ExecutorService mExecutor;
+
+    /** First page key referenced by the uber page written by this writer. */
+    private final long mBase;
+
+    /** Temporary data buffer. */
+    private final ByteBufferSinkAndSource mBuffer;
+
+    /** Uploads not finished yet. */
+    private final List<Future<Void>> mUploads;
+
+    /**
+     * Constructor.
+     * 
+     * @param paramFactory
+     *            the storage holding the pages
+     * @param paramPipeline
+     *            the codecs to encode the pages
+     * @param paramReader
+     *            reader for the pages
+     * @param paramExecutor
+     *            executor uploading the pages, null if all pages should be uploaded by the committing thread
+     * @param paramBase
+     *            first page key referenced by the uber page written by this writer
+     */
+    BlobStoreWriter(final BlobStoreFactory paramFactory, final CodecPipeline paramPipeline,
+        final BlobStoreReader paramReader, final ExecutorService paramExecutor, final long paramBase) {
+        mFactory = paramFactory;
+        mPipeline = paramPipeline;
+        mReader = paramReader;
+        mExecutor = paramExecutor;
+        mBase = paramBase;
+        mBuffer = new ByteBufferSinkAndSource();
+        mUploads = new ArrayList<Future<Void>>();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final PageReference pageReference) throws TTIOException {
+        final IPage page = pageReference.getPage();
+        mBuffer.position(0);
+        PagePersistenter.serializePage(mBuffer, page);
+        final ByteBuffer encoded = mPipeline.encode(mBuffer.toByteBuffer());
+        final byte[] data = new byte[encoded.remaining()];
+        encoded.get(data);
+
+        final BlobStoreKey key = mFactory.nextKey();
+        if (mExecutor == null) {
+            mFactory.putPage(key, data);
+        } else {
+            mUploads.add(mExecutor.submit(new UploadTask(key, data)));
+        }
+        pageReference.setKey(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeFirstReference(final PageReference pageReference) throws TTIOException {
+        write(pageReference);
+        awaitUploads();
+        mFactory.putBeacon((BlobStoreKey)pageReference.getKey(), mBase);
+    }
+
+    /**
+     * Waiting for all pending uploads.
+     * 
+     * @throws TTIOException
+     *             if an upload failed
+     */
+    private void awaitUploads() throws TTIOException {
+        try {
+            for (final Future<Void> upload : mUploads) {
+                upload.get();
+            }
+        } catch (final InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new TTIOException("Commit interrupted.");
+        } catch (final ExecutionException exc) {
+            if (exc.getCause() instanceof TTIOException) {
+                throw (TTIOException)exc.getCause();
+            }
+            throw new IllegalStateException(exc.getCause());
+        } finally {
+            mUploads.clear();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IPage read(final IKey pKey) throws TTIOException {
+        return mReader.read(pKey);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PageReference readFirstReference() throws TTIOException {
+        return mReader.readFirstReference();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws TTIOException {
+        awaitUploads();
+        mReader.close();
+    }
+
+    /**
+     * Task uploading one encoded page.
+     */
+    private final class UploadTask implements Callable<Void> {
+
+        /** Key of the page. */
+        private final BlobStoreKey mKey;
+
+        /** Encoded page. */
+        private final byte[] mData;
+
+        /**
+         * Constructor.
+         * 
+         * @param paramKey
+         *            key of the page
+         * @param paramData
+         *            encoded page
+         */
+        UploadTask(final BlobStoreKey paramKey, final byte[] paramData) {
+            mKey = paramKey;
+            mData = paramData;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Void call() throws TTIOException {
+            mFactory.putPage(mKey, mData);
+            return null;
+        }
+
+    }
+
+}
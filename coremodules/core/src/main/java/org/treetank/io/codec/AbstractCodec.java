@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.io.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <h1>AbstractCodec</h1>
+ * 
+ * <p>
+ * Base for codecs writing their result to an internal buffer which grows on demand.
+ * </p>
+ */
+abstract class AbstractCodec implements ICodec {
+
+    /** Initial size of the output buffer. */
+    private static final int INITIAL_SIZE = 1 << 12;
+
+    /** Output buffer reused for each invocation. */
+    private ByteBuffer mOut = ByteBuffer.allocate(INITIAL_SIZE);
+
+    /**
+     * Getting the cleared output buffer, able to hold at least the given number of bytes.
+     * 
+     * @param pCapacity
+     *            number of bytes to hold
+     * @return the output buffer
+     */
+    protected final ByteBuffer output(final int pCapacity) {
+        if (mOut.capacity() < pCapacity) {
+            mOut = ByteBuffer.allocate(Math.max(pCapacity, mOut.capacity() << 1));
+        }
+        mOut.clear();
+        return mOut;
+    }
+
+    /**
+     * Increasing the output buffer, retaining the bytes before its current position.
+     * 
+     * @return the increased output buffer
+     */
+    protected final ByteBuffer grow() {
+        final ByteBuffer newOut = ByteBuffer.allocate(mOut.capacity() << 1);
+        mOut.flip();
+        newOut.put(mOut);
+        mOut = newOut;
+        return mOut;
+    }
+
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.io.codec;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+import org.treetank.exception.TTIOException;
+
+/**
+ * <h1>ChecksumCodec</h1>
+ * 
+ * <p>
+ * Appends a CRC32 checksum to the data and verifies it while decoding.
+ * </p>
+ */
+final class ChecksumCodec extends AbstractCodec {
+
+    /** Length of the checksum in bytes. */
+    private static final int LENGTH = 4;
+
+    /** Checksum computation. */
+    private final CRC32 mChecksum = new CRC32();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteBuffer encode(final ByteBuffer pSource) {
+        final int checksum = checksum(pSource, pSource.remaining());
+        final ByteBuffer out = output(pSource.remaining() + LENGTH);
+        out.put(pSource.duplicate());
+        out.putInt(checksum);
+        out.flip();
+        return out;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteBuffer decode(final ByteBuffer pSource) throws TTIOException {
+        final int length = pSource.remaining() - LENGTH;
+        if (length < 0 || checksum(pSource, length) != pSource.getInt(pSource.position() + length)) {
+            throw new TTIOException("Checksum of page does not match.");
+        }
+        final ByteBuffer data = pSource.duplicate();
+        data.limit(data.position() + length);
+        return data.slice();
+    }
+
+    /**
+     * Computing the checksum over the given number of bytes starting at the position of the buffer.
+     * 
+     * @param pSource
+     *            data to be checked
+     * @param pLength
+     *            number of bytes
+     * @return the checksum
+     */
+    private int checksum(final ByteBuffer pSource, final int pLength) {
+        mChecksum.reset();
+        mChecksum.update(pSource.array(), pSource.arrayOffset() + pSource.position(), pLength);
+        return (int)mChecksum.getValue();
+    }
+
+}
@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.io.codec;
+
+import java.nio.ByteBuffer;
+
+import org.treetank.access.conf.ResourceConfiguration;
+import org.treetank.exception.TTIOException;
+import org.treetank.metrics.Histogram;
+import org.treetank.metrics.MetricsRegistry;
+import org.treetank.utils.IConstants;
+
+/**
+ * <h1>CodecPipeline</h1>
+ * 
+ * <p>
+ * Chain of {@link ICodec}s as configured in {@link ResourceConfiguration#mCodecs}. Pages are encoded by the
+ * codecs in the configured order and decoded in reverse order. Each reader and writer holds its own
+ * pipeline; the buffer returned by {@link #encode(ByteBuffer)} and {@link #decode(ByteBuffer)} is only valid
+ * until the next invocation. The time each codec spends per page is recorded in the histograms
+ * <code>codec.&lt;codec&gt;.encode</code> and <code>.decode</code> of the given {@link MetricsRegistry}.
+ * </p>
+ */
+public final class CodecPipeline {
+
+    /** Codecs in encoding order. */
+    private final ICodec[] mCodecs;
+
+    /** Nanoseconds spent by each codec per encoded page. */
+    private final Histogram[] mEncodeTimes;
+
+    /** Nanoseconds spent by each codec per decoded page. */
+    private final Histogram[] mDecodeTimes;
+
+    /** Heap copy of sources not backed by an array, e.g. memory mapped regions. */
+    private ByteBuffer mInput;
+
+    /**
+     * Constructor.
+     * 
+     * @param pConf
+     *            configuration determining the codecs
+     * @throws TTIOException
+     *             if a codec could not be created
+     */
+    public CodecPipeline(final ResourceConfiguration pConf) throws TTIOException {
+        this(pConf, new MetricsRegistry());
+    }
+
+    /**
+     * Constructor recording the time spent by the codecs.
+     * 
+     * @param pConf
+     *            configuration determining the codecs
+     * @param pMetrics
+     *            registry for the time spent by the codecs
+     * @throws TTIOException
+     *             if a codec could not be created
+     */
+    public CodecPipeline(final ResourceConfiguration pConf, final MetricsRegistry pMetrics)
+        throws TTIOException {
+        mCodecs = new ICodec[pConf.mCodecs.length];
+        mEncodeTimes = new Histogram[mCodecs.length];
+        mDecodeTimes = new Histogram[mCodecs.length];
+        for (int i = 0; i < mCodecs.length; i++) {
+            mCodecs[i] = pConf.mCodecs[i].getInstance(pConf);
+            final String name = IConstants.MET_CODEC + pConf.mCodecs[i].name().toLowerCase();
+            mEncodeTimes[i] = pMetrics.histogram(name + ".encode");
+            mDecodeTimes[i] = pMetrics.histogram(name + ".decode");
+        }
+        mInput = ByteBuffer.allocate(0);
+    }
+
+    /**
+     * Encoding the bytes between position and limit of the source.
+     * 
+     * @param pSource
+     *            serialized page
+     * @return the encoded page with position 0
+     * @throws TTIOException
+     *             if any codec fails
+     */
+    public ByteBuffer encode(final ByteBuffer pSource) throws TTIOException {
+        ByteBuffer buffer = heap(pSource);
+        for (int i = 0; i < mCodecs.length; i++) {
+            final long start = System.nanoTime();
+            buffer = mCodecs[i].encode(buffer);
+            mEncodeTimes[i].update(System.nanoTime() - start);
+        }
+        return buffer;
+    }
+
+    /**
+     * Decoding the bytes between position and limit of the source.
+     * 
+     * @param pSource
+     *            page as stored
+     * @return the serialized page with position 0
+     * @throws TTIOException
+     *             if any codec fails
+     */
+    public ByteBuffer decode(final ByteBuffer pSource) throws TTIOException {
+        ByteBuffer buffer = heap(pSource);
+        for (int i = mCodecs.length - 1; i >= 0; i--) {
+            final long start = System.nanoTime();
+            buffer = mCodecs[i].decode(buffer);
+            mDecodeTimes[i].update(System.nanoTime() - start);
+        }
+        return buffer;
+    }
+
+    /**
+     * Getting a view of the source backed by an array, copying the source if necessary since the codecs work
+     * on arrays.
+     * 
+     * @param pSource
+     *            to be accessed
+     * @return the source itself or a copy of it
+     */
+    private ByteBuffer heap(final ByteBuffer pSource) {
+        if (pSource.hasArray()) {
+            return pSource.slice();
+        }
+        if (mInput.capacity() < pSource.remaining()) {
+            mInput = ByteBuffer.allocate(pSource.remaining());
+        }
+        mInput.clear();
+        mInput.put(pSource.duplicate());
+        mInput.flip();
+        return mInput;
+    }
+
+}
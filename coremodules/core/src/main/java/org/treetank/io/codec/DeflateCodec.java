@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.io.codec;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.treetank.exception.TTIOException;
+
+/**
+ * <h1>DeflateCodec</h1>
+ * 
+ * <p>
+ * Compression based on {@link Deflater} and {@link Inflater} with a configurable level.
+ * </p>
+ */
+final class DeflateCodec extends AbstractCodec {
+
+    /** Compressor. */
+    private final Deflater mDeflater;
+
+    /** Decompressor. */
+    private final Inflater mInflater;
+
+    /**
+     * Constructor.
+     * 
+     * @param pLevel
+     *            compression level as defined by {@link Deflater}
+     */
+    DeflateCodec(final int pLevel) {
+        mDeflater = new Deflater(pLevel);
+        mInflater = new Inflater();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteBuffer encode(final ByteBuffer pSource) {
+        mDeflater.reset();
+        mDeflater.setInput(pSource.array(), pSource.arrayOffset() + pSource.position(), pSource.remaining());
+        mDeflater.finish();
+        ByteBuffer out = output(pSource.remaining() + (pSource.remaining() >> 3) + 64);
+        while (!mDeflater.finished()) {
+            if (!out.hasRemaining()) {
+                out = grow();
+            }
+            final int count = mDeflater.deflate(out.array(), out.arrayOffset() + out.position(), out.remaining());
+            out.position(out.position() + count);
+        }
+        out.flip();
+        return out;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteBuffer decode(final ByteBuffer pSource) throws TTIOException {
+        mInflater.reset();
+        mInflater.setInput(pSource.array(), pSource.arrayOffset() + pSource.position(), pSource.remaining());
+        ByteBuffer out = output(pSource.remaining() << 2);
+        try {
+            while (!mInflater.finished()) {
+                if (!out.hasRemaining()) {
+                    out = grow();
+                }
+                final int count =
+                    mInflater.inflate(out.array(), out.arrayOffset() + out.position(), out.remaining());
+                if (count == 0 && !mInflater.finished()
+                    && (mInflater.needsInput() || mInflater.needsDictionary())) {
+                    throw new TTIOException("Page could not be inflated, data is truncated.");
+                }
+                out.position(out.position() + count);
+            }
+        } catch (final DataFormatException exc) {
+            throw new TTIOException("Page could not be inflated:", exc.getMessage());
+        }
+        out.flip();
+        return out;
+    }
+
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.io.codec;
+
+import java.nio.ByteBuffer;
+
+import org.treetank.access.conf.ResourceConfiguration;
+import org.treetank.exception.TTIOException;
+
+/**
+ * <h1>ECodec</h1>
+ * 
+ * <p>
+ * Codecs available for a {@link CodecPipeline}. The parameters of the codecs are taken from the
+ * {@link ResourceConfiguration}.
+ * </p>
+ */
+public enum ECodec {
+
+    /** No transformation at all. */
+    None {
+        @Override
+        public ICodec getInstance(final ResourceConfiguration pConf) {
+            return new ICodec() {
+                @Override
+                public ByteBuffer encode(final ByteBuffer pSource) {
+                    return pSource.slice();
+                }
+
+                @Override
+                public ByteBuffer decode(final ByteBuffer pSource) {
+                    return pSource.slice();
+                }
+            };
+        }
+    },
+
+    /** Fast LZ compression, trading ratio for speed. */
+    Fast {
+        @Override
+        public ICodec getInstance(final ResourceConfiguration pConf) {
+            return new LZFCodec();
+        }
+    },
+
+    /** Deflate compression with the level set in {@link ResourceConfiguration#mDeflateLevel}. */
+    Deflate {
+        @Override
+        public ICodec getInstance(final ResourceConfiguration pConf) {
+            return new DeflateCodec(pConf.mDeflateLevel);
+        }
+    },
+
+    /** CRC32 checksum, verified while reading. */
+    Checksum {
+        @Override
+        public ICodec getInstance(final ResourceConfiguration pConf) {
+            return new ChecksumCodec();
+        }
+    },
+
+    /** AES encryption with the key set in {@link ResourceConfiguration#mEncryptionKey}. */
+    Encryption {
+        @Override
+        public ICodec getInstance(final ResourceConfiguration pConf) throws TTIOException {
+            return new EncryptionCodec(pConf.mEncryptionKey);
+        }
+    };
+
+    /**
+     * Creating a new instance of the codec.
+     * 
+     * @param pConf
+     *            configuration holding the parameters of the codec
+     * @return a new {@link ICodec}
+     * @throws TTIOException
+     *             if the codec could not be created
+     */
+    public abstract ICodec getInstance(final ResourceConfiguration pConf) throws TTIOException;
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.io.codec;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.treetank.exception.TTIOException;
+
+/**
+ * <h1>EncryptionCodec</h1>
+ * 
+ * <p>
+ * AES encryption in counter mode. Each encoded page starts with the random initialization vector it has
+ * been encrypted with.
+ * </p>
+ */
+final class EncryptionCodec extends AbstractCodec {
+
+    /** Algorithm of the key. */
+    private static final String ALGORITHM = "AES";
+
+    /** Transformation of the cipher. */
+    private static final String TRANSFORMATION = "AES/CTR/NoPadding";
+
+    /** Length of the initialization vector in bytes. */
+    private static final int IV_LENGTH = 16;
+
+    /** Cipher for both directions. */
+    private final Cipher mCipher;
+
+    /** Key for the cipher. */
+    private final SecretKeySpec mKey;
+
+    /** Source of the initialization vectors. */
+    private final SecureRandom mRandom;
+
+    /** Current initialization vector. */
+    private final byte[] mIv;
+
+    /**
+     * Constructor.
+     * 
+     * @param pKey
+     *            the key to encrypt with
+     * @throws TTIOException
+     *             if the cipher is not available
+     */
+    EncryptionCodec(final byte[] pKey) throws TTIOException {
+        try {
+            mCipher = Cipher.getInstance(TRANSFORMATION);
+        } catch (final GeneralSecurityException exc) {
+            throw new TTIOException(exc);
+        }
+        mKey = new SecretKeySpec(pKey, ALGORITHM);
+        mRandom = new SecureRandom();
+        mIv = new byte[IV_LENGTH];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteBuffer encode(final ByteBuffer pSource) throws TTIOException {
+        mRandom.nextBytes(mIv);
+        final ByteBuffer out = output(IV_LENGTH + pSource.remaining());
+        out.put(mIv);
+        try {
+            mCipher.init(Cipher.ENCRYPT_MODE, mKey, new IvParameterSpec(mIv));
+            mCipher.doFinal(pSource.duplicate(), out);
+        } catch (final GeneralSecurityException exc) {
+            throw new TTIOException(exc);
+        }
+        out.flip();
+        return out;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteBuffer decode(final ByteBuffer pSource) throws TTIOException {
+        if (pSource.remaining() < IV_LENGTH) {
+            throw new TTIOException("Encrypted page is truncated.");
+        }
+        final ByteBuffer source = pSource.duplicate();
+        source.get(mIv);
+        final ByteBuffer out = output(source.remaining());
+        try {
+            mCipher.init(Cipher.DECRYPT_MODE, mKey, new IvParameterSpec(mIv));
+            mCipher.doFinal(source, out);
+        } catch (final GeneralSecurityException exc) {
+            throw new TTIOException(exc);
+        }
+        out.flip();
+        return out;
+    }
+
+}
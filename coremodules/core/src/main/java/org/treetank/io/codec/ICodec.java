@@ -0,0 +1,68 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.io.codec;
+
+import java.nio.ByteBuffer;
+
+import org.treetank.exception.TTIOException;
+
+/**
+ * <h1>ICodec</h1>
+ * 
+ * <p>
+ * One stage of a {@link CodecPipeline}. A codec transforms the bytes between position and limit of a heap
+ * buffer into a buffer with position 0 and limit set to the length of the result. The result may be a view on
+ * the source or on an internal buffer of the codec which is reused with the next invocation, so instances
+ * must not be shared between threads.
+ * </p>
+ */
+public interface ICodec {
+
+    /**
+     * Encoding data on its way to the storage.
+     * 
+     * @param pSource
+     *            data to be encoded
+     * @return the encoded data
+     * @throws TTIOException
+     *             if the data could not be encoded
+     */
+    ByteBuffer encode(final ByteBuffer pSource) throws TTIOException;
+
+    /**
+     * Decoding data read from the storage.
+     * 
+     * @param pSource
+     *            data to be decoded
+     * @return the decoded data
+     * @throws TTIOException
+     *             if the data could not be decoded
+     */
+    ByteBuffer decode(final ByteBuffer pSource) throws TTIOException;
+
+}
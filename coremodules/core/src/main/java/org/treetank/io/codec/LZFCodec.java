@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.io.codec;
+
+import java.nio.ByteBuffer;
+
+import org.treetank.exception.TTIOException;
+
+/**
+ * <h1>LZFCodec</h1>
+ * 
+ * <p>
+ * Fast LZ77 compression in the format of LZF. The data consists of literal runs (control byte below 32
+ * denoting the length of the run - 1) and back references (3 bits length - 2, extended by an additional byte
+ * if all bits are set, followed by 13 bits offset - 1). The encoded data is prefixed by the length of the
+ * decoded data.
+ * </p>
+ */
+final class LZFCodec extends AbstractCodec {
+
+    /** Bits used for the hash of three bytes. */
+    private static final int HASH_BITS = 14;
+
+    /** Maximal length of a literal run. */
+    private static final int MAX_LITERAL = 1 << 5;
+
+    /** Maximal offset of a back reference. */
+    private static final int MAX_OFFSET = 1 << 13;
+
+    /** Maximal length of a back reference. */
+    private static final int MAX_REFERENCE = (1 << 8) + (1 << 3);
+
+    /** Last positions of the hashed three byte sequences. */
+    private final int[] mTable = new int[1 << HASH_BITS];
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteBuffer encode(final ByteBuffer pSource) {
+        final byte[] in = pSource.array();
+        final int start = pSource.arrayOffset() + pSource.position();
+        final int end = start + pSource.remaining();
+        final ByteBuffer outBuffer = output(4 + pSource.remaining() + (pSource.remaining() >> 5) + 1);
+        outBuffer.putInt(pSource.remaining());
+        final byte[] out = outBuffer.array();
+        int op = outBuffer.arrayOffset() + outBuffer.position();
+
+        int ip = start;
+        int literals = 0;
+        // reserving the control byte of the first literal run
+        op++;
+        while (ip < end - 2) {
+            final int hash = hash(in, ip);
+            final int ref = mTable[hash];
+            mTable[hash] = ip;
+            final int offset = ip - ref - 1;
+            // the table is not cleared between invocations, outdated entries are filtered by the bounds
+            if (ref >= start && ref < ip && offset < MAX_OFFSET && in[ref] == in[ip] && in[ref + 1] == in[ip + 1]
+                && in[ref + 2] == in[ip + 2]) {
+                final int maxLength = Math.min(end - ip, MAX_REFERENCE);
+                int length = 3;
+                while (length < maxLength && in[ref + length] == in[ip + length]) {
+                    length++;
+                }
+                // closing the current literal run
+                if (literals > 0) {
+                    out[op - literals - 1] = (byte)(literals - 1);
+                    literals = 0;
+                } else {
+                    op--;
+                }
+                length -= 2;
+                if (length < 7) {
+                    out[op++] = (byte)((offset >> 8) + (length << 5));
+                } else {
+                    out[op++] = (byte)((offset >> 8) + (7 << 5));
+                    out[op++] = (byte)(length - 7);
+                }
+                out[op++] = (byte)offset;
+                ip += length + 2;
+                // reserving the control byte of the next literal run
+                op++;
+            } else {
+                out[op++] = in[ip++];
+                if (++literals == MAX_LITERAL) {
+                    out[op - literals - 1] = (byte)(literals - 1);
+                    literals = 0;
+                    op++;
+                }
+            }
+        }
+        while (ip < end) {
+            out[op++] = in[ip++];
+            if (++literals == MAX_LITERAL) {
+                out[op - literals - 1] = (byte)(literals - 1);
+                literals = 0;
+                op++;
+            }
+        }
+        if (literals > 0) {
+            out[op - literals - 1] = (byte)(literals - 1);
+        } else {
+            op--;
+        }
+        outBuffer.position(op - outBuffer.arrayOffset());
+        outBuffer.flip();
+        return outBuffer;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteBuffer decode(final ByteBuffer pSource) throws TTIOException {
+        if (pSource.remaining() < 4) {
+            throw new TTIOException("Compressed page is truncated.");
+        }
+        final int length = pSource.getInt(pSource.position());
+        final byte[] in = pSource.array();
+        int ip = pSource.arrayOffset() + pSource.position() + 4;
+        final int end = pSource.arrayOffset() + pSource.limit();
+        final ByteBuffer outBuffer = output(length);
+        final byte[] out = outBuffer.array();
+        final int start = outBuffer.arrayOffset();
+        final int outEnd = start + length;
+        int op = start;
+        try {
+            while (ip < end) {
+                final int ctrl = in[ip++] & 0xFF;
+                if (ctrl < MAX_LITERAL) {
+                    final int literals = ctrl + 1;
+                    if (op + literals > outEnd || ip + literals > end) {
+                        throw new TTIOException("Compressed page is corrupt.");
+                    }
+                    System.arraycopy(in, ip, out, op, literals);
+                    ip += literals;
+                    op += literals;
+                } else {
+                    int refLength = ctrl >> 5;
+                    if (refLength == 7) {
+                        refLength += in[ip++] & 0xFF;
+                    }
+                    refLength += 2;
+                    final int ref = op - ((ctrl & 0x1f) << 8) - (in[ip++] & 0xFF) - 1;
+                    if (ref < start || op + refLength > outEnd) {
+                        throw new TTIOException("Compressed page is corrupt.");
+                    }
+                    for (int i = 0; i < refLength; i++) {
+                        out[op++] = out[ref + i];
+                    }
+                }
+            }
+        } catch (final ArrayIndexOutOfBoundsException exc) {
+            throw new TTIOException("Compressed page is corrupt.");
+        }
+        if (op != outEnd) {
+            throw new TTIOException("Compressed page is corrupt.");
+        }
+        outBuffer.limit(length);
+        return outBuffer;
+    }
+
+    /**
+     * Hashing the three bytes starting at the given position.
+     * 
+     * @param pIn
+     *            data
+     * @param pPos
+     *            start of the bytes
+     * @return the hash
+     */
+    private static int hash(final byte[] pIn, final int pPos) {
+        final int value = ((pIn[pPos] & 0xFF) << 16) | ((pIn[pPos + 1] & 0xFF) << 8) | (pIn[pPos + 2] & 0xFF);
+        return (value * 0x9E3779B1) >>> (32 - HASH_BITS);
+    }
+
+}
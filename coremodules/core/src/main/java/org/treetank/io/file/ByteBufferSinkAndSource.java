@@ -53,6 +53,16 @@ public final class ByteBufferSinkAndSource implements ITTSink, ITTSource {
         mBuffer = ByteBuffer.allocate(IConstants.BUFFER_SIZE);
     }
 
+    /**
+     * Constructor for reading from an existing buffer, starting at its current position.
+     * 
+     * @param pBuffer
+     *            buffer to be wrapped
+     */
+    public ByteBufferSinkAndSource(final ByteBuffer pBuffer) {
+        mBuffer = pBuffer;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -72,6 +82,20 @@ public final class ByteBufferSinkAndSource implements ITTSink, ITTSource {
 
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeVarLong(final long paramLongVal) {
+        checkAndIncrease(10);
+        long val = paramLongVal;
+        while ((val & ~0x7FL) != 0) {
+            mBuffer.put((byte)(val & 0x7F | 0x80));
+            val >>>= 7;
+        }
+        mBuffer.put((byte)val);
+    }
+
     /**
      * Setting position in buffer.
      * 
@@ -121,6 +145,39 @@ public final class ByteBufferSinkAndSource implements ITTSink, ITTSource {
         return mBuffer.getLong();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long readVarLong() {
+        long val = 0;
+        int shift = 0;
+        byte current;
+        do {
+            current = mBuffer.get();
+            val |= (long)(current & 0x7F) << shift;
+            shift += 7;
+        } while (current < 0);
+        return val;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readBytes(final byte[] mDst, final int mOffset, final int mLength) {
+        mBuffer.get(mDst, mOffset, mLength);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeBytes(final byte[] mBytes, final int mOffset, final int mLength) {
+        checkAndIncrease(mLength);
+        mBuffer.put(mBytes, mOffset, mLength);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -139,6 +196,17 @@ public final class ByteBufferSinkAndSource implements ITTSink, ITTSource {
         return mBuffer.getInt();
     }
 
+    /**
+     * Getting a view on the bytes between the beginning of the buffer and its current position.
+     * 
+     * @return a buffer with position 0 and limit set to the current position
+     */
+    public ByteBuffer toByteBuffer() {
+        final ByteBuffer view = mBuffer.duplicate();
+        view.flip();
+        return view;
+    }
+
     /**
      * Checking of length is sufficient, if not, increase the bytebuffer.
      * 
@@ -149,7 +217,8 @@ public final class ByteBufferSinkAndSource implements ITTSink, ITTSource {
         final int position = mBuffer.position();
         if (mBuffer.position() + mLength >= mBuffer.capacity()) {
             mBuffer.position(0);
-            final ByteBuffer newBuffer = ByteBuffer.allocate(mBuffer.capacity() + IConstants.BUFFER_SIZE);
+            final ByteBuffer newBuffer =
+                ByteBuffer.allocate(mBuffer.capacity() + Math.max(mLength, IConstants.BUFFER_SIZE));
             newBuffer.put(mBuffer);
             mBuffer = newBuffer;
             mBuffer.position(position);
@@ -28,6 +28,12 @@
 package org.treetank.io.file;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import org.treetank.access.conf.ResourceConfiguration;
 import org.treetank.exception.TTIOException;
@@ -35,9 +41,15 @@ import org.treetank.io.EStorage;
 import org.treetank.io.IReader;
 import org.treetank.io.IStorage;
 import org.treetank.io.IWriter;
+import org.treetank.io.SyncGroup;
+import org.treetank.io.codec.CodecPipeline;
+import org.treetank.metrics.MetricsRegistry;
+import org.treetank.utils.IConstants;
 
 /**
- * Factory to provide File access as a backend.
+ * Factory to provide File access as a backend. The pages are stored in the
+ * {@link SegmentFiles} of the resource, while the file tt.tnk only
+ * holds the beacon referencing the last uber page.
  * 
  * @author Sebastian Graf, University of Konstanz.
  * 
@@ -50,23 +62,66 @@ public final class FileFactory implements IStorage {
     /** Instance to storage. */
     private final File mFile;
 
+    /** Configuration of the resource. */
+    private final ResourceConfiguration mResourceConf;
+
+    /** Forcing shared with all resources of the database. */
+    private final SyncGroup mSyncGroup;
+
+    /** Metrics of the session, recording the bytes read and written. */
+    private final MetricsRegistry mMetrics;
+
+    /** Beacon file shared by all readers, opened with the first reader. */
+    private RandomAccessFile mReadFile;
+
+    /** Channel of {@link #mReadFile} serving positional reads. */
+    private FileChannel mChannel;
+
+    /** Segments shared by all readers, opened with the first reader. */
+    private SegmentFiles mSegments;
+
+    /** Threads encoding pages during commits, opened with the first writer. */
+    private ExecutorService mCommitPool;
+
     /**
      * Constructor.
      * 
-     * @param paramFile
-     *            the location of the database
+     * @param paramResourceConf
+     *            the configuration of the resource
+     * @param paramSyncGroup
+     *            forcing shared with all resources of the database
+     * @param paramMetrics
+     *            metrics of the session
      * 
      */
-    public FileFactory(final File paramFile) {
-        mFile = paramFile;
+    public FileFactory(final ResourceConfiguration paramResourceConf, final SyncGroup paramSyncGroup,
+        final MetricsRegistry paramMetrics) {
+        mFile = paramResourceConf.mPath;
+        mResourceConf = paramResourceConf;
+        mSyncGroup = paramSyncGroup;
+        mMetrics = paramMetrics;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public IReader getReader() throws TTIOException {
-        return new FileReader(getConcreteStorage());
+    public synchronized IReader getReader() throws TTIOException {
+        if (mChannel == null) {
+            final File file = getConcreteStorage();
+            try {
+                if (!file.exists()) {
+                    file.getParentFile().mkdirs();
+                    file.createNewFile();
+                }
+                mReadFile = new RandomAccessFile(file, IConstants.READ_ONLY);
+            } catch (final IOException exc) {
+                throw new TTIOException(exc);
+            }
+            mChannel = mReadFile.getChannel();
+            mSegments = new SegmentFiles(file.getParentFile(), mResourceConf.mMemoryMapped);
+        }
+        return new FileReader(mChannel, mSegments, new CodecPipeline(mResourceConf, mMetrics), mMetrics);
     }
 
     /**
@@ -74,15 +129,75 @@ public final class FileFactory implements IStorage {
      */
     @Override
     public IWriter getWriter() throws TTIOException {
-        return new FileWriter(getConcreteStorage());
+        return new FileWriter(getConcreteStorage(), (FileReader)getReader(), mResourceConf, getCommitPool(),
+            mSyncGroup, mMetrics, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IWriter getCompactionWriter() throws TTIOException {
+        return new FileWriter(getConcreteStorage(), (FileReader)getReader(), mResourceConf, getCommitPool(),
+            mSyncGroup, mMetrics, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void releaseCompacted() throws TTIOException {
+        getReader();
+        try {
+            mSegments.release(FileWriter.readBaseSegment(mChannel));
+        } catch (final IOException exc) {
+            throw new TTIOException(exc);
+        }
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public void close() {
-        // not used over here
+    public synchronized void close() throws TTIOException {
+        if (mCommitPool != null) {
+            mCommitPool.shutdown();
+            mCommitPool = null;
+        }
+        if (mReadFile != null) {
+            try {
+                mSegments.close();
+                mReadFile.close();
+            } catch (final IOException exc) {
+                throw new TTIOException(exc);
+            }
+            mReadFile = null;
+            mChannel = null;
+            mSegments = null;
+        }
+    }
+
+    /**
+     * Getting the threads encoding pages during commits as configured in
+     * {@link ResourceConfiguration#mCommitThreads}.
+     * 
+     * @return the executor, null if pages should be encoded by the committing thread
+     */
+    private synchronized ExecutorService getCommitPool() {
+        final int threads =
+            mResourceConf.mCommitThreads == 0 ? Runtime.getRuntime().availableProcessors()
+                : mResourceConf.mCommitThreads;
+        if (threads > 1 && mCommitPool == null) {
+            mCommitPool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable paramRunnable) {
+                    final Thread thread = new Thread(paramRunnable, "treetank-commit");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return mCommitPool;
     }
 
     /**
@@ -31,27 +31,44 @@ import org.treetank.io.IKey;
 import org.treetank.io.KeyDelegate;
 
 /**
- * FileKey, storing the offset and the length. The key is used for the mapping
- * between PageReerence and Page.
+ * FileKey, storing the segment, the offset within the segment and the length.
+ * The key is used for the mapping between PageReerence and Page.
  * 
  * @author Sebastian Graf, University of Konstnz
  * 
  */
 public final class FileKey implements IKey {
 
+    /** Number of bits of the offset within the identifier. */
+    private static final int OFFSET_BITS = 40;
+
+    /** Maximal size of a segment, so that segment and offset fit into the identifier. */
+    public static final long MAX_SEGMENT_SIZE = 1L << OFFSET_BITS;
+
     /** Delegate for the key. */
     private final KeyDelegate mKey;
 
     /**
      * Constructor for direct data.
      * 
+     * @param paramSegment
+     *            Segment of data
      * @param paramOffset
-     *            Offset of data
+     *            Offset of data within the segment
      * @param paramLength
      *            Length of data
      */
-    public FileKey(final long paramOffset, final long paramLength) {
-        mKey = new KeyDelegate(paramOffset, paramLength);
+    public FileKey(final long paramSegment, final long paramOffset, final long paramLength) {
+        mKey = new KeyDelegate(paramSegment, paramOffset, paramLength);
+    }
+
+    /**
+     * Getting the segment of the file fragment.
+     * 
+     * @return the segment
+     */
+    public int getSegment() {
+        return (int)getKeys()[0];
     }
 
     /**
@@ -60,16 +77,16 @@ public final class FileKey implements IKey {
      * @return the length of the file fragment
      */
     public int getLength() {
-        return (int)getKeys()[1];
+        return (int)getKeys()[2];
     }
 
     /**
-     * Getting the offset of the file fragment.
+     * Getting the offset of the file fragment within its segment.
      * 
      * @return the offset
      */
     public long getOffset() {
-        return getKeys()[0];
+        return getKeys()[1];
     }
 
     /**
@@ -77,7 +94,8 @@ public final class FileKey implements IKey {
      */
     @Override
     public long getIdentifier() {
-        return getKeys()[0];
+        final long[] keys = getKeys();
+        return keys[0] << OFFSET_BITS | keys[1];
     }
 
     /**
@@ -27,13 +27,16 @@
 
 package org.treetank.io.file;
 
-import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import org.treetank.exception.TTIOException;
 import org.treetank.io.IKey;
 import org.treetank.io.IReader;
+import org.treetank.io.codec.CodecPipeline;
+import org.treetank.metrics.Counter;
+import org.treetank.metrics.MetricsRegistry;
 import org.treetank.page.PagePersistenter;
 import org.treetank.page.PageReference;
 import org.treetank.page.UberPage;
@@ -41,8 +44,9 @@ import org.treetank.page.interfaces.IPage;
 import org.treetank.utils.IConstants;
 
 /**
- * File Reader. Used for NodeReadTrx to provide read only access on a
- * RandomAccessFile.
+ * File Reader. Used for NodeReadTrx to provide read only access on the segments
+ * of a {@link FileFactory}, either by positional reads on their channels or over
+ * memory mappings, both shared by all readers of the storage.
  * 
  * @author Marc Kramis, Seabix
  * @author Sebastian Graf, University of Konstanz.
@@ -51,36 +55,40 @@ import org.treetank.utils.IConstants;
  */
 public final class FileReader implements IReader {
 
-    /** Random access mFile to work on. */
-    private transient final RandomAccessFile mFile;
+    /** Channel of the beacon file shared with all other readers of the storage. */
+    private transient final FileChannel mBeacon;
 
-    /** Inflater to decompress. */
-    private transient final CryptoJavaImpl mDecompressor;
+    /** Segments shared with all other readers of the storage. */
+    private transient final SegmentFiles mSegments;
 
-    /** Temporary data buffer. */
-    private transient ByteBufferSinkAndSource mBuffer;
+    /** Codecs to decode the pages. */
+    private transient final CodecPipeline mPipeline;
+
+    /** Number of bytes of the pages read. */
+    private transient final Counter mBytesRead;
+
+    /** Buffer for the compressed data read over a channel. */
+    private transient ByteBuffer mInput;
 
     /**
      * Constructor.
      * 
-     * @throws TTIOException
-     *             if something bad happens
+     * @param pBeacon
+     *            the channel of the beacon file, only accessed by positional reads
+     * @param pSegments
+     *            the segments holding the pages
+     * @param pPipeline
+     *            the codecs to decode the pages
+     * @param pMetrics
+     *            metrics recording the bytes read
      */
-    public FileReader(final File mConcreteStorage) throws TTIOException {
-
-        try {
-            if (!mConcreteStorage.exists()) {
-                mConcreteStorage.getParentFile().mkdirs();
-                mConcreteStorage.createNewFile();
-            }
-
-            mFile = new RandomAccessFile(mConcreteStorage, IConstants.READ_ONLY);
-
-            mDecompressor = new CryptoJavaImpl();
-            mBuffer = new ByteBufferSinkAndSource();
-        } catch (final IOException exc) {
-            throw new TTIOException(exc);
-        }
+    FileReader(final FileChannel pBeacon, final SegmentFiles pSegments, final CodecPipeline pPipeline,
+        final MetricsRegistry pMetrics) {
+        mBeacon = pBeacon;
+        mSegments = pSegments;
+        mPipeline = pPipeline;
+        mBytesRead = pMetrics.counter(IConstants.MET_BYTES_READ);
+        mInput = ByteBuffer.allocate(IConstants.BUFFER_SIZE);
     }
 
     /**
@@ -98,34 +106,25 @@ public final class FileReader implements IReader {
             return null;
         }
 
+        final FileKey fileKey = (FileKey)pKey;
+        final ByteBuffer page;
         try {
-            final FileKey fileKey = (FileKey)pKey;
-
-            // Prepare environment for read.
-            final int inputLength = fileKey.getLength() + IConstants.BEACON_LENGTH;
-            mBuffer.position(12);
-
-            // Read page from file.
-            final byte[] page = new byte[fileKey.getLength()];
-            mFile.seek(fileKey.getOffset());
-            mFile.read(page);
-            for (final byte byteVal : page) {
-                mBuffer.writeByte(byteVal);
-            }
-
-            // Perform crypto operations.
-            final int outputLength = mDecompressor.decrypt(inputLength, mBuffer);
-            if (outputLength == 0) {
-                throw new TTIOException("Page decrypt error.");
+            // Read page from segment or get the mapped region.
+            final MappedFile mapping = mSegments.getMapping(fileKey.getSegment());
+            if (mapping == null) {
+                page =
+                    get(mSegments.getChannel(fileKey.getSegment()), fileKey.getOffset(), fileKey
+                        .getLength());
+            } else {
+                page = mapping.get(fileKey.getOffset(), fileKey.getLength());
             }
-
         } catch (final IOException exc) {
             throw new TTIOException(exc);
         }
+        mBytesRead.add(fileKey.getLength());
 
         // Return reader required to instantiate and deserialize page.
-        mBuffer.position(12);
-        return PagePersistenter.createPage(mBuffer);
+        return PagePersistenter.createPage(new ByteBufferSinkAndSource(mPipeline.decode(page)));
 
     }
 
@@ -133,17 +132,12 @@ public final class FileReader implements IReader {
         final PageReference uberPageReference = new PageReference();
         try {
             // Read primary beacon.
-            mFile.seek(IConstants.BEACON_START);
-
-            final FileKey key = new FileKey(mFile.readLong(), mFile.readInt());
+            final ByteBuffer beacon = get(mBeacon, IConstants.BEACON_START, IConstants.BEACON_LENGTH);
+            checkMarker(beacon.getInt());
+            final FileKey key = new FileKey(beacon.getInt(), beacon.getLong(), beacon.getInt());
 
             uberPageReference.setKey(key);
 
-            // Check to writer ensure writing after the Beacon_Start
-            if (mFile.getFilePointer() < IConstants.BEACON_START + IConstants.BEACON_LENGTH) {
-                mFile.setLength(IConstants.BEACON_START + IConstants.BEACON_LENGTH);
-            }
-
             final UberPage page = (UberPage)read(uberPageReference.getKey());
             uberPageReference.setPage(page);
 
@@ -154,11 +148,72 @@ public final class FileReader implements IReader {
     }
 
     public void close() throws TTIOException {
-        try {
-            mFile.close();
-        } catch (final IOException exc) {
-            throw new TTIOException(exc);
+        // channels and mappings are shared and closed by the factory
+    }
+
+    /**
+     * Getting the bytes stored at the given position by a positional read into {@link #mInput}.
+     * 
+     * @param pChannel
+     *            to read from
+     * @param pOffset
+     *            position in the file
+     * @param pLength
+     *            number of bytes
+     * @return a buffer with position 0 and limit <code>pLength</code> holding the bytes
+     * @throws IOException
+     *             if the bytes could not be read
+     */
+    private ByteBuffer get(final FileChannel pChannel, final long pOffset, final int pLength)
+        throws IOException {
+        if (mInput.capacity() < pLength) {
+            mInput = ByteBuffer.allocate(pLength);
+        }
+        mInput.clear();
+        mInput.limit(pLength);
+        read(pChannel, mInput, pOffset);
+        mInput.flip();
+        return mInput;
+    }
+
+    /**
+     * Checking the marker at the start of a beacon, rejecting storages written
+     * in the single file layout of older versions which can not be read
+     * anymore.
+     * 
+     * @param pMarker
+     *            first int of the beacon
+     * @throws IOException
+     *             if the marker does not denote the segmented layout
+     */
+    static void checkMarker(final int pMarker) throws IOException {
+        if (pMarker != IConstants.BEACON_MARKER) {
+            throw new IOException("Storage was written in the single file layout of an older version of the "
+                + "File storage, which is not supported anymore. Export the resource with the older "
+                + "version and import it again.");
+        }
+    }
 
+    /**
+     * Filling the remaining bytes of a buffer by positional reads which do not touch the position of the
+     * channel and are therefore safe to be used concurrently.
+     * 
+     * @param pChannel
+     *            to read from
+     * @param pBuffer
+     *            to be filled
+     * @param pOffset
+     *            position in the file to start from
+     * @throws IOException
+     *             if the end of the file is reached before the buffer is filled
+     */
+    static void read(final FileChannel pChannel, final ByteBuffer pBuffer, final long pOffset)
+        throws IOException {
+        final int start = pBuffer.position();
+        while (pBuffer.hasRemaining()) {
+            if (pChannel.read(pBuffer, pOffset + pBuffer.position() - start) < 0) {
+                throw new IOException("Range exceeds the size of the file.");
+            }
         }
     }
 
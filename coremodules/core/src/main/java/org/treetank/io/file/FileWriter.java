@@ -28,13 +28,28 @@
 package org.treetank.io.file;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+import org.treetank.access.conf.ResourceConfiguration;
 import org.treetank.exception.TTIOException;
+import org.treetank.io.EDurability;
 import org.treetank.io.IKey;
 import org.treetank.io.IWriter;
+import org.treetank.io.SyncGroup;
+import org.treetank.io.codec.CodecPipeline;
+import org.treetank.metrics.Counter;
+import org.treetank.metrics.MetricsRegistry;
 import org.treetank.page.PagePersistenter;
 import org.treetank.page.PageReference;
 import org.treetank.page.interfaces.IPage;
@@ -42,6 +57,19 @@ import org.treetank.utils.IConstants;
 
 /**
  * File Writer for providing read/write access for file as a treetank backend.
+ * Pages are collected in memory and appended to the last segment with one
+ * gathered write as soon as the first reference is written, so that a commit
+ * results in one write of all its pages followed by the update of the beacon.
+ * A new segment is started as soon as a page does not fit into the segment
+ * size of the resource anymore. A writer for compaction starts with a new
+ * segment which becomes the base segment referenced by the beacon, all
+ * segments before can be released afterwards.
+ * Pages without references are serialized and encoded in parallel if an
+ * executor is given. Since the keys of all referenced pages must be known
+ * before a page is serialized, the committing thread collects these results
+ * in the order of writing before it serializes any page holding references.
+ * Depending on the durability of the resource, the pages are forced to disk
+ * before the beacon is updated and the beacon is forced afterwards.
  * 
  * @author Marc Kramis, Seabix
  * @author Sebastian Graf, University of Konstanz
@@ -49,14 +77,71 @@ import org.treetank.utils.IConstants;
  */
 public final class FileWriter implements IWriter {
 
-    /** Random access mFile to work on. */
-    private transient final RandomAccessFile mFile;
+    /** Size of the chunks pending pages are collected in. */
+    private static final int CHUNK_SIZE = 1 << 20;
 
-    /** Compressor to compress the page. */
-    private transient final CryptoJavaImpl mCompressor;
+    /** Number of pending bytes forcing a write before the first reference is written. */
+    private static final long FLUSH_THRESHOLD = 1 << 26;
 
-    /** Temporary data buffer. */
-    private final transient ByteBufferSinkAndSource mBuffer;
+    /** Random access file holding the beacon. */
+    private transient final RandomAccessFile mBeaconFile;
+
+    /** Channel of {@link #mBeaconFile}. */
+    private transient final FileChannel mBeaconChannel;
+
+    /** Folder holding the segments. */
+    private transient final File mFolder;
+
+    /** Number of the segment pages are appended to. */
+    private int mSegment;
+
+    /** Number of the first segment holding pages still referenced. */
+    private final int mBaseSegment;
+
+    /** Random access file of the segment to append to. */
+    private transient RandomAccessFile mFile;
+
+    /** Channel of {@link #mFile}. */
+    private transient FileChannel mChannel;
+
+    /** Chunks holding the pages not written to the file yet. */
+    private transient final List<ByteBuffer> mPending;
+
+    /** Chunk kept for reuse by the next commit. */
+    private transient ByteBuffer mSpare;
+
+    /** Offset in the segment of the first pending page. */
+    private long mPendingOffset;
+
+    /** Number of pending bytes. */
+    private long mPendingLength;
+
+    /** Configuration of the resource, needed for creating further encoders. */
+    private transient final ResourceConfiguration mResourceConf;
+
+    /** Encoder used by the committing thread. */
+    private transient final Encoder mEncoder;
+
+    /** Executor for encoding pages in parallel, null if all pages are encoded by the committing thread. */
+    private transient final ExecutorService mExecutor;
+
+    /** Encoders not in use by the executor. */
+    private transient final Queue<Encoder> mEncoders;
+
+    /** References of the pages being encoded by the executor, in the order of writing. */
+    private transient final List<PageReference> mEncodingRefs;
+
+    /** Results of the pages being encoded by the executor, in the order of writing. */
+    private transient final List<Future<ByteBuffer>> mEncodingResults;
+
+    /** Forcing shared with all resources of the database. */
+    private transient final SyncGroup mSyncGroup;
+
+    /** Metrics of the session, needed for creating further encoders. */
+    private transient final MetricsRegistry mMetrics;
+
+    /** Number of bytes of the pages written. */
+    private transient final Counter mBytesWritten;
 
     /** Reader instance for this writer. */
     private transient final FileReader reader;
@@ -66,21 +151,56 @@ public final class FileWriter implements IWriter {
      * 
      * 
      * @param paramStorage
-     *            the Concrete Storage
+     *            the file holding the beacon, the segments are located in the same folder
+     * @param paramReader
+     *            reader used for accessing pages already written
+     * @param paramResourceConf
+     *            configuration of the resource determining the codecs
+     * @param paramExecutor
+     *            executor for encoding pages in parallel, null if all pages should be encoded by the
+     *            committing thread
+     * @param paramSyncGroup
+     *            forcing shared with all resources of the database
+     * @param paramMetrics
+     *            metrics recording the bytes written and the time spent by the codecs
+     * @param paramCompaction
+     *            should a new base segment be started for compacting the storage?
      * @throws TTIOException
      *             if FileWriter IO error
      */
-    public FileWriter(final File paramStorage) throws TTIOException {
+    public FileWriter(final File paramStorage, final FileReader paramReader,
+        final ResourceConfiguration paramResourceConf, final ExecutorService paramExecutor,
+        final SyncGroup paramSyncGroup, final MetricsRegistry paramMetrics, final boolean paramCompaction)
+        throws TTIOException {
+        mFolder = paramStorage.getParentFile();
+        mSegment = SegmentFiles.getLastSegment(mFolder);
         try {
-            mFile = new RandomAccessFile(paramStorage, IConstants.READ_WRITE);
-        } catch (final FileNotFoundException fileExc) {
-            throw new TTIOException(fileExc);
+            mBeaconFile = new RandomAccessFile(paramStorage, IConstants.READ_WRITE);
+            mBeaconChannel = mBeaconFile.getChannel();
+            if (paramCompaction) {
+                mSegment++;
+                mBaseSegment = mSegment;
+            } else {
+                mBaseSegment = readBaseSegment(mBeaconChannel);
+            }
+            mFile = new RandomAccessFile(SegmentFiles.getFile(mFolder, mSegment), IConstants.READ_WRITE);
+        } catch (final IOException exc) {
+            throw new TTIOException(exc);
         }
 
-        mCompressor = new CryptoJavaImpl();
-        mBuffer = new ByteBufferSinkAndSource();
+        mChannel = mFile.getChannel();
+        mPending = new ArrayList<ByteBuffer>();
+        mResourceConf = paramResourceConf;
+        mMetrics = paramMetrics;
+        mBytesWritten = paramMetrics.counter(IConstants.MET_BYTES_WRITTEN);
+        mEncoder = new Encoder(new CodecPipeline(paramResourceConf, paramMetrics));
+        mExecutor = paramExecutor;
+        mEncoders = new ConcurrentLinkedQueue<Encoder>();
+        mEncodingRefs = new ArrayList<PageReference>();
+        mEncodingResults = new ArrayList<Future<ByteBuffer>>();
+        mSyncGroup = paramSyncGroup;
 
-        reader = new FileReader(paramStorage);
+        reader = paramReader;
 
     }
 
@@ -93,50 +213,154 @@ public final class FileWriter implements IWriter {
      *             due to errors during writing.
      */
     public void write(final PageReference pageReference) throws TTIOException {
-
-        // Serialise page.
-        // mBuffer.position(24);
-        mBuffer.position(12);
         final IPage page = pageReference.getPage();
-        PagePersistenter.serializePage(mBuffer, page);
-        final int inputLength = mBuffer.position();
+        if (mExecutor != null && page.getReferences().length == 0) {
+            mEncodingRefs.add(pageReference);
+            mEncodingResults.add(mExecutor.submit(new EncodeTask(page)));
+        } else {
+            collect();
+            append(pageReference, mEncoder.encode(page));
+        }
+    }
 
-        // Perform crypto operations.
-        final int outputLength = mCompressor.crypt(inputLength, mBuffer);
-        if (outputLength == 0) {
-            throw new TTIOException("Page crypt error.");
+    /**
+     * Appending the results of all pages encoded by the executor in the order of writing.
+     * 
+     * @throws TTIOException
+     *             if the encoding of any page failed
+     */
+    private void collect() throws TTIOException {
+        try {
+            for (int i = 0; i < mEncodingResults.size(); i++) {
+                append(mEncodingRefs.get(i), mEncodingResults.get(i).get());
+            }
+        } catch (final InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new TTIOException("Commit interrupted.");
+        } catch (final ExecutionException exc) {
+            if (exc.getCause() instanceof TTIOException) {
+                throw (TTIOException)exc.getCause();
+            }
+            throw new IllegalStateException(exc.getCause());
+        } finally {
+            mEncodingRefs.clear();
+            mEncodingResults.clear();
         }
+    }
 
-        // Write page to file.
-        mBuffer.position(12);
+    /**
+     * Appending an encoded page to the pending pages and setting its key.
+     * 
+     * @param pageReference
+     *            reference of the page
+     * @param paramEncoded
+     *            the encoded page
+     * @throws TTIOException
+     *             if the pending pages could not be written
+     */
+    private void append(final PageReference pageReference, final ByteBuffer paramEncoded)
+        throws TTIOException {
+        final int length = paramEncoded.remaining();
 
         try {
-            // Getting actual offset and appending to the end of the current
-            // file
-            final long fileSize = mFile.length();
-            final long offset = fileSize == 0 ? IConstants.BEACON_START + IConstants.BEACON_LENGTH : fileSize;
-            mFile.seek(offset);
-            final byte[] tmp = new byte[outputLength - 12];
-            mBuffer.get(tmp, 0, tmp.length);
-            mFile.write(tmp);
-            final FileKey key = new FileKey(offset, tmp.length);
+            // Getting actual offset by appending to the end of the current
+            // segment and the pending pages
+            if (mPending.isEmpty()) {
+                mPendingOffset = mChannel.size();
+                mPendingLength = 0;
+            }
+            // Starting a new segment if the page does not fit, a page larger
+            // than a segment gets a segment on its own
+            if (mPendingOffset + mPendingLength > 0
+                && mPendingOffset + mPendingLength + length > mResourceConf.mSegmentSize) {
+                flush();
+                nextSegment();
+                mPendingOffset = mChannel.size();
+                mPendingLength = 0;
+            }
+            final long offset = mPendingOffset + mPendingLength;
+            ByteBuffer chunk = mPending.isEmpty() ? null : mPending.get(mPending.size() - 1);
+            if (chunk == null || chunk.remaining() < length) {
+                if (mSpare != null && mSpare.capacity() >= length) {
+                    chunk = mSpare;
+                    mSpare = null;
+                } else {
+                    chunk = ByteBuffer.allocate(Math.max(CHUNK_SIZE, length));
+                }
+                mPending.add(chunk);
+            }
+            chunk.put(paramEncoded);
+            mPendingLength += length;
+            mBytesWritten.add(length);
+            final FileKey key = new FileKey(mSegment, offset, length);
 
             // Remember page coordinates.
             pageReference.setKey(key);
+
+            if (mPendingLength >= FLUSH_THRESHOLD) {
+                flush();
+            }
         } catch (final IOException paramExc) {
             throw new TTIOException(paramExc);
         }
 
     }
 
+    /**
+     * Appending all pending pages to the file with one gathered write.
+     * 
+     * @throws IOException
+     *             if the write fails
+     */
+    private void flush() throws IOException {
+        if (mPending.isEmpty()) {
+            return;
+        }
+        final ByteBuffer[] buffers = mPending.toArray(new ByteBuffer[mPending.size()]);
+        for (final ByteBuffer buffer : buffers) {
+            buffer.flip();
+        }
+        mChannel.position(mPendingOffset);
+        long written = 0;
+        while (written < mPendingLength) {
+            written += mChannel.write(buffers);
+        }
+        mSpare = buffers[0];
+        mSpare.clear();
+        mPending.clear();
+    }
+
+    /**
+     * Closing the current segment and continuing with the next one. The closed
+     * segment is forced unless the resource has no durability, since the
+     * beacon may reference its pages after the next force.
+     * 
+     * @throws IOException
+     *             if the segments could not be switched
+     */
+    private void nextSegment() throws IOException {
+        if (mResourceConf.mDurability != EDurability.None) {
+            mChannel.force(false);
+        }
+        mFile.close();
+        mSegment++;
+        mFile = new RandomAccessFile(SegmentFiles.getFile(mFolder, mSegment), IConstants.READ_WRITE);
+        mChannel = mFile.getChannel();
+    }
+
     /**
      * {@inheritDoc}
      */
     public void close() throws TTIOException {
         try {
-            if (mFile != null) {
+            if (mFile != null && mChannel.isOpen()) {
+                // pages pending at close are not referenced by the beacon and
+                // need not be forced, the next commit forces the segment anyway
+                collect();
+                flush();
                 reader.close();
                 mFile.close();
+                mBeaconFile.close();
             }
         } catch (final IOException e) {
             throw new TTIOException(e);
@@ -163,28 +387,95 @@ public final class FileWriter implements IWriter {
      */
     public void writeFirstReference(final PageReference pageReference) throws TTIOException {
         try {
-            // Check to writer ensure writing after the Beacon_Start
-            if (mFile.getFilePointer() < IConstants.BEACON_START + IConstants.BEACON_LENGTH) {
-                mFile.setLength(IConstants.BEACON_START + IConstants.BEACON_LENGTH);
-            }
-
             write(pageReference);
+            collect();
+            flush();
+            final long start = System.nanoTime();
+            // Pages must be on disk before the beacon references them, so data
+            // and beacon cannot be forced in one cycle. Only the cycle of the
+            // data waits for further commits, the beacon is forced at once.
+            force(mChannel, mResourceConf.mGroupCommitWindow);
 
-            mFile.seek(IConstants.BEACON_START);
+            // Update the beacon after all pages are written.
             final FileKey key = (FileKey)pageReference.getKey();
-            mFile.writeLong(key.getOffset());
-            mFile.writeInt(key.getLength());
-            // pageReference.getChecksum(tmp);
-            // mFile.write(tmp);
+            final ByteBuffer beacon = ByteBuffer.allocate(IConstants.BEACON_LENGTH);
+            beacon.putInt(IConstants.BEACON_MARKER);
+            beacon.putInt(key.getSegment());
+            beacon.putLong(key.getOffset());
+            beacon.putInt(key.getLength());
+            beacon.putInt(mBaseSegment);
+            beacon.flip();
+            while (beacon.hasRemaining()) {
+                mBeaconChannel.write(beacon, IConstants.BEACON_START + beacon.position());
+            }
+            force(mBeaconChannel, 0);
+            if (mResourceConf.mDurability != EDurability.None) {
+                mSyncGroup.synced(mResourceConf.mPath, System.nanoTime() - start);
+            }
         } catch (final IOException exc) {
             throw new TTIOException(exc);
         }
     }
 
+    /**
+     * Reading the number of the base segment from the beacon, the first segment
+     * holding pages still referenced.
+     * 
+     * @param paramBeacon
+     *            channel of the beacon file
+     * @return the number of the base segment, 0 if no beacon is written yet
+     * @throws IOException
+     *             if the beacon could not be read
+     */
+    static int readBaseSegment(final FileChannel paramBeacon) throws IOException {
+        if (paramBeacon.size() < IConstants.BEACON_START + IConstants.BEACON_LENGTH) {
+            return 0;
+        }
+        final ByteBuffer beacon = ByteBuffer.allocate(IConstants.BEACON_LENGTH);
+        FileReader.read(paramBeacon, beacon, IConstants.BEACON_START);
+        beacon.flip();
+        FileReader.checkMarker(beacon.getInt());
+        return beacon.getInt(IConstants.BEACON_LENGTH - 4);
+    }
+
+    /**
+     * Forcing a file to disk as configured in {@link ResourceConfiguration#mDurability}.
+     * 
+     * @param paramChannel
+     *            channel of the file to be forced
+     * @param paramWindow
+     *            time in milliseconds a new group commit cycle waits for further commits
+     * @throws IOException
+     *             if the file could not be forced
+     */
+    private void force(final FileChannel paramChannel, final long paramWindow) throws IOException {
+        switch (mResourceConf.mDurability) {
+        case Fsync:
+            paramChannel.force(false);
+            break;
+        case GroupCommit:
+            mSyncGroup.force(paramChannel, paramWindow);
+            break;
+        default:
+            break;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
     public IPage read(final IKey pKey) throws TTIOException {
+        if (pKey != null && !mEncodingResults.isEmpty()) {
+            collect();
+        }
+        if (pKey != null && ((FileKey)pKey).getSegment() == mSegment
+            && ((FileKey)pKey).getOffset() >= mPendingOffset && !mPending.isEmpty()) {
+            try {
+                flush();
+            } catch (final IOException exc) {
+                throw new TTIOException(exc);
+            }
+        }
         return reader.read(pKey);
     }
 
@@ -195,4 +486,83 @@ public final class FileWriter implements IWriter {
         return reader.readFirstReference();
     }
 
+    /**
+     * Serializing and encoding pages, exclusively used by one thread at a time.
+     */
+    private static final class Encoder {
+
+        /** Codecs to encode the pages. */
+        private final CodecPipeline mPipeline;
+
+        /** Temporary data buffer. */
+        private final ByteBufferSinkAndSource mBuffer;
+
+        /**
+         * Constructor.
+         * 
+         * @param paramPipeline
+         *            codecs to encode the pages
+         */
+        Encoder(final CodecPipeline paramPipeline) {
+            mPipeline = paramPipeline;
+            mBuffer = new ByteBufferSinkAndSource();
+        }
+
+        /**
+         * Serializing and encoding a page.
+         * 
+         * @param paramPage
+         *            to be encoded
+         * @return the encoded page, valid until the next invocation
+         * @throws TTIOException
+         *             if the page could not be encoded
+         */
+        ByteBuffer encode(final IPage paramPage) throws TTIOException {
+            mBuffer.position(0);
+            PagePersistenter.serializePage(mBuffer, paramPage);
+            return mPipeline.encode(mBuffer.toByteBuffer());
+        }
+
+    }
+
+    /**
+     * Task encoding one page with an encoder of {@link FileWriter#mEncoders}.
+     */
+    private final class EncodeTask implements Callable<ByteBuffer> {
+
+        /** Page to be encoded. */
+        private final IPage mPage;
+
+        /**
+         * Constructor.
+         * 
+         * @param paramPage
+         *            to be encoded
+         */
+        EncodeTask(final IPage paramPage) {
+            mPage = paramPage;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public ByteBuffer call() throws TTIOException {
+            Encoder encoder = mEncoders.poll();
+            if (encoder == null) {
+                encoder = new Encoder(new CodecPipeline(mResourceConf, mMetrics));
+            }
+            try {
+                final ByteBuffer encoded = encoder.encode(mPage);
+                final ByteBuffer copy = ByteBuffer.allocate(encoded.remaining());
+                copy.put(encoded);
+                copy.flip();
+                return copy;
+            } finally {
+                mEncoders.offer(encoder);
+            }
+        }
+
+    }
+
 }
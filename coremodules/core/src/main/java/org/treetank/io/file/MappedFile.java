@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.io.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * <h1>MappedFile</h1>
+ * 
+ * <p>
+ * Read-only memory mapping of one data segment. The file is mapped in regions of {@link #REGION_SIZE} bytes
+ * which are (re-)mapped lazily as soon as a requested range is not covered yet, e.g. because the file has
+ * been appended by a writer. One instance per segment is shared by all {@link FileReader}s of a
+ * {@link FileFactory}; each access works on its own view of the region so that no buffer state is shared
+ * between readers.
+ * </p>
+ */
+final class MappedFile {
+
+    /** Size of one mapped region. */
+    static final int REGION_SIZE = 1 << 26;
+
+    /** Channel the regions are mapped from. */
+    private final FileChannel mChannel;
+
+    /** Mapped regions, replaced as a whole whenever a region is (re-)mapped. */
+    private volatile MappedByteBuffer[] mRegions;
+
+    /**
+     * Constructor.
+     * 
+     * @param pChannel
+     *            channel of the segment to be mapped
+     */
+    MappedFile(final FileChannel pChannel) {
+        mChannel = pChannel;
+        mRegions = new MappedByteBuffer[0];
+    }
+
+    /**
+     * Getting the bytes stored at the given position. The returned buffer is a view on the mapped region if
+     * the range is located in one region, otherwise the bytes are read into a new buffer.
+     * 
+     * @param pOffset
+     *            position in the file
+     * @param pLength
+     *            number of bytes
+     * @return a buffer with position 0 and limit <code>pLength</code> holding the bytes
+     * @throws IOException
+     *             if the range is not part of the file
+     */
+    ByteBuffer get(final long pOffset, final int pLength) throws IOException {
+        final int index = (int)(pOffset / REGION_SIZE);
+        final int start = (int)(pOffset % REGION_SIZE);
+        if (start + pLength > REGION_SIZE) {
+            final ByteBuffer buffer = ByteBuffer.allocate(pLength);
+            FileReader.read(mChannel, buffer, pOffset);
+            buffer.flip();
+            return buffer;
+        }
+        final ByteBuffer view = getRegion(index, start + pLength).duplicate();
+        view.limit(start + pLength).position(start);
+        return view.slice();
+    }
+
+    /**
+     * Getting a region mapping at least the given number of bytes.
+     * 
+     * @param pIndex
+     *            index of the region
+     * @param pLength
+     *            number of bytes the region must cover
+     * @return the mapped region
+     * @throws IOException
+     *             if the file is too short
+     */
+    private MappedByteBuffer getRegion(final int pIndex, final int pLength) throws IOException {
+        MappedByteBuffer[] regions = mRegions;
+        if (pIndex < regions.length && regions[pIndex] != null && regions[pIndex].capacity() >= pLength) {
+            return regions[pIndex];
+        }
+        synchronized (this) {
+            regions = mRegions;
+            if (pIndex < regions.length && regions[pIndex] != null
+                && regions[pIndex].capacity() >= pLength) {
+                return regions[pIndex];
+            }
+            final long start = (long)pIndex * REGION_SIZE;
+            final long size = Math.min(REGION_SIZE, mChannel.size() - start);
+            if (size < pLength) {
+                throw new IOException("Range exceeds the size of the file.");
+            }
+            final MappedByteBuffer region = mChannel.map(MapMode.READ_ONLY, start, size);
+            final MappedByteBuffer[] newRegions = new MappedByteBuffer[Math.max(regions.length, pIndex + 1)];
+            System.arraycopy(regions, 0, newRegions, 0, regions.length);
+            newRegions[pIndex] = region;
+            mRegions = newRegions;
+            return region;
+        }
+    }
+
+}
@@ -0,0 +1,267 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.io.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+
+import org.treetank.utils.IConstants;
+
+/**
+ * <h1>SegmentFiles</h1>
+ * 
+ * <p>
+ * The data of a resource is appended to a sequence of segment files, each filled up to the segment size of
+ * the resource before the next one is started. Segments are never modified once the next one is started,
+ * so they can be mapped, archived or moved to another device independently, e.g. by replacing the file with
+ * a link. One instance is shared by all {@link FileReader}s of a {@link FileFactory}, opening the segments
+ * lazily for read-only access.
+ * </p>
+ */
+public final class SegmentFiles {
+
+    /** Prefix of the names of segment files. */
+    private static final String PREFIX = "tt.";
+
+    /** Suffix of the names of segment files. */
+    private static final String SUFFIX = ".tnk";
+
+    /** Folder holding the segments. */
+    private final File mFolder;
+
+    /** Are the segments read through memory mappings? */
+    private final boolean mMemoryMapped;
+
+    /** Opened segments indexed by their number, replaced as a whole whenever a segment is opened. */
+    private volatile Segment[] mSegments;
+
+    /**
+     * Constructor.
+     * 
+     * @param pFolder
+     *            folder holding the segments
+     * @param pMemoryMapped
+     *            should the segments be read through memory mappings?
+     */
+    SegmentFiles(final File pFolder, final boolean pMemoryMapped) {
+        mFolder = pFolder;
+        mMemoryMapped = pMemoryMapped;
+        mSegments = new Segment[0];
+    }
+
+    /**
+     * Getting the file of a segment.
+     * 
+     * @param pFolder
+     *            folder holding the segments
+     * @param pSegment
+     *            number of the segment
+     * @return the file of the segment
+     */
+    public static File getFile(final File pFolder, final int pSegment) {
+        return new File(pFolder, new StringBuilder(PREFIX).append(String.format("%05d", pSegment)).append(
+            SUFFIX).toString());
+    }
+
+    /**
+     * Getting the number of the last segment existing in the folder.
+     * 
+     * @param pFolder
+     *            folder holding the segments
+     * @return the number of the last segment, 0 if there is none
+     */
+    static int getLastSegment(final File pFolder) {
+        int last = 0;
+        final String[] names = pFolder.list();
+        if (names != null) {
+            for (final String name : names) {
+                last = Math.max(last, getSegment(name));
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Getting the number of a segment from the name of its file.
+     * 
+     * @param pName
+     *            name of the file
+     * @return the number of the segment, -1 if the file is no segment
+     */
+    private static int getSegment(final String pName) {
+        if (pName.startsWith(PREFIX) && pName.endsWith(SUFFIX)
+            && pName.length() > PREFIX.length() + SUFFIX.length()) {
+            try {
+                return Integer.parseInt(pName.substring(PREFIX.length(), pName.length() - SUFFIX.length()));
+            } catch (final NumberFormatException exc) {
+                // no segment
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Getting the channel of a segment, only to be used for positional reads.
+     * 
+     * @param pSegment
+     *            number of the segment
+     * @return the channel
+     * @throws IOException
+     *             if the segment could not be opened
+     */
+    FileChannel getChannel(final int pSegment) throws IOException {
+        return getSegment(pSegment).mChannel;
+    }
+
+    /**
+     * Getting the mapping of a segment.
+     * 
+     * @param pSegment
+     *            number of the segment
+     * @return the mapping, null if the segments are not memory mapped
+     * @throws IOException
+     *             if the segment could not be opened
+     */
+    MappedFile getMapping(final int pSegment) throws IOException {
+        return getSegment(pSegment).mMapping;
+    }
+
+    /**
+     * Closing and deleting all segments before the given one.
+     * 
+     * @param pBase
+     *            number of the first segment to be kept
+     * @throws IOException
+     *             if any segment could not be closed or deleted
+     */
+    synchronized void release(final int pBase) throws IOException {
+        final Segment[] segments = mSegments.clone();
+        for (int i = 0; i < Math.min(pBase, segments.length); i++) {
+            if (segments[i] != null) {
+                segments[i].mFile.close();
+                segments[i] = null;
+            }
+        }
+        mSegments = segments;
+        final String[] names = mFolder.list();
+        if (names != null) {
+            for (final String name : names) {
+                final int segment = getSegment(name);
+                if (segment >= 0 && segment < pBase && !new File(mFolder, name).delete()) {
+                    throw new IOException(new StringBuilder("Segment ").append(name).append(
+                        " could not be deleted.").toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * Closing all opened segments.
+     * 
+     * @throws IOException
+     *             if any segment could not be closed
+     */
+    synchronized void close() throws IOException {
+        IOException failure = null;
+        for (final Segment segment : mSegments) {
+            if (segment != null) {
+                try {
+                    segment.mFile.close();
+                } catch (final IOException exc) {
+                    failure = exc;
+                }
+            }
+        }
+        mSegments = new Segment[0];
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Getting an opened segment, opening it if necessary.
+     * 
+     * @param pSegment
+     *            number of the segment
+     * @return the opened segment
+     * @throws IOException
+     *             if the segment could not be opened
+     */
+    private Segment getSegment(final int pSegment) throws IOException {
+        Segment[] segments = mSegments;
+        if (pSegment < segments.length && segments[pSegment] != null) {
+            return segments[pSegment];
+        }
+        synchronized (this) {
+            segments = mSegments;
+            if (pSegment < segments.length && segments[pSegment] != null) {
+                return segments[pSegment];
+            }
+            final RandomAccessFile file =
+                new RandomAccessFile(getFile(mFolder, pSegment), IConstants.READ_ONLY);
+            final Segment segment = new Segment(file, mMemoryMapped);
+            final Segment[] newSegments = new Segment[Math.max(segments.length, pSegment + 1)];
+            System.arraycopy(segments, 0, newSegments, 0, segments.length);
+            newSegments[pSegment] = segment;
+            mSegments = newSegments;
+            return segment;
+        }
+    }
+
+    /**
+     * One opened segment.
+     */
+    private static final class Segment {
+
+        /** File of the segment. */
+        private final RandomAccessFile mFile;
+
+        /** Channel of {@link #mFile}. */
+        private final FileChannel mChannel;
+
+        /** Mapping of the segment, null if not memory mapped. */
+        private final MappedFile mMapping;
+
+        /**
+         * Constructor.
+         * 
+         * @param pFile
+         *            opened file of the segment
+         * @param pMemoryMapped
+         *            should the segment be memory mapped?
+         */
+        private Segment(final RandomAccessFile pFile, final boolean pMemoryMapped) {
+            mFile = pFile;
+            mChannel = pFile.getChannel();
+            mMapping = pMemoryMapped ? new MappedFile(mChannel) : null;
+        }
+
+    }
+
+}
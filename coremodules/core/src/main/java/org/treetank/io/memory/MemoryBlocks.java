@@ -0,0 +1,289 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.io.memory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Blocks of direct buffers holding the encoded pages of a {@link MemoryFactory}. Pages are appended to the
+ * last block, a page not fitting into a block gets a block of its own. Blocks are only appended to, so
+ * readers access them without locking. Blocks before the base block are dropped once a compaction has been
+ * released.
+ */
+final class MemoryBlocks {
+
+    /** Size of a block in bytes. */
+    static final int BLOCK_SIZE = 1 << 20;
+
+    /** Blocks of the storage, copied on write, dropped blocks are null. */
+    private volatile ByteBuffer[] mBlocks;
+
+    /** Number of bytes used in the last block. */
+    private int mUsed;
+
+    /** Key of the uber page, null if nothing is committed yet. */
+    private volatile MemoryKey mFirstKey;
+
+    /** First block still referenced by the uber page. */
+    private int mBaseBlock;
+
+    /**
+     * Constructor creating empty blocks.
+     */
+    MemoryBlocks() {
+        mBlocks = new ByteBuffer[0];
+    }
+
+    /**
+     * Appending an encoded page.
+     * 
+     * @param pPage
+     *            the encoded page from its position to its limit
+     * @return the key of the page
+     */
+    synchronized MemoryKey append(final ByteBuffer pPage) {
+        final int length = pPage.remaining();
+        ByteBuffer[] blocks = mBlocks;
+        if (blocks.length == 0 || mUsed + length > blocks[blocks.length - 1].capacity()) {
+            blocks = newBlock(Math.max(BLOCK_SIZE, length));
+        }
+        final int block = blocks.length - 1;
+        final ByteBuffer target = blocks[block].duplicate();
+        target.position(mUsed);
+        target.put(pPage);
+        final MemoryKey key = new MemoryKey(block, mUsed, length);
+        mUsed += length;
+        return key;
+    }
+
+    /**
+     * Starting a new block, so that all pages appended afterwards are stored after the blocks written so
+     * far.
+     * 
+     * @return the index of the new block
+     */
+    synchronized int nextBlock() {
+        return newBlock(BLOCK_SIZE).length - 1;
+    }
+
+    /**
+     * Getting a stored page.
+     * 
+     * @param pKey
+     *            key of the page
+     * @return a read only view on the encoded page
+     */
+    ByteBuffer get(final MemoryKey pKey) {
+        final ByteBuffer page = mBlocks[pKey.getBlock()].asReadOnlyBuffer();
+        page.position(pKey.getOffset());
+        page.limit(pKey.getOffset() + pKey.getLength());
+        return page.slice();
+    }
+
+    /**
+     * Getting the key of the uber page.
+     * 
+     * @return the key or null if nothing is committed yet
+     */
+    MemoryKey getFirstKey() {
+        return mFirstKey;
+    }
+
+    /**
+     * Setting the key of the uber page after all pages referenced by it are appended.
+     * 
+     * @param pKey
+     *            the key of the uber page
+     * @param pBase
+     *            the first block referenced by the uber page, -1 if unchanged
+     */
+    synchronized void setFirstKey(final MemoryKey pKey, final int pBase) {
+        mFirstKey = pKey;
+        if (pBase >= 0) {
+            mBaseBlock = pBase;
+        }
+    }
+
+    /**
+     * Dropping all blocks before the base block. Must only be called if no transaction reads pages dropped by
+     * a compaction anymore.
+     */
+    synchronized void release() {
+        final ByteBuffer[] blocks = mBlocks.clone();
+        for (int i = 0; i < mBaseBlock; i++) {
+            blocks[i] = null;
+        }
+        mBlocks = blocks;
+    }
+
+    /**
+     * Dropping all blocks.
+     */
+    synchronized void clear() {
+        mBlocks = new ByteBuffer[0];
+        mUsed = 0;
+        mFirstKey = null;
+        mBaseBlock = 0;
+    }
+
+    /**
+     * Writing all blocks to a snapshot file, replacing an existing one only after the snapshot is complete.
+     * 
+     * @param pFile
+     *            the snapshot file
+     * @throws IOException
+     *             if the snapshot could not be written
+     */
+    synchronized void write(final File pFile) throws IOException {
+        final File tmp = new File(pFile.getParentFile(), pFile.getName() + ".tmp");
+        final RandomAccessFile file = new RandomAccessFile(tmp, "rw");
+        try {
+            file.setLength(0);
+            final FileChannel channel = file.getChannel();
+            final ByteBuffer[] blocks = mBlocks;
+            final ByteBuffer header = ByteBuffer.allocate(24);
+            header.putInt(blocks.length).putInt(mUsed).putInt(mBaseBlock);
+            if (mFirstKey == null) {
+                header.putInt(-1).putInt(0).putInt(0);
+            } else {
+                header.putInt(mFirstKey.getBlock()).putInt(mFirstKey.getOffset()).putInt(
+                    mFirstKey.getLength());
+            }
+            header.flip();
+            write(channel, header);
+            final ByteBuffer length = ByteBuffer.allocate(4);
+            for (int i = 0; i < blocks.length; i++) {
+                length.clear();
+                length.putInt(blocks[i] == null ? -1 : blocks[i].capacity()).flip();
+                write(channel, length);
+                if (blocks[i] != null) {
+                    write(channel, blocks[i].duplicate());
+                }
+            }
+            channel.force(true);
+        } finally {
+            file.close();
+        }
+        if (pFile.exists() && !pFile.delete() || !tmp.renameTo(pFile)) {
+            throw new IOException(new StringBuilder("Snapshot ").append(pFile).append(" could not be replaced!")
+                .toString());
+        }
+    }
+
+    /**
+     * Reading all blocks from a snapshot file.
+     * 
+     * @param pFile
+     *            the snapshot file
+     * @throws IOException
+     *             if the snapshot could not be read
+     */
+    synchronized void read(final File pFile) throws IOException {
+        final RandomAccessFile file = new RandomAccessFile(pFile, "r");
+        try {
+            final FileChannel channel = file.getChannel();
+            final ByteBuffer header = read(channel, ByteBuffer.allocate(24));
+            final ByteBuffer[] blocks = new ByteBuffer[header.getInt()];
+            final int used = header.getInt();
+            final int base = header.getInt();
+            final int block = header.getInt();
+            final MemoryKey firstKey = block < 0 ? null : new MemoryKey(block, header.getInt(), header.getInt());
+            final ByteBuffer length = ByteBuffer.allocate(4);
+            for (int i = 0; i < blocks.length; i++) {
+                length.clear();
+                final int capacity = read(channel, length).getInt();
+                if (capacity >= 0) {
+                    blocks[i] = read(channel, ByteBuffer.allocateDirect(capacity));
+                }
+            }
+            mBlocks = blocks;
+            mUsed = used;
+            mBaseBlock = base;
+            mFirstKey = firstKey;
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Appending a new block.
+     * 
+     * @param pCapacity
+     *            capacity of the block
+     * @return the blocks including the new one
+     */
+    private ByteBuffer[] newBlock(final int pCapacity) {
+        final ByteBuffer[] blocks = new ByteBuffer[mBlocks.length + 1];
+        System.arraycopy(mBlocks, 0, blocks, 0, mBlocks.length);
+        blocks[blocks.length - 1] = ByteBuffer.allocateDirect(pCapacity);
+        mUsed = 0;
+        mBlocks = blocks;
+        return blocks;
+    }
+
+    /**
+     * Writing all remaining bytes of a buffer.
+     * 
+     * @param pChannel
+     *            to write to
+     * @param pBuffer
+     *            to be written
+     * @throws IOException
+     *             if the buffer could not be written
+     */
+    private static void write(final FileChannel pChannel, final ByteBuffer pBuffer) throws IOException {
+        while (pBuffer.hasRemaining()) {
+            pChannel.write(pBuffer);
+        }
+    }
+
+    /**
+     * Filling a buffer.
+     * 
+     * @param pChannel
+     *            to read from
+     * @param pBuffer
+     *            to be filled
+     * @return the filled buffer, flipped for reading
+     * @throws IOException
+     *             if the end of the file is reached before the buffer is filled
+     */
+    private static ByteBuffer read(final FileChannel pChannel, final ByteBuffer pBuffer) throws IOException {
+        while (pBuffer.hasRemaining()) {
+            if (pChannel.read(pBuffer) < 0) {
+                throw new IOException("Snapshot is truncated!");
+            }
+        }
+        pBuffer.flip();
+        return pBuffer;
+    }
+
+}
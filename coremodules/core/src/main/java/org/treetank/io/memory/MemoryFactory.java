@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.io.memory;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.treetank.access.conf.ResourceConfiguration;
+import org.treetank.exception.TTIOException;
+import org.treetank.io.IReader;
+import org.treetank.io.IStorage;
+import org.treetank.io.IWriter;
+import org.treetank.io.codec.CodecPipeline;
+
+/**
+ * Storage keeping all encoded pages in direct buffers outside of the heap. The pages live as long as the
+ * factory, so a resource starts empty with every session unless a snapshot is configured. A snapshot is
+ * written on close and read again by the next factory of the resource.
+ */
+public final class MemoryFactory implements IStorage {
+
+    /** Name of the snapshot file. */
+    private static final String FILENAME = "tt.snapshot";
+
+    /** Configuration of the resource. */
+    private final ResourceConfiguration mResourceConf;
+
+    /** Blocks holding the pages. */
+    private final MemoryBlocks mBlocks;
+
+    /**
+     * Constructor, reading the snapshot of the resource if configured.
+     * 
+     * @param paramResourceConf
+     *            the configuration of the resource
+     * @throws TTIOException
+     *             if the snapshot could not be read
+     */
+    public MemoryFactory(final ResourceConfiguration paramResourceConf) throws TTIOException {
+        mResourceConf = paramResourceConf;
+        mBlocks = new MemoryBlocks();
+        final File snapshot = getSnapshot();
+        if (mResourceConf.mSnapshot && snapshot.exists()) {
+            try {
+                mBlocks.read(snapshot);
+            } catch (final IOException exc) {
+                throw new TTIOException(exc);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IReader getReader() throws TTIOException {
+        return new MemoryReader(mBlocks, new CodecPipeline(mResourceConf));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IWriter getWriter() throws TTIOException {
+        final CodecPipeline pipeline = new CodecPipeline(mResourceConf);
+        return new MemoryWriter(mBlocks, pipeline, new MemoryReader(mBlocks, pipeline), false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IWriter getCompactionWriter() throws TTIOException {
+        final CodecPipeline pipeline = new CodecPipeline(mResourceConf);
+        return new MemoryWriter(mBlocks, pipeline, new MemoryReader(mBlocks, pipeline), true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void releaseCompacted() throws TTIOException {
+        mBlocks.release();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws TTIOException {
+        if (mResourceConf.mSnapshot) {
+            final File snapshot = getSnapshot();
+            try {
+                snapshot.getParentFile().mkdirs();
+                mBlocks.write(snapshot);
+            } catch (final IOException exc) {
+                throw new TTIOException(exc);
+            }
+        }
+        mBlocks.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean exists() throws TTIOException {
+        return mBlocks.getFirstKey() != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void truncate() throws TTIOException {
+        mBlocks.clear();
+        final File snapshot = getSnapshot();
+        if (snapshot.exists() && !snapshot.delete()) {
+            throw new TTIOException("Snapshot", snapshot.toString(), "could not be deleted!");
+        }
+    }
+
+    /**
+     * Getting the snapshot file of the resource.
+     * 
+     * @return the snapshot file
+     */
+    private File getSnapshot() {
+        return new File(new File(mResourceConf.mPath, ResourceConfiguration.Paths.Data.getFile().getName()),
+            FILENAME);
+    }
+
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.io.memory;
+
+import org.treetank.exception.TTIOException;
+import org.treetank.io.IKey;
+import org.treetank.io.IWriter;
+import org.treetank.io.codec.CodecPipeline;
+import org.treetank.io.file.ByteBufferSinkAndSource;
+import org.treetank.page.PagePersistenter;
+import org.treetank.page.PageReference;
+import org.treetank.page.interfaces.IPage;
+
+/**
+ * Writer appending the encoded pages of a commit to the blocks of a {@link MemoryFactory}. The commit
+ * becomes visible with the key of the uber page written by {@link #writeFirstReference(PageReference)}.
+ */
+public final class MemoryWriter implements IWriter {
+
+    /** Blocks shared with all other readers and writers of the storage. */
+    private final MemoryBlocks mBlocks;
+
+    /** Codecs to encode the pages. */
+    private final CodecPipeline mPipeline;
+
+    /** Reader for the pages. */
+    private final MemoryReader mReader;
+
+    /** Temporary data buffer. */
+    private final ByteBufferSinkAndSource mBuffer;
+
+    /** First block written by a compaction, -1 for a regular commit. */
+    private final int mBase;
+
+    /**
+     * Constructor.
+     * 
+     * @param pBlocks
+     *            the blocks holding the pages
+     * @param pPipeline
+     *            the codecs to encode the pages
+     * @param pReader
+     *            reader for the pages
+     * @param pCompaction
+     *            does the writer rewrite all retained pages, so that the blocks written before can be dropped
+     */
+    MemoryWriter(final MemoryBlocks pBlocks, final CodecPipeline pPipeline, final MemoryReader pReader,
+        final boolean pCompaction) {
+        mBlocks = pBlocks;
+        mPipeline = pPipeline;
+        mReader = pReader;
+        mBuffer = new ByteBufferSinkAndSource();
+        mBase = pCompaction ? mBlocks.nextBlock() : -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final PageReference pageReference) throws TTIOException {
+        final IPage page = pageReference.getPage();
+        mBuffer.position(0);
+        PagePersistenter.serializePage(mBuffer, page);
+        pageReference.setKey(mBlocks.append(mPipeline.encode(mBuffer.toByteBuffer())));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeFirstReference(final PageReference pageReference) throws TTIOException {
+        write(pageReference);
+        mBlocks.setFirstKey((MemoryKey)pageReference.getKey(), mBase);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IPage read(final IKey pKey) throws TTIOException {
+        return mReader.read(pKey);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PageReference readFirstReference() throws TTIOException {
+        return mReader.readFirstReference();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws TTIOException {
+        mReader.close();
+    }
+
+}
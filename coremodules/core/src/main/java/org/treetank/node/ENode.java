@@ -31,6 +31,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.treetank.io.EStorage;
+import org.treetank.io.IKey;
 import org.treetank.io.ITTSink;
 import org.treetank.io.ITTSource;
 import org.treetank.node.delegates.NameNodeDelegate;
@@ -69,46 +71,49 @@ public enum ENode {
             final List<Long> namespKeys = new ArrayList<Long>();
 
             // node delegate
-            final NodeDelegate nodeDel =
-                new NodeDelegate(pSource.readLong(), pSource.readLong(), pSource.readLong());
+            final NodeDelegate nodeDel = deserializeDelegate(pSource);
 
             // struct delegate
-            final StructNodeDelegate structDel =
-                new StructNodeDelegate(nodeDel, pSource.readLong(), pSource.readLong(), pSource.readLong(),
-                    pSource.readLong());
+            final StructNodeDelegate structDel = deserializeStrucDelegate(nodeDel, pSource);
 
             // name delegate
-            final NameNodeDelegate nameDel =
-                new NameNodeDelegate(nodeDel, pSource.readInt(), pSource.readInt());
+            final NameNodeDelegate nameDel = deserializeNameDelegate(nodeDel, pSource);
 
             // Attributes getting
-            int attrCount = pSource.readInt();
+            final int attrCount = (int)pSource.readVarLong();
             for (int i = 0; i < attrCount; i++) {
-                attrKeys.add(pSource.readLong());
+                attrKeys.add(deserializeKey(nodeDel.getNodeKey(), pSource));
             }
 
             // Namespace getting
-            int nsCount = pSource.readInt();
+            final int nsCount = (int)pSource.readVarLong();
             for (int i = 0; i < nsCount; i++) {
-                namespKeys.add(pSource.readLong());
+                namespKeys.add(deserializeKey(nodeDel.getNodeKey(), pSource));
             }
 
             return new ElementNode(nodeDel, structDel, nameDel, attrKeys, namespKeys);
         }
 
+        @Override
+        public void deserializeColumns(final ITTSource pSource, final NodeColumns pColumns, final int pSlot) {
+            final long nodeKey = deserializeDelegateColumns(this, pSource, pColumns, pSlot);
+            deserializeStrucColumns(nodeKey, pSource, pColumns, pSlot);
+            deserializeNameColumns(pSource, pColumns, pSlot);
+        }
+
         @Override
         public void serialize(final ITTSink pSink, final INode pToSerialize) {
             ElementNode node = (ElementNode)pToSerialize;
             serializeDelegate(node.getNodeDelegate(), pSink);
             serializeStrucDelegate(node.getStrucNodeDelegate(), pSink);
             serializeNameDelegate(node.getNameNodeDelegate(), pSink);
-            pSink.writeInt(node.getAttributeCount());
+            pSink.writeVarLong(node.getAttributeCount());
             for (int i = 0; i < node.getAttributeCount(); i++) {
-                pSink.writeLong(node.getAttributeKey(i));
+                serializeKey(node.getNodeKey(), node.getAttributeKey(i), pSink);
             }
-            pSink.writeInt(node.getNamespaceCount());
+            pSink.writeVarLong(node.getNamespaceCount());
             for (int i = 0; i < node.getNamespaceCount(); i++) {
-                pSink.writeLong(node.getNamespaceKey(i));
+                serializeKey(node.getNodeKey(), node.getNamespaceKey(i), pSink);
             }
         }
 
@@ -118,21 +123,21 @@ public enum ENode {
         @Override
         public INode deserialize(final ITTSource pSource) {
             // node delegate
-            final NodeDelegate nodeDel =
-                new NodeDelegate(pSource.readLong(), pSource.readLong(), pSource.readLong());
+            final NodeDelegate nodeDel = deserializeDelegate(pSource);
             // name delegate
-            final NameNodeDelegate nameDel =
-                new NameNodeDelegate(nodeDel, pSource.readInt(), pSource.readInt());
+            final NameNodeDelegate nameDel = deserializeNameDelegate(nodeDel, pSource);
             // val delegate
-            final byte[] vals = new byte[pSource.readInt()];
-            for (int i = 0; i < vals.length; i++) {
-                vals[i] = pSource.readByte();
-            }
-            final ValNodeDelegate valDel = new ValNodeDelegate(nodeDel, vals);
+            final ValNodeDelegate valDel = deserializeValDelegate(nodeDel, pSource);
 
             return new AttributeNode(nodeDel, nameDel, valDel);
         }
 
+        @Override
+        public void deserializeColumns(final ITTSource pSource, final NodeColumns pColumns, final int pSlot) {
+            deserializeDelegateColumns(this, pSource, pColumns, pSlot);
+            deserializeNameColumns(pSource, pColumns, pSlot);
+        }
+
         @Override
         public void serialize(final ITTSink pSink, final INode pToSerialize) {
             AttributeNode node = (AttributeNode)pToSerialize;
@@ -141,28 +146,42 @@ public enum ENode {
             serializeValDelegate(node.getValNodeDelegate(), pSink);
         }
 
+        @Override
+        public ValNodeDelegate getValDelegate(final INode pNode) {
+            return ((AttributeNode)pNode).getValNodeDelegate();
+        }
+
     },
     /** Node kind is text. */
     TEXT_KIND(3, TextNode.class) {
         @Override
         public INode deserialize(final ITTSource pSource) {
             // node delegate
-            final NodeDelegate nodeDel =
-                new NodeDelegate(pSource.readLong(), pSource.readLong(), pSource.readLong());
+            final NodeDelegate nodeDel = deserializeDelegate(pSource);
             // val delegate
-            final byte[] vals = new byte[pSource.readInt()];
-            for (int i = 0; i < vals.length; i++) {
-                vals[i] = pSource.readByte();
-            }
-            final ValNodeDelegate valDel = new ValNodeDelegate(nodeDel, vals);
+            final ValNodeDelegate valDel = deserializeValDelegate(nodeDel, pSource);
             // struct delegate
-            final StructNodeDelegate structDel =
-                new StructNodeDelegate(nodeDel, pSource.readLong(), pSource.readLong(), pSource.readLong(),
-                    pSource.readLong());
+            final StructNodeDelegate structDel = deserializeStrucDelegate(nodeDel, pSource);
             // returning the data
             return new TextNode(nodeDel, valDel, structDel);
         }
 
+        @Override
+        public void deserializeColumns(final ITTSource pSource, final NodeColumns pColumns, final int pSlot) {
+            final long nodeKey = deserializeDelegateColumns(this, pSource, pColumns, pSlot);
+            // skipping the value
+            final long header = pSource.readVarLong();
+            if ((header & 1) == 0) {
+                for (long i = 0, length = header >>> 1; i < length; i++) {
+                    pSource.readByte();
+                }
+            } else {
+                EStorage.getInstance(pSource.readInt()).deserialize(pSource);
+                pSource.readInt();
+            }
+            deserializeStrucColumns(nodeKey, pSource, pColumns, pSlot);
+        }
+
         @Override
         public void serialize(final ITTSink pSink, final INode pToSerialize) {
             TextNode node = (TextNode)pToSerialize;
@@ -171,6 +190,11 @@ public enum ENode {
             serializeStrucDelegate(node.getStrucNodeDelegate(), pSink);
         }
 
+        @Override
+        public ValNodeDelegate getValDelegate(final INode pNode) {
+            return ((TextNode)pNode).getValNodeDelegate();
+        }
+
     },
     /** Node kind is namespace. */
     NAMESPACE_KIND(13, NamespaceNode.class) {
@@ -178,14 +202,18 @@ public enum ENode {
         @Override
         public INode deserialize(final ITTSource pSource) {
             // node delegate
-            final NodeDelegate nodeDel =
-                new NodeDelegate(pSource.readLong(), pSource.readLong(), pSource.readLong());
+            final NodeDelegate nodeDel = deserializeDelegate(pSource);
             // name delegate
-            final NameNodeDelegate nameDel =
-                new NameNodeDelegate(nodeDel, pSource.readInt(), pSource.readInt());
+            final NameNodeDelegate nameDel = deserializeNameDelegate(nodeDel, pSource);
             return new NamespaceNode(nodeDel, nameDel);
         }
 
+        @Override
+        public void deserializeColumns(final ITTSource pSource, final NodeColumns pColumns, final int pSlot) {
+            deserializeDelegateColumns(this, pSource, pColumns, pSlot);
+            deserializeNameColumns(pSource, pColumns, pSlot);
+        }
+
         @Override
         public void serialize(final ITTSink pSink, final INode pToSerialize) {
             NamespaceNode node = (NamespaceNode)pToSerialize;
@@ -224,14 +252,17 @@ public enum ENode {
     ROOT_KIND(9, DocumentRootNode.class) {
         @Override
         public INode deserialize(final ITTSource pSource) {
-            final NodeDelegate nodeDel =
-                new NodeDelegate(pSource.readLong(), pSource.readLong(), pSource.readLong());
-            final StructNodeDelegate structDel =
-                new StructNodeDelegate(nodeDel, pSource.readLong(), pSource.readLong(), pSource.readLong(),
-                    pSource.readLong());
+            final NodeDelegate nodeDel = deserializeDelegate(pSource);
+            final StructNodeDelegate structDel = deserializeStrucDelegate(nodeDel, pSource);
             return new DocumentRootNode(nodeDel, structDel);
         }
 
+        @Override
+        public void deserializeColumns(final ITTSource pSource, final NodeColumns pColumns, final int pSlot) {
+            final long nodeKey = deserializeDelegateColumns(this, pSource, pColumns, pSlot);
+            deserializeStrucColumns(nodeKey, pSource, pColumns, pSlot);
+        }
+
         @Override
         public void serialize(final ITTSink pSink, final INode pToSerialize) {
             DocumentRootNode node = (DocumentRootNode)pToSerialize;
@@ -257,12 +288,16 @@ public enum ENode {
     DELETE_KIND(5, DeletedNode.class) {
         @Override
         public INode deserialize(final ITTSource pSource) {
-            final NodeDelegate delegate =
-                new NodeDelegate(pSource.readLong(), pSource.readLong(), pSource.readLong());
+            final NodeDelegate delegate = deserializeDelegate(pSource);
             final DeletedNode node = new DeletedNode(delegate);
             return node;
         }
 
+        @Override
+        public void deserializeColumns(final ITTSource pSource, final NodeColumns pColumns, final int pSlot) {
+            deserializeDelegateColumns(this, pSource, pColumns, pSlot);
+        }
+
         @Override
         public void serialize(final ITTSink pSink, final INode pToSerialize) {
             DeletedNode node = (DeletedNode)pToSerialize;
@@ -329,6 +364,33 @@ public enum ENode {
      */
     public abstract void serialize(final ITTSink pSink, final INode pToSerialize);
 
+    /**
+     * Deserializing the fields of a node out of a given {@link ITTSource} into
+     * a slot of a {@link NodeColumns} instance without creating the node.
+     * 
+     * @param pSource
+     *            of the data where the fields should be read from.
+     * @param pColumns
+     *            the columns to be filled
+     * @param pSlot
+     *            the slot of the node within the columns
+     */
+    public void deserializeColumns(final ITTSource pSource, final NodeColumns pColumns, final int pSlot) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Getting the {@link ValNodeDelegate} of a node of this kind.
+     * 
+     * @param pNode
+     *            the node
+     * @return the delegate holding the value, null if nodes of this kind have
+     *         no value
+     */
+    public ValNodeDelegate getValDelegate(final INode pNode) {
+        return null;
+    }
+
     /**
      * Public method to get the related node based on the identifier.
      * 
@@ -360,11 +422,45 @@ public enum ENode {
      *            to serialize to.
      */
     private static final void serializeDelegate(final NodeDelegate pDel, final ITTSink pSink) {
-        pSink.writeLong(pDel.getNodeKey());
-        pSink.writeLong(pDel.getParentKey());
+        pSink.writeVarLong(pDel.getNodeKey());
+        serializeKey(pDel.getNodeKey(), pDel.getParentKey(), pSink);
+        // hashes are spread over all bits
         pSink.writeLong(pDel.getHash());
     }
 
+    /**
+     * Deserializing a {@link NodeDelegate} instance.
+     * 
+     * @param pSource
+     *            to deserialize from
+     * @return the delegate
+     */
+    private static final NodeDelegate deserializeDelegate(final ITTSource pSource) {
+        final long nodeKey = pSource.readVarLong();
+        return new NodeDelegate(nodeKey, deserializeKey(nodeKey, pSource), pSource.readLong());
+    }
+
+    /**
+     * Deserializing the fields of a {@link NodeDelegate} into a slot of
+     * {@link NodeColumns}.
+     * 
+     * @param pKind
+     *            kind of the node
+     * @param pSource
+     *            to deserialize from
+     * @param pColumns
+     *            to be filled
+     * @param pSlot
+     *            slot of the node
+     * @return the key of the node
+     */
+    private static final long deserializeDelegateColumns(final ENode pKind, final ITTSource pSource,
+        final NodeColumns pColumns, final int pSlot) {
+        final long nodeKey = pSource.readVarLong();
+        pColumns.setNode(pSlot, pKind, deserializeKey(nodeKey, pSource), pSource.readLong());
+        return nodeKey;
+    }
+
     /**
      * Serializing the {@link StructNodeDelegate} instance.
      * 
@@ -374,10 +470,45 @@ public enum ENode {
      *            to serialize to.
      */
     private static final void serializeStrucDelegate(final StructNodeDelegate pDel, final ITTSink pSink) {
-        pSink.writeLong(pDel.getFirstChildKey());
-        pSink.writeLong(pDel.getRightSiblingKey());
-        pSink.writeLong(pDel.getLeftSiblingKey());
-        pSink.writeLong(pDel.getChildCount());
+        serializeKey(pDel.getNodeKey(), pDel.getFirstChildKey(), pSink);
+        serializeKey(pDel.getNodeKey(), pDel.getRightSiblingKey(), pSink);
+        serializeKey(pDel.getNodeKey(), pDel.getLeftSiblingKey(), pSink);
+        pSink.writeVarLong(pDel.getChildCount());
+    }
+
+    /**
+     * Deserializing a {@link StructNodeDelegate} instance.
+     * 
+     * @param pDel
+     *            the already deserialized {@link NodeDelegate}
+     * @param pSource
+     *            to deserialize from
+     * @return the delegate
+     */
+    private static final StructNodeDelegate deserializeStrucDelegate(final NodeDelegate pDel,
+        final ITTSource pSource) {
+        final long nodeKey = pDel.getNodeKey();
+        return new StructNodeDelegate(pDel, deserializeKey(nodeKey, pSource), deserializeKey(nodeKey,
+            pSource), deserializeKey(nodeKey, pSource), pSource.readVarLong());
+    }
+
+    /**
+     * Deserializing the fields of a {@link StructNodeDelegate} into a slot of
+     * {@link NodeColumns}.
+     * 
+     * @param pNodeKey
+     *            key of the node
+     * @param pSource
+     *            to deserialize from
+     * @param pColumns
+     *            to be filled
+     * @param pSlot
+     *            slot of the node
+     */
+    private static final void deserializeStrucColumns(final long pNodeKey, final ITTSource pSource,
+        final NodeColumns pColumns, final int pSlot) {
+        pColumns.setStruct(pSlot, deserializeKey(pNodeKey, pSource), deserializeKey(pNodeKey, pSource),
+            deserializeKey(pNodeKey, pSource), pSource.readVarLong());
     }
 
     /**
@@ -389,12 +520,46 @@ public enum ENode {
      *            to serialize to.
      */
     private static final void serializeNameDelegate(final NameNodeDelegate pDel, final ITTSink pSink) {
+        // name keys are hashes, the key of the empty uri is 0
         pSink.writeInt(pDel.getNameKey());
-        pSink.writeInt(pDel.getURIKey());
+        pSink.writeVarLong(zigZag(pDel.getURIKey()));
+    }
+
+    /**
+     * Deserializing a {@link NameNodeDelegate} instance.
+     * 
+     * @param pDel
+     *            the already deserialized {@link NodeDelegate}
+     * @param pSource
+     *            to deserialize from
+     * @return the delegate
+     */
+    private static final NameNodeDelegate deserializeNameDelegate(final NodeDelegate pDel,
+        final ITTSource pSource) {
+        return new NameNodeDelegate(pDel, pSource.readInt(), (int)unZigZag(pSource.readVarLong()));
+    }
+
+    /**
+     * Deserializing the fields of a {@link NameNodeDelegate} into a slot of
+     * {@link NodeColumns}.
+     * 
+     * @param pSource
+     *            to deserialize from
+     * @param pColumns
+     *            to be filled
+     * @param pSlot
+     *            slot of the node
+     */
+    private static final void deserializeNameColumns(final ITTSource pSource, final NodeColumns pColumns,
+        final int pSlot) {
+        pColumns.setName(pSlot, pSource.readInt(), (int)unZigZag(pSource.readVarLong()));
     }
 
     /**
-     * Serializing the {@link ValNodeDelegate} instance.
+     * Serializing the {@link ValNodeDelegate} instance. The length of the
+     * value is shifted left by one bit, the lowest bit denotes a value stored
+     * in overflow pages which is replaced by the key of the first page and the
+     * hash of the value.
      * 
      * @param pDel
      *            to be serialize
@@ -402,10 +567,109 @@ public enum ENode {
      *            to serialize to.
      */
     private static final void serializeValDelegate(final ValNodeDelegate pDel, final ITTSink pSink) {
-        pSink.writeInt(pDel.getRawValue().length);
-        for (byte value : pDel.getRawValue()) {
-            pSink.writeByte(value);
+        final IKey overflowKey = pDel.getOverflowKey();
+        if (overflowKey == null) {
+            final byte[] value = pDel.getRawValue();
+            pSink.writeVarLong((long)value.length << 1);
+            pSink.writeBytes(value, 0, value.length);
+        } else {
+            pSink.writeVarLong(((long)pDel.getValueLength() << 1) | 1);
+            EStorage.getInstance(overflowKey.getClass()).serialize(pSink, overflowKey);
+            pSink.writeInt(pDel.hashCode());
+        }
+    }
+
+    /**
+     * Deserializing a {@link ValNodeDelegate} instance.
+     * 
+     * @param pDel
+     *            the already deserialized {@link NodeDelegate}
+     * @param pSource
+     *            to deserialize from
+     * @return the delegate
+     */
+    private static final ValNodeDelegate deserializeValDelegate(final NodeDelegate pDel,
+        final ITTSource pSource) {
+        final long header = pSource.readVarLong();
+        if ((header & 1) != 0) {
+            final IKey overflowKey = EStorage.getInstance(pSource.readInt()).deserialize(pSource);
+            return new ValNodeDelegate(pDel, overflowKey, (int)(header >>> 1), pSource.readInt());
+        }
+        final byte[] vals = new byte[(int)(header >>> 1)];
+        pSource.readBytes(vals, 0, vals.length);
+        return new ValNodeDelegate(pDel, vals);
+    }
+
+    /**
+     * Serializing a key referenced by a node as zigzag encoded distance to the
+     * key of the node, so that keys of nearby nodes take only one or two bytes.
+     * 
+     * @param pNodeKey
+     *            key of the referencing node
+     * @param pKey
+     *            referenced key
+     * @param pSink
+     *            to serialize to.
+     */
+    private static final void serializeKey(final long pNodeKey, final long pKey, final ITTSink pSink) {
+        pSink.writeVarLong(swapNull(pNodeKey, zigZag(pKey - pNodeKey)));
+    }
+
+    /**
+     * Deserializing a key referenced by a node.
+     * 
+     * @param pNodeKey
+     *            key of the referencing node
+     * @param pSource
+     *            to deserialize from
+     * @return the referenced key
+     */
+    private static final long deserializeKey(final long pNodeKey, final ITTSource pSource) {
+        return pNodeKey + unZigZag(swapNull(pNodeKey, pSource.readVarLong()));
+    }
+
+    /**
+     * Swapping the code of {@link IConstants#NULL_NODE} with 0, the code of
+     * the node itself which is never referenced, so that missing references
+     * take only one byte.
+     * 
+     * @param pNodeKey
+     *            key of the referencing node
+     * @param pCode
+     *            the code to swap
+     * @return the swapped code
+     */
+    private static final long swapNull(final long pNodeKey, final long pCode) {
+        final long nullCode = zigZag(IConstants.NULL_NODE - pNodeKey);
+        if (pCode == nullCode) {
+            return 0;
+        } else if (pCode == 0) {
+            return nullCode;
         }
+        return pCode;
+    }
+
+    /**
+     * Zigzag encoding of a signed value, mapping small negative values to
+     * small positive ones.
+     * 
+     * @param pVal
+     *            to encode
+     * @return the encoded value
+     */
+    private static final long zigZag(final long pVal) {
+        return (pVal << 1) ^ (pVal >> 63);
+    }
+
+    /**
+     * Decoding a zigzag encoded value.
+     * 
+     * @param pVal
+     *            to decode
+     * @return the decoded value
+     */
+    private static final long unZigZag(final long pVal) {
+        return (pVal >>> 1) ^ -(pVal & 1);
     }
 
 }
@@ -0,0 +1,266 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.node;
+
+import static org.treetank.node.IConstants.NULL_NODE;
+
+import org.treetank.node.interfaces.INameNode;
+import org.treetank.node.interfaces.INode;
+import org.treetank.node.interfaces.IStructNode;
+
+/**
+ * Struct-of-arrays view on the nodes of one node page. The structural fields,
+ * the hashes and the name keys of all slots are stored in primitive arrays so
+ * that they can be read without creating any node. Fields a node does not
+ * have are set to {@link IConstants#NULL_NODE} respectively 0.
+ */
+public final class NodeColumns {
+
+    /** Kinds of the slots, null for empty slots. */
+    private final ENode[] mKinds;
+
+    /** Parent keys of the slots. */
+    private final long[] mParentKeys;
+
+    /** Hashes of the slots. */
+    private final long[] mHashes;
+
+    /** First child keys of the slots. */
+    private final long[] mFirstChildKeys;
+
+    /** Left sibling keys of the slots. */
+    private final long[] mLeftSiblingKeys;
+
+    /** Right sibling keys of the slots. */
+    private final long[] mRightSiblingKeys;
+
+    /** Child counts of the slots. */
+    private final long[] mChildCounts;
+
+    /** Name keys of the slots. */
+    private final int[] mNameKeys;
+
+    /** URI keys of the slots. */
+    private final int[] mURIKeys;
+
+    /**
+     * Constructor.
+     * 
+     * @param pSlots
+     *            number of slots
+     */
+    public NodeColumns(final int pSlots) {
+        mKinds = new ENode[pSlots];
+        mParentKeys = new long[pSlots];
+        mHashes = new long[pSlots];
+        mFirstChildKeys = new long[pSlots];
+        mLeftSiblingKeys = new long[pSlots];
+        mRightSiblingKeys = new long[pSlots];
+        mChildCounts = new long[pSlots];
+        mNameKeys = new int[pSlots];
+        mURIKeys = new int[pSlots];
+    }
+
+    /**
+     * Setting the fields of a slot out of a node.
+     * 
+     * @param pSlot
+     *            slot to be set
+     * @param pNode
+     *            node to take the fields from
+     */
+    public void put(final int pSlot, final INode pNode) {
+        setNode(pSlot, pNode.getKind(), pNode.getParentKey(), pNode.getHash());
+        if (pNode instanceof IStructNode) {
+            final IStructNode node = (IStructNode)pNode;
+            setStruct(pSlot, node.getFirstChildKey(), node.getRightSiblingKey(), node.getLeftSiblingKey(),
+                node.getChildCount());
+        }
+        if (pNode instanceof INameNode) {
+            final INameNode node = (INameNode)pNode;
+            setName(pSlot, node.getNameKey(), node.getURIKey());
+        }
+    }
+
+    /**
+     * Setting the common fields of a slot, resetting the structural fields and
+     * the name keys.
+     * 
+     * @param pSlot
+     *            slot to be set
+     * @param pKind
+     *            kind of the node
+     * @param pParentKey
+     *            parent key of the node
+     * @param pHash
+     *            hash of the node
+     */
+    void setNode(final int pSlot, final ENode pKind, final long pParentKey, final long pHash) {
+        mKinds[pSlot] = pKind;
+        mParentKeys[pSlot] = pParentKey;
+        mHashes[pSlot] = pHash;
+        setStruct(pSlot, NULL_NODE, NULL_NODE, NULL_NODE, 0);
+        setName(pSlot, 0, 0);
+    }
+
+    /**
+     * Setting the structural fields of a slot.
+     * 
+     * @param pSlot
+     *            slot to be set
+     * @param pFirstChild
+     *            first child key of the node
+     * @param pRightSib
+     *            right sibling key of the node
+     * @param pLeftSib
+     *            left sibling key of the node
+     * @param pChildCount
+     *            child count of the node
+     */
+    void setStruct(final int pSlot, final long pFirstChild, final long pRightSib, final long pLeftSib,
+        final long pChildCount) {
+        mFirstChildKeys[pSlot] = pFirstChild;
+        mRightSiblingKeys[pSlot] = pRightSib;
+        mLeftSiblingKeys[pSlot] = pLeftSib;
+        mChildCounts[pSlot] = pChildCount;
+    }
+
+    /**
+     * Setting the name keys of a slot.
+     * 
+     * @param pSlot
+     *            slot to be set
+     * @param pNameKey
+     *            name key of the node
+     * @param pURIKey
+     *            uri key of the node
+     */
+    void setName(final int pSlot, final int pNameKey, final int pURIKey) {
+        mNameKeys[pSlot] = pNameKey;
+        mURIKeys[pSlot] = pURIKey;
+    }
+
+    /**
+     * Getting the kind of a slot.
+     * 
+     * @param pSlot
+     *            slot to read
+     * @return the kind of the node, null if the slot is empty
+     */
+    public ENode getKind(final int pSlot) {
+        return mKinds[pSlot];
+    }
+
+    /**
+     * Getting the parent key of a slot.
+     * 
+     * @param pSlot
+     *            slot to read
+     * @return the parent key
+     */
+    public long getParentKey(final int pSlot) {
+        return mParentKeys[pSlot];
+    }
+
+    /**
+     * Getting the hash of a slot.
+     * 
+     * @param pSlot
+     *            slot to read
+     * @return the hash
+     */
+    public long getHash(final int pSlot) {
+        return mHashes[pSlot];
+    }
+
+    /**
+     * Getting the first child key of a slot.
+     * 
+     * @param pSlot
+     *            slot to read
+     * @return the first child key
+     */
+    public long getFirstChildKey(final int pSlot) {
+        return mFirstChildKeys[pSlot];
+    }
+
+    /**
+     * Getting the left sibling key of a slot.
+     * 
+     * @param pSlot
+     *            slot to read
+     * @return the left sibling key
+     */
+    public long getLeftSiblingKey(final int pSlot) {
+        return mLeftSiblingKeys[pSlot];
+    }
+
+    /**
+     * Getting the right sibling key of a slot.
+     * 
+     * @param pSlot
+     *            slot to read
+     * @return the right sibling key
+     */
+    public long getRightSiblingKey(final int pSlot) {
+        return mRightSiblingKeys[pSlot];
+    }
+
+    /**
+     * Getting the child count of a slot.
+     * 
+     * @param pSlot
+     *            slot to read
+     * @return the child count
+     */
+    public long getChildCount(final int pSlot) {
+        return mChildCounts[pSlot];
+    }
+
+    /**
+     * Getting the name key of a slot.
+     * 
+     * @param pSlot
+     *            slot to read
+     * @return the name key
+     */
+    public int getNameKey(final int pSlot) {
+        return mNameKeys[pSlot];
+    }
+
+    /**
+     * Getting the uri key of a slot.
+     * 
+     * @param pSlot
+     *            slot to read
+     * @return the uri key
+     */
+    public int getURIKey(final int pSlot) {
+        return mURIKeys[pSlot];
+    }
+
+}
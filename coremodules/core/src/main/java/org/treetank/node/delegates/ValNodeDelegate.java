@@ -26,6 +26,13 @@
  */
 package org.treetank.node.delegates;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.treetank.access.OverflowInputStream;
+import org.treetank.access.Session;
+import org.treetank.io.IKey;
 import org.treetank.node.ENode;
 import org.treetank.node.IConstants;
 import org.treetank.node.interfaces.IValNode;
@@ -37,6 +44,10 @@ import com.google.common.hash.Hasher;
  * independent values are stored by the nodes delegating the calls of the
  * interface {@link IValNode} to this class.
  * 
+ * A value stored in overflow pages is not held by the delegate but read from
+ * the storage each time it is accessed. Its hash is stored with the key of
+ * the first page, so hashing the node does not read the value.
+ * 
  * @author Sebastian Graf, University of Konstanz
  * 
  */
@@ -44,8 +55,16 @@ public class ValNodeDelegate implements IValNode {
 
     /** Delegate for common node information. */
     private NodeDelegate mDelegate;
-    /** Storing the value. */
+    /** Storing the value, null if it is stored in overflow pages only. */
     private byte[] mVal;
+    /** Key of the first overflow page holding the value, null if not stored in overflow pages. */
+    private IKey mOverflowKey;
+    /** Length of the value. */
+    private int mLength;
+    /** Hash of a value only stored in overflow pages. */
+    private int mOverflowHash;
+    /** Session to read the overflow pages with. */
+    private Session mSession;
 
     /**
      * Constructor
@@ -58,6 +77,27 @@ public class ValNodeDelegate implements IValNode {
     public ValNodeDelegate(final NodeDelegate pNodeDel, final byte[] pVal) {
         this.mDelegate = pNodeDel;
         mVal = pVal;
+        mLength = pVal.length;
+    }
+
+    /**
+     * Constructor for a value stored in overflow pages.
+     * 
+     * @param pNodeDel
+     *            the common data.
+     * @param pOverflowKey
+     *            key of the first overflow page
+     * @param pLength
+     *            length of the value
+     * @param pHash
+     *            hash of the value
+     */
+    public ValNodeDelegate(final NodeDelegate pNodeDel, final IKey pOverflowKey, final int pLength,
+        final int pHash) {
+        this.mDelegate = pNodeDel;
+        mOverflowKey = pOverflowKey;
+        mLength = pLength;
+        mOverflowHash = pHash;
     }
 
     /**
@@ -165,7 +205,28 @@ public class ValNodeDelegate implements IValNode {
      */
     @Override
     public byte[] getRawValue() {
-        return mVal;
+        if (mVal != null) {
+            return mVal;
+        }
+        final byte[] value = new byte[mLength];
+        final InputStream in = getValueStream();
+        try {
+            try {
+                int offset = 0;
+                while (offset < mLength) {
+                    final int read = in.read(value, offset, mLength - offset);
+                    if (read < 0) {
+                        throw new IllegalStateException("Overflow pages hold less bytes than the value!");
+                    }
+                    offset += read;
+                }
+            } finally {
+                in.close();
+            }
+        } catch (final IOException exc) {
+            throw new IllegalStateException(exc);
+        }
+        return value;
     }
 
     /**
@@ -174,7 +235,63 @@ public class ValNodeDelegate implements IValNode {
     @Override
     public void setValue(final byte[] pVal) {
         mVal = pVal;
+        mLength = pVal.length;
+        mOverflowKey = null;
+    }
 
+    /**
+     * Getting a stream reading the value. A value stored in overflow pages is
+     * read one page at a time.
+     * 
+     * @return a stream on the value
+     */
+    public InputStream getValueStream() {
+        if (mVal != null) {
+            return new ByteArrayInputStream(mVal);
+        }
+        if (mSession == null) {
+            throw new IllegalStateException("No session bound to read the overflow pages with!");
+        }
+        return new OverflowInputStream(mSession, mOverflowKey);
+    }
+
+    /**
+     * Getting the length of the value without reading it.
+     * 
+     * @return the length of the value in bytes
+     */
+    public int getValueLength() {
+        return mLength;
+    }
+
+    /**
+     * Getting the key of the first overflow page holding the value.
+     * 
+     * @return the key, null if the value is not stored in overflow pages
+     */
+    public IKey getOverflowKey() {
+        return mOverflowKey;
+    }
+
+    /**
+     * Setting the key of the first overflow page holding the value after the
+     * pages were written.
+     * 
+     * @param pOverflowKey
+     *            the key
+     */
+    public void setOverflowKey(final IKey pOverflowKey) {
+        mOverflowKey = pOverflowKey;
+    }
+
+    /**
+     * Binding the session the overflow pages are read with.
+     * 
+     * @param pSession
+     *            the session
+     */
+    public void setSession(final Session pSession) {
+        mSession = pSession;
     }
 
     /**
@@ -182,6 +299,9 @@ public class ValNodeDelegate implements IValNode {
      */
     @Override
     public int hashCode() {
+        if (mVal == null) {
+            return mOverflowHash;
+        }
         Hasher hc = IConstants.HF.newHasher();
         hc.putBytes(mVal);
         return hc.hash().asInt();
@@ -204,7 +324,11 @@ public class ValNodeDelegate implements IValNode {
     public String toString() {
         final StringBuilder builder = new StringBuilder();
         builder.append("value: ");
-        builder.append(new String(mVal));
+        if (mVal == null) {
+            builder.append(mLength).append(" bytes in overflow pages");
+        } else {
+            builder.append(new String(mVal));
+        }
         return builder.toString();
     }
 }
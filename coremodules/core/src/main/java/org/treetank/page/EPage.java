@@ -47,6 +47,8 @@ public enum EPage {
     Indirect(4, IndirectPage.class) {
     },
     Revision(5, RevisionRootPage.class) {
+    },
+    Overflow(6, OverflowPage.class) {
     };
 
     /** Getting identifier mapping. */
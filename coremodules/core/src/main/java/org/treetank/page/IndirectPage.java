@@ -77,7 +77,8 @@ public final class IndirectPage implements IPage {
      */
     public IndirectPage(final IndirectPage page, final long revisionToUse) {
         mDelegate = new PageDelegate(IConstants.INP_REFERENCE_COUNT, revisionToUse);
-        mDelegate.initialize(page);
+        // the committed page may be shared by the read transactions
+        mDelegate.copy(page);
     }
 
     @Override
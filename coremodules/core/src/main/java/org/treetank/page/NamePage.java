@@ -27,8 +27,7 @@
 
 package org.treetank.page;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.Charset;
 
 import org.treetank.access.PageWriteTrx;
 import org.treetank.exception.AbsTTException;
@@ -36,19 +35,29 @@ import org.treetank.io.ITTSink;
 import org.treetank.io.ITTSource;
 import org.treetank.page.delegates.PageDelegate;
 import org.treetank.page.interfaces.IPage;
+import org.treetank.utils.IConstants;
+import org.treetank.utils.IntObjectMap;
 import org.treetank.utils.TypedValue;
 
 /**
  * <h1>NamePageBinding</h1>
  * 
  * <p>
- * Name page holds all names and their keys for a revision.
+ * Name page holds the names and their keys of one leaf of the name tree of a revision. The leaf of a name
+ * is denoted by the lowest bits of its key. Name pages are copied when a name is added to them, so a commit
+ * only writes the leaves holding new names.
  * </p>
  */
 public final class NamePage implements IPage {
 
+    /** Charset the names are encoded with. */
+    private static final Charset UTF8 = Charset.forName(IConstants.DEFAULT_ENCODING);
+
     /** Map the hash of a name to its name. */
-    private final Map<Integer, String> mNameMap;
+    private final IntObjectMap<String> mNameMap;
+
+    /** Map the hash of a name to its encoded name. */
+    private final IntObjectMap<byte[]> mRawNameMap;
 
     private final PageDelegate mDelegate;
 
@@ -60,7 +69,8 @@ public final class NamePage implements IPage {
      */
     public NamePage(final long paramRevision) {
         mDelegate = new PageDelegate(0, paramRevision);
-        mNameMap = new HashMap<Integer, String>();
+        mNameMap = new IntObjectMap<String>();
+        mRawNameMap = new IntObjectMap<byte[]>();
     }
 
     /**
@@ -74,15 +84,32 @@ public final class NamePage implements IPage {
         mDelegate.initialize(paramIn);
         final int mapSize = paramIn.readInt();
 
-        mNameMap = new HashMap<Integer, String>(mapSize);
-        for (int i = 0, l = (int)mapSize; i < l; i++) {
+        mNameMap = new IntObjectMap<String>(mapSize);
+        mRawNameMap = new IntObjectMap<byte[]>(mapSize);
+        for (int i = 0; i < mapSize; i++) {
             final int key = paramIn.readInt();
-            final int valSize = paramIn.readInt();
-            final byte[] bytes = new byte[valSize];
-            for (int j = 0; j < bytes.length; j++) {
-                bytes[j] = paramIn.readByte();
-            }
-            mNameMap.put(key, new String(bytes));
+            final byte[] bytes = new byte[paramIn.readInt()];
+            paramIn.readBytes(bytes, 0, bytes.length);
+            mNameMap.put(key, new String(bytes, UTF8));
+            mRawNameMap.put(key, bytes);
+        }
+    }
+
+    /**
+     * Clone name page.
+     * 
+     * @param paramCommittedNamePage
+     *            Page to clone.
+     * @param paramRevision
+     *            Revision number to use.
+     */
+    public NamePage(final NamePage paramCommittedNamePage, final long paramRevision) {
+        mDelegate = new PageDelegate(0, paramRevision);
+        mNameMap = new IntObjectMap<String>(paramCommittedNamePage.mNameMap.size() + 1);
+        mRawNameMap = new IntObjectMap<byte[]>(paramCommittedNamePage.mNameMap.size() + 1);
+        for (final int key : paramCommittedNamePage.mNameMap.keys()) {
+            mNameMap.put(key, paramCommittedNamePage.mNameMap.get(key));
+            mRawNameMap.put(key, paramCommittedNamePage.mRawNameMap.get(key));
         }
     }
 
@@ -98,14 +125,17 @@ public final class NamePage implements IPage {
     }
 
     /**
-     * Get raw name belonging to name key.
+     * Get raw name belonging to name key. The name is encoded once when it is
+     * read or created, so the returned array is shared and must not be
+     * modified.
      * 
      * @param mKey
      *            Name key identifying name.
-     * @return Raw name of name key.
+     * @return Raw name of name key, empty if there is no name for the key.
      */
     public byte[] getRawName(final int mKey) {
-        return TypedValue.getBytes(mNameMap.get(mKey));
+        final byte[] rawName = mRawNameMap.get(mKey);
+        return rawName == null ? TypedValue.EMPTY : rawName;
     }
 
     /**
@@ -118,6 +148,16 @@ public final class NamePage implements IPage {
      */
     public void setName(final int paramKey, final String paramName) {
         mNameMap.put(paramKey, paramName);
+        mRawNameMap.put(paramKey, TypedValue.getBytes(paramName));
+    }
+
+    /**
+     * Get number of names.
+     * 
+     * @return number of names held by this page
+     */
+    public int getNameCount() {
+        return mNameMap.size();
     }
 
     /**
@@ -129,13 +169,11 @@ public final class NamePage implements IPage {
 
         paramOut.writeInt(mNameMap.size());
 
-        for (final int key : mNameMap.keySet()) {
+        for (final int key : mRawNameMap.keys()) {
             paramOut.writeInt(key);
-            final byte[] tmp = TypedValue.getBytes(mNameMap.get(key));
+            final byte[] tmp = mRawNameMap.get(key);
             paramOut.writeInt(tmp.length);
-            for (final byte byteVal : tmp) {
-                paramOut.writeByte(byteVal);
-            }
+            paramOut.writeBytes(tmp, 0, tmp.length);
         }
     }
 
@@ -147,15 +185,6 @@ public final class NamePage implements IPage {
         return super.toString() + ": nameCount=" + mNameMap.size();
     }
 
-    /**
-     * Get name map.
-     * 
-     * @return name map
-     */
-    public Map<Integer, String> getNameMap() {
-        return mNameMap;
-    }
-
     @Override
     public void commit(PageWriteTrx paramState) throws AbsTTException {
         mDelegate.commit(paramState);
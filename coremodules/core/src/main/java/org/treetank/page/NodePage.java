@@ -26,14 +26,20 @@
  */
 package org.treetank.page;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 import org.treetank.access.PageWriteTrx;
 import org.treetank.api.INode;
 import org.treetank.exception.AbsTTException;
+import org.treetank.io.EStorage;
+import org.treetank.io.IKey;
 import org.treetank.io.ITTSink;
 import org.treetank.io.ITTSource;
+import org.treetank.io.file.ByteBufferSinkAndSource;
 import org.treetank.node.ENode;
+import org.treetank.node.NodeColumns;
+import org.treetank.node.delegates.ValNodeDelegate;
 import org.treetank.page.delegates.PageDelegate;
 import org.treetank.page.interfaces.IPage;
 import org.treetank.utils.IConstants;
@@ -42,150 +48,126 @@ import org.treetank.utils.IConstants;
  * <h1>NodePage</h1>
  * 
  * <p>
- * A node page stores a set of nodes.
+ * A node page stores a set of nodes. The number of slots is set per resource.
+ * The page is serialized as its number of slots, a bitmap of the occupied
+ * slots, the kind and the encoded length of each stored node and the compact
+ * encoding of the nodes themselves.
+ * </p>
+ * 
+ * <p>
+ * Each persisted page refers to the fragment of the same node page written
+ * before it, so the fragments needed to restore a revision are found by
+ * following these references instead of looking up older revisions.
+ * </p>
+ * 
+ * <p>
+ * A page read from a source keeps the encoded nodes and materializes a node on
+ * the first access to its slot only. Point lookups therefore decode a single
+ * node instead of the whole page.
  * </p>
  */
 public class NodePage implements IPage {
 
+    /** Estimated bytes of a page without its slots. */
+    private static final int PAGE_SIZE_ESTIMATE = 128;
+
+    /** Estimated bytes of the bookkeeping of one slot. */
+    private static final int SLOT_SIZE_ESTIMATE = 32;
+
+    /** Estimated bytes of a decoded node without its value. */
+    private static final int NODE_SIZE_ESTIMATE = 96;
+
     /** Key of node page. This is the base key of all contained nodes. */
     private final long mNodePageKey;
 
+    /** Key of the previous fragment of this node page, null if there is none. */
+    private IKey mPreviousKey;
+
     /** Array of nodes. This can have null nodes that were removed. */
     private final INode[] mNodes;
 
+    /** Encoded bytes of slots not decoded yet, null if nothing was read from a source. */
+    private byte[][] mRaw;
+
+    /** Kinds of the encoded slots. */
+    private byte[] mRawKinds;
+
+    /** Offsets of the encoded slots within their byte arrays. */
+    private int[] mRawOffsets;
+
+    /** Lengths of the encoded slots. */
+    private int[] mRawLengths;
+
+    /** Struct-of-arrays view on the nodes, built on demand. */
+    private volatile NodeColumns mColumns;
+
     private final PageDelegate mDelegate;
 
     /**
-     * Create node page.
+     * Create node page with the standard node count.
      * 
      * @param nodePageKey
      *            Base key assigned to this node page.
      */
     public NodePage(final long nodePageKey, final long mRevision) {
+        this(nodePageKey, mRevision, IConstants.NDP_NODE_COUNT);
+    }
+
+    /**
+     * Create node page.
+     * 
+     * @param nodePageKey
+     *            Base key assigned to this node page.
+     * @param mNodeCount
+     *            Number of slots of this node page, a power of two.
+     */
+    public NodePage(final long nodePageKey, final long mRevision, final int mNodeCount) {
         mDelegate = new PageDelegate(0, mRevision);
         mNodePageKey = nodePageKey;
-        mNodes = new INode[IConstants.NDP_NODE_COUNT];
+        mNodes = new INode[mNodeCount];
     }
 
     /**
-     * Read node page.
+     * Read node page. The nodes are not decoded before they are accessed.
      * 
      * @param mIn
      *            Input bytes to read page from.
-     * @throws
      */
     protected NodePage(final ITTSource mIn) {
         mDelegate = new PageDelegate(0, mIn.readLong());
         mDelegate.initialize(mIn);
 
-        mNodePageKey = mIn.readLong();
-        mNodes = new INode[IConstants.NDP_NODE_COUNT];
-
-        // final EncryptionController enController = EncryptionController
-        // .getInstance();
-        //
-        // if (enController.checkEncryption()) {
-        // for (int i = 0; i < mNodes.length; i++) {
-        // final long mRightKey = getRightKey(mIn);
-        //
-        // final List<Long> mUserKeys = enController.getKeyCache().get(
-        // enController.getUser());
-        // byte[] mSecretKey = null;
-        //
-        // if (mUserKeys.contains(mRightKey) || mRightKey == -1) {
-        // final int mElementKind = mIn.readInt();
-        //
-        // if (mRightKey != -1) {
-        //
-        // // get secret key
-        // mSecretKey = enController.getSelDb()
-        // .getEntry(mRightKey).getSecretKey();
-        //
-        // final int mNodeBytes = mIn.readInt();
-        // final int mPointerBytes = mIn.readInt();
-        //
-        // final byte[] mDecryptedNode;
-        //
-        // if (mPointerBytes == 0) {
-        //
-        // final byte[] mEncryptedNode = new byte[mNodeBytes];
-        //
-        // for (int j = 0; j < mNodeBytes; j++) {
-        // mEncryptedNode[j] = mIn.readByte();
-        // }
-        //
-        // mDecryptedNode = NodeEncryption.decrypt(
-        // mEncryptedNode, mSecretKey);
-        //
-        // } else {
-        //
-        // final byte[] mEncryptedPointer = new byte[mPointerBytes];
-        // for (int j = 0; j < mPointerBytes; j++) {
-        // mEncryptedPointer[j] = mIn.readByte();
-        // }
-        //
-        // final int mDataBytes = mNodeBytes - mPointerBytes;
-        // final byte[] mEncryptedData = new byte[mDataBytes];
-        // for (int j = 0; j < mDataBytes; j++) {
-        // mEncryptedData[j] = mIn.readByte();
-        // }
-        //
-        // final byte[] mDecryptedPointer = NodeEncryption
-        // .decrypt(mEncryptedPointer, mSecretKey);
-        //
-        // final byte[] mDecryptedData = NodeEncryption
-        // .decrypt(mEncryptedData, mSecretKey);
-        //
-        // mDecryptedNode = new byte[mDecryptedPointer.length
-        // + mDecryptedData.length];
-        //
-        // int mCounter = 0;
-        // for (int j = 0; j < mDecryptedPointer.length; j++) {
-        // mDecryptedNode[mCounter] = mDecryptedPointer[j];
-        // mCounter++;
-        // }
-        // for (int j = 0; j < mDecryptedData.length; j++) {
-        // mDecryptedNode[mCounter] = mDecryptedData[j];
-        // mCounter++;
-        // }
-        //
-        // }
-        //
-        // final NodeInputSource mNodeInput = new NodeInputSource(
-        // mDecryptedNode);
-        //
-        // final ENode mEnumKind = ENode.getKind(mElementKind);
-        //
-        // if (mEnumKind != ENode.UNKOWN_KIND) {
-        // getNodes()[i] = mEnumKind.deserialize(mNodeInput);
-        // }
-        // }
-        //
-        // } else {
-        // try {
-        // throw new TTUsageException(
-        // "User has no permission to access the node");
-        //
-        // } catch (final TTUsageException mExp) {
-        // mExp.printStackTrace();
-        // }
-        // }
-        // }
-        // } else {
-        final int[] kinds = new int[IConstants.NDP_NODE_COUNT];
-        for (int i = 0; i < kinds.length; i++) {
-            kinds[i] = mIn.readInt();
+        final EStorage storage = EStorage.getInstance(mIn.readInt());
+        if (storage != null) {
+            mPreviousKey = storage.deserialize(mIn);
+        }
+
+        mNodePageKey = mIn.readVarLong();
+        mNodes = new INode[(int)mIn.readVarLong()];
+
+        final byte[] present = new byte[mNodes.length >> 3];
+        for (int i = 0; i < present.length; i++) {
+            present[i] = mIn.readByte();
         }
 
-        for (int offset = 0; offset < IConstants.NDP_NODE_COUNT; offset++) {
-            final int kind = kinds[offset];
-            final ENode enumKind = ENode.getKind(kind);
-            if (enumKind != ENode.UNKOWN_KIND) {
-                getNodes()[offset] = enumKind.deserialize(mIn);
+        initRaw();
+        int length = 0;
+        for (int offset = 0; offset < mNodes.length; offset++) {
+            if ((present[offset >> 3] & (1 << (offset & 7))) != 0) {
+                mRawKinds[offset] = mIn.readByte();
+                mRawOffsets[offset] = length;
+                mRawLengths[offset] = (int)mIn.readVarLong();
+                length += mRawLengths[offset];
             }
         }
 
-        // }
+        final byte[] data = new byte[length];
+        mIn.readBytes(data, 0, length);
+        for (int offset = 0; offset < mNodes.length; offset++) {
+            if ((present[offset >> 3] & (1 << (offset & 7))) != 0) {
+                mRaw[offset] = data;
+            }
+        }
     }
 
     /**
@@ -198,14 +180,96 @@ public class NodePage implements IPage {
     }
 
     /**
-     * Get node at a given offset.
+     * Get number of slots of node page.
+     * 
+     * @return Number of slots.
+     */
+    public final int getNodeCount() {
+        return mNodes.length;
+    }
+
+    /**
+     * Get key of the previous fragment of this node page.
+     * 
+     * @return the key of the previous fragment, null if there is none
+     */
+    public final IKey getPreviousKey() {
+        return mPreviousKey;
+    }
+
+    /**
+     * Set key of the previous fragment of this node page.
+     * 
+     * @param mKey
+     *            the key of the previous fragment, null if there is none
+     */
+    public final void setPreviousKey(final IKey mKey) {
+        mPreviousKey = mKey;
+    }
+
+    /**
+     * Get node at a given offset. An encoded node is decoded on the first
+     * access.
      * 
      * @param mOffset
      *            Offset of node within local node page.
      * @return Node at given offset.
      */
     public INode getNode(final int mOffset) {
-        return getNodes()[mOffset];
+        if (mRaw == null) {
+            return mNodes[mOffset];
+        }
+        return decodeNode(mOffset);
+    }
+
+    /**
+     * Decode a node on first access. Complete pages are shared by the read
+     * transactions of a session, so a node is decoded once only, and the
+     * nodes of a page holding encoded slots are only read under its lock to
+     * see the nodes decoded by other threads completely.
+     * 
+     * @param mOffset
+     *            Offset of node within local node page.
+     * @return Node at given offset.
+     */
+    private synchronized INode decodeNode(final int mOffset) {
+        INode node = mNodes[mOffset];
+        if (node == null && mRaw[mOffset] != null) {
+            final ByteBuffer buffer =
+                ByteBuffer.wrap(mRaw[mOffset], mRawOffsets[mOffset], mRawLengths[mOffset]);
+            node = ENode.getKind(mRawKinds[mOffset]).deserialize(new ByteBufferSinkAndSource(buffer));
+            mNodes[mOffset] = node;
+        }
+        return node;
+    }
+
+    /**
+     * Estimate the memory held by this page, counting the nodes not decoded
+     * yet as if they were.
+     * 
+     * @return estimated size in bytes
+     */
+    public int estimateSize() {
+        long size = PAGE_SIZE_ESTIMATE + (long)mNodes.length * SLOT_SIZE_ESTIMATE;
+        for (int i = 0; i < mNodes.length; i++) {
+            if (mRaw != null && mRaw[i] != null) {
+                size += NODE_SIZE_ESTIMATE + mRawLengths[i];
+            } else if (mNodes[i] != null) {
+                size += NODE_SIZE_ESTIMATE;
+            }
+        }
+        return (int)Math.min(size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Check if a node is stored at a given offset without decoding it.
+     * 
+     * @param mOffset
+     *            Offset of node within local node page.
+     * @return true if a node is stored at given offset, false otherwise
+     */
+    public boolean hasNode(final int mOffset) {
+        return mNodes[mOffset] != null || (mRaw != null && mRaw[mOffset] != null);
     }
 
     /**
@@ -217,7 +281,89 @@ public class NodePage implements IPage {
      *            Node to store at given nodeOffset.
      */
     public void setNode(final int mOffset, final INode mNode) {
-        getNodes()[mOffset] = mNode;
+        mNodes[mOffset] = mNode;
+        mColumns = null;
+        if (mRaw != null) {
+            mRaw[mOffset] = null;
+        }
+    }
+
+    /**
+     * Overwrite a single node at a given offset with the node stored at the
+     * same offset in another page. A node not decoded in the other page stays
+     * encoded in this page as well.
+     * 
+     * @param mOffset
+     *            Offset of node to overwrite in this node page.
+     * @param mPage
+     *            Page to take the node from.
+     */
+    public void copyNode(final int mOffset, final NodePage mPage) {
+        if (mPage.mRaw == null || mPage.mRaw[mOffset] == null) {
+            setNode(mOffset, mPage.mNodes[mOffset]);
+            return;
+        }
+        // the other page might be shared and decoded concurrently
+        final INode node;
+        synchronized (mPage) {
+            node = mPage.mNodes[mOffset];
+        }
+        if (node != null) {
+            setNode(mOffset, node);
+        } else {
+            if (mRaw == null) {
+                initRaw();
+            }
+            mNodes[mOffset] = null;
+            mColumns = null;
+            mRaw[mOffset] = mPage.mRaw[mOffset];
+            mRawKinds[mOffset] = mPage.mRawKinds[mOffset];
+            mRawOffsets[mOffset] = mPage.mRawOffsets[mOffset];
+            mRawLengths[mOffset] = mPage.mRawLengths[mOffset];
+        }
+    }
+
+    /**
+     * Get the struct-of-arrays view on the nodes of this page. Nodes not
+     * decoded yet are read into the columns without decoding them. The view is
+     * dropped if a slot is overwritten but it does not follow changes made to
+     * the stored node instances, it is meant for pages not modified anymore.
+     * 
+     * @return the columns of this page
+     */
+    public NodeColumns getColumns() {
+        NodeColumns columns = mColumns;
+        if (columns == null) {
+            if (mRaw == null) {
+                columns = buildColumns();
+            } else {
+                // nodes decoded by other threads are only visible under the lock
+                synchronized (this) {
+                    columns = buildColumns();
+                }
+            }
+            mColumns = columns;
+        }
+        return columns;
+    }
+
+    /**
+     * Building the struct-of-arrays view on the nodes of this page.
+     * 
+     * @return the columns of this page
+     */
+    private NodeColumns buildColumns() {
+        final NodeColumns columns = new NodeColumns(mNodes.length);
+        for (int i = 0; i < mNodes.length; i++) {
+            if (mNodes[i] != null) {
+                columns.put(i, (org.treetank.node.interfaces.INode)mNodes[i]);
+            } else if (mRaw != null && mRaw[i] != null) {
+                final ByteBuffer buffer = ByteBuffer.wrap(mRaw[i], mRawOffsets[i], mRawLengths[i]);
+                ENode.getKind(mRawKinds[i]).deserializeColumns(new ByteBufferSinkAndSource(buffer),
+                    columns, i);
+            }
+        }
+        return columns;
     }
 
     /**
@@ -227,21 +373,46 @@ public class NodePage implements IPage {
     public void serialize(final ITTSink mOut) {
         // TODO respect new INode hierarchy, must rely on normal INodes only
         mDelegate.serialize(mOut);
-        mOut.writeLong(mNodePageKey);
-        for (int i = 0; i < getNodes().length; i++) {
-            if (getNodes()[i] != null) {
-                final int kind = ((org.treetank.node.interfaces.INode) getNodes()[i])
-                        .getKind().getId();
-                mOut.writeInt(kind);
-            } else {
-                mOut.writeInt(ENode.UNKOWN_KIND.getId());
+        if (mPreviousKey == null) {
+            mOut.writeInt(0);
+        } else {
+            EStorage.getInstance(mPreviousKey.getClass()).serialize(mOut, mPreviousKey);
+        }
+        mOut.writeVarLong(mNodePageKey);
+        mOut.writeVarLong(mNodes.length);
+        // bitmap of the occupied slots
+        for (int i = 0; i < mNodes.length; i += 8) {
+            int present = 0;
+            for (int j = 0; j < 8; j++) {
+                if (hasNode(i + j)) {
+                    present |= 1 << j;
+                }
             }
+            mOut.writeByte((byte) present);
         }
 
-        for (final INode node : getNodes()) {
-            if (node != null) {
-                org.treetank.node.interfaces.INode nodenode = (org.treetank.node.interfaces.INode) node;
-                ENode.getKind(nodenode.getClass()).serialize(mOut, nodenode);
+        // kind and length of each slot, encoded slots are copied as they are
+        final SizeSink size = new SizeSink();
+        for (int i = 0; i < mNodes.length; i++) {
+            if (mNodes[i] != null) {
+                final org.treetank.node.interfaces.INode node =
+                    (org.treetank.node.interfaces.INode)mNodes[i];
+                size.mSize = 0;
+                ENode.getKind(node.getClass()).serialize(size, node);
+                mOut.writeByte((byte) node.getKind().getId());
+                mOut.writeVarLong(size.mSize);
+            } else if (mRaw != null && mRaw[i] != null) {
+                mOut.writeByte(mRawKinds[i]);
+                mOut.writeVarLong(mRawLengths[i]);
+            }
+        }
+        for (int i = 0; i < mNodes.length; i++) {
+            if (mNodes[i] != null) {
+                final org.treetank.node.interfaces.INode node =
+                    (org.treetank.node.interfaces.INode)mNodes[i];
+                ENode.getKind(node.getClass()).serialize(mOut, node);
+            } else if (mRaw != null && mRaw[i] != null) {
+                mOut.writeBytes(mRaw[i], mRawOffsets[i], mRawLengths[i]);
             }
         }
     }
@@ -265,9 +436,16 @@ public class NodePage implements IPage {
     }
 
     /**
+     * Get all nodes of this page, decoding the nodes not accessed yet.
+     * 
      * @return the mNodes
      */
     public final INode[] getNodes() {
+        if (mRaw != null) {
+            for (int i = 0; i < mNodes.length; i++) {
+                getNode(i);
+            }
+        }
         return mNodes;
     }
 
@@ -276,7 +454,7 @@ public class NodePage implements IPage {
         final int prime = 31;
         int result = 1;
         result = prime * result + (int) (mNodePageKey ^ (mNodePageKey >>> 32));
-        result = prime * result + Arrays.hashCode(mNodes);
+        result = prime * result + Arrays.hashCode(getNodes());
         return result;
     }
 
@@ -299,17 +477,36 @@ public class NodePage implements IPage {
             return false;
         }
 
-        if (!Arrays.equals(mNodes, mOther.mNodes)) {
+        if (!Arrays.equals(getNodes(), mOther.getNodes())) {
             return false;
         }
 
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     * Values above the overflow threshold not stored in overflow pages yet are
+     * written to a chain of {@link OverflowPage}s, the nodes keep the key of
+     * the first page from then on.
+     */
     @Override
     public void commit(PageWriteTrx paramState) throws AbsTTException {
         mDelegate.commit(paramState);
-
+        for (final INode each : mNodes) {
+            if (each != null) {
+                final org.treetank.node.interfaces.INode node = (org.treetank.node.interfaces.INode)each;
+                final ValNodeDelegate val = node.getKind().getValDelegate(node);
+                if (val != null && val.getOverflowKey() == null
+                    && val.getValueLength() > paramState.getOverflowThreshold()) {
+                    final PageReference reference =
+                        OverflowPage.createChain(val.getRawValue(), getRevision());
+                    paramState.commit(reference);
+                    val.setOverflowKey(reference.getKey());
+                }
+            }
+        }
     }
 
     @Override
@@ -322,4 +519,54 @@ public class NodePage implements IPage {
         return mDelegate.getRevision();
     }
 
+    /**
+     * Initializing the arrays holding the encoded slots.
+     */
+    private void initRaw() {
+        mRaw = new byte[mNodes.length][];
+        mRawKinds = new byte[mNodes.length];
+        mRawOffsets = new int[mNodes.length];
+        mRawLengths = new int[mNodes.length];
+    }
+
+    /**
+     * Sink only counting the bytes written to determine the encoded length of a
+     * node.
+     */
+    private static final class SizeSink implements ITTSink {
+
+        /** Number of bytes written. */
+        private long mSize;
+
+        @Override
+        public void writeLong(final long mLongVal) {
+            mSize += 8;
+        }
+
+        @Override
+        public void writeInt(final int mIntVal) {
+            mSize += 4;
+        }
+
+        @Override
+        public void writeByte(final byte mByteVal) {
+            mSize++;
+        }
+
+        @Override
+        public void writeVarLong(final long mLongVal) {
+            long val = mLongVal;
+            mSize++;
+            while ((val & ~0x7FL) != 0) {
+                mSize++;
+                val >>>= 7;
+            }
+        }
+
+        @Override
+        public void writeBytes(final byte[] mBytes, final int mOffset, final int mLength) {
+            mSize += mLength;
+        }
+    }
+
 }
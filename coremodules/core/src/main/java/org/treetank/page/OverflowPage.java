@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.page;
+
+import org.treetank.access.PageWriteTrx;
+import org.treetank.exception.AbsTTException;
+import org.treetank.io.ITTSink;
+import org.treetank.io.ITTSource;
+import org.treetank.page.delegates.PageDelegate;
+import org.treetank.page.interfaces.IPage;
+import org.treetank.utils.IConstants;
+
+/**
+ * <h1>OverflowPage</h1>
+ * 
+ * <p>
+ * Overflow page holds a chunk of a value too large to be stored inline in a
+ * node page. The chunks of a value are chained by the single reference of each
+ * page. A node keeps the key of the first chunk as long as its value does not
+ * change, so a large value is written once instead of with every version of
+ * its node page.
+ * </p>
+ */
+public final class OverflowPage implements IPage {
+
+    /** Chunk of the value. */
+    private final byte[] mChunk;
+
+    private final PageDelegate mDelegate;
+
+    /**
+     * Create overflow page.
+     * 
+     * @param paramChunk
+     *            Chunk of the value.
+     * @param paramRevision
+     *            Revision Number
+     */
+    public OverflowPage(final byte[] paramChunk, final long paramRevision) {
+        mDelegate = new PageDelegate(1, paramRevision);
+        mChunk = paramChunk;
+    }
+
+    /**
+     * Read overflow page.
+     * 
+     * @param paramIn
+     *            Input bytes.
+     */
+    protected OverflowPage(final ITTSource paramIn) {
+        mDelegate = new PageDelegate(1, paramIn.readLong());
+        mDelegate.initialize(paramIn);
+        mChunk = new byte[(int)paramIn.readVarLong()];
+        paramIn.readBytes(mChunk, 0, mChunk.length);
+    }
+
+    /**
+     * Create the chain of overflow pages holding a value.
+     * 
+     * @param paramValue
+     *            the value
+     * @param paramRevision
+     *            Revision Number
+     * @return reference to the first page of the chain
+     */
+    public static PageReference createChain(final byte[] paramValue, final long paramRevision) {
+        final PageReference first = new PageReference();
+        PageReference reference = first;
+        int offset = 0;
+        do {
+            final int length = Math.min(IConstants.OVP_CHUNK_SIZE, paramValue.length - offset);
+            final byte[] chunk = new byte[length];
+            System.arraycopy(paramValue, offset, chunk, 0, length);
+            final OverflowPage page = new OverflowPage(chunk, paramRevision);
+            reference.setPage(page);
+            reference = page.getNextReference();
+            offset += length;
+        } while (offset < paramValue.length);
+        return first;
+    }
+
+    /**
+     * Get chunk of the value.
+     * 
+     * @return the chunk
+     */
+    public byte[] getChunk() {
+        return mChunk;
+    }
+
+    /**
+     * Get reference to the page holding the next chunk.
+     * 
+     * @return the reference, without a key for the last chunk
+     */
+    public PageReference getNextReference() {
+        return getReferences()[0];
+    }
+
+    @Override
+    public void commit(PageWriteTrx paramState) throws AbsTTException {
+        mDelegate.commit(paramState);
+    }
+
+    @Override
+    public void serialize(ITTSink paramOut) {
+        mDelegate.serialize(paramOut);
+        paramOut.writeVarLong(mChunk.length);
+        paramOut.writeBytes(mChunk, 0, mChunk.length);
+    }
+
+    @Override
+    public PageReference[] getReferences() {
+        return mDelegate.getReferences();
+    }
+
+    @Override
+    public long getRevision() {
+        return mDelegate.getRevision();
+    }
+
+}
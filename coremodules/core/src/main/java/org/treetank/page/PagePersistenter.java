@@ -33,11 +33,14 @@ import org.treetank.page.interfaces.IPage;
 
 public final class PagePersistenter {
 
-    public final static int NODEPAGE = 1;
+    /** Node pages in the fixed-width format of former versions, not readable anymore. */
+    public final static int FIXEDNODEPAGE = 1;
     public final static int NAMEPAGE = 2;
     public final static int UBERPAGE = 3;
     public final static int INDIRCTPAGE = 4;
     public final static int REVISIONROOTPAGE = 5;
+    public final static int NODEPAGE = 6;
+    public final static int OVERFLOWPAGE = 7;
 
     /**
      * Create page.
@@ -65,6 +68,12 @@ public final class PagePersistenter {
         case REVISIONROOTPAGE:
             returnVal = new RevisionRootPage(paramSource);
             break;
+        case OVERFLOWPAGE:
+            returnVal = new OverflowPage(paramSource);
+            break;
+        case FIXEDNODEPAGE:
+            throw new IllegalStateException(
+                "Node page in the fixed-width format of a former version, the resource must be recreated!");
         default:
             throw new IllegalStateException(
                 "Invalid Kind of Page. Something went wrong in the serialization/deserialization");
@@ -91,6 +100,8 @@ public final class PagePersistenter {
             paramSink.writeInt(PagePersistenter.REVISIONROOTPAGE);
         } else if (paramPage instanceof UberPage) {
             paramSink.writeInt(PagePersistenter.UBERPAGE);
+        } else if (paramPage instanceof OverflowPage) {
+            paramSink.writeInt(PagePersistenter.OVERFLOWPAGE);
         } else {
             throw new IllegalStateException(new StringBuilder("Page ").append(paramPage.getClass()).append(
                 " cannot be serialized").toString());
@@ -39,7 +39,7 @@ import org.treetank.utils.IConstants;
  * <h1>RevisionRootPage</h1>
  * 
  * <p>
- * Revision root page holds a reference to the name page as well as the static node page tree.
+ * Revision root page holds a reference to the name page tree as well as the static node page tree.
  * </p>
  */
 public final class RevisionRootPage implements IPage {
@@ -59,6 +59,9 @@ public final class RevisionRootPage implements IPage {
     /** Timestamp of revision. */
     private long mRevisionTimestamp;
 
+    /** Height of the node page tree. */
+    private int mNodeTreeHeight;
+
     private final PageDelegate mDelegate;
 
     /**
@@ -68,8 +71,9 @@ public final class RevisionRootPage implements IPage {
         mDelegate = new PageDelegate(2, IConstants.UBP_ROOT_REVISION_NUMBER);
         mRevisionSize = 0L;
         final PageReference ref = getReferences()[NAME_REFERENCE_OFFSET];
-        ref.setPage(new NamePage(IConstants.UBP_ROOT_REVISION_NUMBER));
+        ref.setPage(new IndirectPage(IConstants.UBP_ROOT_REVISION_NUMBER));
         mMaxNodeKey = -1L;
+        mNodeTreeHeight = IConstants.INP_INITIAL_HEIGHT;
     }
 
     /**
@@ -84,6 +88,7 @@ public final class RevisionRootPage implements IPage {
         mRevisionSize = paramIn.readLong();
         mMaxNodeKey = paramIn.readLong();
         mRevisionTimestamp = paramIn.readLong();
+        mNodeTreeHeight = paramIn.readInt();
     }
 
     /**
@@ -97,13 +102,15 @@ public final class RevisionRootPage implements IPage {
     public RevisionRootPage(final RevisionRootPage paramCommittedRevisionRootPage,
         final long paramRevisionToUse) {
         mDelegate = new PageDelegate(2, paramRevisionToUse);
-        mDelegate.initialize(paramCommittedRevisionRootPage);
+        // the node page tree may grow on top of the reference of the committed page
+        mDelegate.copy(paramCommittedRevisionRootPage);
         mRevisionSize = paramCommittedRevisionRootPage.mRevisionSize;
         mMaxNodeKey = paramCommittedRevisionRootPage.mMaxNodeKey;
+        mNodeTreeHeight = paramCommittedRevisionRootPage.mNodeTreeHeight;
     }
 
     /**
-     * Get name page reference.
+     * Get reference to the indirect page on top of the name pages.
      * 
      * @return Name page reference.
      */
@@ -120,6 +127,25 @@ public final class RevisionRootPage implements IPage {
         return getReferences()[INDIRECT_REFERENCE_OFFSET];
     }
 
+    /**
+     * Get height of the node page tree.
+     * 
+     * @return Height of the node page tree.
+     */
+    public int getNodeTreeHeight() {
+        return mNodeTreeHeight;
+    }
+
+    /**
+     * Set height of the node page tree after it has grown.
+     * 
+     * @param paramHeight
+     *            Height of the node page tree.
+     */
+    public void setNodeTreeHeight(final int paramHeight) {
+        mNodeTreeHeight = paramHeight;
+    }
+
     /**
      * Get size of revision, i.e., the node count visible in this revision.
      * 
@@ -159,11 +185,15 @@ public final class RevisionRootPage implements IPage {
      */
     @Override
     public void serialize(final ITTSink mOut) {
-        mRevisionTimestamp = System.currentTimeMillis();
+        // keeping the timestamp of a committed revision when it is rewritten
+        if (mRevisionTimestamp == 0) {
+            mRevisionTimestamp = System.currentTimeMillis();
+        }
         mDelegate.serialize(mOut);
         mOut.writeLong(mRevisionSize);
         mOut.writeLong(mMaxNodeKey);
         mOut.writeLong(mRevisionTimestamp);
+        mOut.writeInt(mNodeTreeHeight);
     }
 
     /**
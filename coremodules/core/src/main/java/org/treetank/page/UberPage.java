@@ -56,17 +56,31 @@ public final class UberPage implements IPage {
     /** Number of revisions. */
     private final long mRevisionCount;
 
+    /** Height of the revision tree. */
+    private int mRevisionTreeHeight;
+
     /** True if this uber page is the uber page of a fresh TreeTank file. */
     private boolean mBootstrap;
 
     private final PageDelegate mDelegate;
 
     /**
-     * Create uber page.
+     * Create uber page with node pages of the standard node count.
      */
     public UberPage() {
+        this(IConstants.NDP_NODE_COUNT);
+    }
+
+    /**
+     * Create uber page.
+     * 
+     * @param paramNodesPerPage
+     *            node count of the node page holding the root node
+     */
+    public UberPage(final int paramNodesPerPage) {
         mDelegate = new PageDelegate(1, IConstants.UBP_ROOT_REVISION_NUMBER);
         mRevisionCount = IConstants.UBP_ROOT_REVISION_COUNT;
+        mRevisionTreeHeight = IConstants.INP_INITIAL_HEIGHT;
         mBootstrap = true;
 
         // --- Create revision tree
@@ -78,7 +92,7 @@ public final class UberPage implements IPage {
         PageReference reference = getReferences()[INDIRECT_REFERENCE_OFFSET];
 
         // Remaining levels.
-        for (int i = 0, l = IConstants.INP_LEVEL_PAGE_COUNT_EXPONENT.length; i < l; i++) {
+        for (int i = 0; i < mRevisionTreeHeight; i++) {
             page = new IndirectPage(IConstants.UBP_ROOT_REVISION_NUMBER);
             reference.setPage(page);
             reference = page.getReferences()[0];
@@ -96,13 +110,14 @@ public final class UberPage implements IPage {
         reference = rrp.getIndirectPageReference();
 
         // Remaining levels.
-        for (int i = 0, l = IConstants.INP_LEVEL_PAGE_COUNT_EXPONENT.length; i < l; i++) {
+        for (int i = 0; i < rrp.getNodeTreeHeight(); i++) {
             page = new IndirectPage(IConstants.UBP_ROOT_REVISION_NUMBER);
             reference.setPage(page);
             reference = page.getReferences()[0];
         }
 
-        final NodePage ndp = new NodePage(ROOT_NODE, IConstants.UBP_ROOT_REVISION_NUMBER);
+        final NodePage ndp =
+            new NodePage(ROOT_NODE, IConstants.UBP_ROOT_REVISION_NUMBER, paramNodesPerPage);
         reference.setPage(ndp);
 
         final NodeDelegate nodeDel = new NodeDelegate(ROOT_NODE, NULL_NODE, 0);
@@ -123,6 +138,7 @@ public final class UberPage implements IPage {
         mDelegate = new PageDelegate(1, paramIn.readLong());
         mDelegate.initialize(paramIn);
         mRevisionCount = paramIn.readLong();
+        mRevisionTreeHeight = paramIn.readInt();
         mBootstrap = false;
     }
 
@@ -136,7 +152,9 @@ public final class UberPage implements IPage {
      */
     public UberPage(final UberPage paramCommittedUberPage, final long paramRevisionToUse) {
         mDelegate = new PageDelegate(1, paramRevisionToUse);
-        mDelegate.initialize(paramCommittedUberPage);
+        // the revision tree may grow on top of the reference of the committed uber page
+        mDelegate.copy(paramCommittedUberPage);
+        mRevisionTreeHeight = paramCommittedUberPage.mRevisionTreeHeight;
         if (paramCommittedUberPage.isBootstrap()) {
             mRevisionCount = paramCommittedUberPage.mRevisionCount;
             mBootstrap = paramCommittedUberPage.mBootstrap;
@@ -155,6 +173,25 @@ public final class UberPage implements IPage {
         return getReferences()[INDIRECT_REFERENCE_OFFSET];
     }
 
+    /**
+     * Get height of the revision tree.
+     * 
+     * @return Height of the revision tree.
+     */
+    public int getRevisionTreeHeight() {
+        return mRevisionTreeHeight;
+    }
+
+    /**
+     * Set height of the revision tree after it has grown.
+     * 
+     * @param paramHeight
+     *            Height of the revision tree.
+     */
+    public void setRevisionTreeHeight(final int paramHeight) {
+        mRevisionTreeHeight = paramHeight;
+    }
+
     /**
      * Get number of revisions.
      * 
@@ -199,6 +236,7 @@ public final class UberPage implements IPage {
         mBootstrap = false;
         mDelegate.serialize(paramOut);
         paramOut.writeLong(mRevisionCount);
+        paramOut.writeInt(mRevisionTreeHeight);
     }
 
     /**
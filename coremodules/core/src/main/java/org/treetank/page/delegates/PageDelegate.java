@@ -81,6 +81,23 @@ public class PageDelegate implements IPage {
         mReferences = paramCommittedPage.getReferences();
     }
 
+    /**
+     * Initializing the references with copies of the references of a committed
+     * page. Unlike {@link #initialize(IPage)}, changing a reference of this
+     * page does not affect the committed page.
+     * 
+     * @param paramCommittedPage
+     *            page to copy the references from
+     */
+    public void copy(final IPage paramCommittedPage) {
+        final PageReference[] references = paramCommittedPage.getReferences();
+        for (int offset = 0; offset < mReferences.length; offset++) {
+            mReferences[offset].setKey(references[offset].getKey());
+            mReferences[offset].setPage(references[offset].getPage());
+            mReferences[offset].setNodePageKey(references[offset].getNodePageKey());
+        }
+    }
+
     /**
      * Get page reference of given offset.
      * 
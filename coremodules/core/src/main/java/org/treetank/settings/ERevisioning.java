@@ -50,10 +50,11 @@ public enum ERevisioning {
         @Override
         public NodePage combinePages(final NodePage[] pages, final int revToRestore) {
             final long nodePageKey = pages[0].getNodePageKey();
-            final NodePage returnVal = new NodePage(nodePageKey, pages[0].getRevision());
+            final NodePage returnVal =
+                new NodePage(nodePageKey, pages[0].getRevision(), pages[0].getNodeCount());
 
-            for (int i = 0; i < pages[0].getNodes().length; i++) {
-                returnVal.setNode(i, pages[0].getNode(i));
+            for (int i = 0; i < pages[0].getNodeCount(); i++) {
+                returnVal.copyNode(i, pages[0]);
             }
 
             return returnVal;
@@ -68,11 +69,11 @@ public enum ERevisioning {
             final long nodePageKey = pages[0].getNodePageKey();
             final NodePage[] returnVal =
                 {
-                    new NodePage(nodePageKey, pages[0].getRevision() + 1),
-                    new NodePage(nodePageKey, pages[0].getRevision() + 1)
+                    new NodePage(nodePageKey, pages[0].getRevision() + 1, pages[0].getNodeCount()),
+                    new NodePage(nodePageKey, pages[0].getRevision() + 1, pages[0].getNodeCount())
                 };
 
-            for (int i = 0; i < pages[0].getNodes().length; i++) {
+            for (int i = 0; i < pages[0].getNodeCount(); i++) {
                 returnVal[0].setNode(i, pages[0].getNode(i));
                 if (pages[0].getNode(i) != null) {
                     returnVal[1].setNode(i, pages[0].getNode(i));
@@ -97,7 +98,8 @@ public enum ERevisioning {
         @Override
         public NodePage combinePages(final NodePage[] pages, final int revToRestore) {
             final long nodePageKey = pages[0].getNodePageKey();
-            final NodePage returnVal = new NodePage(nodePageKey, pages[0].getRevision());
+            final NodePage returnVal =
+                new NodePage(nodePageKey, pages[0].getRevision(), pages[0].getNodeCount());
             final NodePage latest = pages[0];
 
             NodePage referencePage = pages[0];
@@ -110,11 +112,11 @@ public enum ERevisioning {
             }
             assert latest.getNodePageKey() == nodePageKey;
             assert referencePage.getNodePageKey() == nodePageKey;
-            for (int i = 0; i < referencePage.getNodes().length; i++) {
-                if (latest.getNode(i) != null) {
-                    returnVal.setNode(i, latest.getNode(i));
+            for (int i = 0; i < pages[0].getNodeCount(); i++) {
+                if (latest.hasNode(i)) {
+                    returnVal.copyNode(i, latest);
                 } else {
-                    returnVal.setNode(i, referencePage.getNode(i));
+                    returnVal.copyNode(i, referencePage);
                 }
             }
             return returnVal;
@@ -128,8 +130,8 @@ public enum ERevisioning {
             final long nodePageKey = pages[0].getNodePageKey();
             final NodePage[] returnVal =
                 {
-                    new NodePage(nodePageKey, pages[0].getRevision() + 1),
-                    new NodePage(nodePageKey, pages[0].getRevision() + 1)
+                    new NodePage(nodePageKey, pages[0].getRevision() + 1, pages[0].getNodeCount()),
+                    new NodePage(nodePageKey, pages[0].getRevision() + 1, pages[0].getNodeCount())
                 };
 
             final NodePage latest = pages[0];
@@ -142,7 +144,7 @@ public enum ERevisioning {
             }
 
             // iterate through all nodes
-            for (int j = 0; j < returnVal[0].getNodes().length; j++) {
+            for (int j = 0; j < pages[0].getNodeCount(); j++) {
                 if (latest.getNode(j) != null) {
                     returnVal[0].setNode(j, latest.getNode(j));
                     returnVal[1].setNode(j, latest.getNode(j));
@@ -175,12 +177,13 @@ public enum ERevisioning {
         @Override
         public NodePage combinePages(final NodePage[] pages, final int revToRestore) {
             final long nodePageKey = pages[0].getNodePageKey();
-            final NodePage returnVal = new NodePage(nodePageKey, pages[0].getRevision());
+            final NodePage returnVal =
+                new NodePage(nodePageKey, pages[0].getRevision(), pages[0].getNodeCount());
             for (NodePage page : pages) {
                 assert page.getNodePageKey() == nodePageKey;
-                for (int i = 0; i < page.getNodes().length; i++) {
-                    if (page.getNode(i) != null && returnVal.getNode(i) == null) {
-                        returnVal.setNode(i, page.getNode(i));
+                for (int i = 0; i < pages[0].getNodeCount(); i++) {
+                    if (page.hasNode(i) && !returnVal.hasNode(i)) {
+                        returnVal.copyNode(i, page);
                     }
                 }
                 if (page.getRevision() % revToRestore == 0) {
@@ -199,8 +202,8 @@ public enum ERevisioning {
             final long nodePageKey = pages[0].getNodePageKey();
             final NodePage[] returnVal =
                 {
-                    new NodePage(nodePageKey, pages[0].getRevision() + 1),
-                    new NodePage(nodePageKey, pages[0].getRevision() + 1)
+                    new NodePage(nodePageKey, pages[0].getRevision() + 1, pages[0].getNodeCount()),
+                    new NodePage(nodePageKey, pages[0].getRevision() + 1, pages[0].getNodeCount())
                 };
 
             for (int j = 0; j < pages.length; j++) {
@@ -45,7 +45,13 @@ public final class IConstants {
     public static final int BEACON_START = 0;
 
     /** Length of beacon in bytes. */
-    public static final int BEACON_LENGTH = 12;
+    public static final int BEACON_LENGTH = 24;
+
+    /**
+     * Marker starting the beacon of the segmented File storage ("TTS1"), distinguishing it from the single
+     * file layout written by older versions.
+     */
+    public static final int BEACON_MARKER = 0x54545331;
 
     /** Default internal encoding. */
     public static final String DEFAULT_ENCODING = "UTF-8";
@@ -71,11 +77,11 @@ public final class IConstants {
     /** 2^INP_REFERENCE_COUNT_EXPONENT = INP_REFERENCE_COUNT. */
     public static final int INP_REFERENCE_COUNT_EXPONENT = 7;
 
-    /** Exponent of pages per level (root level = 0, leaf level = 5). */
-    public static final int[] INP_LEVEL_PAGE_COUNT_EXPONENT = {
-        4 * INP_REFERENCE_COUNT_EXPONENT, 3 * INP_REFERENCE_COUNT_EXPONENT, 2 * INP_REFERENCE_COUNT_EXPONENT,
-        1 * INP_REFERENCE_COUNT_EXPONENT, 0 * INP_REFERENCE_COUNT_EXPONENT
-    };
+    /**
+     * Height of a new indirect tree. A tree of height h holds the keys below
+     * 2^(h * INP_REFERENCE_COUNT_EXPONENT) and grows on demand.
+     */
+    public static final int INP_INITIAL_HEIGHT = 1;
 
     // --- Uber Page
     // -------------------------------------------------------------
@@ -89,10 +95,52 @@ public final class IConstants {
     // --- Node Page
     // -------------------------------------------------------------
 
-    /** Maximum node count per node page. */
+    /**
+     * Standard node count per node page. The node count of a resource is set
+     * with its resource configuration.
+     */
     public static final int NDP_NODE_COUNT = 128;
 
     /** 2^NDP_NODE_COUNT_EXPONENT = NDP_NODE_COUNT. */
     public static final int NDP_NODE_COUNT_EXPONENT = 7;
 
+    /** Smallest node count per node page. */
+    public static final int NDP_MIN_NODE_COUNT = 8;
+
+    /** Largest node count per node page. */
+    public static final int NDP_MAX_NODE_COUNT = 1 << 16;
+
+    // --- Overflow Page
+    // -------------------------------------------------------------
+
+    /** Maximum number of bytes of a value held by one overflow page. */
+    public static final int OVP_CHUNK_SIZE = 1 << 16;
+
+    // --- Metrics
+    // -------------------------------------------------------------
+
+    /** Counter of node page lookups served by the page cache of a session. */
+    public static final String MET_PAGE_CACHE_HITS = "pagecache.hits";
+
+    /** Counter of node page lookups missing the page cache of a session. */
+    public static final String MET_PAGE_CACHE_MISSES = "pagecache.misses";
+
+    /** Histogram of the fragments read for reconstructing one node page. */
+    public static final String MET_FRAGMENTS = "pagecache.fragments";
+
+    /** Counter of the bytes of pages read from the storage. */
+    public static final String MET_BYTES_READ = "storage.bytesRead";
+
+    /** Counter of the bytes of pages written to the storage. */
+    public static final String MET_BYTES_WRITTEN = "storage.bytesWritten";
+
+    /** Prefix of the histograms of the nanoseconds each codec spends per page. */
+    public static final String MET_CODEC = "codec.";
+
+    /** Counter of the node page containers spilled from the transaction log to disk. */
+    public static final String MET_LOG_SPILLS = "log.spills";
+
+    /** Histogram of the nanoseconds commits wait for their data being forced. */
+    public static final String MET_SYNC = "sync";
+
 }
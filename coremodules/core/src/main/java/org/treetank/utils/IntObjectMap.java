@@ -0,0 +1,216 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.utils;
+
+import java.util.Arrays;
+
+/**
+ * <h1>IntObjectMap</h1>
+ * 
+ * <p>
+ * Map from primitive int keys to values without boxing the keys. Keys and values are held in two arrays
+ * with open addressing and linear probing. The keys are spread by a multiplicative hash, so keys differing
+ * in their high bits only, like the name keys sharing a name page, are distributed as well. Null values are
+ * not supported, entries are never removed.
+ * </p>
+ * 
+ * @param <V>
+ *            type of the values
+ */
+public final class IntObjectMap<V> {
+
+    /** Multiplier for spreading the keys. */
+    private static final int SPREAD = 0x9E3779B9;
+
+    /** Smallest capacity of the arrays. */
+    private static final int MIN_CAPACITY = 8;
+
+    /** Keys of the entries. */
+    private int[] mKeys;
+
+    /** Values of the entries, null for free slots. */
+    private Object[] mValues;
+
+    /** Number of entries. */
+    private int mSize;
+
+    /** Shift for reducing the spread key to a slot. */
+    private int mShift;
+
+    /**
+     * Constructor.
+     */
+    public IntObjectMap() {
+        this(0);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param paramExpectedSize
+     *            number of entries to be held without resizing
+     */
+    public IntObjectMap(final int paramExpectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < paramExpectedSize * 2) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Getting the value of a key.
+     * 
+     * @param paramKey
+     *            key to look up
+     * @return the value, null if the key is not contained
+     */
+    @SuppressWarnings("unchecked")
+    public V get(final int paramKey) {
+        final int mask = mKeys.length - 1;
+        for (int slot = slot(paramKey);; slot = (slot + 1) & mask) {
+            final Object value = mValues[slot];
+            if (value == null || mKeys[slot] == paramKey) {
+                return (V)value;
+            }
+        }
+    }
+
+    /**
+     * Putting a value for a key.
+     * 
+     * @param paramKey
+     *            key of the entry
+     * @param paramValue
+     *            value of the entry, not null
+     * @return the former value of the key, null if the key was not contained
+     */
+    @SuppressWarnings("unchecked")
+    public V put(final int paramKey, final V paramValue) {
+        if (paramValue == null) {
+            throw new NullPointerException("paramValue may not be null!");
+        }
+        final int mask = mKeys.length - 1;
+        int slot = slot(paramKey);
+        while (mValues[slot] != null) {
+            if (mKeys[slot] == paramKey) {
+                final V former = (V)mValues[slot];
+                mValues[slot] = paramValue;
+                return former;
+            }
+            slot = (slot + 1) & mask;
+        }
+        mKeys[slot] = paramKey;
+        mValues[slot] = paramValue;
+        if (++mSize * 2 > mKeys.length) {
+            resize();
+        }
+        return null;
+    }
+
+    /**
+     * Getting the number of entries.
+     * 
+     * @return the size
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Getting all keys in no particular order.
+     * 
+     * @return a new array containing the keys
+     */
+    public int[] keys() {
+        final int[] keys = new int[mSize];
+        int index = 0;
+        for (int slot = 0; slot < mKeys.length; slot++) {
+            if (mValues[slot] != null) {
+                keys[index++] = mKeys[slot];
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final int[] keys = keys();
+        Arrays.sort(keys);
+        final StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(keys[i]).append('=').append(get(keys[i]));
+        }
+        return builder.append('}').toString();
+    }
+
+    /**
+     * Getting the first slot to probe for a key.
+     * 
+     * @param paramKey
+     *            the key
+     * @return the slot
+     */
+    private int slot(final int paramKey) {
+        return (paramKey * SPREAD) >>> mShift;
+    }
+
+    /**
+     * Allocating empty arrays.
+     * 
+     * @param paramCapacity
+     *            power of two
+     */
+    private void allocate(final int paramCapacity) {
+        mKeys = new int[paramCapacity];
+        mValues = new Object[paramCapacity];
+        mShift = Integer.numberOfLeadingZeros(paramCapacity) + 1;
+    }
+
+    /**
+     * Doubling the capacity.
+     */
+    @SuppressWarnings("unchecked")
+    private void resize() {
+        final int[] keys = mKeys;
+        final Object[] values = mValues;
+        allocate(keys.length << 1);
+        mSize = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (values[slot] != null) {
+                put(keys[slot], (V)values[slot]);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,251 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.access;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.treetank.node.IConstants.ROOT_NODE;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import javax.xml.namespace.QName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.treetank.Holder;
+import org.treetank.TestHelper;
+import org.treetank.access.conf.ResourceConfiguration;
+import org.treetank.access.conf.RetentionConfiguration;
+import org.treetank.api.INodeReadTrx;
+import org.treetank.api.INodeWriteTrx;
+import org.treetank.exception.AbsTTException;
+import org.treetank.exception.TTUsageException;
+import org.treetank.io.file.SegmentFiles;
+import org.treetank.node.interfaces.IStructNode;
+import org.treetank.page.NodePage;
+import org.treetank.utils.IConstants;
+
+public class CompactionTest {
+
+    private static final int REVISIONS = 10;
+
+    private static final int NODES = 50;
+
+    private Holder holder;
+
+    @Before
+    public void setUp() throws AbsTTException {
+        TestHelper.deleteEverything();
+        holder = Holder.generateSession();
+        final INodeWriteTrx wtx = holder.getSession().beginNodeWriteTransaction();
+        for (int i = 0; i < REVISIONS; i++) {
+            insert(wtx, i);
+            wtx.commit();
+        }
+        wtx.close();
+    }
+
+    @After
+    public void tearDown() throws AbsTTException {
+        holder.close();
+        TestHelper.closeEverything();
+    }
+
+    @Test
+    public void testCompact() throws AbsTTException {
+        holder.getSession().compact(
+            new RetentionConfiguration.Builder().setLastRevisions(3).setRevisionInterval(4).build());
+
+        for (int i = 0; i < REVISIONS; i++) {
+            if (i % 4 == 0 || i >= REVISIONS - 3) {
+                check(i);
+            } else {
+                try {
+                    holder.getSession().beginNodeReadTransaction(i);
+                    fail();
+                } catch (final IllegalArgumentException exc) {
+                    // revision was dropped
+                }
+            }
+        }
+        assertFalse(SegmentFiles.getFile(getData(), 0).exists());
+
+        // writing on top of the compacted revisions
+        final INodeWriteTrx wtx = holder.getSession().beginNodeWriteTransaction();
+        insert(wtx, REVISIONS);
+        wtx.commit();
+        wtx.close();
+        check(REVISIONS);
+        check(REVISIONS - 1);
+    }
+
+    @Test
+    public void testCompactWhileReading() throws AbsTTException {
+        final INodeReadTrx rtx = holder.getSession().beginNodeReadTransaction(5);
+        holder.getSession().compact(new RetentionConfiguration.Builder().build());
+        check(REVISIONS - 1);
+        assertTrue(SegmentFiles.getFile(getData(), 0).exists());
+
+        // the running transaction still reads the dropped revision
+        rtx.moveTo(ROOT_NODE);
+        assertEquals(6 * NODES, ((IStructNode)rtx.getNode()).getChildCount());
+        rtx.close();
+        assertFalse(SegmentFiles.getFile(getData(), 0).exists());
+    }
+
+    @Test
+    public void testFragmentChain() throws AbsTTException {
+        PageReadTrx rtx = (PageReadTrx)holder.getSession().beginPageReadTransaction(REVISIONS - 1);
+        NodePage[] fragments = rtx.getSnapshotPages(0);
+        assertEquals(ResourceConfiguration.VERSIONSTORESTORE, fragments.length);
+        for (int i = 1; i < fragments.length; i++) {
+            assertTrue(fragments[i].getRevision() < fragments[i - 1].getRevision());
+            assertNotNull(fragments[i - 1].getPreviousKey());
+        }
+        rtx.close();
+
+        // compacted pages are complete and start a new chain
+        holder.getSession().compact(new RetentionConfiguration.Builder().build());
+        rtx = (PageReadTrx)holder.getSession().beginPageReadTransaction(REVISIONS - 1);
+        fragments = rtx.getSnapshotPages(0);
+        assertEquals(1, fragments.length);
+        assertNull(fragments[0].getPreviousKey());
+        rtx.close();
+
+        final INodeWriteTrx wtx = holder.getSession().beginNodeWriteTransaction();
+        insert(wtx, REVISIONS);
+        wtx.commit();
+        wtx.close();
+        rtx = (PageReadTrx)holder.getSession().beginPageReadTransaction(REVISIONS);
+        fragments = rtx.getSnapshotPages(0);
+        assertEquals(2, fragments.length);
+        assertNotNull(fragments[0].getPreviousKey());
+        assertNull(fragments[1].getPreviousKey());
+        rtx.close();
+        check(REVISIONS);
+    }
+
+    @Test(expected = TTUsageException.class)
+    public void testCompactWithWriteTrx() throws AbsTTException {
+        final INodeWriteTrx wtx = holder.getSession().beginNodeWriteTransaction();
+        try {
+            holder.getSession().compact(new RetentionConfiguration.Builder().build());
+        } finally {
+            wtx.close();
+        }
+    }
+
+    @Test
+    public void testCompactAfterCommit() throws AbsTTException {
+        // the write transaction continues with a new page transaction after committing
+        final INodeWriteTrx wtx = holder.getSession().beginNodeWriteTransaction();
+        insert(wtx, REVISIONS);
+        wtx.commit();
+        try {
+            holder.getSession().compact(new RetentionConfiguration.Builder().build());
+            fail();
+        } catch (final TTUsageException exc) {
+            // writer still open
+        }
+        insert(wtx, REVISIONS + 1);
+        wtx.commit();
+        wtx.close();
+        assertTrue(SegmentFiles.getFile(getData(), 0).exists());
+        check(REVISIONS + 1);
+
+        holder.getSession().compact(new RetentionConfiguration.Builder().build());
+        assertFalse(SegmentFiles.getFile(getData(), 0).exists());
+        check(REVISIONS + 1);
+    }
+
+    @Test
+    public void testCompactWhileStreaming() throws AbsTTException, IOException {
+        final byte[] value = new byte[IConstants.OVP_CHUNK_SIZE * 2];
+        Arrays.fill(value, (byte)'v');
+        final INodeWriteTrx wtx = holder.getSession().beginNodeWriteTransaction();
+        wtx.moveTo(ROOT_NODE);
+        wtx.moveTo(((IStructNode)wtx.getNode()).getFirstChildKey());
+        final long text = wtx.insertTextAsFirstChild(new String(value));
+        wtx.commit();
+        wtx.close();
+
+        // the stream outlives its transaction
+        final INodeReadTrx rtx = holder.getSession().beginNodeReadTransaction(REVISIONS);
+        rtx.moveTo(text);
+        final InputStream stream = rtx.getValueStreamOfCurrentNode();
+        final byte[] read = new byte[value.length];
+        int offset = stream.read(read, 0, read.length);
+        rtx.close();
+
+        holder.getSession().compact(new RetentionConfiguration.Builder().build());
+        assertTrue(SegmentFiles.getFile(getData(), 0).exists());
+        int length;
+        while ((length = stream.read(read, offset, read.length - offset)) > 0) {
+            offset += length;
+        }
+        assertEquals(value.length, offset);
+        assertTrue(Arrays.equals(value, read));
+        stream.close();
+        assertFalse(SegmentFiles.getFile(getData(), 0).exists());
+    }
+
+    private void insert(final INodeWriteTrx paramWtx, final int paramRevision) throws AbsTTException {
+        for (int j = 0; j < NODES; j++) {
+            paramWtx.moveTo(ROOT_NODE);
+            paramWtx.insertElementAsFirstChild(new QName("e" + paramRevision + "_" + j));
+        }
+    }
+
+    private void check(final int paramRevision) throws AbsTTException {
+        final INodeReadTrx rtx = holder.getSession().beginNodeReadTransaction(paramRevision);
+        rtx.moveTo(ROOT_NODE);
+        assertEquals((paramRevision + 1) * NODES, ((IStructNode)rtx.getNode()).getChildCount());
+        rtx.moveTo(((IStructNode)rtx.getNode()).getFirstChildKey());
+        assertEquals(new QName("e" + paramRevision + "_" + (NODES - 1)), rtx.getQNameOfCurrentNode());
+        assertEquals((paramRevision + 1) * NODES, rtx.getMaxNodeKey());
+        rtx.close();
+    }
+
+    /**
+     * Getting the folder holding the segments of the resource.
+     * 
+     * @return the data folder of the resource
+     */
+    private File getData() {
+        final ResourceConfiguration conf = ((Session)holder.getSession()).mResourceConfig;
+        return new File(conf.mPath, ResourceConfiguration.Paths.Data.getFile().getName());
+    }
+
+}
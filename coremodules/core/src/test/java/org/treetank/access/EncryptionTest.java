@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.access;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.treetank.node.IConstants.ROOT_NODE;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+
+import javax.xml.namespace.QName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.treetank.TestHelper;
+import org.treetank.TestHelper.PATHS;
+import org.treetank.access.conf.ResourceConfiguration;
+import org.treetank.access.conf.SessionConfiguration;
+import org.treetank.api.IDatabase;
+import org.treetank.api.INodeReadTrx;
+import org.treetank.api.INodeWriteTrx;
+import org.treetank.api.ISession;
+import org.treetank.exception.AbsTTException;
+import org.treetank.exception.TTUsageException;
+import org.treetank.io.codec.ECodec;
+import org.treetank.node.interfaces.IStructNode;
+
+public class EncryptionTest {
+
+    private static final String RESOURCE = "encrypted";
+
+    private static final byte[] KEY = "0123456789abcdef".getBytes();
+
+    private IDatabase mDatabase;
+
+    private ResourceConfiguration mConfig;
+
+    @Before
+    public void setUp() throws AbsTTException {
+        TestHelper.deleteEverything();
+        mDatabase = TestHelper.getDatabase(PATHS.PATH1.getFile());
+        mConfig =
+            new ResourceConfiguration.Builder(RESOURCE, PATHS.PATH1.getConfig()).setCodecs(ECodec.Deflate,
+                ECodec.Encryption).setEncryptionKey(KEY).build();
+        mDatabase.createResource(mConfig);
+    }
+
+    @After
+    public void tearDown() throws AbsTTException {
+        TestHelper.closeEverything();
+    }
+
+    @Test
+    public void testKeyOfSession() throws AbsTTException, IOException, ClassNotFoundException {
+        ISession session =
+            mDatabase.getSession(new SessionConfiguration.Builder(RESOURCE).setEncryptionKey(KEY).build());
+        final INodeWriteTrx wtx = session.beginNodeWriteTransaction();
+        wtx.insertElementAsFirstChild(new QName("secret"));
+        wtx.commit();
+        wtx.close();
+        session.close();
+
+        // the key is not stored with the resource settings
+        final ObjectInputStream in = new ObjectInputStream(new FileInputStream(mConfig.getConfigFile()));
+        final ResourceConfiguration stored = (ResourceConfiguration)in.readObject();
+        in.close();
+        assertNull(stored.mEncryptionKey);
+
+        try {
+            mDatabase.getSession(new SessionConfiguration.Builder(RESOURCE).build());
+            fail();
+        } catch (final TTUsageException exc) {
+            // key missing
+        }
+
+        session =
+            mDatabase.getSession(new SessionConfiguration.Builder(RESOURCE).setEncryptionKey(KEY).build());
+        final INodeReadTrx rtx = session.beginNodeReadTransaction();
+        rtx.moveTo(ROOT_NODE);
+        rtx.moveTo(((IStructNode)rtx.getNode()).getFirstChildKey());
+        assertEquals(new QName("secret"), rtx.getQNameOfCurrentNode());
+        rtx.close();
+        session.close();
+    }
+
+}
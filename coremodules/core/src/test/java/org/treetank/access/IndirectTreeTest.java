@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.access;
+
+import static org.junit.Assert.assertEquals;
+import static org.treetank.node.IConstants.ROOT_NODE;
+
+import javax.xml.namespace.QName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.treetank.Holder;
+import org.treetank.TestHelper;
+import org.treetank.access.conf.ResourceConfiguration;
+import org.treetank.api.INodeReadTrx;
+import org.treetank.api.INodeWriteTrx;
+import org.treetank.exception.AbsTTException;
+import org.treetank.node.interfaces.IStructNode;
+import org.treetank.utils.IConstants;
+
+public class IndirectTreeTest {
+
+    private Holder holder;
+
+    @Before
+    public void setUp() throws AbsTTException {
+        TestHelper.deleteEverything();
+        holder = Holder.generateSession();
+    }
+
+    @After
+    public void tearDown() throws AbsTTException {
+        holder.close();
+        TestHelper.closeEverything();
+    }
+
+    @Test
+    public void testInitialHeight() throws AbsTTException {
+        final INodeWriteTrx wtx = holder.getSession().beginNodeWriteTransaction();
+        wtx.insertElementAsFirstChild(new QName("a"));
+        wtx.commit();
+        wtx.close();
+
+        final PageReadTrx rtx = (PageReadTrx)holder.getSession().beginPageReadTransaction(0);
+        assertEquals(IConstants.INP_INITIAL_HEIGHT, rtx.getUberPage().getRevisionTreeHeight());
+        assertEquals(IConstants.INP_INITIAL_HEIGHT, rtx.getActualRevisionRootPage().getNodeTreeHeight());
+        rtx.close();
+    }
+
+    @Test
+    public void testGrowRevisionTree() throws AbsTTException {
+        final int revisions = IConstants.INP_REFERENCE_COUNT + 2;
+        final INodeWriteTrx wtx = holder.getSession().beginNodeWriteTransaction();
+        for (int i = 0; i < revisions; i++) {
+            wtx.moveTo(ROOT_NODE);
+            wtx.insertElementAsFirstChild(new QName("e" + i));
+            wtx.commit();
+        }
+        wtx.close();
+
+        final PageReadTrx rtx = (PageReadTrx)holder.getSession().beginPageReadTransaction(revisions - 1);
+        assertEquals(IConstants.INP_INITIAL_HEIGHT + 1, rtx.getUberPage().getRevisionTreeHeight());
+        rtx.close();
+        for (final int revision : new int[] {
+            0, IConstants.INP_REFERENCE_COUNT - 1, IConstants.INP_REFERENCE_COUNT, revisions - 1
+        }) {
+            check(revision, revision + 1, "e" + revision);
+        }
+    }
+
+    @Test
+    public void testGrowNodeTree() throws AbsTTException {
+        final int nodes = IConstants.INP_REFERENCE_COUNT * ResourceConfiguration.NODESPERPAGE + 10;
+        final INodeWriteTrx wtx = holder.getSession().beginNodeWriteTransaction();
+        wtx.insertElementAsFirstChild(new QName("small"));
+        wtx.commit();
+        for (int i = 1; i < nodes; i++) {
+            wtx.moveTo(ROOT_NODE);
+            wtx.insertElementAsFirstChild(new QName("e" + i));
+        }
+        wtx.commit();
+        wtx.close();
+
+        PageReadTrx rtx = (PageReadTrx)holder.getSession().beginPageReadTransaction(0);
+        assertEquals(IConstants.INP_INITIAL_HEIGHT, rtx.getActualRevisionRootPage().getNodeTreeHeight());
+        rtx.close();
+        rtx = (PageReadTrx)holder.getSession().beginPageReadTransaction(1);
+        assertEquals(IConstants.INP_INITIAL_HEIGHT + 1, rtx.getActualRevisionRootPage().getNodeTreeHeight());
+        rtx.close();
+
+        check(0, 1, "small");
+        check(1, nodes, "e" + (nodes - 1));
+        final INodeReadTrx nrtx = holder.getSession().beginNodeReadTransaction(1);
+        nrtx.moveTo(nodes);
+        assertEquals(new QName("e" + (nodes - 1)), nrtx.getQNameOfCurrentNode());
+        nrtx.moveTo(1);
+        assertEquals(new QName("small"), nrtx.getQNameOfCurrentNode());
+        nrtx.close();
+    }
+
+    private void check(final int paramRevision, final int paramChildren, final String paramFirst)
+        throws AbsTTException {
+        final INodeReadTrx rtx = holder.getSession().beginNodeReadTransaction(paramRevision);
+        rtx.moveTo(ROOT_NODE);
+        assertEquals(paramChildren, ((IStructNode)rtx.getNode()).getChildCount());
+        rtx.moveTo(((IStructNode)rtx.getNode()).getFirstChildKey());
+        assertEquals(new QName(paramFirst), rtx.getQNameOfCurrentNode());
+        rtx.close();
+    }
+
+}
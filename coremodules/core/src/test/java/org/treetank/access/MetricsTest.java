@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.access;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.treetank.node.IConstants.ROOT_NODE;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.xml.namespace.QName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.treetank.TestHelper;
+import org.treetank.TestHelper.PATHS;
+import org.treetank.access.conf.ResourceConfiguration;
+import org.treetank.access.conf.SessionConfiguration;
+import org.treetank.api.IDatabase;
+import org.treetank.api.INodeReadTrx;
+import org.treetank.api.INodeWriteTrx;
+import org.treetank.api.ISession;
+import org.treetank.exception.AbsTTException;
+import org.treetank.io.EDurability;
+import org.treetank.io.EStorage;
+import org.treetank.io.codec.ECodec;
+import org.treetank.metrics.Histogram;
+import org.treetank.metrics.MetricsRegistry;
+import org.treetank.node.interfaces.IStructNode;
+import org.treetank.utils.IConstants;
+
+public class MetricsTest {
+
+    private static final String RESOURCE = "metrics";
+
+    private static final int ELEMENTS = 200;
+
+    private IDatabase mDatabase;
+
+    @Before
+    public void setUp() throws AbsTTException {
+        TestHelper.deleteEverything();
+        mDatabase = TestHelper.getDatabase(PATHS.PATH1.getFile());
+        mDatabase.createResource(new ResourceConfiguration.Builder(RESOURCE, PATHS.PATH1.getConfig())
+            .setType(EStorage.File).setCodecs(ECodec.Deflate).setDurability(EDurability.Fsync)
+            .setNodesPerPage(16).build());
+    }
+
+    @After
+    public void tearDown() throws AbsTTException {
+        TestHelper.closeEverything();
+    }
+
+    @Test
+    public void testSession() throws AbsTTException, JMException {
+        // without budget, all containers but the ones used last are spilled
+        final ISession session =
+            mDatabase.getSession(new SessionConfiguration.Builder(RESOURCE).setLogCacheSize(0).build());
+        final MetricsRegistry metrics = session.getMetrics();
+        final INodeWriteTrx wtx = session.beginNodeWriteTransaction();
+        for (int i = 0; i < ELEMENTS; i++) {
+            wtx.moveTo(ROOT_NODE);
+            wtx.insertElementAsFirstChild(new QName("e" + i));
+        }
+        wtx.commit();
+        wtx.close();
+        assertTrue(metrics.counter(IConstants.MET_LOG_SPILLS).get() > 0);
+        assertTrue(metrics.counter(IConstants.MET_BYTES_WRITTEN).get() > 0);
+        assertTrue(metrics.histogram(IConstants.MET_CODEC + "deflate.encode").getCount() > 0);
+        assertEquals(1, mDatabase.getMetrics().histogram(IConstants.MET_SYNC).getCount());
+
+        // the second pass is served by the page cache
+        final long bytesRead = metrics.counter(IConstants.MET_BYTES_READ).get();
+        final long misses = metrics.counter(IConstants.MET_PAGE_CACHE_MISSES).get();
+        read(session);
+        assertTrue(metrics.counter(IConstants.MET_BYTES_READ).get() > bytesRead);
+        final long hits = metrics.counter(IConstants.MET_PAGE_CACHE_HITS).get();
+        final long missed = metrics.counter(IConstants.MET_PAGE_CACHE_MISSES).get();
+        assertTrue(missed > misses);
+        read(session);
+        assertEquals(missed, metrics.counter(IConstants.MET_PAGE_CACHE_MISSES).get());
+        assertTrue(metrics.counter(IConstants.MET_PAGE_CACHE_HITS).get() > hits);
+        assertTrue(metrics.histogram(IConstants.MET_FRAGMENTS).getCount() >= missed);
+
+        // exported as long as the session is open
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = metrics.getObjectName();
+        assertNotNull(name);
+        assertEquals(metrics.counter(IConstants.MET_PAGE_CACHE_HITS).get(), server.getAttribute(name,
+            IConstants.MET_PAGE_CACHE_HITS));
+        assertEquals(metrics.histogram(IConstants.MET_FRAGMENTS).getCount(), server.getAttribute(name,
+            IConstants.MET_FRAGMENTS + ".count"));
+        assertTrue(server.isRegistered(mDatabase.getMetrics().getObjectName()));
+        session.close();
+        assertFalse(server.isRegistered(name));
+    }
+
+    @Test
+    public void testHistogram() {
+        final Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getPercentile(0.5));
+        for (int i = 1; i <= 100; i++) {
+            histogram.update(i);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(5050, histogram.getSum());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50.5, histogram.getMean(), 0);
+        // reported as the upper bound of the bucket from 32 to 63, capped by the largest value
+        assertEquals(63, histogram.getPercentile(0.5));
+        assertEquals(100, histogram.getPercentile(1));
+        assertEquals(1, histogram.getPercentile(0));
+    }
+
+    private static void read(final ISession paramSession) throws AbsTTException {
+        final INodeReadTrx rtx = paramSession.beginNodeReadTransaction();
+        rtx.moveTo(ROOT_NODE);
+        int count = 0;
+        if (rtx.moveTo(((IStructNode)rtx.getNode()).getFirstChildKey())) {
+            do {
+                count++;
+            } while (rtx.moveTo(((IStructNode)rtx.getNode()).getRightSiblingKey()));
+        }
+        assertEquals(ELEMENTS, count);
+        rtx.close();
+    }
+
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.access;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.treetank.node.IConstants.ROOT_NODE;
+
+import javax.xml.namespace.QName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.treetank.Holder;
+import org.treetank.TestHelper;
+import org.treetank.access.conf.RetentionConfiguration;
+import org.treetank.api.INodeReadTrx;
+import org.treetank.api.INodeWriteTrx;
+import org.treetank.exception.AbsTTException;
+import org.treetank.node.interfaces.INameNode;
+import org.treetank.page.IndirectPage;
+import org.treetank.page.PageReference;
+import org.treetank.utils.IConstants;
+import org.treetank.utils.TypedValue;
+
+public class NameTreeTest {
+
+    private static final int NAMES = 1000;
+
+    private Holder holder;
+
+    @Before
+    public void setUp() throws AbsTTException {
+        TestHelper.deleteEverything();
+        holder = Holder.generateSession();
+    }
+
+    @After
+    public void tearDown() throws AbsTTException {
+        holder.close();
+        TestHelper.closeEverything();
+    }
+
+    @Test
+    public void testIncrementalNames() throws AbsTTException {
+        final INodeWriteTrx wtx = holder.getSession().beginNodeWriteTransaction();
+        for (int i = 0; i < NAMES; i++) {
+            wtx.moveTo(ROOT_NODE);
+            wtx.insertElementAsFirstChild(new QName("e" + i));
+        }
+        wtx.commit();
+
+        // names not committed yet are visible to the writer
+        wtx.moveTo(ROOT_NODE);
+        final long key = wtx.insertElementAsFirstChild(new QName("added"));
+        assertEquals(new QName("added"), wtx.getQNameOfCurrentNode());
+        wtx.commit();
+
+        // reusing committed names does not touch the name pages
+        wtx.moveTo(ROOT_NODE);
+        wtx.insertElementAsFirstChild(new QName("e0"));
+        wtx.commit();
+        wtx.close();
+
+        assertEquals(1, countChangedNamePages(0, 1));
+        assertEquals(0, countChangedNamePages(1, 2));
+
+        check(0, NAMES, "e" + (NAMES - 1));
+        check(1, key, "added");
+
+        // the name pages are rewritten by the compaction
+        holder.getSession().compact(new RetentionConfiguration.Builder().build());
+        check(2, key, "added");
+        check(2, NAMES, "e" + (NAMES - 1));
+    }
+
+    @Test
+    public void testRawNames() throws AbsTTException {
+        final INodeWriteTrx wtx = holder.getSession().beginNodeWriteTransaction();
+        wtx.moveTo(ROOT_NODE);
+        wtx.insertElementAsFirstChild(new QName("n\u00e4me"));
+        final int nameKey = ((INameNode)wtx.getNode()).getNameKey();
+        assertArrayEquals(TypedValue.getBytes("n\u00e4me"), wtx.rawNameForKey(nameKey));
+        wtx.commit();
+        wtx.close();
+
+        // raw names are encoded once and shared
+        final INodeReadTrx rtx = holder.getSession().beginNodeReadTransaction();
+        final byte[] rawName = rtx.rawNameForKey(nameKey);
+        assertArrayEquals(TypedValue.getBytes("n\u00e4me"), rawName);
+        assertSame(rawName, rtx.rawNameForKey(nameKey));
+        assertEquals("n\u00e4me", rtx.nameForKey(nameKey));
+        assertEquals(0, rtx.rawNameForKey(nameKey + 1).length);
+        rtx.close();
+    }
+
+    private void check(final long paramRevision, final long paramKey, final String paramName)
+        throws AbsTTException {
+        final INodeReadTrx rtx = holder.getSession().beginNodeReadTransaction(paramRevision);
+        assertTrue(rtx.moveTo(paramKey));
+        assertEquals(new QName(paramName), rtx.getQNameOfCurrentNode());
+        for (int i = 1; i <= NAMES; i++) {
+            assertTrue(rtx.moveTo(i));
+            assertEquals(new QName("e" + (i - 1)), rtx.getQNameOfCurrentNode());
+        }
+        rtx.close();
+    }
+
+    private int countChangedNamePages(final long paramOld, final long paramNew) throws AbsTTException {
+        final PageReference[] old = getNamePageReferences(paramOld);
+        final PageReference[] changed = getNamePageReferences(paramNew);
+        int count = 0;
+        for (int i = 0; i < IConstants.INP_REFERENCE_COUNT; i++) {
+            if (old[i].getKey() == null ? changed[i].getKey() != null : changed[i].getKey() == null
+                || old[i].getKey().getIdentifier() != changed[i].getKey().getIdentifier()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private PageReference[] getNamePageReferences(final long paramRevision) throws AbsTTException {
+        final PageReadTrx rtx = (PageReadTrx)holder.getSession().beginPageReadTransaction(paramRevision);
+        final IndirectPage root =
+            rtx.dereferenceIndirectPage(rtx.getActualRevisionRootPage().getNamePageReference());
+        rtx.close();
+        return root.getReferences();
+    }
+
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.access;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.treetank.node.IConstants.ROOT_NODE;
+
+import javax.xml.namespace.QName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.treetank.TestHelper;
+import org.treetank.TestHelper.PATHS;
+import org.treetank.access.conf.ResourceConfiguration;
+import org.treetank.access.conf.SessionConfiguration;
+import org.treetank.api.IDatabase;
+import org.treetank.api.INodeCursor;
+import org.treetank.api.INodeReadTrx;
+import org.treetank.api.INodeWriteTrx;
+import org.treetank.api.ISession;
+import org.treetank.exception.AbsTTException;
+import org.treetank.node.interfaces.IStructNode;
+
+public class NodesPerPageTest {
+
+    private static final int NODES = 100;
+
+    private static final String RESOURCE = "pages";
+
+    @Before
+    public void setUp() throws AbsTTException {
+        TestHelper.deleteEverything();
+    }
+
+    @After
+    public void tearDown() throws AbsTTException {
+        TestHelper.closeEverything();
+    }
+
+    @Test
+    public void testSmallPages() throws AbsTTException {
+        check(8);
+    }
+
+    @Test
+    public void testLargePages() throws AbsTTException {
+        check(1024);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoPowerOfTwo() {
+        new ResourceConfiguration.Builder(RESOURCE, PATHS.PATH1.getConfig()).setNodesPerPage(100);
+    }
+
+    private void check(final int paramNodesPerPage) throws AbsTTException {
+        IDatabase db = TestHelper.getDatabase(PATHS.PATH1.getFile());
+        db.createResource(new ResourceConfiguration.Builder(RESOURCE, PATHS.PATH1.getConfig())
+            .setNodesPerPage(paramNodesPerPage).build());
+        ISession session = db.getSession(new SessionConfiguration.Builder(RESOURCE).build());
+        final INodeWriteTrx wtx = session.beginNodeWriteTransaction();
+        for (int i = 0; i < NODES; i++) {
+            wtx.moveTo(ROOT_NODE);
+            wtx.insertElementAsFirstChild(new QName("e" + i));
+        }
+        wtx.commit();
+        wtx.moveTo(NODES / 2);
+        wtx.setQName(new QName("changed"));
+        wtx.commit();
+        wtx.close();
+        session.close();
+        TestHelper.closeEverything();
+
+        // the node count is read with the resource
+        db = TestHelper.getDatabase(PATHS.PATH1.getFile());
+        session = db.getSession(new SessionConfiguration.Builder(RESOURCE).build());
+        final PageReadTrx prtx = (PageReadTrx)session.beginPageReadTransaction(1);
+        assertEquals(paramNodesPerPage, prtx.getNodesPerPage());
+        assertEquals(paramNodesPerPage, prtx.getSnapshotPages(0)[0].getNodeCount());
+        prtx.close();
+
+        final INodeReadTrx rtx = session.beginNodeReadTransaction(1);
+        rtx.moveTo(ROOT_NODE);
+        assertEquals(NODES, ((IStructNode)rtx.getNode()).getChildCount());
+        for (int i = 1; i <= NODES; i++) {
+            assertTrue(rtx.moveTo(i));
+            assertEquals(new QName(i == NODES / 2 ? "changed" : "e" + (i - 1)), rtx.getQNameOfCurrentNode());
+        }
+        rtx.moveTo(ROOT_NODE);
+        final INodeCursor cursor = rtx.getCursor();
+        assertTrue(cursor.moveToFirstChild());
+        int children = 1;
+        while (cursor.moveToRightSibling()) {
+            children++;
+        }
+        assertEquals(NODES, children);
+        assertEquals(1, cursor.getNodeKey());
+        rtx.close();
+        session.close();
+    }
+
+}
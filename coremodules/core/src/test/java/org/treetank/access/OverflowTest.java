@@ -0,0 +1,195 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.access;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.treetank.node.IConstants.ROOT_NODE;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.namespace.QName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.treetank.TestHelper;
+import org.treetank.TestHelper.PATHS;
+import org.treetank.access.conf.ResourceConfiguration;
+import org.treetank.access.conf.RetentionConfiguration;
+import org.treetank.access.conf.SessionConfiguration;
+import org.treetank.api.IDatabase;
+import org.treetank.api.INodeReadTrx;
+import org.treetank.api.INodeWriteTrx;
+import org.treetank.api.ISession;
+import org.treetank.exception.AbsTTException;
+import org.treetank.io.IKey;
+import org.treetank.node.delegates.ValNodeDelegate;
+import org.treetank.node.interfaces.INode;
+import org.treetank.utils.IConstants;
+
+public class OverflowTest {
+
+    private static final String RESOURCE = "overflow";
+
+    private static final int THRESHOLD = 64;
+
+    private IDatabase mDatabase;
+
+    private ISession mSession;
+
+    @Before
+    public void setUp() throws AbsTTException {
+        TestHelper.deleteEverything();
+        mDatabase = TestHelper.getDatabase(PATHS.PATH1.getFile());
+        mDatabase.createResource(new ResourceConfiguration.Builder(RESOURCE, PATHS.PATH1.getConfig())
+            .setOverflowThreshold(THRESHOLD).build());
+        mSession = mDatabase.getSession(new SessionConfiguration.Builder(RESOURCE).build());
+    }
+
+    @After
+    public void tearDown() throws AbsTTException {
+        mSession.close();
+        TestHelper.closeEverything();
+    }
+
+    @Test
+    public void testOverflow() throws AbsTTException, IOException {
+        final String large = generate(IConstants.OVP_CHUNK_SIZE * 2 + 17, 'a');
+        final String small = generate(THRESHOLD, 'A');
+        final INodeWriteTrx wtx = mSession.beginNodeWriteTransaction();
+        wtx.moveTo(ROOT_NODE);
+        final long element = wtx.insertElementAsFirstChild(new QName("e"));
+        wtx.insertAttribute(new QName("a"), large);
+        final long attribute = wtx.getNode().getNodeKey();
+        wtx.moveTo(element);
+        final long text = wtx.insertTextAsFirstChild(large);
+        wtx.moveTo(element);
+        wtx.insertElementAsRightSibling(new QName("g"));
+        final long inline = wtx.insertTextAsFirstChild(small);
+        wtx.moveTo(text);
+        assertEquals(large, wtx.getValueOfCurrentNode());
+        wtx.commit();
+
+        wtx.moveTo(text);
+        assertEquals(large, wtx.getValueOfCurrentNode());
+        assertNotNull(getOverflowKey(0, text));
+        assertNotNull(getOverflowKey(0, attribute));
+        assertNull(getOverflowKey(0, inline));
+
+        // unchanged values keep their chain
+        wtx.moveTo(element);
+        wtx.setQName(new QName("f"));
+        wtx.commit();
+        assertEquals(getOverflowKey(0, text).getIdentifier(), getOverflowKey(1, text).getIdentifier());
+
+        // changed values get a new one
+        final String changed = generate(THRESHOLD + 1, 'k');
+        wtx.moveTo(text);
+        wtx.setValue(changed);
+        wtx.commit();
+        wtx.close();
+        assertFalse(getOverflowKey(1, text).getIdentifier() == getOverflowKey(2, text).getIdentifier());
+
+        check(0, text, large);
+        check(1, attribute, large);
+        check(2, text, changed);
+        check(2, inline, small);
+
+        // chains are rewritten by the compaction and read with a new session
+        mSession.compact(new RetentionConfiguration.Builder().build());
+        check(2, text, changed);
+        check(2, attribute, large);
+        mSession.close();
+        TestHelper.closeEverything();
+        mDatabase = TestHelper.getDatabase(PATHS.PATH1.getFile());
+        mSession = mDatabase.getSession(new SessionConfiguration.Builder(RESOURCE).build());
+        check(2, text, changed);
+        check(2, attribute, large);
+        check(2, inline, small);
+    }
+
+    @Test
+    public void testHash() throws AbsTTException {
+        final String large = generate(THRESHOLD * 4, 'a');
+        final INodeWriteTrx wtx = mSession.beginNodeWriteTransaction();
+        wtx.moveTo(ROOT_NODE);
+        wtx.insertElementAsFirstChild(new QName("e"));
+        final long text = wtx.insertTextAsFirstChild(large);
+        wtx.commit();
+        wtx.close();
+
+        final PageReadTrx rtx = (PageReadTrx)mSession.beginPageReadTransaction(0);
+        final INode node = (INode)rtx.getNode(text);
+        rtx.close();
+        mSession.close();
+        // the hash is stored with the key, the pages of the closed session are not read
+        final ValNodeDelegate val = node.getKind().getValDelegate(node);
+        assertNotNull(val.getOverflowKey());
+        assertEquals(new ValNodeDelegate(null, large.getBytes()).hashCode(), val.hashCode());
+    }
+
+    private void check(final long paramRevision, final long paramKey, final String paramValue)
+        throws AbsTTException, IOException {
+        final INodeReadTrx rtx = mSession.beginNodeReadTransaction(paramRevision);
+        assertTrue(rtx.moveTo(paramKey));
+        assertEquals(paramValue, rtx.getValueOfCurrentNode());
+        final InputStream stream = rtx.getValueStreamOfCurrentNode();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1000];
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        stream.close();
+        assertArrayEquals(paramValue.getBytes(), out.toByteArray());
+        rtx.close();
+    }
+
+    private IKey getOverflowKey(final long paramRevision, final long paramKey) throws AbsTTException {
+        final PageReadTrx rtx = (PageReadTrx)mSession.beginPageReadTransaction(paramRevision);
+        final INode node = (INode)rtx.getNode(paramKey);
+        final IKey key = node.getKind().getValDelegate(node).getOverflowKey();
+        rtx.close();
+        return key;
+    }
+
+    private static String generate(final int paramLength, final char paramStart) {
+        final StringBuilder builder = new StringBuilder(paramLength);
+        for (int i = 0; i < paramLength; i++) {
+            builder.append((char)(paramStart + i % 20));
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.access;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.treetank.node.IConstants.ROOT_NODE;
+
+import javax.xml.namespace.QName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.treetank.TestHelper;
+import org.treetank.TestHelper.PATHS;
+import org.treetank.access.conf.ResourceConfiguration;
+import org.treetank.access.conf.RetentionConfiguration;
+import org.treetank.access.conf.SessionConfiguration;
+import org.treetank.api.IDatabase;
+import org.treetank.api.INode;
+import org.treetank.api.INodeReadTrx;
+import org.treetank.api.INodeWriteTrx;
+import org.treetank.api.IPageReadTrx;
+import org.treetank.api.ISession;
+import org.treetank.exception.AbsTTException;
+import org.treetank.page.RevisionRootPage;
+
+public class PageCacheTest {
+
+    private static final String RESOURCE = "cache";
+
+    private IDatabase mDatabase;
+
+    private ISession mSession;
+
+    @Before
+    public void setUp() throws AbsTTException {
+        TestHelper.deleteEverything();
+        mDatabase = TestHelper.getDatabase(PATHS.PATH1.getFile());
+        mDatabase.createResource(new ResourceConfiguration.Builder(RESOURCE, PATHS.PATH1.getConfig())
+            .build());
+    }
+
+    @After
+    public void tearDown() throws AbsTTException {
+        mSession.close();
+        TestHelper.closeEverything();
+    }
+
+    @Test
+    public void testShared() throws AbsTTException {
+        open(SessionConfiguration.DEFAULT_PAGE_CACHE_SIZE, SessionConfiguration.DEFAULT_TREE_PAGE_CACHE_SIZE);
+        final INode node = getNode(0, 1);
+        assertSame(node, getNode(0, 1));
+
+        // the pages of the revision to be modified are not shared with the writer
+        final INodeWriteTrx wtx = mSession.beginNodeWriteTransaction();
+        wtx.moveTo(1);
+        wtx.setQName(new QName("changed"));
+        assertSame(node, getNode(0, 1));
+        assertEquals(node.getHash(), getNode(0, 1).getHash());
+        wtx.commit();
+        wtx.close();
+        assertSame(node, getNode(0, 1));
+        assertNotSame(node, getNode(1, 1));
+        checkName(0, "e");
+        checkName(1, "changed");
+
+        // compacted storage is cached separately
+        mSession.compact(new RetentionConfiguration.Builder().setLastRevisions(2).build());
+        assertNotSame(node, getNode(0, 1));
+        checkName(0, "e");
+    }
+
+    @Test
+    public void testScan() throws AbsTTException {
+        open(SessionConfiguration.DEFAULT_PAGE_CACHE_SIZE, SessionConfiguration.DEFAULT_TREE_PAGE_CACHE_SIZE);
+
+        // scanning transactions do not admit the pages they read
+        assertNotSame(getNode(0, 1, true), getNode(0, 1, true));
+        final INode node = getNode(0, 1, false);
+        assertSame(node, getNode(0, 1, true));
+        assertSame(node, getNode(0, 1, false));
+    }
+
+    @Test
+    public void testTreePagesShared() throws AbsTTException {
+        open(SessionConfiguration.DEFAULT_PAGE_CACHE_SIZE, SessionConfiguration.DEFAULT_TREE_PAGE_CACHE_SIZE);
+        final RevisionRootPage root = getRevisionRoot(0);
+        assertSame(root, getRevisionRoot(0));
+
+        // the cached pages are copied before they are modified
+        for (int i = 1; i <= 2; i++) {
+            final INodeWriteTrx wtx = mSession.beginNodeWriteTransaction();
+            wtx.moveTo(1);
+            wtx.setQName(new QName("changed" + i));
+            wtx.commit();
+            wtx.close();
+            assertSame(root, getRevisionRoot(0));
+            checkName(i, "changed" + i);
+        }
+        assertEquals(1, root.getMaxNodeKey());
+        checkName(0, "e");
+
+        // compacted storage is cached separately
+        mSession.compact(new RetentionConfiguration.Builder().setLastRevisions(3).build());
+        assertNotSame(root, getRevisionRoot(0));
+        checkName(0, "e");
+    }
+
+    @Test
+    public void testWithoutBudget() throws AbsTTException {
+        open(0, 0);
+        assertNotSame(getNode(0, 1), getNode(0, 1));
+        assertNotSame(getRevisionRoot(0), getRevisionRoot(0));
+        checkName(0, "e");
+    }
+
+    private void open(final long paramBudget, final int paramTreeBudget) throws AbsTTException {
+        mSession =
+            mDatabase.getSession(new SessionConfiguration.Builder(RESOURCE).setPageCacheSize(paramBudget)
+                .setTreePageCacheSize(paramTreeBudget).build());
+        final INodeWriteTrx wtx = mSession.beginNodeWriteTransaction();
+        wtx.moveTo(ROOT_NODE);
+        wtx.insertElementAsFirstChild(new QName("e"));
+        wtx.commit();
+        wtx.close();
+    }
+
+    private INode getNode(final long paramRevision, final long paramKey) throws AbsTTException {
+        return getNode(paramRevision, paramKey, false);
+    }
+
+    private INode getNode(final long paramRevision, final long paramKey, final boolean paramScan)
+        throws AbsTTException {
+        final IPageReadTrx rtx = mSession.beginPageReadTransaction(paramRevision);
+        rtx.setScan(paramScan);
+        final INode node = rtx.getNode(paramKey);
+        rtx.close();
+        return node;
+    }
+
+    private RevisionRootPage getRevisionRoot(final long paramRevision) throws AbsTTException {
+        final IPageReadTrx rtx = mSession.beginPageReadTransaction(paramRevision);
+        final RevisionRootPage root = rtx.getActualRevisionRootPage();
+        rtx.close();
+        return root;
+    }
+
+    private void checkName(final long paramRevision, final String paramName) throws AbsTTException {
+        final INodeReadTrx rtx = mSession.beginNodeReadTransaction(paramRevision);
+        rtx.moveTo(1);
+        assertEquals(new QName(paramName), rtx.getQNameOfCurrentNode());
+        rtx.close();
+    }
+
+}
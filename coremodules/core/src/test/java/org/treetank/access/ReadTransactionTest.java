@@ -40,10 +40,12 @@ import org.treetank.TestHelper.PATHS;
 import org.treetank.access.conf.ResourceConfiguration;
 import org.treetank.access.conf.SessionConfiguration;
 import org.treetank.api.IDatabase;
+import org.treetank.api.INodeCursor;
 import org.treetank.api.INodeReadTrx;
 import org.treetank.api.ISession;
 import org.treetank.exception.AbsTTException;
 import org.treetank.node.ENode;
+import org.treetank.node.interfaces.INameNode;
 import org.treetank.node.interfaces.IStructNode;
 
 public class ReadTransactionTest {
@@ -131,4 +133,39 @@ public class ReadTransactionTest {
         holder.getRtx().close();
     }
 
+    @Test
+    public void testCursor() throws AbsTTException {
+        final INodeReadTrx rtx = holder.getRtx();
+        final INodeCursor cursor = rtx.getCursor();
+        assertEquals(ROOT_NODE, cursor.getNodeKey());
+        for (long key = 0; key <= rtx.getMaxNodeKey() + 1; key++) {
+            assertEquals(rtx.moveTo(key), cursor.moveTo(key));
+            assertEquals(rtx.getNode().getNodeKey(), cursor.getNodeKey());
+            assertEquals(rtx.getNode().getKind(), cursor.getKind());
+            assertEquals(rtx.getNode().getParentKey(), cursor.getParentKey());
+            assertEquals(rtx.getNode().getHash(), cursor.getHash());
+            if (rtx.getNode() instanceof IStructNode) {
+                final IStructNode node = (IStructNode)rtx.getNode();
+                assertEquals(node.getFirstChildKey(), cursor.getFirstChildKey());
+                assertEquals(node.getLeftSiblingKey(), cursor.getLeftSiblingKey());
+                assertEquals(node.getRightSiblingKey(), cursor.getRightSiblingKey());
+                assertEquals(node.getChildCount(), cursor.getChildCount());
+            }
+            if (rtx.getNode() instanceof INameNode) {
+                assertEquals(((INameNode)rtx.getNode()).getNameKey(), cursor.getNameKey());
+                assertEquals(((INameNode)rtx.getNode()).getURIKey(), cursor.getURIKey());
+            }
+        }
+
+        assertEquals(true, cursor.moveTo(ROOT_NODE));
+        assertEquals(false, cursor.moveToParent());
+        assertEquals(true, cursor.moveToFirstChild());
+        assertEquals(1L, cursor.getNodeKey());
+        assertEquals(true, cursor.moveToFirstChild());
+        assertEquals(true, cursor.moveToRightSibling());
+        assertEquals(true, cursor.moveToLeftSibling());
+        assertEquals(true, cursor.moveToParent());
+        assertEquals(1L, cursor.getNodeKey());
+    }
+
 }
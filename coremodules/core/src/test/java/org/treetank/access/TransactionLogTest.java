@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.access;
+
+import static org.junit.Assert.assertEquals;
+import static org.treetank.node.IConstants.ROOT_NODE;
+
+import javax.xml.namespace.QName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.treetank.TestHelper;
+import org.treetank.TestHelper.PATHS;
+import org.treetank.access.conf.ResourceConfiguration;
+import org.treetank.access.conf.SessionConfiguration;
+import org.treetank.api.IDatabase;
+import org.treetank.api.INodeReadTrx;
+import org.treetank.api.INodeWriteTrx;
+import org.treetank.api.ISession;
+import org.treetank.exception.AbsTTException;
+
+public class TransactionLogTest {
+
+    private static final int ELEMENTS = 1000;
+
+    private static final int NODES_PER_PAGE = 16;
+
+    private IDatabase mDatabase;
+
+    @Before
+    public void setUp() throws AbsTTException {
+        TestHelper.deleteEverything();
+        mDatabase = TestHelper.getDatabase(PATHS.PATH1.getFile());
+    }
+
+    @After
+    public void tearDown() throws AbsTTException {
+        TestHelper.closeEverything();
+    }
+
+    @Test
+    public void testSpill() throws AbsTTException {
+        final ISession kept = open("kept", SessionConfiguration.DEFAULT_LOG_CACHE_SIZE);
+        final ISession spilled = open("spilled", 0);
+        final INodeWriteTrx keptWtx = insert(kept);
+        final INodeWriteTrx spilledWtx = insert(spilled);
+
+        // modified pages are read back from the log before and after the commit
+        compare(keptWtx, spilledWtx);
+        keptWtx.commit();
+        spilledWtx.commit();
+        keptWtx.close();
+        spilledWtx.close();
+        final INodeReadTrx keptRtx = kept.beginNodeReadTransaction();
+        final INodeReadTrx spilledRtx = spilled.beginNodeReadTransaction();
+        compare(keptRtx, spilledRtx);
+        keptRtx.close();
+        spilledRtx.close();
+        kept.close();
+        spilled.close();
+    }
+
+    private ISession open(final String paramResource, final long paramBudget) throws AbsTTException {
+        // small node pages, so there are many more containers than kept regardless of the budget
+        mDatabase.createResource(new ResourceConfiguration.Builder(paramResource, PATHS.PATH1.getConfig())
+            .setNodesPerPage(NODES_PER_PAGE).build());
+        return mDatabase.getSession(new SessionConfiguration.Builder(paramResource).setLogCacheSize(
+            paramBudget).build());
+    }
+
+    private static INodeWriteTrx insert(final ISession paramSession) throws AbsTTException {
+        final INodeWriteTrx wtx = paramSession.beginNodeWriteTransaction();
+        wtx.moveTo(ROOT_NODE);
+        wtx.insertElementAsFirstChild(new QName("root"));
+        for (int i = 0; i < ELEMENTS; i++) {
+            wtx.insertElementAsFirstChild(new QName("e" + i));
+            wtx.insertTextAsFirstChild("t" + i);
+            wtx.moveTo(wtx.getNode().getParentKey());
+        }
+        return wtx;
+    }
+
+    private static void compare(final INodeReadTrx paramExpected, final INodeReadTrx paramActual)
+        throws AbsTTException {
+        assertEquals(paramExpected.getMaxNodeKey(), paramActual.getMaxNodeKey());
+        for (long key = 0; key <= paramExpected.getMaxNodeKey(); key++) {
+            paramExpected.moveTo(key);
+            paramActual.moveTo(key);
+            assertEquals(paramExpected.getNode().getHash(), paramActual.getNode().getHash());
+            assertEquals(paramExpected.getQNameOfCurrentNode(), paramActual.getQNameOfCurrentNode());
+            assertEquals(paramExpected.getValueOfCurrentNode(), paramActual.getValueOfCurrentNode());
+        }
+    }
+
+}
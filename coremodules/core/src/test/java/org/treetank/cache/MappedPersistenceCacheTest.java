@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.treetank.TestHelper;
+import org.treetank.access.conf.DatabaseConfiguration;
+import org.treetank.exception.AbsTTException;
+import org.treetank.metrics.Counter;
+import org.treetank.page.NodePage;
+
+public class MappedPersistenceCacheTest {
+
+    private File mFile;
+
+    @Before
+    public void setUp() throws AbsTTException {
+        TestHelper.deleteEverything();
+        TestHelper.createTestDocument();
+        mFile =
+            new File(new File(TestHelper.PATHS.PATH1.getFile(), DatabaseConfiguration.Paths.Data.getFile()
+                .getName()), TestHelper.RESOURCE);
+    }
+
+    @Test
+    public void test() {
+        check(new MappedPersistenceCache(mFile));
+    }
+
+    @Test
+    public void testSmallRegions() {
+        // every container spans several regions
+        check(new MappedPersistenceCache(mFile, 16, new Counter()));
+    }
+
+    @Test
+    public void testPutAgain() {
+        final Counter spills = new Counter();
+        final MappedPersistenceCache cache = new MappedPersistenceCache(mFile, 64, spills);
+        final NodePage first = new NodePage(0, 0);
+        final NodePage second = new NodePage(0, 1);
+        cache.put(0, new NodePageContainer(first));
+        cache.put(1, new NodePageContainer(new NodePage(1, 0)));
+        cache.put(0, new NodePageContainer(second));
+        assertEquals(second, cache.get(0).getComplete());
+        assertEquals(1, cache.get(1).getComplete().getNodePageKey());
+        assertNull(cache.get(2));
+        assertEquals(3, spills.get());
+
+        final File place = cache.place;
+        cache.clear();
+        assertFalse(place.exists());
+    }
+
+    private static void check(final ICache paramCache) {
+        try {
+            CacheTestHelper.setUp(paramCache);
+        } catch (final AbsTTException exc) {
+            throw new IllegalStateException(exc);
+        }
+        for (int i = 0; i < CacheTestHelper.PAGES.length; i++) {
+            final NodePageContainer cont = paramCache.get(i);
+            final NodePage current = cont.getComplete();
+            assertEquals(CacheTestHelper.PAGES[i][0], current);
+        }
+        paramCache.clear();
+    }
+
+    @After
+    public void tearDown() throws AbsTTException {
+        TestHelper.closeEverything();
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.cache;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.treetank.page.NodePage;
+
+public class PageCacheTest {
+
+    private static final int NODES = 4;
+
+    private static final int HOT = 10;
+
+    private static final int SCANNED = 1000;
+
+    private PageCache mCache;
+
+    private NodePage[] mHot;
+
+    @Before
+    public void setUp() {
+        mCache = new PageCache(400L * new NodePage(0, 0, NODES).estimateSize());
+        mHot = new NodePage[HOT];
+        for (int i = 0; i < HOT; i++) {
+            mHot[i] = new NodePage(i, 0, NODES);
+            mCache.put(key(i), mHot[i], false);
+            assertSame(mHot[i], mCache.get(key(i), false));
+        }
+    }
+
+    @Test
+    public void testScanResistance() {
+        for (int i = HOT; i < HOT + SCANNED; i++) {
+            mCache.put(key(i), new NodePage(i, 0, NODES), false);
+        }
+        for (int i = 0; i < HOT; i++) {
+            assertSame(mHot[i], mCache.get(key(i), false));
+        }
+        assertNull(mCache.get(key(HOT), false));
+    }
+
+    @Test
+    public void testScanHint() {
+        final NodePage page = new NodePage(HOT, 0, NODES);
+        mCache.put(key(HOT), page, true);
+        assertNull(mCache.get(key(HOT), false));
+
+        // scanning requests do not promote pages
+        mCache.put(key(HOT), page, false);
+        assertSame(page, mCache.get(key(HOT), true));
+        for (int i = HOT + 1; i < HOT + SCANNED; i++) {
+            mCache.put(key(i), new NodePage(i, 0, NODES), false);
+        }
+        assertNull(mCache.get(key(HOT), true));
+        assertSame(mHot[0], mCache.get(key(0), true));
+    }
+
+    @Test
+    public void testWithoutBudget() {
+        mCache = new PageCache(0);
+        mCache.put(key(0), mHot[0], false);
+        assertNull(mCache.get(key(0), false));
+    }
+
+    private static PageCacheKey key(final long paramNodePageKey) {
+        return new PageCacheKey(0, 0, paramNodePageKey);
+    }
+
+}
@@ -43,7 +43,10 @@ public class TransactionLogCacheTest {
     public void setUp() throws AbsTTException {
         TestHelper.deleteEverything();
         TestHelper.createTestDocument();
-        cache = new TransactionLogCache(TestHelper.PATHS.PATH1.getFile(), 1);
+        // the container put first is spilled
+        cache =
+            new TransactionLogCache(TestHelper.PATHS.PATH1.getFile(), LRUCache.CACHE_CAPACITY
+                * new NodePageContainer(new NodePage(0, 0)).estimateSize());
         CacheTestHelper.setUp(cache);
     }
 
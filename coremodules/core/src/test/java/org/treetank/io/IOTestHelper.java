@@ -34,8 +34,11 @@ import org.treetank.TestHelper.PATHS;
 import org.treetank.access.conf.ResourceConfiguration;
 import org.treetank.exception.AbsTTException;
 import org.treetank.exception.TTUsageException;
+import org.treetank.io.file.ByteBufferSinkAndSource;
+import org.treetank.page.NodePage;
 import org.treetank.page.PageReference;
 import org.treetank.page.UberPage;
+import org.treetank.utils.IConstants;
 
 /**
  * Helper class for testing the io interfaces
@@ -97,4 +100,31 @@ public final class IOTestHelper {
 
     }
 
+    public static void testReadWritePages(final ResourceConfiguration resourceConf) throws AbsTTException {
+        final IStorage fac = EStorage.getStorage(resourceConf);
+        final PageReference[] pageRefs = new PageReference[10];
+        final IWriter writer = fac.getWriter();
+        for (int i = 0; i < pageRefs.length; i++) {
+            pageRefs[i] = new PageReference();
+            pageRefs[i].setPage(TestHelper.getNodePage(0, 0, IConstants.NDP_NODE_COUNT, i));
+            writer.write(pageRefs[i]);
+        }
+        final PageReference uberRef = new PageReference();
+        uberRef.setPage(new UberPage());
+        writer.writeFirstReference(uberRef);
+        writer.close();
+
+        final IReader reader = fac.getReader();
+        for (final PageReference pageRef : pageRefs) {
+            final NodePage page = (NodePage)reader.read(pageRef.getKey());
+            final ByteBufferSinkAndSource expected = new ByteBufferSinkAndSource();
+            pageRef.getPage().serialize(expected);
+            final ByteBufferSinkAndSource actual = new ByteBufferSinkAndSource();
+            page.serialize(actual);
+            assertEquals(expected.toByteBuffer(), actual.toByteBuffer());
+        }
+        reader.close();
+        fac.close();
+    }
+
 }
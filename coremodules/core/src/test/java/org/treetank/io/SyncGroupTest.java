@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SyncGroupTest {
+
+    private static final int THREADS = 4;
+
+    private File[] mFiles;
+
+    private RandomAccessFile[] mRandomFiles;
+
+    @Before
+    public void setUp() throws IOException {
+        mFiles = new File[THREADS];
+        mRandomFiles = new RandomAccessFile[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            mFiles[i] = File.createTempFile("syncgroup", ".tnk");
+            mRandomFiles[i] = new RandomAccessFile(mFiles[i], "rw");
+        }
+    }
+
+    @Test
+    public void testConcurrentForce() throws InterruptedException {
+        final SyncGroup group = new SyncGroup();
+        final AtomicInteger forced = new AtomicInteger();
+        final Thread[] threads = new Thread[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            final FileChannel channel = mRandomFiles[i].getChannel();
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < 10; j++) {
+                            channel.write(ByteBuffer.allocate(16));
+                            group.force(channel, 2);
+                            forced.incrementAndGet();
+                        }
+                    } catch (final IOException exc) {
+                        throw new IllegalStateException(exc);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(THREADS * 10, forced.get());
+    }
+
+    @Test
+    public void testFailure() throws IOException {
+        final SyncGroup group = new SyncGroup();
+        final FileChannel channel = mRandomFiles[0].getChannel();
+        mRandomFiles[0].close();
+        try {
+            group.force(channel, 0);
+            fail();
+        } catch (final IOException exc) {
+            assertTrue(exc.getCause() instanceof IOException);
+        }
+        // next cycle is not affected
+        group.force(mRandomFiles[1].getChannel(), 0);
+    }
+
+    @Test
+    public void testListener() {
+        final SyncGroup group = new SyncGroup();
+        final AtomicInteger calls = new AtomicInteger();
+        final ISyncListener listener = new ISyncListener() {
+            @Override
+            public void synced(final File pResource, final long pNanos) {
+                assertEquals(mFiles[0], pResource);
+                calls.incrementAndGet();
+            }
+        };
+        group.addListener(listener);
+        group.synced(mFiles[0], 1);
+        group.removeListener(listener);
+        group.synced(mFiles[0], 1);
+        assertEquals(1, calls.get());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (int i = 0; i < THREADS; i++) {
+            mRandomFiles[i].close();
+            mFiles[i].delete();
+        }
+    }
+
+}
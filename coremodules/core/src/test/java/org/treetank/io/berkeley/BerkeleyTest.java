@@ -27,15 +27,22 @@
 
 package org.treetank.io.berkeley;
 
+import static org.junit.Assert.assertFalse;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.treetank.Holder;
 import org.treetank.TestHelper;
+import org.treetank.TestHelper.PATHS;
 import org.treetank.access.conf.ResourceConfiguration;
 import org.treetank.exception.AbsTTException;
 import org.treetank.io.EStorage;
 import org.treetank.io.IOTestHelper;
+import org.treetank.io.IStorage;
+import org.treetank.io.IWriter;
+import org.treetank.page.PageReference;
+import org.treetank.page.UberPage;
 
 public class BerkeleyTest {
 
@@ -53,6 +60,45 @@ public class BerkeleyTest {
         IOTestHelper.testReadWriteFirstRef(resourceConf);
     }
 
+    @Test
+    public void testPages() throws AbsTTException {
+        IOTestHelper.testReadWritePages(resourceConf);
+    }
+
+    @Test
+    public void testPagesTuned() throws AbsTTException {
+        final ResourceConfiguration tunedConf =
+            new ResourceConfiguration.Builder(TestHelper.RESOURCE, PATHS.PATH1.getConfig()).setType(
+                EStorage.Berkeley).setCacheSize(16 * 1024 * 1024).setLogFileSize(4 * 1024 * 1024).build();
+        IOTestHelper.testReadWritePages(tunedConf);
+    }
+
+    @Test
+    public void testPagesDeferredWrite() throws AbsTTException {
+        final ResourceConfiguration deferredConf =
+            new ResourceConfiguration.Builder(TestHelper.RESOURCE, PATHS.PATH1.getConfig()).setType(
+                EStorage.Berkeley).setDeferredWrite(true).build();
+        IOTestHelper.testReadWritePages(deferredConf);
+        IOTestHelper.testReadWriteFirstRef(deferredConf);
+    }
+
+    @Test
+    public void testConcurrentWriterKeys() throws AbsTTException {
+        final IStorage fac = EStorage.getStorage(resourceConf);
+        final IWriter writer1 = fac.getWriter();
+        final IWriter writer2 = fac.getWriter();
+        final PageReference ref1 = new PageReference();
+        ref1.setPage(new UberPage());
+        final PageReference ref2 = new PageReference();
+        ref2.setPage(new UberPage());
+        writer1.write(ref1);
+        writer2.write(ref2);
+        assertFalse(ref1.getKey().getIdentifier() == ref2.getKey().getIdentifier());
+        writer2.close();
+        writer1.close();
+        fac.close();
+    }
+
     @After
     public void tearDown() throws AbsTTException {
         IOTestHelper.clean();
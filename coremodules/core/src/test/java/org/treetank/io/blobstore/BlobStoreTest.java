@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.io.blobstore;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.Properties;
+
+import javax.xml.namespace.QName;
+
+import org.jclouds.filesystem.reference.FilesystemConstants;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.treetank.Holder;
+import org.treetank.TestHelper;
+import org.treetank.TestHelper.PATHS;
+import org.treetank.access.conf.ResourceConfiguration;
+import org.treetank.access.conf.SessionConfiguration;
+import org.treetank.api.IDatabase;
+import org.treetank.api.INodeWriteTrx;
+import org.treetank.api.ISession;
+import org.treetank.exception.AbsTTException;
+import org.treetank.exception.TTUsageException;
+import org.treetank.io.EStorage;
+import org.treetank.io.IOTestHelper;
+import org.treetank.io.IStorage;
+
+public class BlobStoreTest {
+
+    private ResourceConfiguration resourceConf;
+
+    @Before
+    public void setUp() throws AbsTTException {
+        TestHelper.deleteEverything();
+        Holder.generateSession().close();
+        resourceConf = IOTestHelper.registerIO(EStorage.BlobStore);
+    }
+
+    @Test
+    public void testFirstRef() throws AbsTTException {
+        IOTestHelper.testReadWriteFirstRef(resourceConf);
+    }
+
+    @Test
+    public void testPages() throws AbsTTException {
+        IOTestHelper.testReadWritePages(resourceConf);
+        final File data = new File(resourceConf.mPath, ResourceConfiguration.Paths.Data.getFile().getName());
+        final File cache = new File(data, "cache");
+        assertTrue(cache.list().length > 0);
+    }
+
+    @Test
+    public void testPagesParallelUpload() throws AbsTTException {
+        final ResourceConfiguration parallelConf =
+            new ResourceConfiguration.Builder(TestHelper.RESOURCE, PATHS.PATH1.getConfig()).setType(
+                EStorage.BlobStore).setCommitThreads(4).build();
+        IOTestHelper.testReadWritePages(parallelConf);
+    }
+
+    @Test
+    public void testPagesUncached() throws AbsTTException {
+        final ResourceConfiguration uncachedConf =
+            new ResourceConfiguration.Builder(TestHelper.RESOURCE, PATHS.PATH1.getConfig()).setType(
+                EStorage.BlobStore).setBlobCache(false).build();
+        IOTestHelper.testReadWritePages(uncachedConf);
+        final File data = new File(uncachedConf.mPath, ResourceConfiguration.Paths.Data.getFile().getName());
+        final File cache = new File(data, "cache");
+        assertTrue(!cache.exists() || cache.list().length == 0);
+    }
+
+    @Test
+    public void testContainerOfDatabase() throws AbsTTException {
+        // two databases with the same resource in one store
+        final Properties properties = new Properties();
+        properties.setProperty(FilesystemConstants.PROPERTY_BASEDIR, new File(PATHS.PATH1.getFile(), "shared")
+            .getAbsolutePath());
+        final ResourceConfiguration conf1 =
+            new ResourceConfiguration.Builder(TestHelper.RESOURCE, PATHS.PATH1.getConfig()).setType(
+                EStorage.BlobStore).setBlobStore(ResourceConfiguration.BLOBSTOREPROVIDER, properties).build();
+        final ResourceConfiguration conf2 =
+            new ResourceConfiguration.Builder(TestHelper.RESOURCE, PATHS.PATH2.getConfig()).setType(
+                EStorage.BlobStore).setBlobStore(ResourceConfiguration.BLOBSTOREPROVIDER, properties).build();
+        assertFalse(conf1.mBlobContainer.equals(conf2.mBlobContainer));
+        IOTestHelper.testReadWriteFirstRef(conf1);
+        final IStorage storage1 = EStorage.getStorage(conf1);
+        final IStorage storage2 = EStorage.getStorage(conf2);
+        assertTrue(storage1.exists());
+        assertFalse(storage2.exists());
+        storage1.close();
+        storage2.close();
+    }
+
+    @Test
+    public void testPropertiesOfSession() throws AbsTTException, IOException, ClassNotFoundException {
+        final IDatabase database = TestHelper.getDatabase(PATHS.PATH1.getFile());
+        final Properties properties = new Properties();
+        properties.setProperty("jclouds.identity", "identity");
+        properties.setProperty("jclouds.credential", "credential");
+        final ResourceConfiguration remoteConf =
+            new ResourceConfiguration.Builder("remote", PATHS.PATH1.getConfig()).setType(EStorage.BlobStore)
+                .setBlobStore("aws-s3", properties).build();
+        database.createResource(remoteConf);
+
+        // the credentials are not stored with the resource settings
+        final ObjectInputStream in = new ObjectInputStream(new FileInputStream(remoteConf.getConfigFile()));
+        final ResourceConfiguration stored = (ResourceConfiguration)in.readObject();
+        in.close();
+        assertNull(stored.mBlobStoreProperties);
+        try {
+            database.getSession(new SessionConfiguration.Builder("remote").build());
+            fail();
+        } catch (final TTUsageException exc) {
+            // properties missing
+        }
+
+        // the local file system needs none
+        final ResourceConfiguration localConf =
+            new ResourceConfiguration.Builder("local", PATHS.PATH1.getConfig()).setType(EStorage.BlobStore)
+                .build();
+        database.createResource(localConf);
+        final ISession session = database.getSession(new SessionConfiguration.Builder("local").build());
+        final INodeWriteTrx wtx = session.beginNodeWriteTransaction();
+        wtx.insertElementAsFirstChild(new QName("local"));
+        wtx.commit();
+        wtx.close();
+        session.close();
+    }
+
+    @After
+    public void tearDown() throws AbsTTException {
+        IOTestHelper.clean();
+    }
+
+}
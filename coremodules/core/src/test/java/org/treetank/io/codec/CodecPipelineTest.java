@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.io.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+import org.treetank.TestHelper;
+import org.treetank.TestHelper.PATHS;
+import org.treetank.access.conf.ResourceConfiguration;
+import org.treetank.exception.TTIOException;
+import org.treetank.utils.IConstants;
+
+public class CodecPipelineTest {
+
+    @Test
+    public void testRoundTrip() throws TTIOException {
+        final byte[] key = new byte[IConstants.ENCRYPTION_KEY_LENGTH];
+        new Random(1).nextBytes(key);
+        final ECodec[][] chains = {
+            {}, {
+                ECodec.None
+            }, {
+                ECodec.Fast
+            }, {
+                ECodec.Deflate
+            }, {
+                ECodec.Checksum
+            }, {
+                ECodec.Encryption
+            }, {
+                ECodec.Fast, ECodec.Encryption, ECodec.Checksum
+            }, {
+                ECodec.Deflate, ECodec.Checksum, ECodec.Encryption
+            }
+        };
+        for (final ECodec[] chain : chains) {
+            final CodecPipeline pipeline =
+                new CodecPipeline(getBuilder().setCodecs(chain).setEncryptionKey(key).setDeflateLevel(9).build());
+            for (final byte[] data : generateData()) {
+                final ByteBuffer encoded = pipeline.encode(ByteBuffer.wrap(data));
+                final byte[] stored = new byte[encoded.remaining()];
+                encoded.get(stored);
+                // direct buffers simulate memory mapped pages
+                final ByteBuffer direct = ByteBuffer.allocateDirect(stored.length);
+                direct.put(stored).flip();
+                final ByteBuffer decoded = pipeline.decode(direct);
+                final byte[] result = new byte[decoded.remaining()];
+                decoded.get(result);
+                assertArrayEquals(data, result);
+            }
+        }
+    }
+
+    @Test
+    public void testChecksumMismatch() throws TTIOException {
+        final CodecPipeline pipeline = new CodecPipeline(getBuilder().setCodecs(ECodec.Checksum).build());
+        final ByteBuffer encoded = pipeline.encode(ByteBuffer.wrap(new byte[] {
+            1, 2, 3
+        }));
+        final byte[] stored = new byte[encoded.remaining()];
+        encoded.get(stored);
+        stored[1]++;
+        try {
+            pipeline.decode(ByteBuffer.wrap(stored));
+            fail();
+        } catch (final TTIOException exc) {
+            assertEquals(TTIOException.class, exc.getClass());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEncryptionWithoutKey() {
+        getBuilder().setCodecs(ECodec.Encryption).build();
+    }
+
+    private static ResourceConfiguration.Builder getBuilder() {
+        return new ResourceConfiguration.Builder(TestHelper.RESOURCE, PATHS.PATH1.getConfig());
+    }
+
+    private static byte[][] generateData() {
+        final Random random = new Random(42);
+        final byte[] randomData = new byte[70000];
+        random.nextBytes(randomData);
+        final byte[] repetitive = new byte[100000];
+        for (int i = 0; i < repetitive.length; i++) {
+            repetitive[i] = (byte)(i % 7 == 0 ? random.nextInt(4) : i % 13);
+        }
+        return new byte[][] {
+            new byte[0], new byte[] {
+                5
+            }, new byte[] {
+                1, 2, 1, 2, 1, 2, 1, 2
+            }, randomData, repetitive
+        };
+    }
+
+}
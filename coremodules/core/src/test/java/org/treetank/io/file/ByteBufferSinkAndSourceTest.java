@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.io.file;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ByteBufferSinkAndSourceTest {
+
+    @Test
+    public void testVarLong() {
+        final long[] values = {
+            0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE, -1, Long.MIN_VALUE, Long.MAX_VALUE
+        };
+        final int[] lengths = {
+            1, 1, 1, 2, 2, 3, 5, 10, 10, 9
+        };
+        final ByteBufferSinkAndSource buffer = new ByteBufferSinkAndSource();
+        for (int i = 0; i < values.length; i++) {
+            final int start = buffer.position();
+            buffer.writeVarLong(values[i]);
+            assertEquals(lengths[i], buffer.position() - start);
+        }
+        final int end = buffer.position();
+        buffer.position(0);
+        for (final long value : values) {
+            assertEquals(value, buffer.readVarLong());
+        }
+        assertEquals(end, buffer.position());
+    }
+
+}
@@ -27,15 +27,37 @@
 
 package org.treetank.io.file;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.treetank.Holder;
 import org.treetank.TestHelper;
+import org.treetank.TestHelper.PATHS;
 import org.treetank.access.conf.ResourceConfiguration;
 import org.treetank.exception.AbsTTException;
+import org.treetank.exception.TTIOException;
+import org.treetank.io.EDurability;
 import org.treetank.io.EStorage;
 import org.treetank.io.IOTestHelper;
+import org.treetank.io.IReader;
+import org.treetank.io.IStorage;
+import org.treetank.io.ISyncListener;
+import org.treetank.io.IWriter;
+import org.treetank.io.SyncGroup;
+import org.treetank.metrics.MetricsRegistry;
+import org.treetank.page.PageReference;
+import org.treetank.page.UberPage;
 
 public class FileTest {
     private ResourceConfiguration resourceConf;
@@ -52,6 +74,121 @@ public class FileTest {
         IOTestHelper.testReadWriteFirstRef(resourceConf);
     }
 
+    @Test
+    public void testPages() throws AbsTTException {
+        IOTestHelper.testReadWritePages(resourceConf);
+    }
+
+    @Test
+    public void testPagesParallelCommit() throws AbsTTException {
+        final ResourceConfiguration parallelConf =
+            new ResourceConfiguration.Builder(TestHelper.RESOURCE, PATHS.PATH1.getConfig())
+                .setCommitThreads(4).build();
+        IOTestHelper.testReadWritePages(parallelConf);
+    }
+
+    @Test
+    public void testPagesFsync() throws AbsTTException {
+        final ResourceConfiguration syncConf =
+            new ResourceConfiguration.Builder(TestHelper.RESOURCE, PATHS.PATH1.getConfig()).setDurability(
+                EDurability.Fsync).build();
+        IOTestHelper.testReadWritePages(syncConf);
+    }
+
+    @Test
+    public void testPagesGroupCommit() throws AbsTTException {
+        final ResourceConfiguration groupConf =
+            new ResourceConfiguration.Builder(TestHelper.RESOURCE, PATHS.PATH1.getConfig()).setDurability(
+                EDurability.GroupCommit).setGroupCommitWindow(1).build();
+        IOTestHelper.testReadWritePages(groupConf);
+    }
+
+    @Test
+    public void testGroupCommitWaitsOnce() throws AbsTTException {
+        final long window = 400;
+        final ResourceConfiguration groupConf =
+            new ResourceConfiguration.Builder(TestHelper.RESOURCE, PATHS.PATH1.getConfig()).setType(
+                EStorage.File).setDurability(EDurability.GroupCommit).setGroupCommitWindow(window).build();
+        final List<Long> waits = new CopyOnWriteArrayList<Long>();
+        final SyncGroup group = new SyncGroup();
+        group.addListener(new ISyncListener() {
+            @Override
+            public void synced(final File pResource, final long pNanos) {
+                waits.add(pNanos);
+            }
+        });
+        final IStorage fac = EStorage.getStorage(groupConf, group, new MetricsRegistry());
+        final IWriter writer = fac.getWriter();
+        final PageReference ref = new PageReference();
+        ref.setPage(new UberPage());
+        writer.writeFirstReference(ref);
+        writer.close();
+        fac.close();
+
+        // data and beacon are forced, but the window is waited for once only
+        assertEquals(1, waits.size());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(waits.get(0)) >= window);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(waits.get(0)) < 2 * window);
+    }
+
+    @Test
+    public void testPagesSegmented() throws AbsTTException {
+        final ResourceConfiguration segmentedConf =
+            new ResourceConfiguration.Builder(TestHelper.RESOURCE, PATHS.PATH1.getConfig()).setSegmentSize(
+                1024).build();
+        IOTestHelper.testReadWritePages(segmentedConf);
+        final File data = new File(segmentedConf.mPath, ResourceConfiguration.Paths.Data.getFile().getName());
+        assertTrue(SegmentFiles.getLastSegment(data) > 0);
+        assertTrue(SegmentFiles.getFile(data, 1).exists());
+    }
+
+    @Test
+    public void testPagesSegmentedMemoryMapped() throws AbsTTException {
+        final ResourceConfiguration segmentedConf =
+            new ResourceConfiguration.Builder(TestHelper.RESOURCE, PATHS.PATH1.getConfig()).setSegmentSize(
+                1024).setMemoryMapped(true).build();
+        IOTestHelper.testReadWritePages(segmentedConf);
+    }
+
+    @Test
+    public void testFirstRefMemoryMapped() throws AbsTTException {
+        final ResourceConfiguration mappedConf =
+            new ResourceConfiguration.Builder(TestHelper.RESOURCE, PATHS.PATH1.getConfig()).setMemoryMapped(
+                true).build();
+        IOTestHelper.testReadWriteFirstRef(mappedConf);
+    }
+
+    @Test
+    public void testLegacyLayout() throws AbsTTException, IOException {
+        // beacon of the single file layout, offset and length of the uber page followed by the pages
+        final File beacon =
+            new File(new File(resourceConf.mPath, ResourceConfiguration.Paths.Data.getFile().getName()),
+                "tt.tnk");
+        final RandomAccessFile file = new RandomAccessFile(beacon, "rw");
+        file.writeLong(12);
+        file.writeInt(64);
+        file.write(new byte[64]);
+        file.close();
+
+        final IStorage fac = EStorage.getStorage(resourceConf);
+        assertTrue(fac.exists());
+        final IReader reader = fac.getReader();
+        try {
+            reader.readFirstReference();
+            fail();
+        } catch (final TTIOException exc) {
+            assertTrue(exc.getCause().getMessage().contains("single file layout"));
+        }
+        try {
+            fac.getWriter();
+            fail();
+        } catch (final TTIOException exc) {
+            assertTrue(exc.getCause().getMessage().contains("single file layout"));
+        }
+        reader.close();
+        fac.close();
+    }
+
     @After
     public void tearDown() throws AbsTTException {
         IOTestHelper.clean();
@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.io.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.treetank.Holder;
+import org.treetank.TestHelper;
+import org.treetank.TestHelper.PATHS;
+import org.treetank.access.conf.ResourceConfiguration;
+import org.treetank.exception.AbsTTException;
+import org.treetank.io.EStorage;
+import org.treetank.io.IOTestHelper;
+import org.treetank.io.IReader;
+import org.treetank.io.IStorage;
+import org.treetank.io.IWriter;
+import org.treetank.page.PageReference;
+import org.treetank.page.UberPage;
+
+public class MemoryTest {
+
+    private ResourceConfiguration resourceConf;
+
+    @Before
+    public void setUp() throws AbsTTException {
+        TestHelper.deleteEverything();
+        Holder.generateSession().close();
+        resourceConf = IOTestHelper.registerIO(EStorage.Memory);
+    }
+
+    @Test
+    public void testFirstRef() throws AbsTTException {
+        IOTestHelper.testReadWriteFirstRef(resourceConf);
+    }
+
+    @Test
+    public void testPages() throws AbsTTException {
+        IOTestHelper.testReadWritePages(resourceConf);
+    }
+
+    @Test
+    public void testSnapshot() throws AbsTTException {
+        final ResourceConfiguration snapshotConf =
+            new ResourceConfiguration.Builder(TestHelper.RESOURCE, PATHS.PATH1.getConfig()).setType(
+                EStorage.Memory).setSnapshot(true).build();
+        final IStorage fac = EStorage.getStorage(snapshotConf);
+        assertFalse(fac.exists());
+        final IWriter writer = fac.getWriter();
+        final PageReference uberRef = new PageReference();
+        uberRef.setPage(new UberPage());
+        writer.writeFirstReference(uberRef);
+        writer.close();
+        fac.close();
+
+        final IStorage snapshotFac = EStorage.getStorage(snapshotConf);
+        assertTrue(snapshotFac.exists());
+        final IReader reader = snapshotFac.getReader();
+        assertEquals(uberRef.getKey().getIdentifier(), reader.readFirstReference().getKey().getIdentifier());
+        reader.close();
+        snapshotFac.truncate();
+        assertFalse(snapshotFac.exists());
+        snapshotFac.close();
+
+        // without snapshot, nothing survives the storage
+        final IStorage emptyFac = EStorage.getStorage(resourceConf);
+        assertFalse(emptyFac.exists());
+        emptyFac.close();
+    }
+
+    @After
+    public void tearDown() throws AbsTTException {
+        IOTestHelper.clean();
+    }
+
+}
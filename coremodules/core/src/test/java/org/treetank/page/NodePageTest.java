@@ -28,6 +28,10 @@
 package org.treetank.page;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 
@@ -38,6 +42,7 @@ import org.treetank.node.delegates.NameNodeDelegate;
 import org.treetank.node.delegates.NodeDelegate;
 import org.treetank.node.delegates.StructNodeDelegate;
 import org.treetank.node.interfaces.INameNode;
+import org.treetank.utils.IConstants;
 import org.treetank.utils.NamePageHash;
 
 @Deprecated
@@ -87,4 +92,89 @@ public class NodePageTest {
                 ((ElementNode) page2.getNode(0)).getTypeKey());
 
     }
+
+    @Test
+    public void testCompactEncoding() {
+        final NodePage page1 = new NodePage(1000L, 0L);
+        for (int i = 0; i < IConstants.NDP_NODE_COUNT; i += 2) {
+            final long key = (1000L << IConstants.NDP_NODE_COUNT_EXPONENT) + i;
+            final NodeDelegate del = new NodeDelegate(key, key - 1, 0);
+            final StructNodeDelegate strucDel = new StructNodeDelegate(del,
+                    org.treetank.node.IConstants.NULL_NODE, key + 2,
+                    org.treetank.node.IConstants.NULL_NODE, 0);
+            page1.setNode(i, new ElementNode(del, strucDel,
+                    new NameNodeDelegate(del, 6, 0), new ArrayList<Long>(),
+                    new ArrayList<Long>()));
+        }
+
+        final ByteBufferSinkAndSource out = new ByteBufferSinkAndSource();
+        PagePersistenter.serializePage(out, page1);
+        // the fixed-width format needs an int per slot plus 7 longs and 4 ints per element
+        final int fixedWidth = IConstants.NDP_NODE_COUNT * 4 + 64 * (7 * 8 + 4 * 4);
+        assertTrue(out.position() * 3 < fixedWidth);
+
+        out.position(0);
+        final NodePage page2 = (NodePage) PagePersistenter.createPage(out);
+        for (int i = 0; i < IConstants.NDP_NODE_COUNT; i++) {
+            if (i % 2 == 1) {
+                assertNull(page2.getNode(i));
+            } else {
+                final ElementNode node = (ElementNode) page2.getNode(i);
+                assertEquals(page1.getNode(i).getNodeKey(), node.getNodeKey());
+                assertEquals(node.getNodeKey() - 1, node.getParentKey());
+                assertEquals(node.getNodeKey() + 2, node.getRightSiblingKey());
+                assertEquals(org.treetank.node.IConstants.NULL_NODE,
+                        node.getFirstChildKey());
+                assertEquals(org.treetank.node.IConstants.NULL_NODE,
+                        node.getLeftSiblingKey());
+            }
+        }
+    }
+
+    @Test
+    public void testLazyDecoding() {
+        final NodePage page1 = new NodePage(0L, 0L);
+        for (int i = 0; i < IConstants.NDP_NODE_COUNT; i += 3) {
+            final NodeDelegate del = new NodeDelegate(i, 0, 0);
+            final StructNodeDelegate strucDel = new StructNodeDelegate(del,
+                    org.treetank.node.IConstants.NULL_NODE,
+                    org.treetank.node.IConstants.NULL_NODE,
+                    org.treetank.node.IConstants.NULL_NODE, 0);
+            page1.setNode(i, new ElementNode(del, strucDel,
+                    new NameNodeDelegate(del, i, 0), new ArrayList<Long>(),
+                    new ArrayList<Long>()));
+        }
+        final ByteBufferSinkAndSource out = new ByteBufferSinkAndSource();
+        PagePersistenter.serializePage(out, page1);
+        final int length = out.position();
+
+        out.position(0);
+        final NodePage page2 = (NodePage) PagePersistenter.createPage(out);
+        assertEquals(length, out.position());
+        assertTrue(page2.hasNode(3));
+        assertFalse(page2.hasNode(4));
+        assertSame(page2.getNode(3), page2.getNode(3));
+        assertEquals(3, ((INameNode) page2.getNode(3)).getNameKey());
+
+        // slots not decoded are copied as they are
+        final NodePage page3 = new NodePage(0L, 0L);
+        for (int i = 0; i < IConstants.NDP_NODE_COUNT; i++) {
+            page3.copyNode(i, page2);
+        }
+        final ByteBufferSinkAndSource copy = new ByteBufferSinkAndSource();
+        PagePersistenter.serializePage(copy, page3);
+        assertEquals(length, copy.position());
+        assertEquals(page1, page3);
+
+        // decoded slots are encoded again with their modifications
+        ((ElementNode) page3.getNode(6)).setRightSiblingKey(9L);
+        page3.setNode(9, null);
+        final ByteBufferSinkAndSource modified = new ByteBufferSinkAndSource();
+        PagePersistenter.serializePage(modified, page3);
+        modified.position(0);
+        final NodePage page4 = (NodePage) PagePersistenter.createPage(modified);
+        assertEquals(9L, ((ElementNode) page4.getNode(6)).getRightSiblingKey());
+        assertFalse(page4.hasNode(9));
+        assertEquals(12L, page4.getNode(12).getNodeKey());
+    }
 }
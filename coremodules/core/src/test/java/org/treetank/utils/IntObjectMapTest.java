@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class IntObjectMapTest {
+
+    @Test
+    public void testPutAndGet() {
+        final IntObjectMap<String> map = new IntObjectMap<String>();
+        assertNull(map.get(0));
+        for (int i = 0; i < 1000; i++) {
+            // keys sharing their lowest bits, like the name keys of one name page
+            assertNull(map.put(i << 7, Integer.toString(i)));
+        }
+        assertEquals(1000, map.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(Integer.toString(i), map.get(i << 7));
+        }
+        assertNull(map.get(1));
+        assertEquals("0", map.put(0, "zero"));
+        assertEquals("zero", map.get(0));
+        assertEquals(1000, map.size());
+    }
+
+    @Test
+    public void testKeys() {
+        final IntObjectMap<String> map = new IntObjectMap<String>(2);
+        map.put(-5, "a");
+        map.put(Integer.MAX_VALUE, "b");
+        map.put(Integer.MIN_VALUE, "c");
+        final int[] keys = map.keys();
+        Arrays.sort(keys);
+        assertArrayEquals(new int[] {
+            Integer.MIN_VALUE, -5, Integer.MAX_VALUE
+        }, keys);
+        assertEquals("{-2147483648=c, -5=a, 2147483647=b}", map.toString());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullValue() {
+        new IntObjectMap<String>().put(1, null);
+    }
+
+}
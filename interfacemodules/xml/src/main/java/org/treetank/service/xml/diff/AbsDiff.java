@@ -105,6 +105,8 @@ abstract class AbsDiff extends AbsDiffObservable {
         synchronized (paramBuilder.mSession) {
             mNewRtx = paramBuilder.mSession.beginNodeReadTransaction(paramBuilder.mNewRev);
             mOldRtx = paramBuilder.mSession.beginNodeReadTransaction(paramBuilder.mOldRev);
+            mNewRtx.setScan(true);
+            mOldRtx.setScan(true);
             mHashKind = HashKind.Postorder;
         }
         mNewRtx.moveTo(paramBuilder.mKey);
@@ -119,6 +119,8 @@ abstract class AbsSerializer implements Callable<Void> {
         for (long i = 0; versionsToUse == null ? i < lastRevisionNumber : i < versionsToUse.length; i++) {
 
             rtx = mSession.beginNodeReadTransaction(versionsToUse == null ? i : versionsToUse[(int)i]);
+            // the pages read once must not displace the pages cached for other transactions
+            rtx.setScan(true);
             if (versionsToUse == null || mVersions.length > 1) {
                 emitStartManualElement(i);
             }
@@ -37,6 +37,7 @@ import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.util.concurrent.ConcurrentMap;
@@ -53,6 +54,7 @@ import org.treetank.node.interfaces.INameNode;
 import org.treetank.node.interfaces.IStructNode;
 import org.treetank.settings.ECharsForSerializing;
 import org.treetank.utils.IConstants;
+import org.treetank.utils.IntObjectMap;
 
 /**
  * <h1>XMLSerializer</h1>
@@ -75,9 +77,21 @@ public final class XMLSerializer extends AbsSerializer {
         10000000000000000L, 100000000000000000L, 1000000000000000000L
     };
 
+    /** Size of the buffer values are streamed through. */
+    private static final int VALUE_BUFFER_SIZE = 8192;
+
     /** OutputStream to write to. */
     private final OutputStream mOut;
 
+    /** Encoded "&lt;name" of the element names, identified by their name keys. */
+    private final IntObjectMap<byte[]> mStartTags;
+
+    /** Encoded "&lt;/name&gt;" of the element names, identified by their name keys. */
+    private final IntObjectMap<byte[]> mEndTags;
+
+    /** Encoded " name=\"" of the attribute names, identified by their name keys. */
+    private final IntObjectMap<byte[]> mAttributeNames;
+
     /** Indent output. */
     private final boolean mIndent;
 
@@ -110,6 +124,9 @@ public final class XMLSerializer extends AbsSerializer {
         final XMLSerializerBuilder paramBuilder, final long... paramVersions) {
         super(paramSession, paramNodeKey, paramVersions);
         mOut = new BufferedOutputStream(paramBuilder.mStream, 4096);
+        mStartTags = new IntObjectMap<byte[]>();
+        mEndTags = new IntObjectMap<byte[]>();
+        mAttributeNames = new IntObjectMap<byte[]>();
         mIndent = paramBuilder.mIndent;
         mSerializeXMLDeclaration = paramBuilder.mDeclaration;
         mSerializeRest = paramBuilder.mREST;
@@ -133,8 +150,8 @@ public final class XMLSerializer extends AbsSerializer {
                 // Emit start element.
                 indent();
                 final INameNode namenode = (INameNode)paramRTX.getNode();
-                mOut.write(ECharsForSerializing.OPEN.getBytes());
-                mOut.write(paramRTX.rawNameForKey(namenode.getNameKey()));
+                mOut.write(fragment(mStartTags, paramRTX, namenode.getNameKey(), ECharsForSerializing.OPEN,
+                    null));
                 final long key = paramRTX.getNode().getNodeKey();
                 // Emit namespace declarations.
                 for (int index = 0, length = ((ElementNode)namenode).getNamespaceCount(); index < length; index++) {
@@ -169,10 +186,9 @@ public final class XMLSerializer extends AbsSerializer {
                 // Iterate over all persistent attributes.
                 for (int index = 0; index < ((ElementNode)paramRTX.getNode()).getAttributeCount(); index++) {
                     paramRTX.moveToAttribute(index);
-                    mOut.write(ECharsForSerializing.SPACE.getBytes());
-                    mOut.write(paramRTX.rawNameForKey(((INameNode)paramRTX.getNode()).getNameKey()));
-                    mOut.write(ECharsForSerializing.EQUAL_QUOTE.getBytes());
-                    mOut.write(paramRTX.getValueOfCurrentNode().getBytes());
+                    mOut.write(fragment(mAttributeNames, paramRTX, ((INameNode)paramRTX.getNode())
+                        .getNameKey(), ECharsForSerializing.SPACE, ECharsForSerializing.EQUAL_QUOTE));
+                    writeValue(paramRTX);
                     mOut.write(ECharsForSerializing.QUOTE.getBytes());
                     paramRTX.moveTo(key);
                 }
@@ -187,7 +203,7 @@ public final class XMLSerializer extends AbsSerializer {
                 break;
             case TEXT_KIND:
                 indent();
-                mOut.write(paramRTX.getValueOfCurrentNode().getBytes());
+                writeValue(paramRTX);
                 if (mIndent) {
                     mOut.write(ECharsForSerializing.NEWLINE.getBytes());
                 }
@@ -208,9 +224,8 @@ public final class XMLSerializer extends AbsSerializer {
     protected void emitEndElement(final INodeReadTrx paramRTX) {
         try {
             indent();
-            mOut.write(ECharsForSerializing.OPEN_SLASH.getBytes());
-            mOut.write(paramRTX.rawNameForKey(((INameNode)paramRTX.getNode()).getNameKey()));
-            mOut.write(ECharsForSerializing.CLOSE.getBytes());
+            mOut.write(fragment(mEndTags, paramRTX, ((INameNode)paramRTX.getNode()).getNameKey(),
+                ECharsForSerializing.OPEN_SLASH, ECharsForSerializing.CLOSE));
             if (mIndent) {
                 mOut.write(ECharsForSerializing.NEWLINE.getBytes());
             }
@@ -299,6 +314,61 @@ public final class XMLSerializer extends AbsSerializer {
         mOut.write(mString.getBytes(IConstants.DEFAULT_ENCODING));
     }
 
+    /**
+     * Getting an encoded name enclosed by markup. Fragments are built once per
+     * name key, so serializing a name costs a single write.
+     * 
+     * @param paramFragments
+     *            fragments built so far
+     * @param paramRTX
+     *            transaction to look up the name with
+     * @param paramNameKey
+     *            key of the name
+     * @param paramPrefix
+     *            markup before the name
+     * @param paramSuffix
+     *            markup after the name, null for none
+     * @return the fragment
+     */
+    private static byte[] fragment(final IntObjectMap<byte[]> paramFragments, final INodeReadTrx paramRTX,
+        final int paramNameKey, final ECharsForSerializing paramPrefix,
+        final ECharsForSerializing paramSuffix) {
+        byte[] fragment = paramFragments.get(paramNameKey);
+        if (fragment == null) {
+            final byte[] prefix = paramPrefix.getBytes();
+            final byte[] name = paramRTX.rawNameForKey(paramNameKey);
+            final byte[] suffix = paramSuffix == null ? new byte[0] : paramSuffix.getBytes();
+            fragment = new byte[prefix.length + name.length + suffix.length];
+            System.arraycopy(prefix, 0, fragment, 0, prefix.length);
+            System.arraycopy(name, 0, fragment, prefix.length, name.length);
+            System.arraycopy(suffix, 0, fragment, prefix.length + name.length, suffix.length);
+            paramFragments.put(paramNameKey, fragment);
+        }
+        return fragment;
+    }
+
+    /**
+     * Write value of the current node, streamed in chunks so that large values
+     * are never materialized as a whole.
+     * 
+     * @param paramRTX
+     *            transaction located at the node
+     * @throws IOException
+     *             if can't read the value or write to the output
+     */
+    private void writeValue(final INodeReadTrx paramRTX) throws IOException {
+        final InputStream value = paramRTX.getValueStreamOfCurrentNode();
+        try {
+            final byte[] buffer = new byte[VALUE_BUFFER_SIZE];
+            int read;
+            while ((read = value.read(buffer)) != -1) {
+                mOut.write(buffer, 0, read);
+            }
+        } finally {
+            value.close();
+        }
+    }
+
     /**
      * Write non-negative non-zero long as UTF-8 bytes.
      * 